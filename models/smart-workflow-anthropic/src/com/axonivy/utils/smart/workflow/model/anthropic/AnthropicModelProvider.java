@@ -1,6 +1,7 @@
 package com.axonivy.utils.smart.workflow.model.anthropic;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import com.axonivy.utils.smart.workflow.model.anthropic.internal.AnthropicServiceConnector;
@@ -8,8 +9,10 @@ import com.axonivy.utils.smart.workflow.model.anthropic.internal.AnthropicServic
 import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
 
 import dev.langchain4j.model.anthropic.AnthropicChatModelName;
+import dev.langchain4j.model.anthropic.AnthropicTokenUsage;
 import dev.langchain4j.model.chat.Capability;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.output.TokenUsage;
 
 public class AnthropicModelProvider implements ChatModelProvider {
 
@@ -30,6 +33,14 @@ public class AnthropicModelProvider implements ChatModelProvider {
     return builder.build();
   }
 
+  @Override
+  public Optional<Integer> cachedInputTokens(TokenUsage usage) {
+    if (usage instanceof AnthropicTokenUsage anthropic) {
+      return Optional.ofNullable(anthropic.cacheReadInputTokens());
+    }
+    return Optional.empty();
+  }
+
   @Override
   public List<String> models() {
     return Stream.of(AnthropicChatModelName.values())
@@ -41,5 +52,10 @@ public class AnthropicModelProvider implements ChatModelProvider {
   public List<String> secretsVars() {
     return List.of(AnthropicConf.API_KEY);
   }
+
+  @Override
+  public List<String> modelVars() {
+    return List.of(AnthropicConf.BASE_URL, AnthropicConf.API_KEY, AnthropicConf.DEFAULT_MODEL, AnthropicConf.PROMPT_CACHING);
+  }
   
 }
\ No newline at end of file
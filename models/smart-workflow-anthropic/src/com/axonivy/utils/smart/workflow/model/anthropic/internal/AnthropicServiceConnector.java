@@ -6,6 +6,7 @@ import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.client.SmartHttpClientBuilderFactory;
+import com.axonivy.utils.smart.workflow.model.anthropic.AnthropicModelProvider;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.model.anthropic.AnthropicChatModel;
@@ -27,6 +28,7 @@ public class AnthropicServiceConnector {
     String BASE_URL = PREFIX + "BaseUrl";
     String API_KEY = PREFIX + "APIKey";
     String DEFAULT_MODEL = PREFIX + "DefaultModel";
+    String PROMPT_CACHING = PREFIX + "PromptCaching";
   }
 
   public static AnthropicChatModelBuilder buildAnthropicModel() {
@@ -47,7 +49,7 @@ public class AnthropicServiceConnector {
 
   private static AnthropicChatModelBuilder initBuilder() {
     AnthropicChatModelBuilder builder = AnthropicChatModel.builder()
-        .httpClientBuilder(new SmartHttpClientBuilderFactory().create())
+        .httpClientBuilder(new SmartHttpClientBuilderFactory(AnthropicModelProvider.NAME).create())
         .logRequests(true)
         .logResponses(true);
     var baseUrl = Ivy.var().get(AnthropicConf.BASE_URL);
@@ -58,6 +60,9 @@ public class AnthropicServiceConnector {
     if (!key.isBlank()) {
       builder.apiKey(key);
     }
+    if (Boolean.parseBoolean(Ivy.var().get(AnthropicConf.PROMPT_CACHING))) {
+      builder.cacheSystemMessages(true).cacheTools(true);
+    }
     return builder;
   }
 
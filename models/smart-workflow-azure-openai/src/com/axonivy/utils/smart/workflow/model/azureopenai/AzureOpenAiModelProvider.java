@@ -54,4 +54,11 @@ public class AzureOpenAiModelProvider implements ChatModelProvider {
       .map(var -> var + "." + AzureOpenAiConf.API_KEY_FIELD)
       .toList();
   }
+
+  @Override
+  public List<String> modelVars() {
+    var vars = new ArrayList<>(List.of(AzureOpenAiConf.ENDPOINT, AzureOpenAiConf.DEFAULT_DEPLOYMENT));
+    VariableUtils.deploymentsVars().forEach(variable -> vars.add(variable.name()));
+    return vars;
+  }
 }
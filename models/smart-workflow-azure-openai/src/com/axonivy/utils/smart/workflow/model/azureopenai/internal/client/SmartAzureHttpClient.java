@@ -15,6 +15,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedHashMap;
 import jakarta.ws.rs.core.Response;
 
+import com.axonivy.utils.smart.workflow.client.ProviderRateLimiter;
 import com.azure.core.http.HttpClient;
 import com.azure.core.http.HttpHeader;
 import com.azure.core.http.HttpHeaderName;
@@ -46,9 +47,18 @@ public class SmartAzureHttpClient implements HttpClient {
   private static final String CONTENT_LENGTH = "Content-Length";
 
   private final WebTarget target;
+  private final String provider;
 
   public SmartAzureHttpClient(WebTarget target) {
-    this.target = target;
+    this(target, null);
+  }
+
+  /**
+   * @param provider name of the model provider, whose {@link ProviderRateLimiter} governs the calls.
+   */
+  public SmartAzureHttpClient(WebTarget target, String provider) {
+    this.target = UriFilter.register(target);
+    this.provider = provider;
   }
 
   /**
@@ -62,6 +72,10 @@ public class SmartAzureHttpClient implements HttpClient {
     return Mono.fromCallable(() -> sendSync(request, Context.NONE));
   }
 
+  /**
+   * Like {@code SmartHttpClient}, the rate limiter slot is held until the response body is consumed: the body is
+   * buffered before the permit is released, so a slow download still counts as an in-flight call.
+   */
   @Override
   public HttpResponse sendSync(HttpRequest request, Context context) {
     var headers = new MultivaluedHashMap<String, Object>();
@@ -80,32 +94,42 @@ public class SmartAzureHttpClient implements HttpClient {
     }
 
     BinaryData body = request.getBodyAsBinaryData();
-    Entity<String> entity = body == null ? null : Entity.entity(body.toString(), contentType);
-
-    target.register(new UriFilter(request.getUrl().toString()), Priorities.AUTHENTICATION);
-    Response response = target
-        .request()
-        .headers(headers)
-        .method(request.getHttpMethod().name(), entity);
-
-    return new JerseyHttpResponse(request, response);
+    String payload = body == null ? null : body.toString();
+    Entity<String> entity = payload == null ? null : Entity.entity(payload, contentType);
+
+    try (var permit = ProviderRateLimiter.of(provider).acquire(payload)) {
+      Response response = target
+          .request()
+          .property(UriFilter.URL, request.getUrl().toString())
+          .headers(headers)
+          .method(request.getHttpMethod().name(), entity);
+
+      var buffered = new JerseyHttpResponse(request, response);
+      permit.observe(buffered.getStatusCode(), buffered::getHeaderValue);
+      return buffered;
+    }
   }
 
   /**
    * Overrides the URI resolved from rest-clients.yaml with the absolute Azure endpoint
-   * URL of the current request.
+   * URL of the current request, passed as invocation property. The filter is registered
+   * once on a target of this client's own, as pooled models share their client.
    */
   private static final class UriFilter implements ClientRequestFilter {
 
-    private final String url;
+    private static final String URL = UriFilter.class.getName() + ".url";
 
-    private UriFilter(String url) {
-      this.url = url;
+    private UriFilter() {}
+
+    private static WebTarget register(WebTarget target) {
+      return target.path("").register(new UriFilter(), Priorities.AUTHENTICATION);
     }
 
     @Override
     public void filter(ClientRequestContext requestContext) throws IOException {
-      requestContext.setUri(URI.create(url));
+      if (requestContext.getProperty(URL) instanceof String url) {
+        requestContext.setUri(URI.create(url));
+      }
     }
   }
 
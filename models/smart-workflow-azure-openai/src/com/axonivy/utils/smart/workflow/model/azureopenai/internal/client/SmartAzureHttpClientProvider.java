@@ -2,6 +2,7 @@ package com.axonivy.utils.smart.workflow.model.azureopenai.internal.client;
 
 import jakarta.ws.rs.client.WebTarget;
 
+import com.axonivy.utils.smart.workflow.model.azureopenai.AzureOpenAiModelProvider;
 import com.azure.core.http.HttpClient;
 import com.azure.core.http.HttpClientProvider;
 import com.azure.core.util.HttpClientOptions;
@@ -20,7 +21,7 @@ public class SmartAzureHttpClientProvider implements HttpClientProvider {
 
   @Override
   public HttpClient createInstance() {
-    return new SmartAzureHttpClient(client());
+    return new SmartAzureHttpClient(client(), AzureOpenAiModelProvider.NAME);
   }
 
   /**
@@ -36,7 +37,7 @@ public class SmartAzureHttpClientProvider implements HttpClientProvider {
       target.property(CONNECT_TIMEOUT, clientOptions.getConnectTimeout().toMillis());
       target.property(READ_TIMEOUT, clientOptions.getReadTimeout().toMillis());
     }
-    return new SmartAzureHttpClient(target);
+    return new SmartAzureHttpClient(target, AzureOpenAiModelProvider.NAME);
   }
 
   private static WebTarget client() {
@@ -45,4 +45,9 @@ public class GeminiModelProvider implements ChatModelProvider {
     return List.of(GeminiConf.API_KEY);
   }
 
+  @Override
+  public List<String> modelVars() {
+    return List.of(GeminiConf.BASE_URL, GeminiConf.API_KEY, GeminiConf.DEFAULT_MODEL);
+  }
+
 }
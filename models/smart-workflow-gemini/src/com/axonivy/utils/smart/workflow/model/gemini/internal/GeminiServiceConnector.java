@@ -5,6 +5,7 @@ import java.util.Arrays;
 import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.client.SmartHttpClientBuilderFactory;
+import com.axonivy.utils.smart.workflow.model.gemini.GeminiModelProvider;
 import com.axonivy.utils.smart.workflow.model.gemini.internal.enums.GoogleAiGeminiChatModelName;
 
 import ch.ivyteam.ivy.environment.Ivy;
@@ -39,7 +40,7 @@ public class GeminiServiceConnector {
 
   private static GoogleAiGeminiChatModelBuilder initBuilder() {
     GoogleAiGeminiChatModelBuilder builder = GoogleAiGeminiChatModel.builder()
-        .httpClientBuilder(new SmartHttpClientBuilderFactory().create()).logRequestsAndResponses(true);
+        .httpClientBuilder(new SmartHttpClientBuilderFactory(GeminiModelProvider.NAME).create()).logRequestsAndResponses(true);
 
     var baseUrl = Ivy.var().get(GeminiConf.BASE_URL);
     if (!baseUrl.isBlank()) {
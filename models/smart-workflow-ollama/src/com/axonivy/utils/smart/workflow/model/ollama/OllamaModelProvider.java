@@ -44,6 +44,11 @@ public class OllamaModelProvider implements ChatModelProvider {
     return List.of();
   }
 
+  @Override
+  public List<String> modelVars() {
+    return List.of(OllamaConf.BASE_URL, OllamaConf.DEFAULT_MODEL, OllamaConf.TIMEOUT_SECONDS);
+  }
+
   @Override
   public boolean supportsEmbedding() {
     return true;
@@ -5,6 +5,7 @@ import java.time.Duration;
 import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.client.SmartHttpClientBuilderFactory;
+import com.axonivy.utils.smart.workflow.model.ollama.OllamaModelProvider;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.http.client.HttpClientBuilder;
@@ -41,7 +42,7 @@ public class OllamaServiceConnector {
   }
 
   public static HttpClientBuilder httpClientBuilder() {
-    return new SmartHttpClientBuilderFactory().create();
+    return new SmartHttpClientBuilderFactory(OllamaModelProvider.NAME).create();
   }
 
   public static String baseUrl() {
@@ -12,9 +12,14 @@ import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModelName;
+import dev.langchain4j.model.openai.OpenAiChatRequestParameters;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
 
 public class OpenAiModelProvider implements ChatModelProvider {
 
@@ -36,6 +41,29 @@ public class OpenAiModelProvider implements ChatModelProvider {
     return builder.build();
   }
 
+  @Override
+  public Optional<Integer> cachedInputTokens(TokenUsage usage) {
+    if (usage instanceof OpenAiTokenUsage openAi && openAi.inputTokensDetails() != null) {
+      return Optional.ofNullable(openAi.inputTokensDetails().cachedTokens());
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<Integer> seed(ChatRequestParameters parameters) {
+    if (parameters instanceof OpenAiChatRequestParameters openAi) {
+      return Optional.ofNullable(openAi.seed());
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<StreamingChatModel> setupStreaming(ModelOptions options) {
+    var builder = OpenAiServiceConnector.buildOpenAiStreamingModel(options.modelName());
+    builder.listeners(options.listeners());
+    return Optional.of(builder.build());
+  }
+
   @Override
   public List<String> models() {
     return Stream.of(OpenAiChatModelName.values())
@@ -48,6 +76,11 @@ public class OpenAiModelProvider implements ChatModelProvider {
     return List.of(OpenAiConf.API_KEY);
   }
 
+  @Override
+  public List<String> modelVars() {
+    return List.of(OpenAiConf.BASE_URL, OpenAiConf.API_KEY, OpenAiConf.DEFAULT_MODEL);
+  }
+
   @Override
   public boolean supportsEmbedding() {
     return true;
@@ -3,11 +3,13 @@ package com.axonivy.utils.smart.workflow.model.openai.internal;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 
 import com.axonivy.utils.smart.workflow.client.SmartHttpClientBuilderFactory;
+import com.axonivy.utils.smart.workflow.model.openai.OpenAiModelProvider;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.model.chat.Capability;
@@ -15,6 +17,8 @@ import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel.OpenAiChatModelBuilder;
 import dev.langchain4j.model.openai.OpenAiChatModelName;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel.OpenAiStreamingChatModelBuilder;
 
 public class OpenAiServiceConnector {
 
@@ -52,16 +56,28 @@ public class OpenAiServiceConnector {
         .strictJsonSchema(true);
   }
 
+  public static OpenAiStreamingChatModelBuilder buildOpenAiStreamingModel(String modelName) {
+    OpenAiStreamingChatModelBuilder builder = OpenAiStreamingChatModel.builder()
+        .httpClientBuilder(new SmartHttpClientBuilderFactory(OpenAiModelProvider.NAME).create())
+        .defaultRequestParameters(requestParameters(resolveModelName(modelName)))
+        .logRequests(true)
+        .logResponses(true);
+    connect(builder::baseUrl, builder::apiKey, builder::customHeaders);
+    return builder;
+  }
+
   private static OpenAiChatModelBuilder initBuilder(String modelName) {
     OpenAiChatModelBuilder model = initBuilder();
-    
+    model.defaultRequestParameters(requestParameters(modelName));
+    return model;
+  }
+
+  private static ChatRequestParameters requestParameters(String modelName) {
     var request = ChatRequestParameters.builder()
       .modelName(modelName);
     temperature(modelName)
       .ifPresent(request::temperature);
-    model.defaultRequestParameters(request.build()); 
-    
-    return model;
+    return request.build();
   }
 
   private static Optional<Double> temperature(String modelName) {
@@ -77,20 +93,27 @@ public class OpenAiServiceConnector {
 
   private static OpenAiChatModelBuilder initBuilder() {
     OpenAiChatModelBuilder builder = OpenAiChatModel.builder()
-        .httpClientBuilder(new SmartHttpClientBuilderFactory().create())
+        .httpClientBuilder(new SmartHttpClientBuilderFactory(OpenAiModelProvider.NAME).create())
         .logRequests(true)
         .logResponses(true);
-    var baseUrl = Ivy.var().get(OpenAiConf.BASE_URL);
-    if (!baseUrl.isBlank()) {
-      builder.baseUrl(baseUrl);
+    connect(builder::baseUrl, builder::apiKey, builder::customHeaders);
+    return builder;
+  }
+
+  /**
+   * Applies the configured endpoint and credentials to a chat or streaming chat model builder.
+   */
+  private static void connect(Consumer<String> baseUrl, Consumer<String> apiKey, Consumer<Map<String, String>> customHeaders) {
+    var url = Ivy.var().get(OpenAiConf.BASE_URL);
+    if (!url.isBlank()) {
+      baseUrl.accept(url);
     }
     String key = Ivy.var().get(OpenAiConf.API_KEY);
     if (!key.isBlank()) {
-      builder.apiKey(key);
+      apiKey.accept(key);
     } else {
-      builder.customHeaders(Map.of("X-Requested-By", "ivy")); // TODO as pure test variable
+      customHeaders.accept(Map.of("X-Requested-By", "ivy")); // TODO as pure test variable
     }
-    return builder;
   }
 
   private static String resolveModelName(String modelName) {
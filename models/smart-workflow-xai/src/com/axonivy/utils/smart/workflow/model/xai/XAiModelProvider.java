@@ -42,4 +42,9 @@ public class XAiModelProvider implements ChatModelProvider {
     return List.of(XAiConf.API_KEY);
   }
 
+  @Override
+  public List<String> modelVars() {
+    return List.of(XAiConf.BASE_URL, XAiConf.API_KEY, XAiConf.DEFAULT_MODEL);
+  }
+
 }
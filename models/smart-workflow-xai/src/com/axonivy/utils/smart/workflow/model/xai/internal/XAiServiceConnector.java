@@ -6,6 +6,7 @@ import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.client.SmartHttpClientBuilderFactory;
+import com.axonivy.utils.smart.workflow.model.xai.XAiModelProvider;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.model.chat.Capability;
@@ -65,7 +66,7 @@ public class XAiServiceConnector {
 
   private static OpenAiChatModelBuilder initBuilder() {
     OpenAiChatModelBuilder builder = OpenAiChatModel.builder()
-        .httpClientBuilder(new SmartHttpClientBuilderFactory().create())
+        .httpClientBuilder(new SmartHttpClientBuilderFactory(XAiModelProvider.NAME).create())
         .logRequests(true)
         .logResponses(true);
     var baseUrl = StringUtils.defaultIfBlank(Ivy.var().get(XAiConf.BASE_URL) , DEFAULT_BASE_URL);
@@ -17,7 +17,19 @@ import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversat
 
 public class AgentHistoryTreeBuilder {
 
-  public record AgentNode(AgentConversationEntry chat, List<ToolExecution> tools, List<GuardrailExecution> guardrails) {}
+  /**
+   * The tool and guardrail executions of the agent are only parsed when they are asked for.
+   */
+  public record AgentNode(AgentConversationEntry chat) {
+
+    public List<ToolExecution> tools() {
+      return chat.getToolExecutions();
+    }
+
+    public List<GuardrailExecution> guardrails() {
+      return chat.getGuardrailExecutions();
+    }
+  }
 
   public record TaskNode(String taskUuid, List<AgentNode> agents) {}
 
@@ -25,7 +37,7 @@ public class AgentHistoryTreeBuilder {
 
   /**
    * Builds a Case > Task > Agent tree from the given history entries. Each AgentNode
-   * carries both the tool executions and the guardrail executions recorded for that agent.
+   * gives access to both the tool executions and the guardrail executions recorded for that agent.
    */
   public static List<CaseNode> buildTree(List<AgentConversationEntry> entries) {
     var entriesByCase = groupBy(entries, AgentConversationEntry::getCaseUuid);
@@ -46,7 +58,7 @@ public class AgentHistoryTreeBuilder {
     return entries.stream()
         .sorted(Comparator.comparing(AgentConversationEntry::getLastUpdated,
             Comparator.nullsLast(Comparator.naturalOrder())))
-        .map(entry -> new AgentNode(entry, entry.getToolExecutions(), entry.getGuardrailExecutions()))
+        .map(AgentNode::new)
         .toList();
   }
 
@@ -22,6 +22,9 @@ public class ChatHistoryJsonParser {
   private ChatHistoryJsonParser() {}
 
   public static int getMessageCount(AgentConversationEntry entry) {
+    if (entry != null && entry.getMessageCount() > 0) {
+      return entry.getMessageCount();
+    }
     return Optional.ofNullable(entry)
         .map(AgentConversationEntry::getMessagesJson)
         .map(json -> {
@@ -38,6 +41,9 @@ public class ChatHistoryJsonParser {
   }
 
   public static TokenUsage parseTokenUsage(AgentConversationEntry entry) {
+    if (entry != null && entry.getModelName() != null) {
+      return new TokenUsage((int) entry.getTotalTokens(), entry.getModelName());
+    }
     return Optional.ofNullable(entry)
         .map(AgentConversationEntry::getTokenUsageJson)
         .map(json -> {
@@ -1,20 +1,15 @@
 package com.axonivy.utils.smart.workflow.governance.history.filter;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
+import java.time.LocalDate;
 import java.util.List;
 
-import com.axonivy.utils.smart.workflow.governance.history.ChatHistoryJsonParser;
+import org.apache.commons.lang3.StringUtils;
+
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
-import com.axonivy.utils.smart.workflow.governance.history.service.CaseService;
 import com.axonivy.utils.smart.workflow.governance.ui.enums.DateRange;
 
-import ch.ivyteam.ivy.environment.Ivy;
-
 public class HistoryEntryFilter {
 
-  private static final String ERROR_PARSING_DATE = "Failed to parse lastUpdated: {0}";
-
   private HistoryEntryFilter() {}
 
   public static List<AgentConversationEntry> filter(
@@ -22,48 +17,37 @@ public class HistoryEntryFilter {
       String caseSearch,
       String modelName,
       String dateRange) {
+    var filter = toFilter(caseSearch, modelName, dateRange);
     return entries.stream()
-        .filter(e -> matchesCaseFilter(e, caseSearch))
-        .filter(e -> matchesModelFilter(e, modelName))
-        .filter(e -> matchesDateRangeFilter(e, dateRange))
+        .filter(filter::matches)
         .toList();
   }
 
-  private static boolean matchesCaseFilter(AgentConversationEntry entry, String filterCase) {
-    if (filterCase == null || filterCase.isBlank()) {
-      return true;
-    }
-    return CaseService.matchesSearch(entry.getCaseUuid(), filterCase.trim());
+  /**
+   * @return the filter of the dashboard selection, to be run by the
+   * {@link com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage}.
+   */
+  public static HistoryFilter toFilter(String caseSearch, String modelName, String dateRange) {
+    return toFilter(caseSearch, modelName, dateRange, null, null, null);
   }
 
-  private static boolean matchesModelFilter(AgentConversationEntry entry, String filterModel) {
-    if (filterModel == null || filterModel.isBlank()) {
-      return true;
-    }
-    String stored = ChatHistoryJsonParser.getModelName(entry);
-    return stored != null && (stored.contains(filterModel) || filterModel.contains(stored));
+  /**
+   * @return the filter of the dashboard selection including the content search and the selected facets.
+   */
+  public static HistoryFilter toFilter(String caseSearch, String modelName, String dateRange, String contentSearch,
+      String toolName, String guardrailOutcome) {
+    return new HistoryFilter(StringUtils.trimToNull(caseSearch), null, StringUtils.trimToNull(modelName),
+        dateFrom(dateRange), null, StringUtils.trimToNull(contentSearch), StringUtils.trimToNull(toolName),
+        StringUtils.trimToNull(guardrailOutcome));
   }
 
-  private static boolean matchesDateRangeFilter(AgentConversationEntry entry, String filterDateRange) {
-    if (DateRange.ALL.name().equals(filterDateRange)) {
-      return true;
-    }
-    if (entry.getLastUpdated() == null) {
-      return false;
-    }
-    LocalDateTime updated;
-    try {
-      updated = LocalDateTime.parse(entry.getLastUpdated());
-    } catch (DateTimeParseException ex) {
-      Ivy.log().warn(ERROR_PARSING_DATE, ex.getMessage());
-      return false;
-    }
-    LocalDateTime now = LocalDateTime.now();
-    return switch (DateRange.valueOf(filterDateRange)) {
-      case TODAY -> !updated.toLocalDate().isBefore(now.toLocalDate());
-      case LAST_7_DAYS -> updated.isAfter(now.minusDays(7));
-      case LAST_30_DAYS -> updated.isAfter(now.minusDays(30));
-      case ALL -> true;
+  private static LocalDate dateFrom(String dateRange) {
+    LocalDate today = LocalDate.now();
+    return switch (DateRange.valueOf(dateRange)) {
+      case TODAY -> today;
+      case LAST_7_DAYS -> today.minusDays(7);
+      case LAST_30_DAYS -> today.minusDays(30);
+      case ALL -> null;
     };
   }
 }
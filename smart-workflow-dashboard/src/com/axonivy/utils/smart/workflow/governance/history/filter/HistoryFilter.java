@@ -1,15 +0,0 @@
-package com.axonivy.utils.smart.workflow.governance.history.filter;
-
-import java.time.LocalDate;
-
-public record HistoryFilter(
-    String caseSearch,
-    String taskUuid,
-    String modelName,
-    LocalDate dateFrom,
-    LocalDate dateTo) {
-
-  public static HistoryFilter empty() {
-    return new HistoryFilter(null, null, null, null, null);
-  }
-}
@@ -24,10 +24,13 @@ public class CaseService {
     if (ivyCase == null) {
       return String.format(NO_NAME_FORMAT, caseUuid);
     }
-    String name = ivyCase.getName();
+    return getDisplayName(ivyCase.getName(), String.valueOf(ivyCase.getId()));
+  }
+
+  public static String getDisplayName(String name, String caseId) {
     return (name == null || name.isBlank()) ?
-        String.format(NO_NAME_FORMAT, ivyCase.getId())
-        : String.format(DISPLAY_NAME_FORMAT, name, ivyCase.getId());
+        String.format(NO_NAME_FORMAT, caseId)
+        : String.format(DISPLAY_NAME_FORMAT, name, caseId);
   }
 
   public static boolean matchesSearch(String caseUuid, String term) {
@@ -0,0 +1,50 @@
+package com.axonivy.utils.smart.workflow.governance.history.service;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+
+import ch.ivyteam.ivy.workflow.ICase;
+
+/**
+ * Remembers the case and task names resolved for a view, so that each case and task is looked up at most once.
+ * Cases described by the history entry itself are not looked up at all.
+ */
+public class DisplayNameCache implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Map<String, String> caseNames = new HashMap<>();
+  private final Map<String, Long> caseIds = new HashMap<>();
+  private final Map<String, String> taskNames = new HashMap<>();
+
+  public String caseDisplayName(AgentConversationEntry entry) {
+    if (StringUtils.isNotBlank(entry.getCaseId())) {
+      return CaseService.getDisplayName(entry.getCaseName(), entry.getCaseId());
+    }
+    return caseNames.computeIfAbsent(entry.getCaseUuid(), CaseService::getDisplayName);
+  }
+
+  /**
+   * @return the id of the case, or -1 if it no longer exists.
+   */
+  public long caseId(AgentConversationEntry entry) {
+    long stored = NumberUtils.toLong(entry.getCaseId(), -1L);
+    if (stored >= 0) {
+      return stored;
+    }
+    return caseIds.computeIfAbsent(entry.getCaseUuid(), caseUuid -> {
+      ICase ivyCase = CaseService.findCase(caseUuid);
+      return ivyCase != null ? ivyCase.getId() : -1L;
+    });
+  }
+
+  public String taskDisplayName(String taskUuid) {
+    return taskNames.computeIfAbsent(taskUuid, TaskService::getDisplayName);
+  }
+}
@@ -1,5 +1,7 @@
 package com.axonivy.utils.smart.workflow.governance.ui;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import org.primefaces.model.DefaultTreeNode;
@@ -8,38 +10,85 @@ import org.primefaces.model.TreeNode;
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
 import com.axonivy.utils.smart.workflow.governance.history.AgentHistoryTreeBuilder;
 import com.axonivy.utils.smart.workflow.governance.history.AgentHistoryTreeBuilder.AgentNode;
-import com.axonivy.utils.smart.workflow.governance.history.AgentHistoryTreeBuilder.CaseNode;
 import com.axonivy.utils.smart.workflow.governance.history.AgentHistoryTreeBuilder.TaskNode;
+import com.axonivy.utils.smart.workflow.governance.history.service.DisplayNameCache;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryPage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage;
 import com.axonivy.utils.smart.workflow.governance.ui.entity.AgentConversationView;
 import com.axonivy.utils.smart.workflow.governance.ui.entity.CaseHistoryGroup;
 import com.axonivy.utils.smart.workflow.governance.ui.entity.TaskHistoryGroup;
 import com.axonivy.utils.smart.workflow.governance.ui.enums.HistoryNodeType;
 
+/**
+ * Builds the Case > Task > Agent tree of the dashboard lazily: cases are added per loaded page of entries, and
+ * the tasks and agents of a case page by page once it is {@link #expandCase expanded}.
+ */
 public class HistoryTreeBuilder {
 
   private HistoryTreeBuilder() {}
 
-  public static TreeNode<Object> build(List<AgentConversationEntry> entries) {
-    TreeNode<Object> root = new DefaultTreeNode<>(HistoryNodeType.ROOT.value(), null, null);
-    AgentHistoryTreeBuilder.buildTree(entries).forEach(caseNode -> addCaseNode(caseNode, root));
-    return root;
+  public static TreeNode<Object> root() {
+    return new DefaultTreeNode<>(HistoryNodeType.ROOT.value(), null, null);
   }
 
-  private static void addCaseNode(CaseNode caseNode, TreeNode<Object> root) {
-    List<AgentConversationEntry> caseEntries = caseNode.tasks().stream()
-        .flatMap(t -> t.agents().stream())
-        .map(AgentNode::chat)
-        .toList();
-    TreeNode<Object> caseTreeNode = collapsed(
-        HistoryNodeType.CASE.value(), new CaseHistoryGroup(caseNode.caseUuid(), caseEntries), root);
-    caseNode.tasks().forEach(taskNode -> addTaskNode(taskNode, caseTreeNode));
+  /**
+   * Adds the cases of the entries as collapsed nodes. Entries of a case that is already in the tree are added to
+   * it, unless it was expanded and shows all its entries.
+   */
+  public static void addCases(TreeNode<Object> root, List<AgentConversationEntry> entries, DisplayNameCache names) {
+    var entriesByCase = new LinkedHashMap<String, List<AgentConversationEntry>>();
+    entries.forEach(entry -> entriesByCase.computeIfAbsent(entry.getCaseUuid(), _ -> new ArrayList<>()).add(entry));
+    entriesByCase.forEach((caseUuid, caseEntries) -> {
+      var existing = root.getChildren().stream()
+          .filter(node -> node.getData() instanceof CaseHistoryGroup group && group.getCaseUuid().equals(caseUuid))
+          .findFirst();
+      if (existing.isPresent() && !isPending(existing.get())) {
+        return; // the entries of the case are loaded by the case itself
+      }
+      if (existing.isPresent()) {
+        var group = (CaseHistoryGroup) existing.get().getData();
+        var merged = new ArrayList<>(group.getTasks());
+        merged.addAll(caseEntries);
+        existing.get().setData(new CaseHistoryGroup(caseUuid, merged, names));
+      } else {
+        var caseNode = collapsed(HistoryNodeType.CASE.value(), new CaseHistoryGroup(caseUuid, caseEntries, names), root);
+        new DefaultTreeNode<>(HistoryNodeType.PENDING.value(), null, caseNode);
+      }
+    });
   }
 
-  private static void addTaskNode(TaskNode taskNode, TreeNode<Object> caseTreeNode) {
+  public static boolean isPending(TreeNode<Object> caseNode) {
+    return caseNode.getChildCount() == 1
+        && HistoryNodeType.PENDING.value().equals(caseNode.getChildren().get(0).getType());
+  }
+
+  /**
+   * Shows a page of entries of the case as its tasks and agents: the first page replaces the pending child, later
+   * pages are added to the entries loaded before.
+   *
+   * @param page of the entries of the case, from {@link HistoryStorage#queryCaseHeaders}.
+   */
+  public static void expandCase(TreeNode<Object> caseNode, HistoryPage page, DisplayNameCache names) {
+    var group = (CaseHistoryGroup) caseNode.getData();
+    var caseEntries = new ArrayList<AgentConversationEntry>();
+    if (!isPending(caseNode)) {
+      caseEntries.addAll(group.getTasks());
+    }
+    caseEntries.addAll(page.entries());
+    caseNode.getChildren().clear();
+    if (caseEntries.isEmpty()) {
+      return;
+    }
+    caseNode.setData(new CaseHistoryGroup(group.getCaseUuid(), caseEntries, names, page.nextCursor()));
+    AgentHistoryTreeBuilder.buildTree(caseEntries).forEach(tree -> tree.tasks()
+        .forEach(taskNode -> addTaskNode(taskNode, caseNode, names)));
+  }
+
+  private static void addTaskNode(TaskNode taskNode, TreeNode<Object> caseTreeNode, DisplayNameCache names) {
     List<AgentConversationEntry> taskEntries = taskNode.agents().stream()
         .map(AgentNode::chat).toList();
     TreeNode<Object> taskTreeNode = collapsed(
-        HistoryNodeType.TASK.value(), new TaskHistoryGroup(taskNode.taskUuid(), taskEntries), caseTreeNode);
+        HistoryNodeType.TASK.value(), new TaskHistoryGroup(taskNode.taskUuid(), taskEntries, names), caseTreeNode);
     taskNode.agents().forEach(agentNode -> addAgentNode(agentNode, taskTreeNode));
   }
 
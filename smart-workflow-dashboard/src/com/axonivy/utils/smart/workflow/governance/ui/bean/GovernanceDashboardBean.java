@@ -1,17 +1,35 @@
 package com.axonivy.utils.smart.workflow.governance.ui.bean;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-import org.primefaces.model.DefaultTreeNode;
+import org.primefaces.event.NodeExpandEvent;
+import org.primefaces.model.DefaultStreamedContent;
+import org.primefaces.model.StreamedContent;
 import org.primefaces.model.TreeNode;
 
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.entity.TokenUsageRollup;
+import com.axonivy.utils.smart.workflow.governance.history.export.HistoryExporter;
+import com.axonivy.utils.smart.workflow.governance.history.export.HistoryExporter.Format;
 import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryEntryFilter;
-import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage;
-import com.axonivy.utils.smart.workflow.governance.history.storage.IvyRepoHistoryStorage;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.governance.history.rollup.TokenUsageRollups;
+import com.axonivy.utils.smart.workflow.governance.history.search.HistoryFacets;
+import com.axonivy.utils.smart.workflow.governance.history.service.DisplayNameCache;
+import com.axonivy.utils.smart.workflow.governance.history.storage.EventLogHistoryStorage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryPage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.IvyRepoRollupStorage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.RollupStorage;
 import com.axonivy.utils.smart.workflow.governance.ui.HistoryTreeBuilder;
+import com.axonivy.utils.smart.workflow.governance.ui.entity.CaseHistoryGroup;
 import com.axonivy.utils.smart.workflow.governance.ui.enums.DateRange;
 import com.axonivy.utils.smart.workflow.model.ChatModelFactory;
 import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
@@ -29,33 +47,192 @@ public class GovernanceDashboardBean implements Serializable {
 
   private static final long serialVersionUID = 1L;
   private static final String ERROR_LOADING_HISTORY = "Failed to load governance history";
+  private static final String ERROR_LOADING_USAGE = "Failed to load token usage rollups";
+  private static final String ERROR_EXPORTING_HISTORY = "Failed to export governance history";
+
+  private static final int PAGE_SIZE = 100;
 
   private static List<SelectItem> availableModelItemsCache;
 
-  private HistoryStorage storage;
+  private EventLogHistoryStorage storage;
+  private RollupStorage rollupStorage;
 
   private String filterCase = "";
   private String filterModel = "";
   private String filterDateRange = DateRange.LAST_30_DAYS.name();
+  private String filterContent = "";
+  private String filterTool = "";
+  private String filterGuardrailOutcome = "";
 
   private List<AgentConversationEntry> entries = List.of();
-  private TreeNode<Object> historyTree = new DefaultTreeNode<>();
+  private String nextCursor;
+  private TreeNode<Object> historyTree = HistoryTreeBuilder.root();
+  private final DisplayNameCache names = new DisplayNameCache();
   private AgentConversationEntry selectedEntry;
+  private TokenUsageRollup usageTotal = new TokenUsageRollup();
+  private List<Map.Entry<String, TokenUsageRollup>> usageByProcess = List.of();
+  private HistoryFacets facets = HistoryFacets.empty();
 
   @PostConstruct
   public void init() {
-    storage = new IvyRepoHistoryStorage();
+    storage = new EventLogHistoryStorage(); // reads entries of both storage formats
+    rollupStorage = new IvyRepoRollupStorage();
     applyFilter();
   }
 
   public void applyFilter() {
+    entries = List.of();
+    nextCursor = null;
+    historyTree = HistoryTreeBuilder.root();
+    facets = HistoryFacets.empty();
+    loadPage();
+    loadUsage();
+  }
+
+  /**
+   * @return the number of loaded conversations the facets were counted in.
+   */
+  public int getFacetsCounted() {
+    return facets.counted();
+  }
+
+  public List<Map.Entry<String, Long>> getToolFacets() {
+    return List.copyOf(facets.tools().entrySet());
+  }
+
+  public List<Map.Entry<String, Long>> getGuardrailOutcomeFacets() {
+    return List.copyOf(facets.guardrailOutcomes().entrySet());
+  }
+
+  public List<Map.Entry<String, Long>> getModelFacets() {
+    return List.copyOf(facets.models().entrySet());
+  }
+
+  /**
+   * Narrows the history down to the conversations that called the tool, or widens it again if it was selected.
+   */
+  public void selectTool(String toolName) {
+    filterTool = toolName.equals(filterTool) ? "" : toolName;
+    applyFilter();
+  }
+
+  /**
+   * Narrows the history down to the conversations with the guardrail outcome, or widens it again if it was
+   * selected.
+   */
+  public void selectGuardrailOutcome(String outcome) {
+    filterGuardrailOutcome = outcome.equals(filterGuardrailOutcome) ? "" : outcome;
+    applyFilter();
+  }
+
+  private void loadUsage() {
+    try {
+      var from = Optional.ofNullable(HistoryEntryFilter.toFilter(null, null, filterDateRange).dateFrom())
+          .orElse(LocalDate.EPOCH);
+      var rollups = rollupStorage.find(from, LocalDate.now());
+      usageTotal = TokenUsageRollups.total(rollups);
+      usageByProcess = List.copyOf(TokenUsageRollups.groupBy(rollups, TokenUsageRollup::getProcessName).entrySet());
+    } catch (Exception e) {
+      Ivy.log().error(ERROR_LOADING_USAGE, e);
+      usageTotal = new TokenUsageRollup();
+      usageByProcess = List.of();
+    }
+  }
+
+  public TokenUsageRollup getUsageTotal() {
+    return usageTotal;
+  }
+
+  public long getUsageAverageDurationMs() {
+    return TokenUsageRollups.averageDurationMs(usageTotal);
+  }
+
+  public List<Map.Entry<String, TokenUsageRollup>> getUsageByProcess() {
+    return usageByProcess;
+  }
+
+  /**
+   * @param format name of a {@link Format}.
+   * @return the entries of the current filter, streamed to the download as they are read.
+   */
+  public StreamedContent export(String format) {
+    var exportFormat = Format.valueOf(format);
+    var filter = filter();
+    return DefaultStreamedContent.builder()
+        .name("agent-history." + exportFormat.extension())
+        .contentType(exportFormat.contentType())
+        .writer(out -> {
+          try {
+            new HistoryExporter(new EventLogHistoryStorage()).export(filter, exportFormat, out);
+          } catch (IOException e) {
+            Ivy.log().error(ERROR_EXPORTING_HISTORY, e);
+            throw new UncheckedIOException(e);
+          }
+        })
+        .build();
+  }
+
+  public void loadMore() {
+    if (nextCursor != null) {
+      loadPage();
+    }
+  }
+
+  private void loadPage() {
+    try {
+      HistoryPage page = storage.queryHeaders(filter(), nextCursor, PAGE_SIZE);
+      var loaded = new ArrayList<>(entries);
+      loaded.addAll(page.entries());
+      entries = loaded;
+      nextCursor = page.nextCursor();
+      facets = HistoryFacets.of(entries);
+      HistoryTreeBuilder.addCases(historyTree, page.entries(), names);
+    } catch (Exception e) {
+      Ivy.log().error(ERROR_LOADING_HISTORY, e);
+      nextCursor = null;
+    }
+  }
+
+  /**
+   * Loads the first page of tasks and agents of a case when it is expanded for the first time.
+   */
+  @SuppressWarnings("unchecked")
+  public void onNodeExpand(NodeExpandEvent event) {
+    var node = (TreeNode<Object>) event.getTreeNode();
+    node.setExpanded(true);
+    if (node.getData() instanceof CaseHistoryGroup && HistoryTreeBuilder.isPending(node)) {
+      loadCasePage(node, null);
+    }
+  }
+
+  /**
+   * Loads the next page of tasks and agents of an expanded case.
+   */
+  public void loadMoreOfCase(String caseUuid) {
+    historyTree.getChildren().stream()
+        .filter(node -> node.getData() instanceof CaseHistoryGroup group
+            && group.getCaseUuid().equals(caseUuid) && group.isMoreAvailable())
+        .findFirst()
+        .ifPresent(node -> loadCasePage(node, ((CaseHistoryGroup) node.getData()).getNextCursor()));
+  }
+
+  private void loadCasePage(TreeNode<Object> caseNode, String cursor) {
     try {
-      entries = HistoryEntryFilter.filter(storage.findAll(), filterCase, filterModel, filterDateRange);
+      var group = (CaseHistoryGroup) caseNode.getData();
+      var page = storage.queryCaseHeaders(group.getCaseUuid(), filter(), cursor, PAGE_SIZE);
+      HistoryTreeBuilder.expandCase(caseNode, page, names);
     } catch (Exception e) {
       Ivy.log().error(ERROR_LOADING_HISTORY, e);
-      entries = List.of();
     }
-    historyTree = HistoryTreeBuilder.build(entries);
+  }
+
+  private HistoryFilter filter() {
+    return HistoryEntryFilter.toFilter(filterCase, filterModel, filterDateRange, filterContent, filterTool,
+        filterGuardrailOutcome);
+  }
+
+  public boolean isMoreAvailable() {
+    return nextCursor != null;
   }
 
   public int getEntryCount() {
@@ -109,6 +286,22 @@ public class GovernanceDashboardBean implements Serializable {
     this.filterDateRange = filterDateRange;
   }
 
+  public String getFilterContent() {
+    return filterContent;
+  }
+
+  public void setFilterContent(String filterContent) {
+    this.filterContent = filterContent;
+  }
+
+  public String getFilterTool() {
+    return filterTool;
+  }
+
+  public String getFilterGuardrailOutcome() {
+    return filterGuardrailOutcome;
+  }
+
   public List<AgentConversationEntry> getEntries() {
     return entries;
   }
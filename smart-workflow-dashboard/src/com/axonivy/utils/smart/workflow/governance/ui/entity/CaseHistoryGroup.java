@@ -4,32 +4,43 @@ import java.util.Comparator;
 import java.util.List;
 
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
-import com.axonivy.utils.smart.workflow.governance.history.service.CaseService;
-
-import ch.ivyteam.ivy.workflow.ICase;
+import com.axonivy.utils.smart.workflow.governance.history.service.DisplayNameCache;
 
 public class CaseHistoryGroup implements HistoryGroupView {
 
   private final String caseUuid;
   private final List<AgentConversationEntry> tasks;
   private final HistoryGroupView stats;
-  private String caseDisplayName;
+  private final DisplayNameCache names;
+  private final String nextCursor;
+
+  /**
+   * @param tasks the entries of the case, at least one.
+   */
+  public CaseHistoryGroup(String caseUuid, List<AgentConversationEntry> tasks, DisplayNameCache names) {
+    this(caseUuid, tasks, names, null);
+  }
 
-  public CaseHistoryGroup(String caseUuid, List<AgentConversationEntry> tasks) {
+  /**
+   * @param nextCursor to load the next page of entries of the case; null if all are loaded.
+   */
+  public CaseHistoryGroup(String caseUuid, List<AgentConversationEntry> tasks, DisplayNameCache names,
+      String nextCursor) {
     this.caseUuid = caseUuid;
     this.tasks = tasks;
     this.stats = HistoryGroupView.of(tasks);
+    this.names = names;
+    this.nextCursor = nextCursor;
   }
 
   public String getCaseUuid() { return caseUuid; }
   public List<AgentConversationEntry> getTasks() { return tasks; }
   public int getTaskCount() { return tasks.size(); }
+  public String getNextCursor() { return nextCursor; }
+  public boolean isMoreAvailable() { return nextCursor != null; }
 
   public String getCaseDisplayName() {
-    if (caseDisplayName == null) {
-      caseDisplayName = CaseService.getDisplayName(caseUuid);
-    }
-    return caseDisplayName;
+    return names.caseDisplayName(tasks.get(0));
   }
 
   public String getLastUpdatedRaw() {
@@ -42,8 +53,7 @@ public class CaseHistoryGroup implements HistoryGroupView {
 
   @Override
   public long getCaseId() {
-    ICase ivyCase = CaseService.findCase(caseUuid);
-    return ivyCase != null ? ivyCase.getId() : -1L;
+    return names.caseId(tasks.get(0));
   }
 
   @Override public String getLastUpdatedText() { return stats.getLastUpdatedText(); }
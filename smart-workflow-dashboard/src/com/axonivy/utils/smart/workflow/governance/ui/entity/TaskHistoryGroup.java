@@ -4,19 +4,20 @@ import java.util.Comparator;
 import java.util.List;
 
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
-import com.axonivy.utils.smart.workflow.governance.history.service.TaskService;
+import com.axonivy.utils.smart.workflow.governance.history.service.DisplayNameCache;
 
 public class TaskHistoryGroup implements HistoryGroupView {
 
   private final String taskUuid;
   private final List<AgentConversationEntry> agents;
   private final HistoryGroupView stats;
-  private String taskDisplayName;
+  private final DisplayNameCache names;
 
-  public TaskHistoryGroup(String taskUuid, List<AgentConversationEntry> agents) {
+  public TaskHistoryGroup(String taskUuid, List<AgentConversationEntry> agents, DisplayNameCache names) {
     this.taskUuid = taskUuid;
     this.agents = agents;
     this.stats = HistoryGroupView.of(agents);
+    this.names = names;
   }
 
   public String getTaskUuid() { return taskUuid; }
@@ -24,10 +25,7 @@ public class TaskHistoryGroup implements HistoryGroupView {
   public int getAgentCount() { return agents.size(); }
 
   public String getTaskDisplayName() {
-    if (taskDisplayName == null) {
-      taskDisplayName = TaskService.getDisplayName(taskUuid);
-    }
-    return taskDisplayName;
+    return names.taskDisplayName(taskUuid);
   }
 
   public String getLastUpdatedRaw() {
@@ -1,7 +1,9 @@
 package com.axonivy.utils.smart.workflow.governance.ui.enums;
 
 public enum HistoryNodeType {
-  ROOT, CASE, TASK, AGENT;
+  ROOT, CASE, TASK, AGENT,
+  /** Child of a case whose tasks are not loaded yet, so that the case can be expanded. */
+  PENDING;
 
   public String value() {
     return name().toLowerCase();
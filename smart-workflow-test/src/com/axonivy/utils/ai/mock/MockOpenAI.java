@@ -36,7 +36,7 @@ public class MockOpenAI {
   @POST
   @Path("{test}/chat/completions")
   @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
+  @Produces({MediaType.APPLICATION_JSON, MediaType.SERVER_SENT_EVENTS})
   public Response chat(JsonNode request, @PathParam("test") String test) {
     return CHAT.apply(request);
   }
@@ -19,4 +19,12 @@ public class TestOpenAiHttpClient {
         .isInstanceOf(SmartHttpClientBuilder.class);
   }
 
+  @Test
+  void smartIvyRestClient_streaming() {
+    var builder = OpenAiServiceConnector.buildOpenAiStreamingModel(null);
+    assertThat(builder).extracting("httpClientBuilder")
+        .as("server-sent events are read through the ivy-jersey client as well")
+        .isInstanceOf(SmartHttpClientBuilder.class);
+  }
+
 }
@@ -0,0 +1,104 @@
+package com.axonivy.utils.smart.workflow.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.client.ProviderRateLimiter.Limits;
+
+class TestProviderRateLimiter {
+
+  @Test
+  void resetDuration() {
+    assertThat(ProviderRateLimiter.duration("6m0s")).contains(TimeUnit.MINUTES.toNanos(6));
+    assertThat(ProviderRateLimiter.duration("1.5s")).contains(TimeUnit.MILLISECONDS.toNanos(1500));
+    assertThat(ProviderRateLimiter.duration("20ms")).contains(TimeUnit.MILLISECONDS.toNanos(20));
+    assertThat(ProviderRateLimiter.duration("")).isEmpty();
+  }
+
+  @Test
+  void maxInFlight() throws Exception {
+    var limiter = new ProviderRateLimiter(new Limits(0, 0, 1));
+    var first = limiter.acquire("{}");
+
+    var second = CompletableFuture.supplyAsync(() -> limiter.acquire("{}"));
+    Thread.sleep(300);
+    assertThat(second)
+        .as("waits until the running request completed")
+        .isNotDone();
+
+    first.close();
+    second.get(5, TimeUnit.SECONDS).close();
+  }
+
+  @Test
+  void exhaustedHeaders_pauseCallers() {
+    var limiter = new ProviderRateLimiter(Limits.NONE);
+    try (var permit = limiter.acquire("{}")) {
+      var headers = Map.of(
+          "x-ratelimit-remaining-requests", "0",
+          "x-ratelimit-reset-requests", "400ms");
+      permit.observe(200, headers::get);
+    }
+
+    long start = System.nanoTime();
+    limiter.acquire("{}").close();
+    assertThat(Duration.ofNanos(System.nanoTime() - start))
+        .as("provider announced that its request budget resets in 400ms")
+        .isGreaterThanOrEqualTo(Duration.ofMillis(300));
+  }
+
+  @Test
+  void reconfigure_keepsRequestsInFlight() throws Exception {
+    var limiter = new ProviderRateLimiter(new Limits(0, 0, 2));
+    var first = limiter.acquire("{}");
+    var second = limiter.acquire("{}");
+
+    limiter.reconfigure(new Limits(0, 0, 1));
+    second.close();
+    var third = CompletableFuture.supplyAsync(() -> limiter.acquire("{}"));
+    Thread.sleep(300);
+    assertThat(third)
+        .as("the request still in flight counts against the lowered limit")
+        .isNotDone();
+
+    first.close();
+    third.get(5, TimeUnit.SECONDS).close();
+  }
+
+  @Test
+  void anthropicHeaders_pauseCallers() {
+    var limiter = new ProviderRateLimiter(Limits.NONE);
+    try (var permit = limiter.acquire("{}")) {
+      var headers = Map.of(
+          "anthropic-ratelimit-requests-remaining", "0",
+          "anthropic-ratelimit-requests-reset", Instant.now().plusMillis(400).toString());
+      permit.observe(200, headers::get);
+    }
+
+    long start = System.nanoTime();
+    limiter.acquire("{}").close();
+    assertThat(Duration.ofNanos(System.nanoTime() - start))
+        .as("provider announced that its request budget resets in 400ms")
+        .isGreaterThanOrEqualTo(Duration.ofMillis(300));
+  }
+
+  @Test
+  void tooManyRequests_respectRetryAfter() {
+    var limiter = new ProviderRateLimiter(Limits.NONE);
+    try (var permit = limiter.acquire("{}")) {
+      permit.observe(429, Map.of("retry-after", "0.4")::get);
+    }
+
+    long start = System.nanoTime();
+    limiter.acquire("{}").close();
+    assertThat(Duration.ofNanos(System.nanoTime() - start))
+        .isGreaterThanOrEqualTo(Duration.ofMillis(300));
+  }
+}
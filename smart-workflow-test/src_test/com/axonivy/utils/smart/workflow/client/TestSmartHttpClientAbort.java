@@ -0,0 +1,110 @@
+package com.axonivy.utils.smart.workflow.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.ai.mock.MockOpenAI;
+import com.axonivy.utils.smart.workflow.model.ChatModelFactory.AiConf;
+import com.axonivy.utils.smart.workflow.program.internal.AbortSignal;
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.test.RestResourceTest;
+import dev.langchain4j.http.client.HttpMethod;
+import dev.langchain4j.http.client.HttpRequest;
+
+@RestResourceTest
+class TestSmartHttpClientAbort {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void releaseServer() {
+    release.countDown();
+  }
+
+  @Test
+  void abort_interruptsPendingCall() throws InterruptedException {
+    var received = new CountDownLatch(1);
+    MockOpenAI.defineChat(request -> {
+      received.countDown();
+      await(release);
+      return Response.ok("{}", MediaType.APPLICATION_JSON).build();
+    });
+
+    var signal = new AbortSignal();
+    var failure = new AtomicReference<Throwable>();
+    var client = new SmartHttpClientBuilder().build();
+    var caller = Thread.ofVirtual().start(IvyContextSnapshot.capture().wrap(() -> signal.run(() -> {
+      try {
+        client.execute(request());
+      } catch (RuntimeException ex) {
+        failure.set(ex);
+      }
+    })));
+
+    assertThat(received.await(10, TimeUnit.SECONDS))
+        .as("request reached the provider")
+        .isTrue();
+    long start = System.nanoTime();
+    signal.abort();
+
+    assertThat(caller.join(Duration.ofSeconds(5)))
+        .as("caller is released while the provider still holds the response")
+        .isTrue();
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    assertThat(failure.get()).isInstanceOf(AbortSignal.AbortedException.class);
+  }
+
+  @Test
+  void abortable_filtersRunInIvyContext() {
+    MockOpenAI.defineChat(_ -> Response.ok("{}", MediaType.APPLICATION_JSON).build());
+
+    var expected = Ivy.var().get(AiConf.DEFAULT_PROVIDER);
+    var seen = new AtomicReference<String>();
+    var failure = new AtomicReference<Throwable>();
+    ClientRequestFilter readsIvy = _ -> {
+      try {
+        seen.set(Ivy.var().get(AiConf.DEFAULT_PROVIDER));
+        Ivy.session();
+      } catch (RuntimeException ex) {
+        failure.set(ex);
+      }
+    };
+    var client = new SmartHttpClient(Ivy.rest().client("langChain").register(readsIvy));
+
+    new AbortSignal().run(() -> client.execute(request()));
+
+    assertThat(failure.get()).as("filter ran without the Ivy context").isNull();
+    assertThat(seen.get()).isEqualTo(expected);
+  }
+
+  private static HttpRequest request() {
+    return HttpRequest.builder()
+        .method(HttpMethod.POST)
+        .url(OpenAiTestClient.localMockApiUrl("abort") + "/chat/completions")
+        .addHeader("Content-Type", MediaType.APPLICATION_JSON)
+        .addHeader("X-Requested-By", "ivy")
+        .body("{}")
+        .build();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
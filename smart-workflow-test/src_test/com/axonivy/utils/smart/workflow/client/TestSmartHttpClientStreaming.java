@@ -0,0 +1,105 @@
+package com.axonivy.utils.smart.workflow.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.ai.mock.MockOpenAI;
+
+import ch.ivyteam.test.RestResourceTest;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.http.client.HttpMethod;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.DefaultServerSentEventParser;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+
+@RestResourceTest
+class TestSmartHttpClientStreaming {
+
+  @Test
+  void streamsServerSentEvents() {
+    MockOpenAI.defineChat(request -> Response.ok()
+        .type(MediaType.SERVER_SENT_EVENTS)
+        .entity("""
+            data: {"delta":"Hello"}
+
+            data: {"delta":" world"}
+
+            data: [DONE]
+
+            """)
+        .build());
+
+    var listener = new RecordingListener();
+    new SmartHttpClientBuilder().build().execute(request(), new DefaultServerSentEventParser(), listener);
+
+    assertThat(listener.opened).isNotNull();
+    assertThat(listener.opened.statusCode()).isEqualTo(200);
+    assertThat(listener.events)
+        .extracting(ServerSentEvent::data)
+        .containsExactly("{\"delta\":\"Hello\"}", "{\"delta\":\" world\"}", "[DONE]");
+    assertThat(listener.closed).isTrue();
+    assertThat(listener.errors).isEmpty();
+  }
+
+  @Test
+  void failedResponse_reportedToListener() {
+    MockOpenAI.defineChat(request -> Response.status(429).entity("slow down").build());
+
+    var listener = new RecordingListener();
+    new SmartHttpClientBuilder().build().execute(request(), new DefaultServerSentEventParser(), listener);
+
+    assertThat(listener.opened).isNull();
+    assertThat(listener.events).isEmpty();
+    assertThat(listener.errors)
+        .singleElement()
+        .isInstanceOfSatisfying(HttpException.class, ex -> assertThat(ex.statusCode()).isEqualTo(429));
+  }
+
+  private static HttpRequest request() {
+    return HttpRequest.builder()
+        .method(HttpMethod.POST)
+        .url(OpenAiTestClient.localMockApiUrl("stream") + "/chat/completions")
+        .addHeader("Content-Type", MediaType.APPLICATION_JSON)
+        .addHeader("X-Requested-By", "ivy")
+        .body("{\"stream\":true}")
+        .build();
+  }
+
+  private static class RecordingListener implements ServerSentEventListener {
+
+    private SuccessfulHttpResponse opened;
+    private final List<ServerSentEvent> events = new ArrayList<>();
+    private final List<Throwable> errors = new ArrayList<>();
+    private boolean closed;
+
+    @Override
+    public void onOpen(SuccessfulHttpResponse response) {
+      opened = response;
+    }
+
+    @Override
+    public void onEvent(ServerSentEvent event) {
+      events.add(event);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      errors.add(error);
+    }
+
+    @Override
+    public void onClose() {
+      closed = true;
+    }
+  }
+
+}
@@ -3,6 +3,7 @@ package com.axonivy.utils.smart.workflow.governance.history;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,6 +63,20 @@ public class TestAgentResponseListener {
     assertThat(nullMeta.inputTokens()).isNull();
     assertThat(nullMeta.outputTokens()).isNull();
     assertThat(nullMeta.totalTokens()).isNull();
+    assertThat(nullMeta.cachedInputTokens()).isNull();
+  }
+
+  @Test
+  void capturesCachedInputTokens() {
+    var cachingListener = new AgentResponseListener(
+        (_, metadata) -> capturedMetadata.add(metadata),
+        usage -> Optional.of(usage.inputTokenCount() / 2));
+
+    cachingListener.onEvent(buildEvent("Hello", "chat", 100, 50));
+
+    assertThat(capturedMetadata).hasSize(1);
+    assertThat(capturedMetadata.get(0).cachedInputTokens()).isEqualTo(50);
+    assertThat(capturedMetadata.get(0).cacheHit()).isFalse();
   }
 
   private AiServiceResponseReceivedEvent buildEvent(String userText, String methodName, int inputTokens,
@@ -0,0 +1,111 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder.ResponseMetadata;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.BufferedHistoryRecorder;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.UserMessage;
+
+public class TestBufferedHistoryRecorder {
+
+  private InMemoryHistoryStorage storage;
+  private ChatHistoryRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    storage = new InMemoryHistoryStorage();
+    repository = new ChatHistoryRepository("case-1", "task-1", "test-agent", "Test Agent", "test-process", storage);
+  }
+
+  @Test
+  void writesAllEventsOfAnInvocationAtOnce() {
+    var recorder = new BufferedHistoryRecorder(repository, null, 0);
+
+    recorder.recordGuardrail("InputGuard", "INPUT", "SUCCESS", "ok", null, 3L);
+    recorder.store(List.of(UserMessage.from("Weather?"), AiMessage.from("Let me check")), metadata(5, 3));
+    recorder.record("weather", "{\"city\":\"Zug\"}", "sunny");
+    recorder.store(List.of(UserMessage.from("Weather?"), AiMessage.from("Let me check"), AiMessage.from("Sunny")),
+        metadata(12, 4));
+    assertThat(storage.findAll()).isEmpty();
+
+    recorder.flush();
+
+    assertThat(storage.findAll()).hasSize(1);
+    var entry = storage.findAll().get(0);
+    assertThat(entry.getVersion()).isEqualTo(1);
+    assertThat(ChatMessageDeserializer.messagesFromJson(entry.getMessagesJson())).hasSize(3);
+    assertThat(entry.getToolExecutions()).extracting("toolName").containsExactly("weather");
+    assertThat(entry.getGuardrailExecutions()).hasSize(1);
+    assertThat(entry.getTokenUsageJson())
+        .contains("\"inputTokens\":5")
+        .contains("\"inputTokens\":12");
+  }
+
+  @Test
+  void flushWithoutEventsWritesNothing() {
+    new BufferedHistoryRecorder(repository, null, 0).flush();
+
+    assertThat(storage.findAll()).isEmpty();
+  }
+
+  @Test
+  void writesInBetweenOnceTheBufferIsFull() {
+    var recorder = new BufferedHistoryRecorder(repository, null, 0);
+
+    for (int call = 0; call < 50; call++) {
+      recorder.record("tool", "{}", "result " + call);
+    }
+
+    assertThat(storage.findAll()).hasSize(1);
+    assertThat(storage.findAll().get(0).getToolExecutions()).hasSize(50);
+  }
+
+  @Test
+  void writesFlushesInOrderInTheBackground() {
+    var queued = new ArrayList<Runnable>();
+    Executor executor = queued::add;
+    var recorder = new BufferedHistoryRecorder(repository, executor, 10);
+
+    recorder.store(List.of(UserMessage.from("first")), null);
+    recorder.flush();
+    recorder.store(List.of(UserMessage.from("first"), UserMessage.from("second")), null);
+    recorder.flush();
+    assertThat(storage.findAll()).isEmpty();
+
+    while (!queued.isEmpty()) {
+      queued.remove(0).run();
+    }
+
+    var entry = storage.findAll().get(0);
+    assertThat(ChatMessageDeserializer.messagesFromJson(entry.getMessagesJson())).hasSize(2);
+  }
+
+  @Test
+  void writesOnTheCallerIfTheBacklogIsFull() {
+    var queued = new ArrayList<Runnable>();
+    Executor executor = queued::add;
+    var recorder = new BufferedHistoryRecorder(repository, executor, 0);
+
+    recorder.store(List.of(UserMessage.from("Hello")), null);
+    recorder.flush();
+
+    assertThat(queued).isEmpty();
+    assertThat(storage.findAll()).hasSize(1);
+  }
+
+  private static ResponseMetadata metadata(int inputTokens, int outputTokens) {
+    return new ResponseMetadata(inputTokens, outputTokens, inputTokens + outputTokens, null, "STOP", "gpt-test", 10L,
+        "chat", List.of(), false);
+  }
+}
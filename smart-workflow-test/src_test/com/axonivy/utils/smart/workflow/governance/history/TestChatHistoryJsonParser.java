@@ -16,6 +16,13 @@ public class TestChatHistoryJsonParser {
     assertThat(ChatHistoryJsonParser.getMessageCount(entry)).isEqualTo(3);
   }
 
+  @Test
+  void getMessageCount_storedCount_skipsParsing() {
+    var entry = entryWithMessages("NOT_VALID_JSON");
+    entry.setMessageCount(4);
+    assertThat(ChatHistoryJsonParser.getMessageCount(entry)).isEqualTo(4);
+  }
+
   @Test
   void getMessageCount_emptyArray_returnsZero() {
     assertThat(ChatHistoryJsonParser.getMessageCount(entryWithMessages("[]"))).isEqualTo(0);
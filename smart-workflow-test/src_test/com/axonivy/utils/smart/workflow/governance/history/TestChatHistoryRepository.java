@@ -7,6 +7,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
 import com.axonivy.utils.smart.workflow.governance.history.listener.AgentResponseListener;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
 
@@ -64,6 +65,27 @@ public class TestChatHistoryRepository {
     assertThat(entry.getProcessName()).isEqualTo("test-process");
   }
 
+  @Test
+  void updatesEntryOfAgentAmongManyOthers() {
+    for (int i = 0; i < 150; i++) {
+      var other = new AgentConversationEntry();
+      other.setCaseUuid("case-" + i);
+      other.setTaskUuid("task-1");
+      other.setAgentId("test-agent");
+      storage.save(other);
+    }
+    var repo = new ChatHistoryRepository("CASE-1", "task-1", "test-agent", "Test Agent", "test-process", storage);
+    repo.record("lookup", "{}", "found");
+    new ChatHistoryRepository("case-1", "task-1", "test-agent", "Test Agent", "test-process", storage)
+        .record("lookup", "{}", "found again");
+
+    var entries = storage.findByKey("case-1", "task-1", "test-agent");
+    assertThat(entries).hasSize(1);
+    assertThat(entries.get(0).getId()).isEqualTo("case-1:task-1:test-agent");
+    assertThat(entries.get(0).getToolExecutions()).hasSize(2);
+    assertThat(entries.get(0).getVersion()).isEqualTo(2);
+  }
+
   private AiServiceResponseReceivedEvent buildEvent(String userText, String methodName,
       int inputTokens, int outputTokens, String aiText) {
     var invocationCtx = InvocationContext.builder()
@@ -0,0 +1,249 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.ToolExecution;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEvent;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
+import com.axonivy.utils.smart.workflow.governance.history.storage.EventLogHistoryStorage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.IvyRepoHistoryStorage;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.environment.IvyTest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.UserMessage;
+
+@IvyTest
+class TestEventLogHistoryStorage {
+
+  private static final String CASE = "event-log-case";
+
+  private EventLogHistoryStorage storage;
+
+  @BeforeEach
+  void setUp() {
+    storage = new EventLogHistoryStorage();
+  }
+
+  @AfterEach
+  void tearDown() {
+    storage.findByCaseUuid(CASE).forEach(storage::delete);
+  }
+
+  @Test
+  void assemblesConversationFromEvents() {
+    var repo = repository();
+    repo.store(List.of(UserMessage.from("Weather?"), AiMessage.from("Let me check")), null);
+    repo.record("weather", "{\"city\":\"Zug\"}", "sunny");
+    repo.store(List.of(UserMessage.from("Weather?"), AiMessage.from("Let me check"), AiMessage.from("Sunny")), null);
+
+    var entries = storage.findByKey(CASE, "task", "agent");
+    assertThat(entries).hasSize(1);
+    var entry = entries.get(0);
+    assertThat(entry.isEventLog()).isTrue();
+    assertThat(ChatMessageDeserializer.messagesFromJson(entry.getMessagesJson()))
+        .extracting(message -> message.type().name())
+        .containsExactly("USER", "AI", "AI");
+    assertThat(entry.getToolExecutions()).extracting(ToolExecution::toolName).containsExactly("weather");
+  }
+
+  @Test
+  void replacesRewrittenMessages() {
+    repository().store(List.of(UserMessage.from("first"), AiMessage.from("answer")), null);
+    var next = repository();
+    next.store(List.of(UserMessage.from("second")), null);
+
+    var entry = storage.findByKey(CASE, "task", "agent").get(0);
+    assertThat(ChatMessageDeserializer.messagesFromJson(entry.getMessagesJson())).hasSize(1);
+  }
+
+  @Test
+  void migratesEntryOfEarlierVersion() {
+    var legacy = new AgentConversationEntry();
+    legacy.setId(AgentConversationEntry.keyOf(CASE, "task", "agent"));
+    legacy.setCaseUuid(CASE);
+    legacy.setTaskUuid("task");
+    legacy.setAgentId("agent");
+    legacy.setToolExecutions(List.of(new ToolExecution("lookup", "{}", "found", "2025-01-01T10:00")));
+    new IvyRepoHistoryStorage().save(legacy);
+
+    assertThat(storage.findByKey(CASE, "task", "agent").get(0).isEventLog()).isFalse();
+
+    repository().record("weather", "{}", "sunny");
+
+    var entry = storage.findByKey(CASE, "task", "agent").get(0);
+    assertThat(entry.isEventLog()).isTrue();
+    assertThat(entry.getToolExecutions()).extracting(ToolExecution::toolName).containsExactly("lookup", "weather");
+  }
+
+  @Test
+  void indexesContentOfAppendedEvents() {
+    var repo = repository();
+    repo.store(List.of(UserMessage.from("Weather in Zug?"), AiMessage.from("Let me check")), null);
+    repo.record("weather", "{\"city\":\"Zug\"}", "sunny");
+    repo.recordGuardrail("PiiMaskingGuardrail", "INPUT", "SUCCESS", null, null, 3L);
+    repo.store(List.of(UserMessage.from("Weather in Zug?"), AiMessage.from("Let me check"), AiMessage.from("Sunny")), null);
+
+    var header = Ivy.repo().find(AgentConversationEntry.keyOf(CASE, "task", "agent"), AgentConversationEntry.class);
+    assertThat(header.getMessagesJson()).isNull();
+    assertThat(header.getContentSearchText()).startsWith("weather in zug let me check").contains("city zug", "sunny");
+    assertThat(header.getToolNames()).containsExactly("weather");
+    assertThat(header.getGuardrailOutcomes()).containsExactly("PiiMaskingGuardrail: SUCCESS");
+    assertThat(header.getSearchIndexVersion()).isEqualTo(AgentConversationEntry.SEARCH_INDEX_VERSION);
+  }
+
+  @Test
+  void reindexesMessagesLoggedAgain() {
+    var first = repository();
+    first.store(List.of(UserMessage.from("Weather in Zug?"), AiMessage.from("Let me check")), null);
+    first.record("weather", "{\"city\":\"Zug\"}", "sunny");
+    repository().store(List.of(UserMessage.from("Weather in Zug?"), AiMessage.from("Let me check"),
+        AiMessage.from("Sunny")), null); // a new recorder logs the conversation from its start
+
+    var text = storage.findByKey(CASE, "task", "agent").get(0).getContentSearchText();
+    assertThat(text.indexOf("weather in zug")).isEqualTo(text.lastIndexOf("weather in zug"));
+    assertThat(text).contains("sunny", "city zug");
+  }
+
+  @Test
+  void eventsOfNodesKeepTheirOrder() {
+    var node1 = repository();
+    var node2 = new ChatHistoryRepository(CASE, "task", "agent", "Agent", "process", new EventLogHistoryStorage());
+    node1.record("first", "{}", "1");
+    node2.record("second", "{}", "2");
+    node1.record("third", "{}", "3");
+
+    var entry = storage.findByKey(CASE, "task", "agent").get(0);
+    assertThat(entry.getToolExecutions()).extracting(ToolExecution::toolName)
+        .containsExactly("first", "second", "third");
+    assertThat(entry.getNextEventSequence()).isEqualTo(3);
+  }
+
+  @Test
+  void saveRewritesEventsInNewGeneration() {
+    var repo = repository();
+    repo.record("first", "{}", "1");
+    repo.record("second", "{}", "2");
+
+    var entry = storage.findByKey(CASE, "task", "agent").get(0);
+    entry.setToolExecutions(List.of(new ToolExecution("only", "{}", "3", "2025-01-01T10:00")));
+    storage.save(entry);
+
+    var saved = storage.findByKey(CASE, "task", "agent").get(0);
+    assertThat(saved.getEventGeneration()).isEqualTo(1);
+    assertThat(saved.getToolExecutions()).extracting(ToolExecution::toolName).containsExactly("only");
+    assertThat(saved.getNextEventSequence()).as("continues after the earlier generation").isEqualTo(3);
+    assertThat(Ivy.repo().search(AgentConversationEvent.class)
+        .textField("entryId").isEqualToIgnoringCase(saved.getId())
+        .execute().getAll())
+        .as("events of the earlier generation are deleted")
+        .extracting(AgentConversationEvent::getGeneration).containsOnly(1L);
+  }
+
+  @Test
+  void assemblesEntriesOfCase() {
+    repository().record("weather", "{}", "sunny");
+    new ChatHistoryRepository(CASE, "task", "other", "Other", "process", storage).record("lookup", "{}", "found");
+
+    assertThat(storage.findByCaseUuid(CASE))
+        .extracting(entry -> entry.getToolExecutions().get(0).toolName())
+        .containsExactlyInAnyOrder("weather", "lookup");
+  }
+
+  @Test
+  void caseHeadersLeaveOutContentOfEarlierVersion() {
+    var legacy = new AgentConversationEntry();
+    legacy.setId(AgentConversationEntry.keyOf(CASE, "task", "agent"));
+    legacy.setCaseUuid(CASE);
+    legacy.setTaskUuid("task");
+    legacy.setAgentId("agent");
+    legacy.setLastUpdated(LocalDateTime.now().toString());
+    legacy.setMessagesJson("[{\"type\":\"USER\"},{\"type\":\"AI\"}]");
+    legacy.setToolExecutions(List.of(new ToolExecution("lookup", "{}", "found", "2025-01-01T10:00")));
+    new IvyRepoHistoryStorage().save(legacy);
+    new ChatHistoryRepository(CASE, "task", "other", "Other", "process", storage).record("weather", "{}", "sunny");
+
+    var first = storage.queryCaseHeaders(CASE, HistoryFilter.empty(), null, 1);
+    var second = storage.queryCaseHeaders(CASE, HistoryFilter.empty(), first.nextCursor(), 1);
+
+    assertThat(second.hasMore()).isFalse();
+    assertThat(List.of(first.entries().get(0), second.entries().get(0)))
+        .extracting(AgentConversationEntry::getAgentId).containsExactlyInAnyOrder("agent", "other");
+    var header = first.entries().get(0).getAgentId().equals("agent") ? first.entries().get(0) : second.entries().get(0);
+    assertThat(header.getMessagesJson()).isNull();
+    assertThat(header.getToolExecutionsJson()).isNull();
+    assertThat(header.getMessageCount()).isEqualTo(2);
+  }
+
+  @Test
+  void pagesThroughMoreEntriesOfTheSameMillisecondThanOneSearchReturns() {
+    var legacy = new IvyRepoHistoryStorage();
+    var sameTime = LocalDateTime.now().minusHours(1).toString();
+    for (int agent = 0; agent < 120; agent++) {
+      var entry = new AgentConversationEntry();
+      entry.setId(AgentConversationEntry.keyOf(CASE, "task", "agent" + agent));
+      entry.setCaseUuid(CASE);
+      entry.setTaskUuid("task");
+      entry.setAgentId("agent" + agent);
+      entry.setLastUpdated(sameTime);
+      legacy.save(entry);
+    }
+
+    var seen = new ArrayList<String>();
+    String cursor = null;
+    do {
+      var page = storage.queryCaseHeaders(CASE, HistoryFilter.empty(), cursor, 50);
+      page.entries().forEach(entry -> seen.add(entry.getAgentId()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    assertThat(seen).hasSize(120).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void staleUpdate_rejected() {
+    repository().store(List.of(UserMessage.from("first")), null);
+    var mine = storage.findByKey(CASE, "task", "agent").get(0);
+    var theirs = storage.findByKey(CASE, "task", "agent").get(0);
+
+    assertThat(storage.update(theirs)).isTrue();
+    assertThat(storage.update(mine)).as("read before the update of another writer").isFalse();
+    assertThat(storage.findByKey(CASE, "task", "agent").get(0).getVersion()).isEqualTo(theirs.getVersion());
+  }
+
+  @Test
+  void concurrentCreate_rejected() {
+    var mine = newEntry();
+    var theirs = newEntry();
+
+    assertThat(storage.update(theirs)).isTrue();
+    assertThat(storage.update(mine)).as("created by another writer meanwhile").isFalse();
+    assertThat(storage.findByKey(CASE, "task", "agent")).singleElement()
+        .extracting(AgentConversationEntry::getVersion).isEqualTo(1L);
+  }
+
+  private static AgentConversationEntry newEntry() {
+    var entry = new AgentConversationEntry();
+    entry.setId(AgentConversationEntry.keyOf(CASE, "task", "agent"));
+    entry.setCaseUuid(CASE);
+    entry.setTaskUuid("task");
+    entry.setAgentId("agent");
+    entry.setLastUpdated(LocalDateTime.now().toString());
+    return entry;
+  }
+
+  private ChatHistoryRepository repository() {
+    return new ChatHistoryRepository(CASE, "task", "agent", "Agent", "process", storage);
+  }
+}
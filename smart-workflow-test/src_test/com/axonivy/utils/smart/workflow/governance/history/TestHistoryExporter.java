@@ -0,0 +1,119 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.export.HistoryExporter;
+import com.axonivy.utils.smart.workflow.governance.history.export.HistoryExporter.Format;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.utils.JsonUtils;
+
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+public class TestHistoryExporter {
+
+  private static final LocalDateTime NOW = LocalDateTime.now();
+
+  private InMemoryHistoryStorage storage;
+
+  @BeforeEach
+  void setUp() {
+    storage = new InMemoryHistoryStorage();
+  }
+
+  @Test
+  void ndjsonPagesThroughAllEntries() throws IOException {
+    for (int i = 0; i < 250; i++) {
+      save(String.valueOf(i), "Case " + i, NOW.minusMinutes(i));
+    }
+
+    var out = new ByteArrayOutputStream();
+    long written = new HistoryExporter(storage).export(HistoryFilter.empty(), Format.NDJSON, out);
+
+    assertThat(written).isEqualTo(250);
+    var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertThat(lines).hasSize(250);
+    var first = JsonUtils.getObjectMapper().readTree(lines[0]);
+    assertThat(first.get("caseId").asText()).isEqualTo("0");
+    assertThat(first.get("messages").get(0).get("type").asText()).isEqualTo("USER");
+    assertThat(first.get("guardrailExecutions").isNull()).isTrue();
+    assertThat(JsonUtils.getObjectMapper().readTree(lines[249]).get("caseId").asText()).isEqualTo("249");
+  }
+
+  @Test
+  void csvQuotesValues() throws IOException {
+    save("1", "Invoice, \"urgent\"", NOW);
+
+    var out = new ByteArrayOutputStream();
+    new HistoryExporter(storage).export(HistoryFilter.empty(), Format.CSV, out);
+
+    var rows = out.toString(StandardCharsets.UTF_8).split("\r\n");
+    assertThat(rows).hasSize(2);
+    assertThat(rows[0]).startsWith("id,caseUuid,caseId,caseName,");
+    assertThat(rows[1])
+        .contains(",\"Invoice, \"\"urgent\"\"\",")
+        .contains("\"[{\"\"type\"\":\"\"USER\"\"");
+  }
+
+  @Test
+  void csvEscapesFormulas() throws IOException {
+    save("1", "=HYPERLINK(\"http://evil\")", NOW);
+    save("2", "@SUM(A1)", NOW.minusMinutes(1));
+
+    var out = new ByteArrayOutputStream();
+    new HistoryExporter(storage).export(HistoryFilter.empty(), Format.CSV, out);
+
+    var rows = out.toString(StandardCharsets.UTF_8).split("\r\n");
+    assertThat(rows[1]).contains(",\"'=HYPERLINK(\"\"http://evil\"\")\",");
+    assertThat(rows[2]).contains(",'@SUM(A1),");
+  }
+
+  @Test
+  void ndjsonKeepsDamagedJsonAsText() throws IOException {
+    save("1", "Damaged", NOW);
+    storage.findAll().get(0).setToolExecutionsJson("[{\"toolName\":");
+
+    var out = new ByteArrayOutputStream();
+    new HistoryExporter(storage).export(HistoryFilter.empty(), Format.NDJSON, out);
+
+    var line = JsonUtils.getObjectMapper().readTree(out.toString(StandardCharsets.UTF_8).strip());
+    assertThat(line.get("toolExecutions").asText()).isEqualTo("[{\"toolName\":");
+    assertThat(line.get("messages").get(0).get("type").asText()).isEqualTo("USER");
+  }
+
+  @Test
+  void exportsFilteredEntries() throws IOException {
+    save("1", "Invoice approval", NOW);
+    save("2", "Supplier onboarding", NOW.minusMinutes(1));
+    save("3", "Invoice dispute", NOW.minusDays(40));
+
+    var out = new ByteArrayOutputStream();
+    long written = new HistoryExporter(storage).export(
+        new HistoryFilter("invoice", null, null, LocalDate.now().minusDays(30), null), Format.NDJSON, out);
+
+    assertThat(written).isEqualTo(1);
+    assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"caseId\":\"1\"");
+  }
+
+  private void save(String caseId, String caseName, LocalDateTime lastUpdated) {
+    var entry = new AgentConversationEntry();
+    entry.setCaseUuid("case-" + caseId);
+    entry.setTaskUuid("task-" + caseId);
+    entry.setAgentId("agent");
+    entry.describeCase(caseId, caseName, null);
+    entry.setMessagesJson("""
+        [{"type":"USER","contents":[{"type":"TEXT","text":"Hello"}]}]""");
+    entry.setLastUpdated(lastUpdated.toString());
+    storage.save(entry);
+  }
+}
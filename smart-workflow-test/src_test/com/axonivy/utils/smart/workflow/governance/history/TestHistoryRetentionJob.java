@@ -0,0 +1,148 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.retention.HistoryRetentionJob;
+import com.axonivy.utils.smart.workflow.governance.history.retention.HistoryRetentionJob.Progress;
+import com.axonivy.utils.smart.workflow.governance.history.retention.RetentionPolicy;
+import com.axonivy.utils.smart.workflow.governance.history.retention.RetentionPolicy.Mode;
+import com.axonivy.utils.smart.workflow.utils.JsonUtils;
+
+public class TestHistoryRetentionJob {
+
+  private static final LocalDateTime NOW = LocalDateTime.now();
+
+  private InMemoryHistoryStorage storage;
+  private List<Progress> batches;
+
+  @TempDir
+  Path archiveDirectory;
+
+  @BeforeEach
+  void setUp() {
+    storage = new InMemoryHistoryStorage();
+    batches = new ArrayList<>();
+    save("recent", "Invoice", NOW.minusDays(1));
+    save("old", "Invoice", NOW.minusDays(100));
+    save("old-onboarding", "Onboarding", NOW.minusDays(100).minusHours(1));
+  }
+
+  @Test
+  void compactsExpiredEntries() {
+    var progress = run(new RetentionPolicy(90, Map.of(), 0, Mode.COMPACT, null, 100, 0));
+
+    assertThat(progress.compacted()).isEqualTo(2);
+    assertThat(storage.findAll()).hasSize(3);
+    var old = entry("old");
+    assertThat(old.isCompacted()).isTrue();
+    assertThat(old.getMessagesJson()).isNull();
+    assertThat(old.getToolExecutionsJson()).isNull();
+    assertThat(old.getTokenUsageJson()).contains("gpt-4o");
+    assertThat(old.getTotalTokens()).isEqualTo(15);
+    assertThat(entry("recent").getMessagesJson()).isNotNull();
+
+    assertThat(run(new RetentionPolicy(90, Map.of(), 0, Mode.COMPACT, null, 100, 0)).compacted())
+        .as("compacted entries are not compacted again")
+        .isZero();
+  }
+
+  @Test
+  void maxAgePerProcess() {
+    var policy = new RetentionPolicy(0, RetentionPolicy.parseProcessMaxAgeDays("onboarding = 30, invalid"), 0,
+        Mode.COMPACT, null, 100, 0);
+
+    run(policy);
+
+    assertThat(entry("old-onboarding").isCompacted()).isTrue();
+    assertThat(entry("old").isCompacted()).isFalse();
+  }
+
+  @Test
+  void keepsNewestEntriesPerProcess() {
+    save("older", "Invoice", NOW.minusDays(2));
+
+    var progress = run(new RetentionPolicy(0, Map.of(), 2, Mode.COMPACT, null, 1, 0));
+
+    assertThat(progress.scanned()).isEqualTo(4);
+    assertThat(batches).hasSize(4);
+    assertThat(entry("recent").isCompacted()).isFalse();
+    assertThat(entry("older").isCompacted()).isFalse();
+    assertThat(entry("old").isCompacted()).isTrue();
+    assertThat(entry("old-onboarding").isCompacted()).isFalse();
+  }
+
+  @Test
+  void archivesAndDeletesExpiredEntries() throws IOException {
+    var progress = run(new RetentionPolicy(90, Map.of(), 0, Mode.ARCHIVE, archiveDirectory, 1, 0));
+
+    assertThat(progress.archived()).isEqualTo(2);
+    assertThat(storage.findAll()).extracting(AgentConversationEntry::getCaseUuid).containsExactly("recent");
+
+    try (var files = Files.list(archiveDirectory)) {
+      var archives = files.toList();
+      assertThat(archives).hasSize(1);
+      var lines = readGzipLines(archives.get(0));
+      assertThat(lines).hasSize(2);
+      var archived = JsonUtils.getObjectMapper().readTree(lines.get(0));
+      assertThat(archived.get("caseUuid").asText()).startsWith("old");
+      assertThat(archived.get("messages").isArray()).isTrue();
+      assertThat(archived.get("tokenUsage").get(0).get("modelName").asText()).isEqualTo("gpt-4o");
+    }
+  }
+
+  @Test
+  void keepsEverythingWithoutLimits() {
+    var progress = run(new RetentionPolicy(0, Map.of(), 0, Mode.COMPACT, null, 100, 0));
+
+    assertThat(progress.scanned()).isZero();
+    assertThat(storage.findAll()).noneMatch(AgentConversationEntry::isCompacted);
+  }
+
+  private Progress run(RetentionPolicy policy) {
+    return new HistoryRetentionJob(storage, policy, () -> false, batches::add)
+        .run(System.currentTimeMillis());
+  }
+
+  private AgentConversationEntry entry(String caseUuid) {
+    return storage.findByCaseUuid(caseUuid).get(0);
+  }
+
+  private void save(String caseUuid, String processName, LocalDateTime lastUpdated) {
+    var entry = new AgentConversationEntry();
+    entry.setCaseUuid(caseUuid);
+    entry.setTaskUuid("task");
+    entry.setAgentId("agent");
+    entry.setProcessName(processName);
+    entry.setMessagesJson("""
+        [{"type":"USER","contents":[{"type":"TEXT","text":"Hello"}]}]""");
+    entry.setTokenUsageJson("""
+        [{"totalTokens":15,"modelName":"gpt-4o"}]""");
+    entry.setToolExecutionsJson("[]");
+    entry.setLastUpdated(lastUpdated.toString());
+    storage.save(entry);
+  }
+
+  private static List<String> readGzipLines(Path file) throws IOException {
+    try (var reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)),
+        StandardCharsets.UTF_8))) {
+      return reader.lines().toList();
+    }
+  }
+}
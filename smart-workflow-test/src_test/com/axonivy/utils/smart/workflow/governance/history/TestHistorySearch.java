@@ -0,0 +1,127 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
+import com.axonivy.utils.smart.workflow.governance.history.search.HistoryFacets;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+public class TestHistorySearch {
+
+  private InMemoryHistoryStorage storage;
+
+  @BeforeEach
+  void setUp() {
+    storage = new InMemoryHistoryStorage();
+    var invoice = repository("case-invoice");
+    invoice.store(List.of(UserMessage.from("Pay the invoice of ACME, mail me at anna@example.com"),
+        AiMessage.from("I will check the supplier first")), null);
+    invoice.record("findSupplier", "{\"supplier\":\"ACME-42\"}", "found");
+    invoice.recordGuardrail("PiiMaskingGuardrail", "INPUT", "SUCCESS", null, null, 2L);
+
+    var weather = repository("case-weather");
+    weather.store(List.of(UserMessage.from("Weather at Lake Lucerne?"), AiMessage.from("Sunny")), null);
+    weather.record("weather", "{\"city\":\"Lucerne\"}", "sunny");
+    weather.recordGuardrail("PromptInjectionGuardrail", "INPUT", "FAILURE", null, "Injection detected", 1L);
+  }
+
+  @Test
+  void indexesMaskedContent() {
+    var entry = entry("case-invoice");
+
+    assertThat(entry.getContentSearchText())
+        .contains("pay the invoice of acme", "findsupplier supplier acme 42", "piimaskingguardrail success")
+        .doesNotContain("anna", "example");
+    assertThat(entry.getToolNames()).containsExactly("findSupplier");
+    assertThat(entry.getGuardrailOutcomes()).containsExactly("PiiMaskingGuardrail: SUCCESS");
+    assertThat(entry.getSearchIndexVersion()).isEqualTo(AgentConversationEntry.SEARCH_INDEX_VERSION);
+  }
+
+  @Test
+  void searchesWordsAndPhrases() {
+    assertThat(search("supplier acme")).containsExactly("case-invoice");
+    assertThat(search("\"lake lucerne\"")).containsExactly("case-weather");
+    assertThat(search("\"lucerne lake\"")).isEmpty();
+    assertThat(search("lucern")).as("whole words only").isEmpty();
+    assertThat(search("\"ACME-42\" invoice")).containsExactly("case-invoice");
+  }
+
+  @Test
+  void searchesMaskedValuesByTheirValue() {
+    assertThat(search("anna@example.com")).containsExactly("case-invoice");
+    assertThat(search("bob@example.com")).isEmpty();
+  }
+
+  @Test
+  void filtersByFacets() {
+    assertThat(query(new HistoryFilter(null, null, null, null, null, null, "FINDSUPPLIER", null)))
+        .containsExactly("case-invoice");
+    assertThat(query(new HistoryFilter(null, null, null, null, null, "sunny", null,
+        "PromptInjectionGuardrail: FAILURE"))).containsExactly("case-weather");
+    assertThat(query(new HistoryFilter(null, null, null, null, null, "sunny", "findSupplier", null))).isEmpty();
+  }
+
+  @Test
+  void countsFacets() {
+    var facets = HistoryFacets.of(storage.queryHeaders(HistoryFilter.empty(), null, 10).entries());
+
+    assertThat(facets.tools()).containsOnlyKeys("findSupplier", "weather");
+    assertThat(facets.guardrailOutcomes())
+        .containsEntry("PiiMaskingGuardrail: SUCCESS", 1L)
+        .containsEntry("PromptInjectionGuardrail: FAILURE", 1L);
+    assertThat(facets.counted()).isEqualTo(2);
+
+    var narrowed = storage.queryHeaders(new HistoryFilter(null, null, null, null, null, "invoice", null, null), null, 1);
+    assertThat(HistoryFacets.of(narrowed.entries()).tools()).containsOnlyKeys("findSupplier");
+  }
+
+  @Test
+  void facetsCountLoadedEntriesOnly() {
+    var page = storage.queryHeaders(HistoryFilter.empty(), null, 1);
+    var facets = HistoryFacets.of(page.entries());
+
+    assertThat(page.hasMore()).isTrue();
+    assertThat(facets.counted()).isEqualTo(1);
+    assertThat(facets.models().values().stream().mapToLong(Long::longValue).sum()).isLessThanOrEqualTo(1);
+  }
+
+  @Test
+  void compactionClearsTheIndex() {
+    var entry = entry("case-invoice");
+    entry.setMessagesJson(null);
+    entry.setToolExecutionsJson(null);
+    entry.setGuardrailExecutionsJson(null);
+    entry.indexContent();
+
+    assertThat(entry.getContentSearchText()).isNull();
+    assertThat(entry.getToolNames()).isEmpty();
+    assertThat(search("invoice")).isEmpty();
+  }
+
+  private List<String> search(String contentSearch) {
+    return query(new HistoryFilter(null, null, null, null, null, contentSearch, null, null));
+  }
+
+  private List<String> query(HistoryFilter filter) {
+    return storage.query(filter, null, 10).entries().stream()
+        .map(AgentConversationEntry::getCaseUuid)
+        .toList();
+  }
+
+  private AgentConversationEntry entry(String caseUuid) {
+    return storage.findByCaseUuid(caseUuid).get(0);
+  }
+
+  private ChatHistoryRepository repository(String caseUuid) {
+    return new ChatHistoryRepository(caseUuid, "task", "agent", "Agent", "process", storage);
+  }
+}
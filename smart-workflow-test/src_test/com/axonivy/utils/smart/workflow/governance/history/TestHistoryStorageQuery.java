@@ -0,0 +1,101 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+
+public class TestHistoryStorageQuery {
+
+  private static final LocalDateTime NOW = LocalDateTime.now();
+
+  private InMemoryHistoryStorage storage;
+
+  @BeforeEach
+  void setUp() {
+    storage = new InMemoryHistoryStorage();
+    save("1", "Invoice approval", "gpt-4.1-mini-2025-04-14", NOW.minusDays(1));
+    save("2", "Supplier onboarding", "claude-sonnet-4", NOW.minusDays(2));
+    save("3", "Invoice dispute", "gpt-4.1-mini-2025-04-14", NOW.minusDays(40));
+  }
+
+  @Test
+  void newestFirst() {
+    var page = storage.query(HistoryFilter.empty(), null, 10);
+
+    assertThat(page.entries()).extracting(AgentConversationEntry::getCaseId).containsExactly("1", "2", "3");
+    assertThat(page.hasMore()).isFalse();
+  }
+
+  @Test
+  void pagesWithCursor() {
+    var first = storage.query(HistoryFilter.empty(), null, 2);
+    assertThat(first.entries()).extracting(AgentConversationEntry::getCaseId).containsExactly("1", "2");
+    assertThat(first.hasMore()).isTrue();
+
+    var second = storage.query(HistoryFilter.empty(), first.nextCursor(), 2);
+    assertThat(second.entries()).extracting(AgentConversationEntry::getCaseId).containsExactly("3");
+    assertThat(second.hasMore()).isFalse();
+  }
+
+  @Test
+  void pagesThroughEntriesOfTheSameMillisecond() {
+    var sameTime = NOW.minusHours(1);
+    save("4", "Same time", null, sameTime);
+    save("5", "Same time", null, sameTime);
+    save("6", "Same time", null, sameTime);
+
+    var seen = new ArrayList<String>();
+    String cursor = null;
+    do {
+      var page = storage.query(HistoryFilter.empty(), cursor, 1);
+      page.entries().forEach(entry -> seen.add(entry.getCaseId()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    assertThat(seen).containsExactly("1", "6", "5", "4", "2", "3");
+  }
+
+  @Test
+  void filtersByCaseModelAndDate() {
+    assertThat(storage.query(new HistoryFilter("invoice", null, null, null, null), null, 10).entries())
+        .extracting(AgentConversationEntry::getCaseId).containsExactly("1", "3");
+    assertThat(storage.query(new HistoryFilter(null, null, "gpt-4.1-mini", null, null), null, 10).entries())
+        .extracting(AgentConversationEntry::getCaseId).containsExactly("1", "3");
+    assertThat(storage.query(new HistoryFilter(null, null, null, LocalDate.now().minusDays(30), null), null, 10).entries())
+        .extracting(AgentConversationEntry::getCaseId).containsExactly("1", "2");
+    assertThat(storage.query(new HistoryFilter("invoice approval", null, "gpt", LocalDate.now().minusDays(30), null), null, 10).entries())
+        .extracting(AgentConversationEntry::getCaseId).containsExactly("1");
+  }
+
+  @Test
+  void summarizesTokenUsageOfEarlierEntries() {
+    var entry = new AgentConversationEntry();
+    entry.setTokenUsageJson("""
+        [{"totalTokens":15,"modelName":"gpt-4o"},{"totalTokens":20,"modelName":"gpt-4o"}]""");
+
+    entry.summarizeTokenUsage();
+
+    assertThat(entry.getTotalTokens()).isEqualTo(35);
+    assertThat(entry.getModelName()).isEqualTo("gpt-4o");
+  }
+
+  private void save(String caseId, String caseName, String modelName, LocalDateTime lastUpdated) {
+    var entry = new AgentConversationEntry();
+    entry.setId(AgentConversationEntry.keyOf("case-" + caseId, "task-" + caseId, "agent"));
+    entry.setCaseUuid("case-" + caseId);
+    entry.setTaskUuid("task-" + caseId);
+    entry.setAgentId("agent");
+    entry.describeCase(caseId, caseName, null);
+    entry.setModelName(modelName);
+    entry.setLastUpdated(lastUpdated.toString());
+    storage.save(entry);
+  }
+}
@@ -0,0 +1,132 @@
+package com.axonivy.utils.smart.workflow.governance.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.entity.TokenUsageRollup;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder.ResponseMetadata;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
+import com.axonivy.utils.smart.workflow.governance.history.rollup.TokenUsageRollups;
+import com.axonivy.utils.smart.workflow.governance.history.storage.RollupStorage;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+public class TestTokenUsageRollups {
+
+  private static final LocalDate TODAY = LocalDate.now();
+
+  @Test
+  void incrementsPerModel() {
+    var increments = TokenUsageRollups.increments(TODAY, "process", "agent", "openai", List.of(
+        response("gpt-4o", 5, 10, 100L),
+        response("gpt-4o", 7, 3, 700L),
+        response("gpt-4o-mini", 1, 1, 60_000L)));
+
+    assertThat(increments).extracting(TokenUsageRollup::getModelName).containsExactly("gpt-4o", "gpt-4o-mini");
+    var gpt4o = increments.get(0);
+    assertThat(gpt4o.getCalls()).isEqualTo(2);
+    assertThat(gpt4o.getInputTokens()).isEqualTo(12);
+    assertThat(gpt4o.getOutputTokens()).isEqualTo(13);
+    assertThat(gpt4o.getTotalTokens()).isEqualTo(25);
+    assertThat(gpt4o.getDurationHistogram()).containsExactly(1L, 0L, 1L, 0L, 0L, 0L, 0L, 0L);
+    assertThat(increments.get(1).getDurationHistogram().getLast()).isEqualTo(1L);
+  }
+
+  @Test
+  void sameKeySameId() {
+    var first = TokenUsageRollup.of(TODAY, "process", "agent", "openai", "gpt-4o");
+    var second = TokenUsageRollup.of(TODAY, "process", "Agent", "openai", "gpt-4o");
+    var otherDay = TokenUsageRollup.of(TODAY.minusDays(1), "process", "agent", "openai", "gpt-4o");
+
+    assertThat(first.getId()).isEqualTo(second.getId()).isNotEqualTo(otherDay.getId());
+  }
+
+  @Test
+  void groupsMostTokensFirst() {
+    var rollups = new ArrayList<TokenUsageRollup>();
+    rollups.addAll(TokenUsageRollups.increments(TODAY, "small", "agent", "openai", List.of(response("gpt-4o", 1, 1, 10L))));
+    rollups.addAll(TokenUsageRollups.increments(TODAY, "large", "agent", "openai", List.of(response("gpt-4o", 50, 50, 30L))));
+    rollups.addAll(TokenUsageRollups.increments(TODAY, "large", "agent", "openai", List.of(response("gpt-4o-mini", 5, 5, 20L))));
+
+    var byProcess = TokenUsageRollups.groupBy(rollups, TokenUsageRollup::getProcessName);
+
+    assertThat(byProcess.keySet()).containsExactly("large", "small");
+    assertThat(byProcess.get("large").getTotalTokens()).isEqualTo(110);
+    assertThat(byProcess.get("large").getCalls()).isEqualTo(2);
+
+    var total = TokenUsageRollups.total(rollups);
+    assertThat(total.getCalls()).isEqualTo(3);
+    assertThat(TokenUsageRollups.averageDurationMs(total)).isEqualTo(20);
+  }
+
+  @Test
+  void repositoryCountsRecordedResponses() {
+    var rollups = new InMemoryRollupStorage();
+    var repo = new ChatHistoryRepository("case-1", "task-1", "agent", "Agent", "process", new InMemoryHistoryStorage())
+        .withRollups(rollups, "openai");
+
+    repo.store(List.of(UserMessage.from("Hello"), AiMessage.from("Hi")), response("gpt-4o", 5, 10, 100L));
+    repo.store(List.of(UserMessage.from("Hello"), AiMessage.from("Hi"), UserMessage.from("Again"), AiMessage.from("Hi again")),
+        response("gpt-4o", 5, 5, 300L));
+    repo.store(List.of(UserMessage.from("Hello"), AiMessage.from("Hi"), UserMessage.from("No response")), null);
+
+    var stored = rollups.find(TODAY, TODAY);
+    assertThat(stored).hasSize(1);
+    assertThat(stored.get(0).getCalls()).isEqualTo(2);
+    assertThat(stored.get(0).getTotalTokens()).isEqualTo(25);
+    assertThat(stored.get(0).getProvider()).isEqualTo("openai");
+    assertThat(stored.get(0).getProcessName()).isEqualTo("process");
+  }
+
+  @Test
+  void repositoryCountsOnlyWrittenResponses() {
+    var rollups = new InMemoryRollupStorage();
+    var conflicting = new InMemoryHistoryStorage() {
+      @Override
+      public boolean update(AgentConversationEntry entry) {
+        return false; // always changed by another writer meanwhile
+      }
+    };
+    var repo = new ChatHistoryRepository("case-1", "task-1", "agent", "Agent", "process", conflicting)
+        .withRollups(rollups, "openai");
+
+    repo.store(List.of(UserMessage.from("Hello"), AiMessage.from("Hi")), response("gpt-4o", 5, 10, 100L));
+
+    assertThat(rollups.find(TODAY, TODAY)).isEmpty();
+  }
+
+  private static ResponseMetadata response(String model, int inputTokens, int outputTokens, long durationMs) {
+    return new ResponseMetadata(inputTokens, outputTokens, inputTokens + outputTokens, null, "STOP", model, durationMs,
+        "chat", List.of(), false);
+  }
+
+  private static class InMemoryRollupStorage implements RollupStorage {
+
+    private final Map<String, TokenUsageRollup> rollups = new LinkedHashMap<>();
+
+    @Override
+    public void add(List<TokenUsageRollup> increments) {
+      for (var increment : increments) {
+        rollups.computeIfAbsent(increment.getId(), _ -> TokenUsageRollup.of(LocalDate.parse(increment.getDay()),
+            increment.getProcessName(), increment.getAgentName(), increment.getProvider(), increment.getModelName()))
+            .add(increment);
+      }
+    }
+
+    @Override
+    public List<TokenUsageRollup> find(LocalDate from, LocalDate to) {
+      return rollups.values().stream()
+          .filter(rollup -> rollup.getEpochDay() >= from.toEpochDay() && rollup.getEpochDay() <= to.toEpochDay())
+          .toList();
+    }
+  }
+}
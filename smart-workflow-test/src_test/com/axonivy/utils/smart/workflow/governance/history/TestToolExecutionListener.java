@@ -10,10 +10,13 @@ import org.junit.jupiter.api.Test;
 
 import com.axonivy.utils.smart.workflow.governance.history.listener.ToolExecutionListener;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
+import com.axonivy.utils.smart.workflow.utils.JsonUtils;
 
 import ch.ivyteam.ivy.environment.IvyTest;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ImageContent;
+import dev.langchain4j.data.message.TextContent;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.invocation.InvocationContext;
 import dev.langchain4j.observability.api.event.ToolExecutedEvent;
@@ -63,6 +66,21 @@ public class TestToolExecutionListener {
     assertThat(messagesJson).contains("mimeType");
   }
 
+  @Test
+  void keepsOtherContentWhenStrippingBase64() throws Exception {
+    var image = ImageContent.from("aGVsbG8=", "image/png", ImageContent.DetailLevel.HIGH);
+    repo.store(List.of(UserMessage.from(TextContent.from("What is on it?"), image), AiMessage.from("A cat")), null);
+
+    var messages = JsonUtils.getObjectMapper().readTree(storage.findAll().get(0).getMessagesJson());
+    assertThat(messages).hasSize(2);
+    var contents = messages.get(0).get("contents");
+    assertThat(contents).hasSize(2);
+    assertThat(contents.get(0).get("text").asText()).isEqualTo("What is on it?");
+    assertThat(contents.get(1).get("image").has("base64Data")).isFalse();
+    assertThat(contents.get(1).get("image").get("mimeType").asText()).isEqualTo("image/png");
+    assertThat(messages.get(1).get("text").asText()).isEqualTo("A cat");
+  }
+
   private ToolExecutedEvent buildEvent(UUID invocationId, String toolName, String arguments,
       String resultText) {
     var invocationCtx = InvocationContext.builder()
@@ -0,0 +1,43 @@
+package com.axonivy.utils.smart.workflow.governance.history.retention;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.governance.history.retention.HistoryRetention.RetentionLease;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+class TestRetentionLease {
+
+  private static final long HOUR_MS = 60L * 60 * 1000;
+  private static final long NOW = 1_000 * HOUR_MS;
+
+  @AfterEach
+  void tearDown() {
+    Ivy.repo().deleteById(RetentionLease.ID);
+  }
+
+  @Test
+  void oneRunPerInterval() {
+    var lease = RetentionLease.acquire(NOW, 24 * HOUR_MS);
+    assertThat(lease).isNotNull();
+    assertThat(RetentionLease.acquire(NOW + 1, 24 * HOUR_MS)).as("running on another node").isNull();
+
+    lease.release(NOW + HOUR_MS);
+    assertThat(RetentionLease.acquire(NOW + 2 * HOUR_MS, 24 * HOUR_MS)).as("ran within the interval").isNull();
+    assertThat(RetentionLease.acquire(NOW + 25 * HOUR_MS, 24 * HOUR_MS)).isNotNull();
+  }
+
+  @Test
+  void abandonedLease_takenOver() {
+    var lease = RetentionLease.acquire(NOW, HOUR_MS);
+    lease.renew(NOW + 10);
+
+    assertThat(RetentionLease.acquire(NOW + HistoryRetention.LEASE_MS, HOUR_MS)).as("renewed recently").isNull();
+    assertThat(RetentionLease.acquire(NOW + 10 + HOUR_MS, HOUR_MS)).as("node stopped renewing").isNotNull();
+  }
+}
@@ -0,0 +1,118 @@
+package com.axonivy.utils.smart.workflow.governance.ui;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.primefaces.model.TreeNode;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.service.DisplayNameCache;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryPage;
+import com.axonivy.utils.smart.workflow.governance.ui.entity.AgentConversationView;
+import com.axonivy.utils.smart.workflow.governance.ui.entity.CaseHistoryGroup;
+import com.axonivy.utils.smart.workflow.governance.ui.entity.TaskHistoryGroup;
+
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+public class TestHistoryTreeBuilder {
+
+  private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+  private final DisplayNameCache names = new DisplayNameCache();
+
+  @Test
+  void casesArePendingUntilExpanded() {
+    var root = HistoryTreeBuilder.root();
+    HistoryTreeBuilder.addCases(root, List.of(
+        entry("case-1", "task-1", "agent-a", T0),
+        entry("case-2", "task-2", "agent-b", T0.plusSeconds(1))), names);
+
+    assertThat(root.getChildren()).hasSize(2);
+    assertThat(root.getChildren()).allMatch(HistoryTreeBuilder::isPending);
+    assertThat(root.getChildren().get(0).isExpanded()).isFalse();
+  }
+
+  @Test
+  void laterPagesAddToLoadedCases() {
+    var root = HistoryTreeBuilder.root();
+    HistoryTreeBuilder.addCases(root, List.of(entry("case-1", "task-1", "agent-a", T0)), names);
+    HistoryTreeBuilder.addCases(root, List.of(entry("case-1", "task-2", "agent-b", T0.minusSeconds(1))), names);
+
+    assertThat(root.getChildren()).hasSize(1);
+    assertThat(group(root.getChildren().get(0)).getTaskCount()).isEqualTo(2);
+  }
+
+  @Test
+  void expandingCaseAddsTasksAndAgents() {
+    var root = HistoryTreeBuilder.root();
+    HistoryTreeBuilder.addCases(root, List.of(entry("case-1", "task-1", "agent-a", T0)), names);
+    var caseNode = root.getChildren().get(0);
+
+    HistoryTreeBuilder.expandCase(caseNode, new HistoryPage(List.of(
+        entry("case-1", "task-1", "agent-a", T0),
+        entry("case-1", "task-1", "agent-b", T0.plusSeconds(1)),
+        entry("case-1", "task-2", "agent-c", T0.plusSeconds(2))), null), names);
+
+    assertThat(HistoryTreeBuilder.isPending(caseNode)).isFalse();
+    assertThat(group(caseNode).getTaskCount()).isEqualTo(3);
+    assertThat(caseNode.getChildren()).extracting(node -> ((TaskHistoryGroup) node.getData()).getTaskUuid())
+        .containsExactly("task-1", "task-2");
+    assertThat(caseNode.getChildren().get(0).getChildren())
+        .extracting(node -> ((AgentConversationView) node.getData()).getAgentId())
+        .containsExactly("agent-a", "agent-b");
+
+    HistoryTreeBuilder.addCases(root, List.of(entry("case-1", "task-3", "agent-d", T0.minusDays(1))), names);
+    assertThat(group(caseNode).getTaskCount()).as("an expanded case loads its entries itself").isEqualTo(3);
+  }
+
+  @Test
+  void expandedCaseLoadsMorePages() {
+    var root = HistoryTreeBuilder.root();
+    HistoryTreeBuilder.addCases(root, List.of(entry("case-1", "task-1", "agent-a", T0)), names);
+    var caseNode = root.getChildren().get(0);
+
+    HistoryTreeBuilder.expandCase(caseNode, new HistoryPage(List.of(
+        entry("case-1", "task-2", "agent-b", T0.plusSeconds(1)),
+        entry("case-1", "task-1", "agent-a", T0)), "cursor"), names);
+    assertThat(group(caseNode).isMoreAvailable()).isTrue();
+    assertThat(caseNode.getChildren()).hasSize(2);
+
+    HistoryTreeBuilder.expandCase(caseNode, new HistoryPage(List.of(
+        entry("case-1", "task-1", "agent-c", T0.minusSeconds(1))), null), names);
+    assertThat(group(caseNode).isMoreAvailable()).isFalse();
+    assertThat(group(caseNode).getTaskCount()).isEqualTo(3);
+    assertThat(caseNode.getChildren()).hasSize(2);
+    assertThat(caseNode.getChildren().stream()
+        .filter(node -> "task-1".equals(((TaskHistoryGroup) node.getData()).getTaskUuid()))
+        .findFirst().orElseThrow().getChildren()).hasSize(2);
+  }
+
+  @Test
+  void storedCaseNameNeedsNoLookup() {
+    var entry = entry("case-1", "task-1", "agent-a", T0);
+    entry.describeCase("42", "Invoice approval", null);
+    var root = HistoryTreeBuilder.root();
+    HistoryTreeBuilder.addCases(root, List.of(entry), names);
+
+    assertThat(group(root.getChildren().get(0)).getCaseDisplayName()).isEqualTo("Invoice approval (42)");
+    assertThat(group(root.getChildren().get(0)).getCaseId()).isEqualTo(42L);
+  }
+
+  private static CaseHistoryGroup group(TreeNode<Object> caseNode) {
+    return (CaseHistoryGroup) caseNode.getData();
+  }
+
+  private static AgentConversationEntry entry(String caseUuid, String taskUuid, String agentId, LocalDateTime lastUpdated) {
+    var entry = new AgentConversationEntry();
+    entry.setCaseUuid(caseUuid);
+    entry.setTaskUuid(taskUuid);
+    entry.setAgentId(agentId);
+    entry.setMessageCount(2);
+    entry.setLastUpdated(lastUpdated.toString());
+    return entry;
+  }
+}
@@ -0,0 +1,160 @@
+package com.axonivy.utils.smart.workflow.memory.compaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+class TestMemoryCompactor {
+
+  private static final SystemMessage SYSTEM = SystemMessage.from("You are a helpful assistant");
+  private static final ToolExecutionRequest REQUEST = ToolExecutionRequest.builder()
+      .id("call-1").name("lookup").arguments("{}").build();
+
+  /** every message costs 10 tokens */
+  private static final TokenCountEstimator TEN_PER_MESSAGE = new TokenCountEstimator() {
+    @Override
+    public int estimateTokenCountInText(String text) {
+      return 10;
+    }
+
+    @Override
+    public int estimateTokenCountInMessage(ChatMessage message) {
+      return 10;
+    }
+
+    @Override
+    public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+      int tokens = 0;
+      for (var _ : messages) {
+        tokens += 10;
+      }
+      return tokens;
+    }
+  };
+
+  private final List<List<ChatMessage>> summarized = new ArrayList<>();
+
+  private final ChatModel summaryModel = new ChatModel() {
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+      summarized.add(request.messages());
+      return ChatResponse.builder()
+          .aiMessage(AiMessage.from("summary " + summarized.size()))
+          .build();
+    }
+  };
+
+  @Test
+  void withinBudget_sendsWholeConversation() {
+    var compactor = new MemoryCompactor(100, TEN_PER_MESSAGE, null, Runnable::run);
+    var messages = List.<ChatMessage>of(SYSTEM, UserMessage.from("hi"), AiMessage.from("hello"));
+
+    assertThat(compactor.window(messages)).isSameAs(messages);
+  }
+
+  @Test
+  void window_keepsSystemAndNewestMessages() {
+    var compactor = new MemoryCompactor(40, TEN_PER_MESSAGE, null, Runnable::run);
+    var u2 = UserMessage.from("two");
+    var a2 = AiMessage.from("answer two");
+    var u3 = UserMessage.from("three");
+
+    var window = compactor.window(List.of(SYSTEM, UserMessage.from("one"), AiMessage.from("answer one"), u2, a2, u3));
+    assertThat(window).containsExactly(SYSTEM, u2, a2, u3);
+  }
+
+  @Test
+  void window_neverSplitsToolCallsAndStartsWithUser() {
+    var compactor = new MemoryCompactor(30, TEN_PER_MESSAGE, null, Runnable::run);
+    var question = UserMessage.from("what is the status?");
+    var answer = AiMessage.from("it is done");
+
+    var window = compactor.window(List.of(SYSTEM, question,
+        AiMessage.from(REQUEST), ToolExecutionResultMessage.from(REQUEST, "{\"status\":\"done\"}"),
+        answer));
+    assertThat(window).containsExactly(SYSTEM, question, answer);
+  }
+
+  @Test
+  void window_countsKeptUserMessage() {
+    var compactor = new MemoryCompactor(30, TEN_PER_MESSAGE, null, Runnable::run);
+    var question = UserMessage.from("what is the status?");
+    var answer = AiMessage.from("it is done");
+
+    var window = compactor.window(List.of(question,
+        AiMessage.from(REQUEST), ToolExecutionResultMessage.from(REQUEST, "{\"status\":\"done\"}"),
+        answer));
+    assertThat(window)
+        .as("the tool call fits, but not together with the user message that opened the turn")
+        .containsExactly(question, answer);
+  }
+
+  @Test
+  void summaryModel_setUpOnFirstSummary() {
+    var setups = new AtomicInteger();
+    var compactor = MemoryCompactor.of(new MemoryPolicy(40, true), TEN_PER_MESSAGE, () -> {
+      setups.incrementAndGet();
+      return summaryModel;
+    }).orElseThrow();
+
+    compactor.window(List.of(SYSTEM, UserMessage.from("hi"), AiMessage.from("hello")));
+    assertThat(setups).as("conversation fits into the budget").hasValue(0);
+  }
+
+  @Test
+  void window_keepsUnresolvedToolCalls() {
+    var compactor = new MemoryCompactor(20, TEN_PER_MESSAGE, null, Runnable::run);
+    var pending = AiMessage.from(REQUEST);
+    var u2 = UserMessage.from("two");
+    var a2 = AiMessage.from("answer two");
+
+    var window = compactor.window(List.of(UserMessage.from("one"), pending, u2, a2));
+    assertThat(window).containsExactly(pending, u2, a2);
+  }
+
+  @Test
+  void summary_replacesDroppedMessages() {
+    var compactor = new MemoryCompactor(40, TEN_PER_MESSAGE, new ConversationSummarizer(summaryModel), Runnable::run);
+    var u2 = UserMessage.from("two");
+    var a2 = AiMessage.from("answer two");
+    var u3 = UserMessage.from("three");
+    var messages = List.<ChatMessage>of(SYSTEM, UserMessage.from("one"), AiMessage.from("answer one"), u2, a2, u3);
+
+    assertThat(compactor.window(messages)).containsExactly(SYSTEM, u2, a2, u3);
+    assertThat(summarized).hasSize(1);
+    assertThat(((UserMessage) summarized.get(0).get(1)).singleText())
+        .contains("User: one")
+        .contains("Assistant: answer one")
+        .doesNotContain("two");
+
+    var summary = SystemMessage.from(MemoryCompactor.SUMMARY_PREFIX + "summary 1");
+    assertThat(compactor.window(messages)).containsExactly(SYSTEM, summary, u2, a2, u3);
+    assertThat(summarized).as("the user message of the kept turn is never summarized").hasSize(1);
+    assertThat(compactor.compacted(messages)).containsExactly(SYSTEM, summary, u2, a2, u3);
+  }
+
+  @Test
+  void persistedSummary_isRestored() {
+    var compactor = new MemoryCompactor(50, TEN_PER_MESSAGE, null, Runnable::run);
+    var summary = SystemMessage.from(MemoryCompactor.SUMMARY_PREFIX + "we talked before");
+    var u2 = UserMessage.from("two");
+
+    assertThat(compactor.window(List.of(SYSTEM, summary, u2))).containsExactly(SYSTEM, summary, u2);
+    assertThat(compactor.compacted(List.of(SYSTEM, summary, u2))).containsExactly(SYSTEM, summary, u2);
+  }
+}
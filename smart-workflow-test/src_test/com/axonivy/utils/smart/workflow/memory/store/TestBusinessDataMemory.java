@@ -2,12 +2,15 @@ package com.axonivy.utils.smart.workflow.memory.store;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+
 import ch.ivyteam.ivy.environment.IvyTest;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.ChatMessageType;
@@ -67,4 +70,86 @@ class TestBusinessDataMemory {
         .containsExactly(ChatMessageType.USER, ChatMessageType.SYSTEM);
   }
 
+  @Test
+  void append() {
+    var user = new UserMessage(List.of(new TextContent("hey there")));
+    memory.updateMessages(ID, List.of(user));
+    memory.appendMessages(ID, List.of(new SystemMessage("Pleased to meet you")));
+    memory.appendMessages(ID, List.of(UserMessage.from("how are you?")));
+
+    assertThat(memory.getMessages(ID))
+        .extracting(ChatMessage::type)
+        .containsExactly(ChatMessageType.USER, ChatMessageType.SYSTEM, ChatMessageType.USER);
+    assertThat(memory.getTail(ID, 2))
+        .extracting(ChatMessage::type)
+        .containsExactly(ChatMessageType.SYSTEM, ChatMessageType.USER);
+  }
+
+  @Test
+  void appendToEmpty() {
+    memory.appendMessages(ID, List.of(UserMessage.from("hey there")));
+    assertThat(memory.getMessages(ID))
+        .hasSize(1);
+  }
+
+  @Test
+  void truncate() {
+    memory.updateMessages(ID, List.of(UserMessage.from("one"), UserMessage.from("two")));
+    memory.appendMessages(ID, List.of(UserMessage.from("three"), UserMessage.from("four")));
+
+    memory.truncate(ID, 3);
+    assertThat(memory.getMessages(ID))
+        .extracting(m -> ((UserMessage) m).singleText())
+        .containsExactly("one", "two", "three");
+
+    memory.truncate(ID, 1);
+    assertThat(memory.getMessages(ID))
+        .extracting(m -> ((UserMessage) m).singleText())
+        .containsExactly("one");
+
+    memory.appendMessages(ID, List.of(UserMessage.from("again")));
+    assertThat(memory.getMessages(ID))
+        .extracting(m -> ((UserMessage) m).singleText())
+        .containsExactly("one", "again");
+  }
+
+  @Test
+  void concurrentAppends_keepAllMessages() throws InterruptedException {
+    memory.updateMessages(ID, List.of(UserMessage.from("start")));
+    appendConcurrently();
+
+    assertThat(memory.getMessages(ID))
+        .as("no append claimed the index of another")
+        .hasSize(21)
+        .extracting(m -> ((UserMessage) m).singleText())
+        .doesNotHaveDuplicates();
+  }
+
+  @Test
+  void concurrentFirstAppends_keepAllMessages() throws InterruptedException {
+    appendConcurrently();
+
+    assertThat(memory.getMessages(ID))
+        .as("no first append overwrote the memory created by another")
+        .hasSize(20)
+        .extracting(m -> ((UserMessage) m).singleText())
+        .doesNotHaveDuplicates();
+  }
+
+  private void appendConcurrently() throws InterruptedException {
+    var context = IvyContextSnapshot.capture();
+    var writers = new ArrayList<Thread>();
+    for (int writer = 0; writer < 4; writer++) {
+      var name = "writer" + writer;
+      writers.add(Thread.ofVirtual().start(context.wrap(() -> {
+        for (int i = 0; i < 5; i++) {
+          memory.appendMessages(ID, List.of(UserMessage.from(name + "-" + i)));
+        }
+      })));
+    }
+    for (var writer : writers) {
+      writer.join();
+    }
+  }
+
 }
@@ -0,0 +1,122 @@
+package com.axonivy.utils.smart.workflow.memory.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+
+import ch.ivyteam.ivy.environment.IvyTest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+@IvyTest
+class TestTieredChatMemoryStore {
+
+  private static final String ID = "tieredId";
+  private static final String OTHER_ID = "tieredOtherId";
+
+  private final BusinessDataMemory cold = new BusinessDataMemory();
+
+  @AfterEach
+  void tearDown() {
+    cold.deleteMessages(ID);
+    cold.deleteMessages(OTHER_ID);
+  }
+
+  @Test
+  void readThrough() {
+    cold.updateMessages(ID, List.of(UserMessage.from("hi")));
+    var store = new TieredChatMemoryStore(cold, 10);
+
+    assertThat(store.getMessages(ID)).containsExactly(UserMessage.from("hi"));
+    assertThat(store.getMessages("unknown")).isEmpty();
+  }
+
+  @Test
+  void writeBehind() {
+    cold.updateMessages(ID, List.of(UserMessage.from("hi")));
+    var store = new TieredChatMemoryStore(cold, 10);
+
+    store.appendMessages(ID, List.of(AiMessage.from("hello")));
+    assertThat(store.getMessages(ID)).hasSize(2);
+    assertThat(cold.getMessages(ID)).as("written on flush only").hasSize(1);
+
+    store.flush(ID);
+    assertThat(cold.getMessages(ID)).containsExactly(UserMessage.from("hi"), AiMessage.from("hello"));
+  }
+
+  @Test
+  void staleEntry_readAgain() {
+    cold.updateMessages(ID, List.of(UserMessage.from("hi")));
+    var store = new TieredChatMemoryStore(cold, 10);
+    assertThat(store.getMessages(ID)).hasSize(1);
+
+    cold.appendMessages(ID, List.of(AiMessage.from("written by another node")));
+    assertThat(store.getMessages(ID)).hasSize(2);
+  }
+
+  @Test
+  void concurrentAppend_keptOnFlush() {
+    cold.updateMessages(ID, List.of(UserMessage.from("hi")));
+    var store = new TieredChatMemoryStore(cold, 10);
+    store.appendMessages(ID, List.of(AiMessage.from("mine")));
+
+    cold.appendMessages(ID, List.of(AiMessage.from("theirs")));
+    store.flush(ID);
+
+    assertThat(store.getMessages(ID))
+        .containsExactly(UserMessage.from("hi"), AiMessage.from("theirs"), AiMessage.from("mine"));
+  }
+
+  @Test
+  void evictedEntry_written() {
+    var store = new TieredChatMemoryStore(cold, 1);
+    store.updateMessages(ID, List.of(UserMessage.from("hi")));
+    assertThat(cold.getMessages(ID)).isEmpty();
+
+    store.getMessages(OTHER_ID);
+    assertThat(cold.getMessages(ID)).containsExactly(UserMessage.from("hi"));
+  }
+
+  @Test
+  void revisionCheckedOncePerInterval() {
+    cold.updateMessages(ID, List.of(UserMessage.from("hi")));
+    var store = new TieredChatMemoryStore(cold, 10, 60_000);
+    assertThat(store.getMessages(ID)).hasSize(1);
+
+    cold.appendMessages(ID, List.of(AiMessage.from("written by another node")));
+    assertThat(store.getMessages(ID)).as("served from the hot tier within the interval").hasSize(1);
+  }
+
+  @Test
+  void concurrentAppends_keptInHotTier() throws InterruptedException {
+    cold.updateMessages(ID, List.of(UserMessage.from("start")));
+    var store = new TieredChatMemoryStore(cold, 10);
+
+    var context = IvyContextSnapshot.capture();
+    var writers = new ArrayList<Thread>();
+    for (int writer = 0; writer < 4; writer++) {
+      var name = "writer" + writer;
+      writers.add(Thread.ofVirtual().start(context.wrap(() -> {
+        for (int i = 0; i < 5; i++) {
+          store.appendMessages(ID, List.of(UserMessage.from(name + "-" + i)));
+        }
+      })));
+    }
+    for (var writer : writers) {
+      writer.join();
+    }
+    store.flush(ID);
+
+    assertThat(cold.getMessages(ID))
+        .as("no refresh replaced the appends of another request")
+        .hasSize(21)
+        .extracting(m -> ((UserMessage) m).singleText())
+        .doesNotHaveDuplicates();
+  }
+}
@@ -0,0 +1,44 @@
+package com.axonivy.utils.smart.workflow.memory.store.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+class TestBusinessDataAttachments {
+
+  private static final String ID = "attachmentsId";
+  private static final String OTHER_ID = "attachmentsOtherId";
+  private static final String HASH = CompactMessageCodec.HASH_PREFIX + "1234";
+
+  private final BusinessDataAttachments attachments = new BusinessDataAttachments();
+
+  @AfterEach
+  void tearDown() {
+    attachments.delete(ID);
+    attachments.delete(OTHER_ID);
+  }
+
+  @Test
+  void deletedWithTheirMemory() {
+    attachments.put(ID, HASH, "data");
+    attachments.put(OTHER_ID, HASH, "data");
+    assertThat(attachments.get(ID, HASH)).contains("data");
+
+    attachments.delete(ID);
+    assertThat(attachments.get(ID, HASH)).isEmpty();
+    assertThat(attachments.get(OTHER_ID, HASH)).as("same content of another memory").contains("data");
+  }
+
+  @Test
+  void writtenAgainAfterDelete() {
+    attachments.put(ID, HASH, "data");
+    attachments.delete(ID);
+
+    attachments.put(ID, HASH, "data");
+    assertThat(attachments.get(ID, HASH)).contains("data");
+  }
+}
@@ -0,0 +1,106 @@
+package com.axonivy.utils.smart.workflow.memory.store.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.ImageContent;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.UserMessage;
+
+class TestCompactMessageCodec {
+
+  private static final String ID = "codecId";
+
+  private final Map<String, String> stored = new HashMap<>();
+
+  private final AttachmentStore attachments = new AttachmentStore() {
+    @Override
+    public void put(String memoryId, String hash, String data) {
+      stored.put(memoryId + ":" + hash, data);
+    }
+
+    @Override
+    public Optional<String> get(String memoryId, String hash) {
+      return Optional.ofNullable(stored.get(memoryId + ":" + hash));
+    }
+
+    @Override
+    public void delete(String memoryId) {
+      stored.keySet().removeIf(key -> key.startsWith(memoryId + ":"));
+    }
+  };
+
+  private final CompactMessageCodec codec = new CompactMessageCodec(attachments);
+
+  @Test
+  void shortMessage_keptPlain() {
+    var message = UserMessage.from("hi");
+
+    var encoded = codec.encode(ID, message);
+    assertThat(encoded).startsWith(CompactMessageCodec.PLAIN);
+    assertThat(codec.decode(ID, encoded)).isEqualTo(message);
+  }
+
+  @Test
+  void longMessage_compressed() {
+    var message = AiMessage.from("All work and no play makes Jack a dull boy. ".repeat(100));
+
+    var encoded = codec.encode(ID, message);
+    assertThat(encoded).startsWith(CompactMessageCodec.COMPRESSED);
+    assertThat(encoded.length()).isLessThan(ChatMessageSerializer.messageToJson(message).length() / 5);
+    assertThat(codec.decode(ID, encoded)).isEqualTo(message);
+  }
+
+  @Test
+  void binaryContent_storedOnceAsAttachment() {
+    var image = Base64.getEncoder().encodeToString(new byte[16 * 1024]);
+    var first = UserMessage.from(List.of(TextContent.from("look"), ImageContent.from(image, "image/png")));
+    var second = UserMessage.from(List.of(TextContent.from("again"), ImageContent.from(image, "image/png")));
+
+    var encodedFirst = codec.encode(ID, first);
+    var encodedSecond = codec.encode(ID, second);
+    assertThat(stored).hasSize(1);
+    assertThat(stored.values()).containsExactly(image);
+    assertThat(encodedFirst.length() + encodedSecond.length()).isLessThan(image.length());
+
+    assertThat(codec.decode(ID, encodedFirst)).isEqualTo(first);
+    assertThat(codec.decode(ID, encodedSecond)).isEqualTo(second);
+  }
+
+  @Test
+  void attachments_deletedWithTheirMemory() {
+    var image = Base64.getEncoder().encodeToString(new byte[16 * 1024]);
+    var message = UserMessage.from(List.of(ImageContent.from(image, "image/png")));
+    var encoded = codec.encode(ID, message);
+    codec.encode("otherId", message);
+    assertThat(stored).hasSize(2);
+
+    codec.delete(ID);
+    assertThat(stored.keySet()).singleElement().asString().startsWith("otherId:");
+    assertThatThrownBy(() -> codec.decode(ID, encoded))
+        .hasMessageContaining("Missing chat message attachment");
+  }
+
+  @Test
+  void legacyJson_readAsItIs() {
+    var message = UserMessage.from("written before");
+
+    assertThat(codec.decode(ID, ChatMessageSerializer.messageToJson(message))).isEqualTo(message);
+  }
+
+  @Test
+  void newerVersion_rejected() {
+    assertThatThrownBy(() -> codec.decode(ID, "sw9z:AAAA"))
+        .hasMessageContaining("sw9z");
+  }
+}
@@ -0,0 +1,74 @@
+package com.axonivy.utils.smart.workflow.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.client.ProviderRateLimiter.RateLimitConf;
+import com.axonivy.utils.smart.workflow.model.dummy.DummyChatModelProvider;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider.ModelOptions;
+import com.axonivy.utils.smart.workflow.model.xai.XAiModelProvider;
+import com.axonivy.utils.smart.workflow.model.xai.internal.XAiServiceConnector.XAiConf;
+
+import ch.ivyteam.ivy.environment.AppFixture;
+import ch.ivyteam.ivy.environment.IvyTest;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+
+@IvyTest
+class TestChatModelPool {
+
+  @AfterEach
+  void tearDown() {
+    ChatModelPool.invalidate();
+  }
+
+  @Test
+  void sameOptions_sharedModel() {
+    var provider = ChatModelFactory.create(DummyChatModelProvider.NAME).orElseThrow();
+    var options = ModelOptions.options().modelName(DummyChatModelProvider.ModelNames.GENIOUS);
+
+    var first = ChatModelPool.get(provider, options);
+    assertThat(ChatModelPool.get(provider, options)).isSameAs(first);
+    assertThat(ChatModelPool.get(provider, options.structuredOutput(true))).isNotSameAs(first);
+    assertThat(ChatModelPool.get(provider, options.modelName(DummyChatModelProvider.ModelNames.CLASSIC))).isNotSameAs(first);
+  }
+
+  @Test
+  void modelListeners_notPooled() {
+    var provider = ChatModelFactory.create(DummyChatModelProvider.NAME).orElseThrow();
+    var options = ModelOptions.options().listeners(List.of(new ChatModelListener() {}));
+
+    assertThat(ChatModelPool.get(provider, options)).isNotSameAs(ChatModelPool.get(provider, options));
+  }
+
+  @Test
+  void changedVariables_rebuildModel(AppFixture fixture) {
+    fixture.var(XAiConf.API_KEY, "first-key");
+    var provider = ChatModelFactory.create(XAiModelProvider.NAME).orElseThrow();
+    var options = ModelOptions.options();
+
+    var first = ChatModelPool.get(provider, options);
+    assertThat(ChatModelPool.get(provider, options)).isSameAs(first);
+
+    fixture.var(XAiConf.API_KEY, "second-key");
+    assertThat(ChatModelPool.get(provider, options))
+        .as("provider variables changed")
+        .isNotSameAs(first);
+  }
+
+  @Test
+  void otherVariables_keepModel(AppFixture fixture) {
+    var provider = ChatModelFactory.create(XAiModelProvider.NAME).orElseThrow();
+    var options = ModelOptions.options();
+
+    var first = ChatModelPool.get(provider, options);
+    fixture.var(RateLimitConf.var(XAiModelProvider.NAME, RateLimitConf.MAX_IN_FLIGHT), "2");
+
+    assertThat(ChatModelPool.get(provider, options))
+        .as("variables the model is not built from")
+        .isSameAs(first);
+  }
+}
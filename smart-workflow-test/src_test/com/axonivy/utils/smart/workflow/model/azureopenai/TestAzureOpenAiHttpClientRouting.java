@@ -8,9 +8,11 @@ import java.net.URL;
 import jakarta.ws.rs.core.Response;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
 import com.axonivy.utils.ai.mock.MockOpenAI;
 import com.axonivy.utils.smart.workflow.client.OpenAiTestClient;
+import com.axonivy.utils.smart.workflow.client.ProviderRateLimiter.RateLimitConf;
 import com.axonivy.utils.smart.workflow.model.azureopenai.internal.client.SmartAzureHttpClient;
 
 import com.azure.core.http.HttpHeaderName;
@@ -19,6 +21,7 @@ import com.azure.core.http.HttpRequest;
 import com.azure.core.http.HttpResponse;
 import com.azure.core.util.Context;
 
+import ch.ivyteam.ivy.environment.AppFixture;
 import ch.ivyteam.ivy.environment.Ivy;
 import ch.ivyteam.test.RestResourceTest;
 
@@ -53,8 +56,27 @@ public class TestAzureOpenAiHttpClientRouting {
     assertThat(response.getBodyAsString().block()).contains("rate limited");
   }
 
+  @Test
+  @Timeout(10)
+  void rateLimitSlot_releasedOnceBodyIsBuffered(AppFixture fixture) throws Exception {
+    fixture.var(RateLimitConf.var(AzureOpenAiModelProvider.NAME, RateLimitConf.MAX_IN_FLIGHT), "1");
+    MockOpenAI.defineChat(_ -> Response.ok().entity("{\"ok\":true}").build());
+
+    var first = send("{\"call\":1}", AzureOpenAiModelProvider.NAME);
+    var second = send("{\"call\":2}", AzureOpenAiModelProvider.NAME);
+
+    assertThat(first.getBodyAsString().block())
+        .as("body is still readable once the slot is handed to the next call")
+        .contains("\"ok\":true");
+    assertThat(second.getStatusCode()).isEqualTo(200);
+  }
+
   private static HttpResponse send(String body) throws Exception {
-    var client = new SmartAzureHttpClient(Ivy.rest().client("mockClient"));
+    return send(body, null);
+  }
+
+  private static HttpResponse send(String body, String provider) throws Exception {
+    var client = new SmartAzureHttpClient(Ivy.rest().client("mockClient"), provider);
     URL url = URI.create(OpenAiTestClient.localMockApiUrl("azureTest") + "/chat/completions").toURL();
     var request = new HttpRequest(HttpMethod.POST, url)
         .setHeader(HttpHeaderName.CONTENT_TYPE, "application/json")
@@ -0,0 +1,122 @@
+package com.axonivy.utils.smart.workflow.model.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.model.cache.ResponseCache.Settings;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+class TestResponseCache {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private final ChatModel provider = new ChatModel() {
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+      return ChatResponse.builder()
+          .aiMessage(AiMessage.from("answer " + calls.incrementAndGet()))
+          .modelName("test-model")
+          .tokenUsage(new TokenUsage(10, 5))
+          .build();
+    }
+  };
+
+  @Test
+  void deterministicRequest_servedFromCache() {
+    var model = new CachingChatModel(provider, "test", new ResponseCache(new Settings(60_000, 10, false)));
+
+    var first = model.chat(request("hi", 0.0));
+    var second = model.chat(request("hi", 0.0));
+
+    assertThat(calls).hasValue(1);
+    assertThat(second.aiMessage().text()).isEqualTo(first.aiMessage().text());
+    assertThat(CachedTokenUsage.isCacheHit(first)).isFalse();
+    assertThat(CachedTokenUsage.isCacheHit(second)).isTrue();
+    assertThat(second.tokenUsage().totalTokenCount()).isZero();
+  }
+
+  @Test
+  void sampledRequest_alwaysSent() {
+    var model = new CachingChatModel(provider, "test", new ResponseCache(new Settings(60_000, 10, false)));
+
+    model.chat(request("hi", 0.7));
+    model.chat(request("hi", 0.7));
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void defaultTemperature_alwaysSent() {
+    var model = new CachingChatModel(provider, "test", new ResponseCache(new Settings(60_000, 10, false)));
+
+    model.chat(request("hi", null));
+    model.chat(request("hi", null));
+
+    assertThat(calls)
+        .as("without a temperature the provider samples with its own default")
+        .hasValue(2);
+  }
+
+  @Test
+  void fixedSeed_servedFromCache() {
+    var model = new CachingChatModel(provider, "test", _ -> Optional.of(42),
+        new ResponseCache(new Settings(60_000, 10, false)));
+
+    model.chat(request("hi", 0.7));
+    model.chat(request("hi", 0.7));
+
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void key_includesSeed() {
+    var request = request("hi", 0.7);
+    assertThat(ResponseCache.key("test", request, Optional.of(1)))
+        .isNotEqualTo(ResponseCache.key("test", request, Optional.of(2)));
+  }
+
+  @Test
+  void expiredAndEvicted() throws Exception {
+    var model = new CachingChatModel(provider, "test", new ResponseCache(new Settings(200, 1, false)));
+
+    model.chat(request("a", 0.0));
+    model.chat(request("b", 0.0));
+    model.chat(request("a", 0.0));
+    assertThat(calls).as("only the most recent answer is kept").hasValue(3);
+
+    Thread.sleep(300);
+    model.chat(request("a", 0.0));
+    assertThat(calls).as("answer expired").hasValue(4);
+  }
+
+  @Test
+  void key_ignoresToolOrder() {
+    var search = ToolSpecification.builder().name("search").build();
+    var mail = ToolSpecification.builder().name("mail").build();
+
+    var one = ChatRequest.builder().messages(UserMessage.from("hi")).toolSpecifications(search, mail).build();
+    var two = ChatRequest.builder().messages(UserMessage.from("hi")).toolSpecifications(List.of(mail, search)).build();
+
+    assertThat(ResponseCache.key("test", one)).isEqualTo(ResponseCache.key("test", two));
+    assertThat(ResponseCache.key("test", one)).isNotEqualTo(ResponseCache.key("other", one));
+  }
+
+  private static ChatRequest request(String text, Double temperature) {
+    return ChatRequest.builder()
+        .messages(UserMessage.from(text))
+        .temperature(temperature)
+        .build();
+  }
+}
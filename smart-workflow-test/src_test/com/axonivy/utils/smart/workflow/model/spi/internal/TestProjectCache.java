@@ -0,0 +1,69 @@
+package com.axonivy.utils.smart.workflow.model.spi.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectCache;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectScope;
+
+import ch.ivyteam.ivy.application.project.Project;
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+class TestProjectCache {
+
+  @Test
+  void loadOncePerProject() {
+    var loads = new AtomicInteger();
+    var cache = new ProjectCache<String>();
+    var pmv = Project.current();
+
+    assertThat(cache.get(pmv, _ -> "value-" + loads.incrementAndGet())).isEqualTo("value-1");
+    assertThat(cache.get(pmv, _ -> "value-" + loads.incrementAndGet())).isEqualTo("value-1");
+    assertThat(loads)
+        .as("cached value is served until the project is redeployed")
+        .hasValue(1);
+  }
+
+  @Test
+  void invalidate() {
+    var loads = new AtomicInteger();
+    var cache = new ProjectCache<String>();
+    var pmv = Project.current();
+
+    cache.get(pmv, _ -> "value-" + loads.incrementAndGet());
+    cache.invalidate();
+
+    assertThat(cache.get(pmv, _ -> "value-" + loads.incrementAndGet())).isEqualTo("value-2");
+  }
+
+  @Test
+  void invalidateProject() {
+    var loads = new AtomicInteger();
+    var cache = new ProjectCache<String>();
+    var pmv = Project.current();
+
+    cache.get(pmv, _ -> "value-" + loads.incrementAndGet());
+    cache.invalidate(pmv);
+
+    assertThat(cache.get(pmv, _ -> "value-" + loads.incrementAndGet())).isEqualTo("value-2");
+  }
+
+  @Test
+  void scopeIsComparedOncePerInterval() {
+    var pmv = Project.current();
+    var scope = ProjectScope.of(Stream.of(pmv));
+    var walks = new AtomicInteger();
+
+    assertThat(scope.isCurrent(() -> {
+      walks.incrementAndGet();
+      return Stream.empty();
+    })).isTrue();
+    assertThat(walks).as("taken right now, so not walked again").hasValue(0);
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.axonivy.utils.smart.workflow.model.spi.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.model.dummy.DummyChatModelProvider;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiRegistry;
+
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+class TestSpiRegistry {
+
+  @AfterEach
+  void tearDown() {
+    SpiRegistry.invalidate();
+  }
+
+  @Test
+  void load_reusesImplementations() {
+    var first = SpiRegistry.load(ChatModelProvider.class);
+    var second = SpiRegistry.load(ChatModelProvider.class);
+
+    assertThat(first).anyMatch(DummyChatModelProvider.class::isInstance);
+    assertThat(second)
+        .as("implementations are discovered once per deployment")
+        .isSameAs(first);
+  }
+
+  @Test
+  void invalidate_rediscovers() {
+    var first = SpiRegistry.load(ChatModelProvider.class);
+    SpiRegistry.invalidate();
+    var second = SpiRegistry.load(ChatModelProvider.class);
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second).hasSameSizeAs(first);
+  }
+}
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 
 import com.axonivy.utils.ai.mock.MockOpenAI;
 import com.axonivy.utils.smart.workflow.client.OpenAiTestClient;
+import com.axonivy.utils.smart.workflow.model.cache.CachedTokenUsage;
 import com.axonivy.utils.smart.workflow.model.openai.internal.OpenAiServiceConnector.OpenAiConf;
 import com.axonivy.utils.smart.workflow.observability.openinference.OpenInferenceTracing;
 import com.axonivy.utils.smart.workflow.observability.openinference.internal.OpenInferenceCollector;
@@ -27,6 +28,8 @@ import dev.langchain4j.data.message.PdfFileContent;
 import dev.langchain4j.data.message.TextContent;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.data.message.VideoContent;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
 
 import ch.ivyteam.ivy.bpm.engine.client.BpmClient;
 import ch.ivyteam.ivy.bpm.engine.client.element.BpmProcess;
@@ -97,6 +100,19 @@ class TestOpenInferenceSpans {
     assertThat(OpenInferenceCollector.resolveContent(textResponse)).isEqualTo("Here is the result.");
   }
 
+  @Test
+  void cachedResponse_flaggedAsCacheHit() {
+    var response = ChatResponse.builder().aiMessage(AiMessage.from("cached")).tokenUsage(new CachedTokenUsage()).build();
+    var collector = new OpenInferenceCollector("openai", "gpt-4.1-mini");
+    collector.onResponse(response);
+    assertThat(collector.getAttributes()).containsEntry("llm.response.cache_hit", true);
+
+    var sent = ChatResponse.builder().aiMessage(AiMessage.from("fresh")).tokenUsage(new TokenUsage(10, 5)).build();
+    var fresh = new OpenInferenceCollector("openai", "gpt-4.1-mini");
+    fresh.onResponse(sent);
+    assertThat(fresh.getAttributes()).doesNotContainKey("llm.response.cache_hit");
+  }
+
   @Test
   void errorCall(BpmClient client, AppFixture fixture) {
     setupTracing(fixture);
@@ -0,0 +1,51 @@
+package com.axonivy.utils.smart.workflow.program.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TestAbortSignal {
+
+  @Test
+  void boundToExecutionThread() {
+    var signal = new AbortSignal();
+    assertThat(AbortSignal.current().isAbortable()).isFalse();
+
+    signal.run(() -> assertThat(AbortSignal.current()).isSameAs(signal));
+
+    assertThat(AbortSignal.current().isAbortable())
+        .as("signal is unbound after the execution")
+        .isFalse();
+  }
+
+  @Test
+  void abort_releasesRegisteredHooks() {
+    var signal = new AbortSignal();
+    var released = new AtomicInteger();
+    var registration = signal.onAbort(released::incrementAndGet);
+    try (var _ = signal.onAbort(released::incrementAndGet)) {
+      // guarded step completed before abort
+    }
+
+    signal.abort();
+    registration.close();
+
+    assertThat(released).hasValue(1);
+    assertThatThrownBy(signal::throwIfAborted)
+        .isInstanceOf(AbortSignal.AbortedException.class);
+  }
+
+  @Test
+  void onAbort_afterAbort_runsImmediately() {
+    var signal = new AbortSignal();
+    signal.abort();
+
+    var released = new AtomicInteger();
+    signal.onAbort(released::incrementAndGet);
+
+    assertThat(released).hasValue(1);
+  }
+}
@@ -0,0 +1,98 @@
+package com.axonivy.utils.smart.workflow.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.tools.internal.ParallelToolExecutor;
+import com.axonivy.utils.smart.workflow.tools.internal.ParallelToolExecutor.ParallelToolConf;
+
+import ch.ivyteam.ivy.environment.AppFixture;
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+class TestParallelToolExecutor {
+
+  @Test
+  void disabledByDefault() {
+    assertThat(ParallelToolExecutor.ofCurrentContext()).isEmpty();
+  }
+
+  @Test
+  void limitConcurrency(AppFixture fixture) throws InterruptedException {
+    fixture.var(ParallelToolConf.ENABLED, "true");
+    fixture.var(ParallelToolConf.MAX_CONCURRENCY, "2");
+    var executor = ParallelToolExecutor.ofCurrentContext().orElseThrow();
+
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    var done = new CountDownLatch(6);
+    for (int i = 0; i < 6; i++) {
+      executor.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        sleep();
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isBetween(1, 2);
+  }
+
+  @Test
+  void startInRequestOrder(AppFixture fixture) throws InterruptedException {
+    fixture.var(ParallelToolConf.ENABLED, "true");
+    fixture.var(ParallelToolConf.MAX_CONCURRENCY, "1");
+    var executor = ParallelToolExecutor.ofCurrentContext().orElseThrow();
+
+    var started = new CopyOnWriteArrayList<Integer>();
+    var done = new CountDownLatch(5);
+    for (int i = 0; i < 5; i++) {
+      var call = i;
+      executor.execute(() -> {
+        started.add(call);
+        sleep();
+        done.countDown();
+      });
+    }
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(started)
+        .as("waiting tool calls are served in the order the model requested them")
+        .containsExactly(0, 1, 2, 3, 4);
+  }
+
+  @Test
+  void ivyContext(AppFixture fixture) throws InterruptedException {
+    fixture.var(ParallelToolConf.ENABLED, "true");
+    var executor = ParallelToolExecutor.ofCurrentContext().orElseThrow();
+
+    var expected = Ivy.session().getSessionUserName();
+    var actual = new String[1];
+    var done = new CountDownLatch(1);
+    executor.execute(() -> {
+      actual[0] = Ivy.session().getSessionUserName();
+      done.countDown();
+    });
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(actual[0])
+        .as("tools run in the session of the agent call")
+        .isEqualTo(expected);
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
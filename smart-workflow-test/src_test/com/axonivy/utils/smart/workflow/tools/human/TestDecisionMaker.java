@@ -9,7 +9,6 @@ import org.junit.jupiter.api.Test;
 
 import com.axonivy.utils.smart.workflow.memory.store.BusinessDataMemory;
 
-import ch.ivyteam.ivy.environment.Ivy;
 import ch.ivyteam.ivy.environment.IvyTest;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.data.message.AiMessage;
@@ -118,7 +117,7 @@ class TestDecisionMaker {
 
   @AfterEach
   void cleanup() {
-    Ivy.repo().deleteById(TEST_ID);
+    new BusinessDataMemory().deleteMessages(TEST_ID);
   }
 
 }
@@ -0,0 +1,39 @@
+package com.axonivy.utils.smart.workflow.tools.subprocess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.axonivy.utils.smart.workflow.tools.internal.IvyToolCatalog;
+import com.axonivy.utils.smart.workflow.tools.internal.IvyToolCatalog.IvyTool;
+import com.axonivy.utils.smart.workflow.tools.internal.IvyToolsProcesses;
+
+import ch.ivyteam.ivy.environment.IvyTest;
+
+@IvyTest
+class TestIvyToolCatalog {
+
+  @AfterEach
+  void tearDown() {
+    IvyToolCatalog.invalidate();
+  }
+
+  @Test
+  void indexesToolStarts() {
+    var catalog = IvyToolCatalog.current();
+
+    assertThat(catalog.all()).hasSize(IvyToolsProcesses.toolStarts().size());
+    assertThat(catalog.all()).isSortedAccordingTo(Comparator.comparing(IvyTool::name));
+    assertThat(catalog.find("whoami"))
+        .hasValueSatisfying(tool -> assertThat(tool.specification().name()).isEqualTo("whoami"));
+    assertThat(catalog.find("notExisting")).isEmpty();
+  }
+
+  @Test
+  void reusedPerDeployment() {
+    assertThat(IvyToolCatalog.current()).isSameAs(IvyToolCatalog.current());
+  }
+}
@@ -50,6 +50,35 @@ class TestJsonProcessParameters {
     assertThat(result).isEmpty();
   }
 
+  @Test
+  void compiledBinding() {
+    var binding = new JsonProcessParameters().compile(List.of(
+        new ToolParameter("id", null, Integer.class.getName()),
+        new ToolParameter("person", null, Person.class.getName()),
+        new ToolParameter("tags", null, "java.util.List<java.lang.String>")));
+
+    var result = binding.bind("""
+        {"unknown": {"nested": [1, 2]}, "person": {"firstName": "Henry", "lastName": "Ford"}, "tags": ["a", "b"], "id": 7}
+        """);
+    assertThat(result).containsOnlyKeys("id", "person", "tags");
+    assertThat(result.get("id")).isEqualTo(7);
+    assertThat(((Person) result.get("person")).getLastName()).isEqualTo("Ford");
+    assertThat(result.get("tags")).isEqualTo(List.of("a", "b"));
+  }
+
+  @Test
+  void compiledBinding_invalidArgumentIsolated() {
+    var binding = new JsonProcessParameters().compile(List.of(
+        new ToolParameter("id", null, Integer.class.getName()),
+        new ToolParameter("name", null, String.class.getName())));
+
+    var result = binding.bind("""
+        {"id": "not a number", "name": "Henry"}
+        """);
+    assertThat(result.get("id")).isNull();
+    assertThat(result.get("name")).isEqualTo("Henry");
+  }
+
   private static Map<String, Object> paramsOf(List<ToolParameter> params, JsonNode payload) {
     return new JsonProcessParameters().toParams(params, payload);
   }
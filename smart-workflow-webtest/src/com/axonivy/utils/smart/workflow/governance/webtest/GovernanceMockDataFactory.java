@@ -143,7 +143,7 @@ public class GovernanceMockDataFactory {
       String caseUuid = ivyCase != null ? ivyCase.uuid() : e.caseName;
       ITask ivyTask = ivyCase != null ? findTaskByName(ivyCase, e.taskName) : null;
       String taskUuid = ivyTask != null ? ivyTask.uuid() : e.taskName;
-      saveEntry(caseUuid, taskUuid, e.agentId, e.agentName, Meta.PROCESS,
+      saveEntry(ivyCase, caseUuid, taskUuid, e.agentId, e.agentName, Meta.PROCESS,
           messages(e.systemMsg, e.userMsg, e.aiMsg),
           tokens(e.inputTokens, e.outputTokens),
           now.minusDays(e.daysAgo));
@@ -182,7 +182,7 @@ public class GovernanceMockDataFactory {
     }
   }
 
-  private static void saveEntry(String caseUuid, String taskUuid, String agentId,
+  private static void saveEntry(ICase ivyCase, String caseUuid, String taskUuid, String agentId,
       String agentName, String processName, String messagesJson, String tokenUsageJson,
       LocalDateTime lastUpdated) {
     var entry = new AgentConversationEntry();
@@ -194,6 +194,9 @@ public class GovernanceMockDataFactory {
     entry.setMessagesJson(messagesJson);
     entry.setTokenUsageJson(tokenUsageJson);
     entry.setLastUpdated(lastUpdated.toString());
+    entry.summarizeTokenUsage();
+    entry.describeCase(ivyCase != null ? String.valueOf(ivyCase.getId()) : caseUuid,
+        ivyCase != null ? ivyCase.getName() : caseUuid, ivyCase != null ? ivyCase.getDescription() : null);
     Ivy.repo().save(entry);
   }
 
@@ -3,9 +3,9 @@ package com.axonivy.utils.smart.workflow;
 import java.net.URI;
 import java.util.Map;
 
-import com.axonivy.utils.smart.workflow.program.internal.AgentCallExecutor;
 import com.axonivy.utils.smart.workflow.program.internal.AgentConfigMigrator;
 import com.axonivy.utils.smart.workflow.program.internal.AgentEditor;
+import com.axonivy.utils.smart.workflow.program.internal.AgentExecution;
 
 import ch.ivyteam.ivy.process.program.activity.AbortableExecution;
 import ch.ivyteam.ivy.process.program.activity.ProgramExecutor;
@@ -18,7 +18,7 @@ public class AgenticProcessCall implements ProgramExecutor, ProgramEditorUi, Pro
 
   @Override
   public AbortableExecution newExecution() {
-    return context -> new AgentCallExecutor(context).execute();
+    return new AgentExecution();
   }
 
   @Override
@@ -0,0 +1,344 @@
+package com.axonivy.utils.smart.workflow.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.axonivy.utils.smart.workflow.program.internal.AbortSignal;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+/**
+ * Throttles the calls of all agents to a single provider, so that bursts are queued on the engine instead of
+ * being answered with 429 responses and blind retries.
+ * <p>
+ * Callers are served strictly in arrival order. A caller waits until a request slot, enough estimated
+ * tokens and an in-flight slot are available. The provider's rate limit response headers
+ * ({@code x-ratelimit-*} as sent by OpenAI, {@code anthropic-ratelimit-*} and {@code retry-after}) tighten the
+ * local budget, and pause all callers until the announced reset, even if no limit is configured.
+ * <p>
+ * The limit variables are read again at most every {@value #LIMITS_CHECK_SECONDS} seconds. Changed limits
+ * apply to the same limiter, so the requests still in flight count against the new limits.
+ */
+public class ProviderRateLimiter {
+
+  public interface RateLimitConf {
+    String PREFIX = "AI.Providers.";
+    String REQUESTS_PER_MINUTE = "RateLimit.RequestsPerMinute";
+    String TOKENS_PER_MINUTE = "RateLimit.TokensPerMinute";
+    String MAX_IN_FLIGHT = "RateLimit.MaxInFlight";
+
+    static String var(String provider, String key) {
+      return PREFIX + provider + "." + key;
+    }
+  }
+
+  private static final Map<String, ProviderRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+  private static final int LIMITS_CHECK_SECONDS = 5;
+  private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+  private static final long DEFAULT_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int CHARS_PER_TOKEN = 4;
+  private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+
+  record Limits(int requestsPerMinute, int tokensPerMinute, int maxInFlight) {
+
+    static final Limits NONE = new Limits(0, 0, 0);
+
+    static Limits of(String provider) {
+      return new Limits(
+          IvyVar.integer(RateLimitConf.var(provider, RateLimitConf.REQUESTS_PER_MINUTE), 0),
+          IvyVar.integer(RateLimitConf.var(provider, RateLimitConf.TOKENS_PER_MINUTE), 0),
+          IvyVar.integer(RateLimitConf.var(provider, RateLimitConf.MAX_IN_FLIGHT), 0));
+    }
+  }
+
+  private final Semaphore turnstile = new Semaphore(1, true);
+  private volatile long limitsReadNanos = System.nanoTime();
+
+  // guarded by this
+  private Limits limits;
+  private TokenBucket requests;
+  private TokenBucket tokens;
+  private int inFlight;
+  private long pausedUntil = System.nanoTime();
+  private Thread waiter;
+
+  ProviderRateLimiter(Limits limits) {
+    this.limits = limits;
+    this.requests = new TokenBucket(limits.requestsPerMinute());
+    this.tokens = new TokenBucket(limits.tokensPerMinute());
+  }
+
+  /**
+   * @return the limiter shared by all clients of the provider.
+   */
+  public static ProviderRateLimiter of(String provider) {
+    if (StringUtils.isBlank(provider)) {
+      return new ProviderRateLimiter(Limits.NONE);
+    }
+    var limiter = LIMITERS.computeIfAbsent(provider, _ -> new ProviderRateLimiter(Limits.of(provider)));
+    long now = System.nanoTime();
+    if (now - limiter.limitsReadNanos >= TimeUnit.SECONDS.toNanos(LIMITS_CHECK_SECONDS)) {
+      limiter.limitsReadNanos = now;
+      limiter.reconfigure(Limits.of(provider));
+    }
+    return limiter;
+  }
+
+  /**
+   * Applies changed limits. The requests in flight and the budget used so far are carried over.
+   */
+  synchronized void reconfigure(Limits next) {
+    if (next.equals(limits)) {
+      return;
+    }
+    limits = next;
+    requests = requests.resized(next.requestsPerMinute());
+    tokens = tokens.resized(next.tokensPerMinute());
+    wakeWaiter();
+  }
+
+  /**
+   * Blocks until the request may be sent. The returned permit must be closed once the response is consumed.
+   */
+  public Permit acquire(String requestBody) {
+    long estimate = estimateTokens(requestBody);
+    var signal = AbortSignal.current();
+    await(turnstile, signal);
+    try {
+      awaitCapacity(estimate, signal);
+      return new Permit();
+    } finally {
+      turnstile.release();
+    }
+  }
+
+  /**
+   * Waits for the budget and an in-flight slot. Only the caller holding the turnstile waits here, so a
+   * released slot wakes it directly.
+   */
+  private void awaitCapacity(long estimate, AbortSignal signal) {
+    try {
+      while (true) {
+        signal.throwIfAborted();
+        if (Thread.currentThread().isInterrupted()) {
+          throw new IllegalStateException("Interrupted while waiting for provider capacity");
+        }
+        long wait;
+        synchronized (this) {
+          wait = Math.max(pausedUntil - System.nanoTime(),
+              Math.max(requests.nanosUntil(1), tokens.nanosUntil(estimate)));
+          boolean slot = limits.maxInFlight() <= 0 || inFlight < limits.maxInFlight();
+          if (slot && wait <= 0) {
+            requests.take(1);
+            tokens.take(estimate);
+            inFlight++;
+            return;
+          }
+          if (!slot) {
+            wait = POLL_NANOS;
+          }
+          waiter = Thread.currentThread();
+        }
+        LockSupport.parkNanos(this, Math.min(wait, POLL_NANOS));
+      }
+    } finally {
+      synchronized (this) {
+        waiter = null;
+      }
+    }
+  }
+
+  private synchronized void release() {
+    inFlight--;
+    wakeWaiter();
+  }
+
+  private void wakeWaiter() {
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  private static void await(Semaphore semaphore, AbortSignal signal) {
+    try {
+      while (!semaphore.tryAcquire(POLL_NANOS, TimeUnit.NANOSECONDS)) {
+        signal.throwIfAborted();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for provider capacity", ex);
+    }
+  }
+
+  private static long estimateTokens(String requestBody) {
+    return requestBody == null ? 1 : Math.max(1, requestBody.length() / CHARS_PER_TOKEN);
+  }
+
+  private synchronized void observe(int status, UnaryOperator<String> header) {
+    observe(header, "x-ratelimit-remaining-requests", "x-ratelimit-reset-requests", requests);
+    observe(header, "x-ratelimit-remaining-tokens", "x-ratelimit-reset-tokens", tokens);
+    observe(header, "anthropic-ratelimit-requests-remaining", "anthropic-ratelimit-requests-reset", requests);
+    observe(header, "anthropic-ratelimit-tokens-remaining", "anthropic-ratelimit-tokens-reset", tokens);
+    observe(header, "anthropic-ratelimit-input-tokens-remaining", "anthropic-ratelimit-input-tokens-reset", tokens);
+    if (status == 429) {
+      pauseFor(retryAfter(header.apply("retry-after")).orElse(DEFAULT_RETRY_NANOS));
+    }
+  }
+
+  private void observe(UnaryOperator<String> header, String remainingHeader, String resetHeader, TokenBucket bucket) {
+    remaining(header.apply(remainingHeader)).ifPresent(remaining -> {
+      bucket.clamp(remaining);
+      if (remaining == 0) {
+        pauseFor(reset(header.apply(resetHeader)).orElse(DEFAULT_RETRY_NANOS));
+      }
+    });
+  }
+
+  private void pauseFor(long nanos) {
+    pausedUntil = Math.max(pausedUntil, System.nanoTime() + nanos);
+  }
+
+  private static Optional<Long> remaining(String value) {
+    return NumberUtils.isDigits(value) ? Optional.of(Long.parseLong(value)) : Optional.empty();
+  }
+
+  private static Optional<Long> retryAfter(String seconds) {
+    return NumberUtils.isCreatable(seconds)
+        ? Optional.of((long) (NumberUtils.toDouble(seconds) * TimeUnit.SECONDS.toNanos(1)))
+        : Optional.empty();
+  }
+
+  /**
+   * Reads reset times as sent by Anthropic, an RFC 3339 instant, or by OpenAI, a duration.
+   */
+  static Optional<Long> reset(String value) {
+    if (StringUtils.isBlank(value)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Math.max(0, Duration.between(Instant.now(), Instant.parse(value)).toNanos()));
+    } catch (DateTimeParseException ex) {
+      return duration(value);
+    }
+  }
+
+  /**
+   * Reads reset durations as sent by OpenAI, e.g. {@code 20ms}, {@code 1.5s} or {@code 6m0s}.
+   */
+  static Optional<Long> duration(String value) {
+    if (StringUtils.isBlank(value)) {
+      return Optional.empty();
+    }
+    var matcher = DURATION_PART.matcher(value);
+    double nanos = 0;
+    boolean found = false;
+    while (matcher.find()) {
+      found = true;
+      double amount = Double.parseDouble(matcher.group(1));
+      nanos += amount * switch (matcher.group(2)) {
+        case "ms" -> TimeUnit.MILLISECONDS.toNanos(1);
+        case "s" -> TimeUnit.SECONDS.toNanos(1);
+        case "m" -> TimeUnit.MINUTES.toNanos(1);
+        default -> TimeUnit.HOURS.toNanos(1);
+      };
+    }
+    return found ? Optional.of((long) nanos) : Optional.empty();
+  }
+
+  public final class Permit implements AutoCloseable {
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit() {}
+
+    /**
+     * Adapts the limiter to the rate limit state reported by the provider.
+     */
+    public void observe(int status, UnaryOperator<String> header) {
+      ProviderRateLimiter.this.observe(status, header);
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        release();
+      }
+    }
+  }
+
+  /**
+   * Refills continuously up to the per minute limit; unlimited if no limit is set.
+   * A request larger than the whole budget is let through once the bucket is full, and leaves it in debt.
+   */
+  private static final class TokenBucket {
+
+    private final double capacity;
+    private final double perNano;
+    private double available;
+    private long refilled;
+
+    private TokenBucket(int perMinute) {
+      this.capacity = perMinute;
+      this.perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+      this.available = capacity;
+      this.refilled = System.nanoTime();
+    }
+
+    private boolean unlimited() {
+      return capacity <= 0;
+    }
+
+    private long nanosUntil(long amount) {
+      if (unlimited()) {
+        return 0;
+      }
+      refill();
+      double missing = Math.min(amount, capacity) - available;
+      return missing <= 0 ? 0 : (long) Math.ceil(missing / perNano);
+    }
+
+    /**
+     * @return a bucket of the new limit that keeps the budget used so far.
+     */
+    private TokenBucket resized(int perMinute) {
+      var resized = new TokenBucket(perMinute);
+      if (!unlimited() && !resized.unlimited()) {
+        refill();
+        resized.available = Math.min(resized.capacity, available);
+      }
+      return resized;
+    }
+
+    private void take(long amount) {
+      if (!unlimited()) {
+        available -= amount;
+      }
+    }
+
+    private void clamp(long remaining) {
+      if (!unlimited()) {
+        refill();
+        available = Math.min(available, remaining);
+      }
+    }
+
+    private void refill() {
+      long now = System.nanoTime();
+      available = Math.min(capacity, available + (now - refilled) * perNano);
+      refilled = now;
+    }
+  }
+}
@@ -1,20 +1,30 @@
 package com.axonivy.utils.smart.workflow.client;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.ClientRequestContext;
 import jakarta.ws.rs.client.ClientRequestFilter;
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status.Family;
 
+import com.axonivy.utils.smart.workflow.program.internal.AbortSignal;
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+
 import dev.langchain4j.exception.HttpException;
 import dev.langchain4j.http.client.HttpClient;
 import dev.langchain4j.http.client.HttpRequest;
@@ -25,33 +35,92 @@ import dev.langchain4j.http.client.sse.ServerSentEventParser;
 public class SmartHttpClient implements HttpClient {
 
   private final WebTarget target;
+  private final String provider;
 
   public SmartHttpClient(WebTarget target) {
-    this.target = target;
+    this(target, null);
+  }
+
+  /**
+   * @param provider name of the model provider, whose {@link ProviderRateLimiter} governs the calls; {@code null} for unlimited calls.
+   */
+  public SmartHttpClient(WebTarget target, String provider) {
+    this.target = UriFilter.register(target);
+    this.provider = provider;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public SuccessfulHttpResponse execute(HttpRequest request) throws HttpException, RuntimeException {
+    try (var permit = ProviderRateLimiter.of(provider).acquire(request.body())) {
+      var response = abortable(request);
+      permit.observe(response.getStatus(), response::getHeaderString);
+      if (isSuccessful(response)) {
+        return SuccessfulHttpResponse.builder()
+            .statusCode(response.getStatus())
+            .body(response.readEntity(String.class))
+            .headers(response.getStringHeaders())
+            .build();
+      }
+
+      throw new HttpException(response.getStatus(), response.readEntity(String.class));
+    }
+  }
+
+  /**
+   * Within an abortable agent execution, the request is sent from a virtual thread that carries the Ivy context
+   * of the caller, so that the filters of the client (authentication, logging, tracing) can read variables and
+   * the session as on the calling thread. Aborting the execution releases the caller at once and interrupts
+   * the helper thread, which closes the socket it is blocked on; a response that arrives nevertheless is closed.
+   */
+  private Response abortable(HttpRequest request) {
+    var signal = AbortSignal.current();
+    signal.throwIfAborted();
+    if (!signal.isAbortable()) {
+      return invocation(request).invoke();
+    }
+    var pending = new CompletableFuture<Response>();
+    var worker = Thread.ofVirtual()
+        .name("smart-workflow-http")
+        .start(IvyContextSnapshot.capture().wrap(() -> {
+          try {
+            var response = invocation(request).invoke();
+            if (!pending.complete(response)) {
+              response.close();
+            }
+          } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+          }
+        }));
+    try (var _ = signal.onAbort(() -> {
+      pending.cancel(false);
+      worker.interrupt();
+    })) {
+      return pending.join();
+    } catch (CancellationException ex) {
+      throw new AbortSignal.AbortedException();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new ProcessingException(ex.getCause());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Invocation invocation(HttpRequest request) {
     var headers = new MultivaluedHashMap<String, Object>();
     headers.putAll((Map<? extends String, ? extends List<Object>>) request.headers());
     var content = contentType(headers);
 
-    target.register(new UriFilter(request), Priorities.AUTHENTICATION);
-    var response = target
+    return target
         .request()
+        .property(UriFilter.URL, request.url())
         .headers(headers)
-        .method(request.method().name(), Entity.entity(request.body(), content));
-
-    if (Family.SUCCESSFUL.equals(response.getStatusInfo().getFamily())) {
-      return SuccessfulHttpResponse.builder()
-          .statusCode(response.getStatus())
-          .body(response.readEntity(String.class))
-          .headers(response.getStringHeaders())
-          .build();
-    }
+        .build(request.method().name(), Entity.entity(request.body(), content));
+  }
 
-    throw new HttpException(response.getStatus(), response.readEntity(String.class));
+  private static boolean isSuccessful(Response response) {
+    return Family.SUCCESSFUL.equals(response.getStatusInfo().getFamily());
   }
 
   private static String contentType(MultivaluedHashMap<String, Object> headers) {
@@ -63,25 +132,78 @@ public class SmartHttpClient implements HttpClient {
         .orElse(MediaType.APPLICATION_JSON);
   }
 
+  /**
+   * Streams the server-sent events of the response body to the listener.
+   * <p>
+   * Unlike the asynchronous LangChain4j clients, events are parsed on the calling thread: the call returns
+   * once the stream is closed. Listener callbacks, and the tool executions they trigger, therefore run
+   * within the Ivy request context of the caller. The rate limiter slot is held until the stream is closed.
+   */
   @Override
   public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
-    throw new RuntimeException("not implemented");
+    ProviderRateLimiter.Permit permit;
+    try {
+      permit = ProviderRateLimiter.of(provider).acquire(request.body());
+    } catch (RuntimeException ex) {
+      listener.onError(ex);
+      return;
+    }
+    try (permit) {
+      Response response;
+      try {
+        response = abortable(request);
+      } catch (RuntimeException ex) {
+        listener.onError(ex);
+        return;
+      }
+      permit.observe(response.getStatus(), response::getHeaderString);
+      stream(response, parser, listener);
+    }
+  }
+
+  private static void stream(Response response, ServerSentEventParser parser, ServerSentEventListener listener) {
+    try (response; var _ = AbortSignal.current().onAbort(response::close)) {
+      if (!isSuccessful(response)) {
+        listener.onError(new HttpException(response.getStatus(), response.readEntity(String.class)));
+        return;
+      }
+      listener.onOpen(SuccessfulHttpResponse.builder()
+          .statusCode(response.getStatus())
+          .headers(response.getStringHeaders())
+          .build());
+      try (InputStream events = response.readEntity(InputStream.class)) {
+        parser.parse(events, listener);
+      }
+      listener.onClose();
+    } catch (Exception ex) {
+      listener.onError(ex);
+    }
   }
 
   /**
    * Override default resolved URI from rest-clients.yaml configuration by LangChain URI.
+   * <p>
+   * Pooled models share their client between concurrent calls, so the URI is passed as a property of each
+   * invocation to a filter that is registered once, on a target of the client's own.
    */
   private static class UriFilter implements ClientRequestFilter {
 
-    private final HttpRequest request;
+    private static final String URL = UriFilter.class.getName() + ".url";
+
+    private UriFilter() {}
 
-    private UriFilter(HttpRequest request) {
-      this.request = request;
+    /**
+     * @return a copy of the target, which inherits its configuration and applies the URI of each invocation.
+     */
+    private static WebTarget register(WebTarget target) {
+      return target.path("").register(new UriFilter(), Priorities.AUTHENTICATION);
     }
 
     @Override
     public void filter(ClientRequestContext context) throws IOException {
-      context.setUri(URI.create(request.url()));
+      if (context.getProperty(URL) instanceof String url) {
+        context.setUri(URI.create(url));
+      }
     }
   }
 
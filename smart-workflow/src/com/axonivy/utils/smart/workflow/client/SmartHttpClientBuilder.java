@@ -13,9 +13,15 @@ public class SmartHttpClientBuilder implements HttpClientBuilder {
   private static final String LANG_CHAIN_CLIENT = "langChain";
 
   private final WebTarget client;
+  private final String provider;
 
   public SmartHttpClientBuilder() {
+    this(null);
+  }
+
+  public SmartHttpClientBuilder(String provider) {
     this.client = Ivy.rest().client(LANG_CHAIN_CLIENT);
+    this.provider = provider;
   }
 
   @Override
@@ -42,7 +48,7 @@ public class SmartHttpClientBuilder implements HttpClientBuilder {
 
   @Override
   public HttpClient build() {
-    return new SmartHttpClient(client);
+    return new SmartHttpClient(client, provider);
   }
 
 }
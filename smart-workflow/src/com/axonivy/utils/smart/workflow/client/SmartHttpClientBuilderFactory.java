@@ -4,9 +4,22 @@ import dev.langchain4j.http.client.HttpClientBuilder;
 
 public class SmartHttpClientBuilderFactory implements dev.langchain4j.http.client.HttpClientBuilderFactory {
 
+  private final String provider;
+
+  public SmartHttpClientBuilderFactory() {
+    this(null);
+  }
+
+  /**
+   * @param provider name of the model provider; its calls are throttled by the {@link ProviderRateLimiter} of that name.
+   */
+  public SmartHttpClientBuilderFactory(String provider) {
+    this.provider = provider;
+  }
+
   @Override
   public HttpClientBuilder create() {
-    return new SmartHttpClientBuilder();
+    return new SmartHttpClientBuilder(provider);
   }
 
 }
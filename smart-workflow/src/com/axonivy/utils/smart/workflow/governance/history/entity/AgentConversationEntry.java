@@ -1,7 +1,17 @@
 package com.axonivy.utils.smart.workflow.governance.history.entity;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.search.ConversationSearchText;
 import com.axonivy.utils.smart.workflow.utils.JsonUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -10,6 +20,12 @@ import ch.ivyteam.ivy.environment.Ivy;
 
 public class AgentConversationEntry {
 
+  /**
+   * The version of the search fields; entries indexed by an older version, or none, are indexed again by the
+   * reindex of the storage.
+   */
+  public static final int SEARCH_INDEX_VERSION = 1;
+
   private static final String SERIALIZATION_FAILURE_MESSAGE = "AgentConversationEntry: failed to serialize %s for caseUuid=%s: %s";
 
   public record ToolExecution(
@@ -27,6 +43,8 @@ public class AgentConversationEntry {
       @JsonProperty("durationMs")     Long durationMs,
       @JsonProperty("executedAt")     String executedAt) {}
 
+  private String id;
+  private long version;
   private String caseUuid;
   private String taskUuid;
   private String agentId;
@@ -37,6 +55,37 @@ public class AgentConversationEntry {
   private String lastUpdated;
   private String toolExecutionsJson;
   private String guardrailExecutionsJson;
+  private boolean eventLog;
+  private long nextEventSequence;
+  private long eventGeneration;
+  private boolean compacted;
+  private String caseId;
+  private String caseName;
+  private String caseSearchText;
+  private String modelName;
+  private long totalTokens;
+  private int messageCount;
+  private String contentSearchText;
+  private List<String> toolNames = new ArrayList<>();
+  private List<String> guardrailOutcomes = new ArrayList<>();
+  private int searchIndexVersion;
+  private long lastUpdatedMillis;
+
+  /**
+   * @return the document id of the entry of an agent within a task, so that it is found without a query.
+   */
+  public static String keyOf(String caseUuid, String taskUuid, String agentId) {
+    return String.join(":", caseUuid, taskUuid, agentId).toLowerCase(Locale.ROOT);
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+
+  /**
+   * Incremented on every update, to detect concurrent modifications of the entry.
+   */
+  public long getVersion() { return version; }
+  public void setVersion(long version) { this.version = version; }
 
   public String getCaseUuid() { return caseUuid; }
   public void setCaseUuid(String caseUuid) { this.caseUuid = caseUuid; }
@@ -60,7 +109,203 @@ public class AgentConversationEntry {
   public void setTokenUsageJson(String tokenUsageJson) { this.tokenUsageJson = tokenUsageJson; }
 
   public String getLastUpdated() { return lastUpdated; }
-  public void setLastUpdated(String lastUpdated) { this.lastUpdated = lastUpdated; }
+  public void setLastUpdated(String lastUpdated) {
+    this.lastUpdated = lastUpdated;
+    this.lastUpdatedMillis = toMillis(lastUpdated);
+  }
+
+  /**
+   * @return {@link #getLastUpdated()} as epoch milliseconds, to filter and sort by in queries.
+   */
+  public long getLastUpdatedMillis() { return lastUpdatedMillis; }
+  public void setLastUpdatedMillis(long lastUpdatedMillis) { this.lastUpdatedMillis = lastUpdatedMillis; }
+
+  public String getCaseId() { return caseId; }
+  public void setCaseId(String caseId) { this.caseId = caseId; }
+
+  public String getCaseName() { return caseName; }
+  public void setCaseName(String caseName) { this.caseName = caseName; }
+
+  /**
+   * @return the lowercased id, name and description of the case, to search cases without loading them.
+   */
+  public String getCaseSearchText() { return caseSearchText; }
+  public void setCaseSearchText(String caseSearchText) { this.caseSearchText = caseSearchText; }
+
+  public void describeCase(String caseId, String caseName, String caseDescription) {
+    this.caseId = caseId;
+    this.caseName = caseName;
+    this.caseSearchText = Stream.of(caseId, caseName, caseDescription)
+        .filter(StringUtils::isNotBlank)
+        .collect(Collectors.joining(" "))
+        .toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @return the model of the first response, as shown for the whole conversation.
+   */
+  public String getModelName() { return modelName; }
+  public void setModelName(String modelName) { this.modelName = modelName; }
+
+  public long getTotalTokens() { return totalTokens; }
+  public void setTotalTokens(long totalTokens) { this.totalTokens = totalTokens; }
+
+  /**
+   * @return the number of messages of the conversation, so that it can be shown without reading them.
+   */
+  public int getMessageCount() { return messageCount; }
+  public void setMessageCount(int messageCount) { this.messageCount = messageCount; }
+
+  /**
+   * Derives {@link #getMessageCount()} from {@link #getMessagesJson()}, for entries recorded before it was stored.
+   */
+  public void countMessages() {
+    if (StringUtils.isBlank(messagesJson)) {
+      return;
+    }
+    try {
+      var messages = JsonUtils.getObjectMapper().readTree(messagesJson);
+      if (messages.isArray()) {
+        messageCount = messages.size();
+      }
+    } catch (JsonProcessingException e) {
+      logSerializationFailure("messages", e);
+    }
+  }
+
+  /**
+   * Drops the messages, tool and guardrail executions and their search text, keeping the fields by which the
+   * conversation is listed. An entry stripped like this must not be saved.
+   */
+  public void stripContent() {
+    if (messageCount == 0) {
+      countMessages();
+    }
+    messagesJson = null;
+    toolExecutionsJson = null;
+    guardrailExecutionsJson = null;
+    contentSearchText = null;
+  }
+
+  /**
+   * @return the PII-masked words of the messages, tool calls and guardrail executions, to search the content of
+   * conversations without loading it.
+   * @see ConversationSearchText
+   */
+  public String getContentSearchText() { return contentSearchText; }
+  public void setContentSearchText(String contentSearchText) { this.contentSearchText = contentSearchText; }
+
+  /**
+   * @return the distinct names of the tools the agent called.
+   */
+  public List<String> getToolNames() { return toolNames; }
+  public void setToolNames(List<String> toolNames) {
+    this.toolNames = toolNames == null ? new ArrayList<>() : new ArrayList<>(toolNames);
+  }
+
+  /**
+   * @return the distinct {@link ConversationSearchText#outcome outcomes} of the guardrails that ran.
+   */
+  public List<String> getGuardrailOutcomes() { return guardrailOutcomes; }
+  public void setGuardrailOutcomes(List<String> guardrailOutcomes) {
+    this.guardrailOutcomes = guardrailOutcomes == null ? new ArrayList<>() : new ArrayList<>(guardrailOutcomes);
+  }
+
+  public int getSearchIndexVersion() { return searchIndexVersion; }
+  public void setSearchIndexVersion(int searchIndexVersion) { this.searchIndexVersion = searchIndexVersion; }
+
+  /**
+   * Derives the search fields from the content of the entry, replacing the indexed ones.
+   */
+  public void indexContent() {
+    contentSearchText = null;
+    toolNames = new ArrayList<>();
+    guardrailOutcomes = new ArrayList<>();
+    indexMessages(messagesJson);
+    getToolExecutions().forEach(this::indexTool);
+    getGuardrailExecutions().forEach(this::indexGuardrail);
+    searchIndexVersion = SEARCH_INDEX_VERSION;
+  }
+
+  /**
+   * Adds serialized messages that follow the indexed ones to the search fields. Messages that replace indexed
+   * ones are indexed by {@link #indexContent()} instead.
+   */
+  public void indexMessages(String messagesJson) {
+    contentSearchText = ConversationSearchText.append(contentSearchText, ConversationSearchText.ofMessages(messagesJson));
+  }
+
+  /**
+   * Adds a tool execution to the search fields.
+   */
+  public void indexTool(ToolExecution tool) {
+    if (StringUtils.isNotBlank(tool.toolName()) && !toolNames.contains(tool.toolName())) {
+      toolNames.add(tool.toolName());
+    }
+    contentSearchText = ConversationSearchText.append(contentSearchText, ConversationSearchText.ofTool(tool));
+  }
+
+  /**
+   * Adds a guardrail execution to the search fields.
+   */
+  public void indexGuardrail(GuardrailExecution guardrail) {
+    var outcome = ConversationSearchText.outcome(guardrail);
+    if (!guardrailOutcomes.contains(outcome)) {
+      guardrailOutcomes.add(outcome);
+    }
+    contentSearchText = ConversationSearchText.append(contentSearchText, ConversationSearchText.ofGuardrail(guardrail));
+  }
+
+  /**
+   * Derives {@link #getModelName()} and {@link #getTotalTokens()} from {@link #getTokenUsageJson()}, for entries
+   * recorded before they were stored separately.
+   */
+  public void summarizeTokenUsage() {
+    if (StringUtils.isBlank(tokenUsageJson)) {
+      return;
+    }
+    try {
+      long total = 0;
+      String model = null;
+      for (var response : JsonUtils.getObjectMapper().readTree(tokenUsageJson)) {
+        total += response.path("totalTokens").asLong(0);
+        if (model == null && response.hasNonNull("modelName")) {
+          model = response.get("modelName").asText();
+        }
+      }
+      totalTokens = total;
+      modelName = model;
+    } catch (JsonProcessingException e) {
+      logSerializationFailure("tokenUsage", e);
+    }
+  }
+
+  /**
+   * True if the content of the entry is stored as {@link AgentConversationEvent}s. The JSON fields of such an
+   * entry are only filled when it is read.
+   */
+  public boolean isEventLog() { return eventLog; }
+  public void setEventLog(boolean eventLog) { this.eventLog = eventLog; }
+
+  /**
+   * @return the sequence of the next {@link AgentConversationEvent} of an event log entry.
+   */
+  public long getNextEventSequence() { return nextEventSequence; }
+  public void setNextEventSequence(long nextEventSequence) { this.nextEventSequence = nextEventSequence; }
+
+  /**
+   * @return the generation of the {@link AgentConversationEvent}s that make up the content of an event log entry.
+   * Rewriting the content starts a new generation; events of other generations are left over and not read.
+   */
+  public long getEventGeneration() { return eventGeneration; }
+  public void setEventGeneration(long eventGeneration) { this.eventGeneration = eventGeneration; }
+
+  /**
+   * True if the retention removed the messages, tool and guardrail executions of the entry, and only its
+   * metadata and token usage are kept.
+   */
+  public boolean isCompacted() { return compacted; }
+  public void setCompacted(boolean compacted) { this.compacted = compacted; }
 
   public String getToolExecutionsJson() { return toolExecutionsJson; }
   public void setToolExecutionsJson(String toolExecutionsJson) { this.toolExecutionsJson = toolExecutionsJson; }
@@ -94,6 +339,17 @@ public class AgentConversationEntry {
     }
   }
 
+  private static long toMillis(String lastUpdated) {
+    if (StringUtils.isBlank(lastUpdated)) {
+      return 0;
+    }
+    try {
+      return LocalDateTime.parse(lastUpdated).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return 0;
+    }
+  }
+
   private void logSerializationFailure(String field, JsonProcessingException e) {
     Ivy.log().warn(String.format(SERIALIZATION_FAILURE_MESSAGE, field, caseUuid, e.getMessage()));
   }
@@ -0,0 +1,79 @@
+package com.axonivy.utils.smart.workflow.governance.history.entity;
+
+/**
+ * An immutable record of something that happened in the conversation of an agent, stored by the
+ * {@link com.axonivy.utils.smart.workflow.governance.history.storage.EventLogHistoryStorage}. The
+ * {@link AgentConversationEntry} of the agent is assembled from its events when it is read.
+ */
+public class AgentConversationEvent {
+
+  public enum Kind {
+    /** The conversation from message {@link AgentConversationEvent#getFrom()} on; earlier messages are kept. */
+    MESSAGES,
+    /** The metadata of a model response. */
+    RESPONSE,
+    /** A {@link AgentConversationEntry.ToolExecution}. */
+    TOOL,
+    /** A {@link AgentConversationEntry.GuardrailExecution}. */
+    GUARDRAIL
+  }
+
+  private String id;
+  private String entryId;
+  private String caseUuid;
+  private long sequence;
+  private long generation;
+  private Kind kind;
+  private int from;
+  private String json;
+  private String recordedAt;
+
+  public static AgentConversationEvent of(Kind kind, String json) {
+    var event = new AgentConversationEvent();
+    event.setKind(kind);
+    event.setJson(json);
+    return event;
+  }
+
+  public static AgentConversationEvent messages(int from, String messagesJson) {
+    var event = of(Kind.MESSAGES, messagesJson);
+    event.setFrom(from);
+    return event;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+
+  /**
+   * @return the id of the {@link AgentConversationEntry} the event belongs to.
+   */
+  public String getEntryId() { return entryId; }
+  public void setEntryId(String entryId) { this.entryId = entryId; }
+
+  public String getCaseUuid() { return caseUuid; }
+  public void setCaseUuid(String caseUuid) { this.caseUuid = caseUuid; }
+
+  /**
+   * @return the position of the event among the events of its entry.
+   */
+  public long getSequence() { return sequence; }
+  public void setSequence(long sequence) { this.sequence = sequence; }
+
+  /**
+   * @return the {@link AgentConversationEntry#getEventGeneration() generation} the event was written in.
+   */
+  public long getGeneration() { return generation; }
+  public void setGeneration(long generation) { this.generation = generation; }
+
+  public Kind getKind() { return kind; }
+  public void setKind(Kind kind) { this.kind = kind; }
+
+  public int getFrom() { return from; }
+  public void setFrom(int from) { this.from = from; }
+
+  public String getJson() { return json; }
+  public void setJson(String json) { this.json = json; }
+
+  public String getRecordedAt() { return recordedAt; }
+  public void setRecordedAt(String recordedAt) { this.recordedAt = recordedAt; }
+}
@@ -0,0 +1,137 @@
+package com.axonivy.utils.smart.workflow.governance.history.entity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Counters of the model responses of one day, process, agent, provider and model, updated whenever a response
+ * is recorded, so that usage over time is summed up without reading any conversation.
+ */
+public class TokenUsageRollup {
+
+  /**
+   * Upper bounds in milliseconds of the {@link #getDurationHistogram() duration histogram} buckets; the last
+   * bucket counts all longer responses.
+   */
+  public static final List<Long> DURATION_BOUNDS_MS = List.of(250L, 500L, 1_000L, 2_000L, 5_000L, 10_000L, 30_000L);
+
+  private String id;
+  private String day;
+  private long epochDay;
+  private String processName;
+  private String agentName;
+  private String provider;
+  private String modelName;
+  private long calls;
+  private long inputTokens;
+  private long outputTokens;
+  private long totalTokens;
+  private long cachedInputTokens;
+  private long durationMsSum;
+  private List<Long> durationHistogram = new ArrayList<>(Collections.nCopies(DURATION_BOUNDS_MS.size() + 1, 0L));
+
+  public static TokenUsageRollup of(LocalDate day, String processName, String agentName, String provider,
+      String modelName) {
+    var rollup = new TokenUsageRollup();
+    rollup.setId(UUID.nameUUIDFromBytes(String.join("\n", day.toString(), String.valueOf(processName),
+        String.valueOf(agentName), String.valueOf(provider), String.valueOf(modelName))
+        .toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)).toString());
+    rollup.setDay(day.toString());
+    rollup.setEpochDay(day.toEpochDay());
+    rollup.setProcessName(processName);
+    rollup.setAgentName(agentName);
+    rollup.setProvider(provider);
+    rollup.setModelName(modelName);
+    return rollup;
+  }
+
+  /**
+   * Counts a response.
+   */
+  public void count(Integer input, Integer output, Integer total, Integer cachedInput, Long durationMs) {
+    calls++;
+    inputTokens += input == null ? 0 : input;
+    outputTokens += output == null ? 0 : output;
+    totalTokens += total == null ? 0 : total;
+    cachedInputTokens += cachedInput == null ? 0 : cachedInput;
+    if (durationMs != null) {
+      durationMsSum += durationMs;
+      int bucket = 0;
+      while (bucket < DURATION_BOUNDS_MS.size() && durationMs > DURATION_BOUNDS_MS.get(bucket)) {
+        bucket++;
+      }
+      durationHistogram.set(bucket, durationHistogram.get(bucket) + 1);
+    }
+  }
+
+  /**
+   * Adds the counters of the other rollup to this one.
+   */
+  public void add(TokenUsageRollup other) {
+    calls += other.calls;
+    inputTokens += other.inputTokens;
+    outputTokens += other.outputTokens;
+    totalTokens += other.totalTokens;
+    cachedInputTokens += other.cachedInputTokens;
+    durationMsSum += other.durationMsSum;
+    for (int bucket = 0; bucket < durationHistogram.size() && bucket < other.durationHistogram.size(); bucket++) {
+      durationHistogram.set(bucket, durationHistogram.get(bucket) + other.durationHistogram.get(bucket));
+    }
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+
+  /**
+   * @return the ISO date of the day.
+   */
+  public String getDay() { return day; }
+  public void setDay(String day) { this.day = day; }
+
+  /**
+   * @return the day as {@link LocalDate#toEpochDay()}, to select days in queries.
+   */
+  public long getEpochDay() { return epochDay; }
+  public void setEpochDay(long epochDay) { this.epochDay = epochDay; }
+
+  public String getProcessName() { return processName; }
+  public void setProcessName(String processName) { this.processName = processName; }
+
+  public String getAgentName() { return agentName; }
+  public void setAgentName(String agentName) { this.agentName = agentName; }
+
+  public String getProvider() { return provider; }
+  public void setProvider(String provider) { this.provider = provider; }
+
+  public String getModelName() { return modelName; }
+  public void setModelName(String modelName) { this.modelName = modelName; }
+
+  public long getCalls() { return calls; }
+  public void setCalls(long calls) { this.calls = calls; }
+
+  public long getInputTokens() { return inputTokens; }
+  public void setInputTokens(long inputTokens) { this.inputTokens = inputTokens; }
+
+  public long getOutputTokens() { return outputTokens; }
+  public void setOutputTokens(long outputTokens) { this.outputTokens = outputTokens; }
+
+  public long getTotalTokens() { return totalTokens; }
+  public void setTotalTokens(long totalTokens) { this.totalTokens = totalTokens; }
+
+  public long getCachedInputTokens() { return cachedInputTokens; }
+  public void setCachedInputTokens(long cachedInputTokens) { this.cachedInputTokens = cachedInputTokens; }
+
+  public long getDurationMsSum() { return durationMsSum; }
+  public void setDurationMsSum(long durationMsSum) { this.durationMsSum = durationMsSum; }
+
+  /**
+   * @return the number of responses per duration bucket, see {@link #DURATION_BOUNDS_MS}.
+   */
+  public List<Long> getDurationHistogram() { return durationHistogram; }
+  public void setDurationHistogram(List<Long> durationHistogram) { this.durationHistogram = new ArrayList<>(durationHistogram); }
+}
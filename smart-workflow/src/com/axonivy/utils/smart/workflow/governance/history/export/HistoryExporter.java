@@ -0,0 +1,188 @@
+package com.axonivy.utils.smart.workflow.governance.history.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage;
+import com.axonivy.utils.smart.workflow.utils.JsonUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Writes the history entries matching a {@link HistoryFilter} to a stream, newest first. The entries are read
+ * page by page with {@link HistoryStorage#query}, so only one page is held in memory however much is exported.
+ */
+public class HistoryExporter {
+
+  public enum Format {
+    /** One JSON object per line, with the recorded JSON content embedded as JSON. */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /** One row per entry, with the recorded JSON content as text columns. */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    Format(String contentType, String extension) {
+      this.contentType = contentType;
+      this.extension = extension;
+    }
+
+    public String contentType() {
+      return contentType;
+    }
+
+    public String extension() {
+      return extension;
+    }
+  }
+
+  static final List<String> CSV_COLUMNS = List.of("id", "caseUuid", "caseId", "caseName", "taskUuid", "agentId",
+      "agentName", "processName", "modelName", "totalTokens", "lastUpdated", "compacted", "messages", "tokenUsage",
+      "toolExecutions", "guardrailExecutions");
+
+  private static final int PAGE_SIZE = 100;
+  private static final String[] FORMULA_PREFIXES = {"=", "+", "-", "@", "\t", "\r"};
+
+  private final HistoryStorage storage;
+
+  public HistoryExporter(HistoryStorage storage) {
+    this.storage = storage;
+  }
+
+  /**
+   * Writes the entries and flushes the stream after each page. The stream is not closed.
+   *
+   * @return the number of entries written.
+   */
+  public long export(HistoryFilter filter, Format format, OutputStream out) throws IOException {
+    var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    if (format == Format.CSV) {
+      writeCsvRow(writer, CSV_COLUMNS);
+    }
+    long written = 0;
+    String cursor = null;
+    do {
+      var page = storage.query(filter, cursor, PAGE_SIZE);
+      for (var entry : page.entries()) {
+        if (format == Format.CSV) {
+          writeCsvRow(writer, csvValues(entry));
+        } else {
+          writeNdjsonLine(writer, entry);
+        }
+        written++;
+      }
+      writer.flush();
+      cursor = page.nextCursor();
+    } while (cursor != null);
+    return written;
+  }
+
+  /**
+   * Writes the entry as one JSON object, with its recorded JSON content embedded as JSON.
+   */
+  public static void writeJson(JsonGenerator generator, AgentConversationEntry entry) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", entry.getId());
+    generator.writeStringField("caseUuid", entry.getCaseUuid());
+    generator.writeStringField("caseId", entry.getCaseId());
+    generator.writeStringField("caseName", entry.getCaseName());
+    generator.writeStringField("taskUuid", entry.getTaskUuid());
+    generator.writeStringField("agentId", entry.getAgentId());
+    generator.writeStringField("agentName", entry.getAgentName());
+    generator.writeStringField("processName", entry.getProcessName());
+    generator.writeStringField("modelName", entry.getModelName());
+    generator.writeNumberField("totalTokens", entry.getTotalTokens());
+    generator.writeStringField("lastUpdated", entry.getLastUpdated());
+    generator.writeBooleanField("compacted", entry.isCompacted());
+    writeEmbedded(generator, entry, "messages", entry.getMessagesJson());
+    writeEmbedded(generator, entry, "tokenUsage", entry.getTokenUsageJson());
+    writeEmbedded(generator, entry, "toolExecutions", entry.getToolExecutionsJson());
+    writeEmbedded(generator, entry, "guardrailExecutions", entry.getGuardrailExecutionsJson());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Writes the entry as one line of NDJSON.
+   */
+  public static void writeNdjsonLine(Writer writer, AgentConversationEntry entry) throws IOException {
+    var generator = JsonUtils.getObjectMapper().getFactory().createGenerator(writer);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    writeJson(generator, entry);
+    generator.close();
+    writer.write('\n');
+  }
+
+  /**
+   * Embeds the recorded JSON as parsed, so that a damaged record cannot break the structure of the export; such a
+   * record is written as text instead.
+   */
+  private static void writeEmbedded(JsonGenerator generator, AgentConversationEntry entry, String field, String json)
+      throws IOException {
+    generator.writeFieldName(field);
+    if (StringUtils.isBlank(json)) {
+      generator.writeNull();
+      return;
+    }
+    try {
+      generator.writeTree(JsonUtils.getObjectMapper().readTree(json));
+    } catch (JsonProcessingException ex) {
+      Ivy.log().warn("Exporting the unreadable " + field + " of history entry " + entry.getId() + " as text", ex);
+      generator.writeString(json);
+    }
+  }
+
+  private static List<String> csvValues(AgentConversationEntry entry) {
+    return List.of(
+        StringUtils.defaultString(entry.getId()),
+        StringUtils.defaultString(entry.getCaseUuid()),
+        StringUtils.defaultString(entry.getCaseId()),
+        StringUtils.defaultString(entry.getCaseName()),
+        StringUtils.defaultString(entry.getTaskUuid()),
+        StringUtils.defaultString(entry.getAgentId()),
+        StringUtils.defaultString(entry.getAgentName()),
+        StringUtils.defaultString(entry.getProcessName()),
+        StringUtils.defaultString(entry.getModelName()),
+        String.valueOf(entry.getTotalTokens()),
+        StringUtils.defaultString(entry.getLastUpdated()),
+        String.valueOf(entry.isCompacted()),
+        StringUtils.defaultString(entry.getMessagesJson()),
+        StringUtils.defaultString(entry.getTokenUsageJson()),
+        StringUtils.defaultString(entry.getToolExecutionsJson()),
+        StringUtils.defaultString(entry.getGuardrailExecutionsJson()));
+  }
+
+  /**
+   * Writes an RFC 4180 row: values with separators, quotes or line breaks are quoted, with quotes doubled. Values
+   * that a spreadsheet would run as a formula are prefixed with an apostrophe.
+   */
+  private static void writeCsvRow(Writer writer, List<String> values) throws IOException {
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      var value = values.get(i);
+      if (StringUtils.startsWithAny(value, FORMULA_PREFIXES)) {
+        value = "'" + value;
+      }
+      if (StringUtils.containsAny(value, ',', '"', '\n', '\r')) {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+      } else {
+        writer.write(value);
+      }
+    }
+    writer.write("\r\n");
+  }
+}
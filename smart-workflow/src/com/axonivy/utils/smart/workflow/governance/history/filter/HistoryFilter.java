@@ -0,0 +1,130 @@
+package com.axonivy.utils.smart.workflow.governance.history.filter;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.search.ConversationSearchText;
+
+/**
+ * Selects history entries. Blank or null criteria match every entry.
+ *
+ * @param caseSearch words that all occur in the id, name or description of the case.
+ * @param modelName the model, also matching its versioned names such as {@code gpt-4o-2024-08-06}.
+ * @param dateFrom first day of the last update, inclusive.
+ * @param dateTo last day of the last update, inclusive.
+ * @param contentSearch words and {@code "quoted phrases"} that all occur in the messages, tool calls or guardrail
+ * executions of the conversation.
+ * @param toolName a tool the agent called.
+ * @param guardrailOutcome a guardrail outcome of the conversation, such as {@code PiiMaskingGuardrail: SUCCESS}.
+ */
+public record HistoryFilter(
+    String caseSearch,
+    String taskUuid,
+    String modelName,
+    LocalDate dateFrom,
+    LocalDate dateTo,
+    String contentSearch,
+    String toolName,
+    String guardrailOutcome) {
+
+  private static final Pattern PHRASE = Pattern.compile("\"([^\"]*)\"");
+
+  public HistoryFilter(String caseSearch, String taskUuid, String modelName, LocalDate dateFrom, LocalDate dateTo) {
+    this(caseSearch, taskUuid, modelName, dateFrom, dateTo, null, null, null);
+  }
+
+  public static HistoryFilter empty() {
+    return new HistoryFilter(null, null, null, null, null);
+  }
+
+  /**
+   * @return the lowercased words of the {@link #caseSearch()}, split like the search index splits them.
+   */
+  public List<String> caseSearchWords() {
+    if (StringUtils.isBlank(caseSearch)) {
+      return List.of();
+    }
+    return Arrays.stream(caseSearch.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+        .filter(word -> !word.isEmpty())
+        .toList();
+  }
+
+  /**
+   * @return the masked words of the {@link #contentSearch()} outside of quotes, normalized like the indexed text.
+   */
+  public List<String> contentSearchWords() {
+    if (StringUtils.isBlank(contentSearch)) {
+      return List.of();
+    }
+    var unquoted = PHRASE.matcher(contentSearch).replaceAll(" ").replace("\"", " ");
+    return ConversationSearchText.words(ConversationSearchText.normalize(unquoted));
+  }
+
+  /**
+   * @return the masked phrases of the {@link #contentSearch()} in quotes, normalized like the indexed text.
+   */
+  public List<String> contentSearchPhrases() {
+    if (StringUtils.isBlank(contentSearch)) {
+      return List.of();
+    }
+    var phrases = new ArrayList<String>();
+    var matcher = PHRASE.matcher(contentSearch);
+    while (matcher.find()) {
+      var phrase = ConversationSearchText.normalize(matcher.group(1));
+      if (!phrase.isEmpty()) {
+        phrases.add(phrase);
+      }
+    }
+    return phrases;
+  }
+
+  /**
+   * @return the epoch millis from which entries are selected, or 0.
+   */
+  public long fromMillis() {
+    return dateFrom == null ? 0 : dateFrom.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  /**
+   * @return the epoch millis before which entries are selected, or {@link Long#MAX_VALUE}.
+   */
+  public long toMillis() {
+    return dateTo == null
+        ? Long.MAX_VALUE
+        : dateTo.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  public boolean matches(AgentConversationEntry entry) {
+    var searchText = StringUtils.defaultString(entry.getCaseSearchText());
+    return caseSearchWords().stream().allMatch(searchText::contains)
+        && (StringUtils.isBlank(taskUuid) || taskUuid.equalsIgnoreCase(entry.getTaskUuid()))
+        && (StringUtils.isBlank(modelName) || StringUtils.containsIgnoreCase(entry.getModelName(), modelName))
+        && entry.getLastUpdatedMillis() >= fromMillis()
+        && entry.getLastUpdatedMillis() < toMillis()
+        && matchesContent(entry.getContentSearchText())
+        && (StringUtils.isBlank(toolName) || entry.getToolNames().stream().anyMatch(toolName::equalsIgnoreCase))
+        && (StringUtils.isBlank(guardrailOutcome)
+            || entry.getGuardrailOutcomes().stream().anyMatch(guardrailOutcome::equalsIgnoreCase));
+  }
+
+  private boolean matchesContent(String searchText) {
+    var words = contentSearchWords();
+    var phrases = contentSearchPhrases();
+    if (words.isEmpty() && phrases.isEmpty()) {
+      return true;
+    }
+    var indexed = " " + StringUtils.defaultString(searchText) + " ";
+    var indexedWords = new HashSet<>(Arrays.asList(indexed.strip().split(" ")));
+    return indexedWords.containsAll(words)
+        && phrases.stream().allMatch(phrase -> indexed.contains(" " + phrase + " "));
+  }
+}
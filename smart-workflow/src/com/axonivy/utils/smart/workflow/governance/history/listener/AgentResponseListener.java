@@ -3,10 +3,12 @@ package com.axonivy.utils.smart.workflow.governance.history.listener;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder.ResponseMetadata;
+import com.axonivy.utils.smart.workflow.model.cache.CachedTokenUsage;
 
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.data.message.AiMessage;
@@ -18,9 +20,15 @@ import dev.langchain4j.observability.api.listener.AiServiceListener;
 public class AgentResponseListener implements AiServiceListener<AiServiceResponseReceivedEvent> {
 
   private final HistoryRecorder recorder;
+  private final Function<TokenUsage, Optional<Integer>> cachedInputTokens;
 
   public AgentResponseListener(HistoryRecorder recorder) {
+    this(recorder, _ -> Optional.empty());
+  }
+
+  public AgentResponseListener(HistoryRecorder recorder, Function<TokenUsage, Optional<Integer>> cachedInputTokens) {
     this.recorder = recorder;
+    this.cachedInputTokens = cachedInputTokens;
   }
 
   @Override
@@ -35,7 +43,7 @@ public class AgentResponseListener implements AiServiceListener<AiServiceRespons
     recorder.store(all, buildMetadata(event));
   }
 
-  private static ResponseMetadata buildMetadata(AiServiceResponseReceivedEvent event) {
+  private ResponseMetadata buildMetadata(AiServiceResponseReceivedEvent event) {
     var context = event.invocationContext();
     var response = event.response();
     var usage = Optional.ofNullable(response.tokenUsage());
@@ -44,11 +52,13 @@ public class AgentResponseListener implements AiServiceListener<AiServiceRespons
         usage.map(TokenUsage::inputTokenCount).orElse(null),
         usage.map(TokenUsage::outputTokenCount).orElse(null),
         usage.map(TokenUsage::totalTokenCount).orElse(null),
+        usage.flatMap(cachedInputTokens).orElse(null),
         Optional.ofNullable(response.finishReason()).map(Enum::name).orElse(null),
         response.modelName(),
         durationMs,
         context.methodName(),
-        toolNames(event));
+        toolNames(event),
+        CachedTokenUsage.isCacheHit(response));
   }
 
   private static List<String> toolNames(AiServiceResponseReceivedEvent event) {
@@ -4,26 +4,43 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.BufferedHistoryRecorder;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository;
+import com.axonivy.utils.smart.workflow.governance.history.storage.EventLogHistoryStorage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage;
 import com.axonivy.utils.smart.workflow.governance.history.storage.IvyRepoHistoryStorage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.IvyRepoRollupStorage;
+import com.axonivy.utils.smart.workflow.model.ChatModelFactory;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
 import com.axonivy.utils.smart.workflow.observability.AiListenerProvider;
 import com.axonivy.utils.smart.workflow.utils.IvyVar;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import ch.ivyteam.ivy.workflow.ICase;
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.observability.api.listener.AiServiceCompletedListener;
+import dev.langchain4j.observability.api.listener.AiServiceErrorListener;
 import dev.langchain4j.observability.api.listener.AiServiceListener;
 
 public class ChatHistoryListener implements AiListenerProvider {
 
   public interface Var {
     String HISTORY_ENABLED = "AI.Observability.Ivy.Enabled";
+    String EVENT_LOG = "AI.Observability.Ivy.EventLog";
   }
 
   private final String agentName;
+  private final String providerName;
 
   public ChatHistoryListener(String agentName) {
+    this(agentName, null);
+  }
+
+  public ChatHistoryListener(String agentName, String providerName) {
     this.agentName = agentName;
+    this.providerName = providerName;
   }
 
   @Override
@@ -37,12 +54,34 @@ public class ChatHistoryListener implements AiListenerProvider {
 
     String processName = getProcessName();
 
-    var repo = new ChatHistoryRepository(caseUuid, taskUuid, agentId, agentName, processName, new IvyRepoHistoryStorage());
+    var wfCase = Ivy.wfCase();
+    var provider = ChatModelFactory.create(providerName);
+    var repo = new ChatHistoryRepository(caseUuid, taskUuid, agentId, agentName, processName, storage())
+        .describeCase(String.valueOf(wfCase.getId()), wfCase.getName(), wfCase.getDescription())
+        .withRollups(new IvyRepoRollupStorage(), provider.map(ChatModelProvider::name).orElse(providerName));
+    var buffer = new BufferedHistoryRecorder(repo);
+    AiServiceCompletedListener completed = _ -> buffer.flush();
+    AiServiceErrorListener failed = _ -> buffer.flush();
     return List.of(
-        new AgentResponseListener(repo),
-        new ToolExecutionListener(repo),
-        new InputGuardrailListener(repo),
-        new OutputGuardrailListener(repo));
+        new AgentResponseListener(buffer, cachedInputTokens(provider)),
+        new ToolExecutionListener(buffer),
+        new InputGuardrailListener(buffer),
+        new OutputGuardrailListener(buffer),
+        completed,
+        failed);
+  }
+
+  /**
+   * @return the storage that history is recorded to.
+   */
+  public static HistoryStorage storage() {
+    return IvyVar.bool(Var.EVENT_LOG) ? new EventLogHistoryStorage() : new IvyRepoHistoryStorage();
+  }
+
+  private static Function<TokenUsage, Optional<Integer>> cachedInputTokens(Optional<ChatModelProvider> provider) {
+    return provider
+        .<Function<TokenUsage, Optional<Integer>>>map(provider -> provider::cachedInputTokens)
+        .orElse(_ -> Optional.empty());
   }
 
   private static String generateAgentId(String agentName) {
@@ -0,0 +1,56 @@
+package com.axonivy.utils.smart.workflow.governance.history.maintenance;
+
+import java.time.Duration;
+
+import com.axonivy.utils.smart.workflow.governance.history.retention.HistoryRetention;
+import com.axonivy.utils.smart.workflow.governance.history.storage.EventLogHistoryStorage;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.process.eventstart.AbstractProcessStartEventBean;
+import ch.ivyteam.ivy.process.eventstart.IProcessStartEventBeanRuntime;
+import ch.ivyteam.ivy.process.extension.ProgramConfig;
+
+/**
+ * Maintains the agent conversation history in the background, started by the program start of the
+ * {@code Governance/HistoryMaintenance} process. It polls in the system context of the engine, independent of
+ * any user request, and stops with the application.
+ * <p>
+ * On its first poll it stores the query and search fields of entries recorded before these fields existed, so
+ * that the governance dashboard finds them. On every poll it runs the {@link HistoryRetention} if it is due.
+ */
+public class HistoryMaintenanceBean extends AbstractProcessStartEventBean {
+
+  static final Duration POLL_INTERVAL = Duration.ofMinutes(10);
+
+  private volatile boolean reindexed;
+
+  public HistoryMaintenanceBean() {
+    super("HistoryMaintenance", "Maintains the agent conversation history");
+  }
+
+  @Override
+  public void initialize(IProcessStartEventBeanRuntime eventRuntime, ProgramConfig configuration) {
+    super.initialize(eventRuntime, configuration);
+    eventRuntime.poll().every(POLL_INTERVAL);
+  }
+
+  @Override
+  public void poll() {
+    if (!reindexed) {
+      reindex();
+    }
+    HistoryRetention.runIfDue(System.currentTimeMillis());
+  }
+
+  private void reindex() {
+    try {
+      int updated = new EventLogHistoryStorage().reindex(); // reads entries of both storage formats
+      reindexed = true;
+      if (updated > 0) {
+        Ivy.log().info("Reindexed " + updated + " agent conversation history entries");
+      }
+    } catch (RuntimeException ex) {
+      Ivy.log().warn("Failed to reindex the agent conversation history; retrying on the next poll", ex);
+    }
+  }
+}
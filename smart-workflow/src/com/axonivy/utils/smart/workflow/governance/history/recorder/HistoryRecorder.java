@@ -6,9 +6,9 @@ import dev.langchain4j.data.message.ChatMessage;
 
 public interface HistoryRecorder {
 
-  record ResponseMetadata(Integer inputTokens, Integer outputTokens, Integer totalTokens,
+  record ResponseMetadata(Integer inputTokens, Integer outputTokens, Integer totalTokens, Integer cachedInputTokens,
       String finishReason, String modelName, Long durationMs,
-      String aiServiceMethod, List<String> toolNames) {}
+      String aiServiceMethod, List<String> toolNames, boolean cacheHit) {}
 
   void store(List<ChatMessage> messages, ResponseMetadata metadata);
 }
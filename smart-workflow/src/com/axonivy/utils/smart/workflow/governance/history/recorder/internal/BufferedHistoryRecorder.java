@@ -0,0 +1,180 @@
+package com.axonivy.utils.smart.workflow.governance.history.recorder.internal;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.GuardrailExecution;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.ToolExecution;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.GuardrailExecutionRecorder;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.ToolExecutionRecorder;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.ChatHistoryRepository.Batch;
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import dev.langchain4j.data.message.ChatMessage;
+
+/**
+ * Collects the history events of an agent invocation in memory and writes them to the
+ * {@link ChatHistoryRepository} with a single update on {@link #flush()}, i.e. once the invocation completed or
+ * failed. Of the stored conversations only the latest is kept, since it contains all earlier ones.
+ * <p>
+ * A long running invocation is flushed in between, once {@link #MAX_BUFFERED_EVENTS} events are collected.
+ * With {@link FlushConf#ASYNC} the updates are written in the background, in the order they were flushed. If
+ * more than {@link FlushConf#MAX_BACKLOG} updates are waiting, the caller writes its update itself, so that the
+ * backlog does not grow without bounds. The backlog is held in memory only: updates still waiting when the
+ * engine or the project stops are lost, at most {@link FlushConf#MAX_BACKLOG} of them. Use the synchronous
+ * flush where the history must be complete.
+ */
+public class BufferedHistoryRecorder implements HistoryRecorder, ToolExecutionRecorder, GuardrailExecutionRecorder {
+
+  public interface FlushConf {
+    String ASYNC = "AI.Observability.Ivy.AsyncFlush";
+    String MAX_BACKLOG = "AI.Observability.Ivy.MaxBacklog";
+  }
+
+  static final int MAX_BUFFERED_EVENTS = 50;
+  private static final int DEFAULT_MAX_BACKLOG = 100;
+  private static final AtomicInteger BACKLOG = new AtomicInteger();
+  private static final AtomicInteger WRITING = new AtomicInteger();
+
+  private final ChatHistoryRepository repository;
+  private final Executor async;
+  private final int maxBacklog;
+
+  private List<ChatMessage> messages;
+  private List<ResponseMetadata> responses = new ArrayList<>();
+  private List<ToolExecution> tools = new ArrayList<>();
+  private List<GuardrailExecution> guardrails = new ArrayList<>();
+  private int events;
+  private CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+
+  public BufferedHistoryRecorder(ChatHistoryRepository repository) {
+    this(repository, asyncFlush(), IvyVar.integer(FlushConf.MAX_BACKLOG, DEFAULT_MAX_BACKLOG));
+  }
+
+  /**
+   * @param async writes the flushed updates, or null to write them on the flushing thread.
+   */
+  public BufferedHistoryRecorder(ChatHistoryRepository repository, Executor async, int maxBacklog) {
+    this.repository = repository;
+    this.async = async;
+    this.maxBacklog = maxBacklog;
+  }
+
+  /**
+   * @return the number of updates waiting to be written in the background.
+   */
+  public static int backlog() {
+    return BACKLOG.get();
+  }
+
+  /**
+   * @return true while history is written, in the background or by an agent call, or waiting to be written.
+   */
+  public static boolean isBusy() {
+    return BACKLOG.get() > 0 || WRITING.get() > 0;
+  }
+
+  private static Executor asyncFlush() {
+    if (!IvyVar.bool(FlushConf.ASYNC)) {
+      return null;
+    }
+    var context = IvyContextSnapshot.capture();
+    return task -> Thread.ofVirtual()
+        .name("smart-workflow-history")
+        .start(context.wrap(task));
+  }
+
+  @Override
+  public void store(List<ChatMessage> messages, ResponseMetadata metadata) {
+    synchronized (this) {
+      this.messages = List.copyOf(messages);
+      if (ChatHistoryRepository.isResponse(messages, metadata)) {
+        responses.add(metadata);
+      }
+    }
+    buffered();
+  }
+
+  @Override
+  public void record(String toolName, String arguments, String resultText) {
+    synchronized (this) {
+      tools.add(new ToolExecution(toolName, arguments, resultText, LocalDateTime.now().toString()));
+    }
+    buffered();
+  }
+
+  @Override
+  public void recordGuardrail(String guardrailName, String type, String result, String message, String failureMessage,
+      Long durationMs) {
+    synchronized (this) {
+      guardrails.add(new GuardrailExecution(guardrailName, type, result, message, failureMessage, durationMs,
+          LocalDateTime.now().toString()));
+    }
+    buffered();
+  }
+
+  private void buffered() {
+    boolean full;
+    synchronized (this) {
+      full = ++events >= MAX_BUFFERED_EVENTS;
+    }
+    if (full) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes the collected events with a single update.
+   */
+  public void flush() {
+    Batch batch;
+    synchronized (this) {
+      if (events == 0) {
+        return;
+      }
+      batch = new Batch(messages, responses, tools, guardrails);
+      messages = null;
+      responses = new ArrayList<>();
+      tools = new ArrayList<>();
+      guardrails = new ArrayList<>();
+      events = 0;
+    }
+    write(batch);
+  }
+
+  private synchronized void write(Batch batch) {
+    if (async == null || BACKLOG.incrementAndGet() > maxBacklog) {
+      if (async != null) {
+        BACKLOG.decrementAndGet();
+      }
+      written.join();
+      apply(batch);
+      return;
+    }
+    written = written.thenRunAsync(() -> {
+      try {
+        apply(batch);
+      } finally {
+        BACKLOG.decrementAndGet();
+      }
+    }, async);
+  }
+
+  private void apply(Batch batch) {
+    WRITING.incrementAndGet();
+    try {
+      repository.apply(batch);
+    } catch (RuntimeException ex) {
+      Ivy.log().warn("Failed to write the agent conversation history", ex);
+    } finally {
+      WRITING.decrementAndGet();
+    }
+  }
+}
@@ -1,23 +1,34 @@
 package com.axonivy.utils.smart.workflow.governance.history.recorder.internal;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.GuardrailExecution;
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.ToolExecution;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEvent;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEvent.Kind;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.GuardrailExecutionRecorder;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder;
 import com.axonivy.utils.smart.workflow.governance.history.recorder.ToolExecutionRecorder;
+import com.axonivy.utils.smart.workflow.governance.history.rollup.TokenUsageRollups;
+import com.axonivy.utils.smart.workflow.governance.history.storage.AppendableHistoryStorage;
 import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage;
+import com.axonivy.utils.smart.workflow.governance.history.storage.RollupStorage;
 import com.axonivy.utils.smart.workflow.utils.JsonUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.data.message.AiMessage;
@@ -26,6 +37,9 @@ import dev.langchain4j.data.message.ChatMessageSerializer;
 
 public class ChatHistoryRepository implements HistoryRecorder, ToolExecutionRecorder, GuardrailExecutionRecorder {
 
+  private static final int MAX_UPDATE_ATTEMPTS = 3;
+  private static final String BASE64_DATA = "base64Data";
+
   private final String caseUuid;
   private final String taskUuid;
   private final String agentId;
@@ -34,6 +48,25 @@ public class ChatHistoryRepository implements HistoryRecorder, ToolExecutionReco
   private final HistoryStorage storage;
 
   private AgentConversationEntry currentEntry;
+  private List<ChatMessage> loggedMessages = List.of();
+  private String caseId;
+  private String caseName;
+  private String caseDescription;
+  private RollupStorage rollups;
+  private String provider;
+
+  /**
+   * Events of an agent invocation, written with a single update.
+   *
+   * @param messages the latest conversation, or null to keep the stored one.
+   */
+  record Batch(List<ChatMessage> messages, List<ResponseMetadata> responses, List<ToolExecution> tools,
+      List<GuardrailExecution> guardrails) {
+
+    boolean isEmpty() {
+      return messages == null && responses.isEmpty() && tools.isEmpty() && guardrails.isEmpty();
+    }
+  }
 
   public ChatHistoryRepository(String caseUuid, String taskUuid, String agentId, String agentName, String processName, HistoryStorage storage) {
     this.caseUuid = caseUuid;
@@ -44,28 +77,157 @@ public class ChatHistoryRepository implements HistoryRecorder, ToolExecutionReco
     this.processName = processName;
   }
 
+  /**
+   * Stores the case details with the entry, so that the history can be searched by case without loading cases.
+   */
+  public ChatHistoryRepository describeCase(String id, String name, String description) {
+    this.caseId = id;
+    this.caseName = name;
+    this.caseDescription = description;
+    return this;
+  }
+
+  /**
+   * Counts the recorded responses in the token usage rollups of the day, once their history is written.
+   */
+  public ChatHistoryRepository withRollups(RollupStorage rollups, String provider) {
+    this.rollups = rollups;
+    this.provider = provider;
+    return this;
+  }
+
   @Override
   public void store(List<ChatMessage> messages, ResponseMetadata metadata) {
-    var entry = findOrCreateEntry();
-    entry.setMessagesJson(stripBase64(ChatMessageSerializer.messagesToJson(messages)));
-    entry.setLastUpdated(LocalDateTime.now().toString());
-    if (metadata != null && !messages.isEmpty() && messages.getLast() instanceof AiMessage) {
-      appendTokenMetadata(entry, metadata);
-    }
-    storage.save(entry);
-    currentEntry = entry;
+    var responses = isResponse(messages, metadata) ? List.of(metadata) : List.<ResponseMetadata>of();
+    apply(new Batch(messages, responses, List.of(), List.of()));
   }
 
   @Override
   public void record(String toolName, String arguments, String resultText) {
-    var entry = findOrCreateEntry();
-    String now = LocalDateTime.now().toString();
-    var tools = new ArrayList<>(entry.getToolExecutions());
-    tools.add(new ToolExecution(toolName, arguments, resultText, now));
-    entry.setToolExecutions(tools);
-    entry.setLastUpdated(now);
-    storage.save(entry);
-    currentEntry = entry;
+    var tool = new ToolExecution(toolName, arguments, resultText, LocalDateTime.now().toString());
+    apply(new Batch(null, List.of(), List.of(tool), List.of()));
+  }
+
+  static boolean isResponse(List<ChatMessage> messages, ResponseMetadata metadata) {
+    return metadata != null && !messages.isEmpty() && messages.getLast() instanceof AiMessage;
+  }
+
+  void apply(Batch batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    if (storage instanceof AppendableHistoryStorage log) {
+      append(log, batch);
+      rollUp(batch.responses());
+      return;
+    }
+    var messagesJson = batch.messages() == null
+        ? null
+        : stripBase64(ChatMessageSerializer.messagesToJson(batch.messages()));
+    boolean written = update(entry -> {
+      if (messagesJson != null) {
+        entry.setMessagesJson(messagesJson);
+        entry.setMessageCount(batch.messages().size());
+      }
+      if (!batch.responses().isEmpty()) {
+        appendTokenMetadata(entry, batch.responses());
+      }
+      if (!batch.tools().isEmpty()) {
+        var tools = new ArrayList<>(entry.getToolExecutions());
+        tools.addAll(batch.tools());
+        entry.setToolExecutions(tools);
+      }
+      if (!batch.guardrails().isEmpty()) {
+        var guardrails = new ArrayList<>(entry.getGuardrailExecutions());
+        guardrails.addAll(batch.guardrails());
+        entry.setGuardrailExecutions(guardrails);
+      }
+      entry.indexContent();
+      entry.setLastUpdated(LocalDateTime.now().toString());
+    });
+    if (written) {
+      rollUp(batch.responses());
+    }
+  }
+
+  private void rollUp(List<ResponseMetadata> responses) {
+    if (rollups == null || responses.isEmpty()) {
+      return;
+    }
+    try {
+      var agent = StringUtils.defaultIfBlank(agentName, agentId);
+      rollups.add(TokenUsageRollups.increments(LocalDate.now(), processName, agent, provider, responses));
+    } catch (RuntimeException ex) {
+      Ivy.log().warn("Failed to update the token usage rollups of agent " + agentId, ex);
+    }
+  }
+
+  /**
+   * Records the batch as events. Of the conversation only the messages that changed since the last batch of
+   * this repository are recorded.
+   */
+  private synchronized void append(AppendableHistoryStorage log, Batch batch) {
+    var events = new ArrayList<AgentConversationEvent>();
+    if (batch.messages() != null) {
+      var messages = batch.messages();
+      int from = commonPrefix(loggedMessages, messages);
+      if (from < messages.size() || from < loggedMessages.size()) {
+        var changed = messages.subList(from, messages.size());
+        events.add(AgentConversationEvent.messages(from, stripBase64(ChatMessageSerializer.messagesToJson(changed))));
+      }
+      loggedMessages = List.copyOf(messages);
+    }
+    addEvents(events, Kind.RESPONSE, batch.responses());
+    addEvents(events, Kind.TOOL, batch.tools());
+    addEvents(events, Kind.GUARDRAIL, batch.guardrails());
+    var entry = newEntry();
+    entry.setMessageCount(loggedMessages.size());
+    entry.setLastUpdated(LocalDateTime.now().toString());
+    log.append(entry, events);
+  }
+
+  private static int commonPrefix(List<ChatMessage> logged, List<ChatMessage> messages) {
+    int length = 0;
+    while (length < logged.size() && length < messages.size() && logged.get(length).equals(messages.get(length))) {
+      length++;
+    }
+    return length;
+  }
+
+  private static void addEvents(List<AgentConversationEvent> events, Kind kind, List<?> recorded) {
+    for (var event : recorded) {
+      try {
+        events.add(AgentConversationEvent.of(kind, JsonUtils.getObjectMapper().writeValueAsString(event)));
+      } catch (JsonProcessingException ex) {
+        Ivy.log().warn("Failed to serialize " + kind + " history event", ex);
+      }
+    }
+  }
+
+  /**
+   * Applies the change to the entry and saves it. If the entry was changed by another writer meanwhile, the
+   * change is applied again to the stored entry.
+   *
+   * @return false if the change was given up after too many concurrent modifications.
+   */
+  private synchronized boolean update(Consumer<AgentConversationEntry> change) {
+    for (int attempt = 1;; attempt++) {
+      var entry = findOrCreateEntry();
+      if (entry.getCaseSearchText() == null) {
+        describeCase(entry);
+      }
+      change.accept(entry);
+      if (storage.update(entry)) {
+        currentEntry = entry;
+        return true;
+      }
+      currentEntry = null;
+      if (attempt == MAX_UPDATE_ATTEMPTS) {
+        Ivy.log().warn(String.format("Gave up to update AgentConversationEntry for caseUuid=%s agentId=%s "
+            + "after %d concurrent modifications", caseUuid, agentId, attempt));
+        return false;
+      }
+    }
   }
 
   private AgentConversationEntry findOrCreateEntry() {
@@ -74,23 +236,27 @@ public class ChatHistoryRepository implements HistoryRecorder, ToolExecutionReco
 
   private AgentConversationEntry newEntry() {
     var entry = new AgentConversationEntry();
+    entry.setId(AgentConversationEntry.keyOf(caseUuid, taskUuid, agentId));
     entry.setCaseUuid(caseUuid);
     entry.setTaskUuid(taskUuid);
     entry.setAgentId(agentId);
     entry.setAgentName(agentName);
     entry.setProcessName(processName);
+    describeCase(entry);
     return entry;
   }
 
+  private void describeCase(AgentConversationEntry entry) {
+    if (caseId != null) {
+      entry.describeCase(caseId, caseName, caseDescription);
+    }
+  }
+
   private Optional<AgentConversationEntry> loadAndDeduplicateEntry() {
     if (currentEntry != null) {
       return Optional.of(currentEntry);
     }
-    var results = storage.findAll().stream()
-        .filter(entry -> caseUuid.equalsIgnoreCase(entry.getCaseUuid())
-            && taskUuid.equalsIgnoreCase(entry.getTaskUuid())
-            && agentId.equalsIgnoreCase(entry.getAgentId()))
-        .toList();
+    var results = storage.findByKey(caseUuid, taskUuid, agentId);
     if (results.isEmpty()) {
       return Optional.empty();
     }
@@ -106,29 +272,48 @@ public class ChatHistoryRepository implements HistoryRecorder, ToolExecutionReco
     return Optional.of(currentEntry);
   }
 
+  /**
+   * Drops the binary content of images, PDFs and other media from the messages in a single streaming pass,
+   * without building a tree of the possibly large conversation.
+   */
   private static String stripBase64(String messagesJson) {
-    try {
-      var root = JsonUtils.getObjectMapper().readTree(messagesJson);
-      root.findParents("base64Data").forEach(node -> {
-        if (node instanceof ObjectNode objectNode) {
-          objectNode.remove("base64Data");
+    var stripped = new StringWriter(messagesJson.length());
+    var factory = JsonUtils.getObjectMapper().getFactory();
+    try (var parser = factory.createParser(messagesJson);
+        var generator = factory.createGenerator(stripped)) {
+      while (parser.nextToken() != null) {
+        if (parser.currentToken() == JsonToken.FIELD_NAME && BASE64_DATA.equals(parser.currentName())) {
+          parser.nextToken();
+          parser.skipChildren();
+          continue;
         }
-      });
-      return JsonUtils.getObjectMapper().writeValueAsString(root);
-    } catch (JsonProcessingException ex) {
+        generator.copyCurrentEvent(parser);
+      }
+    } catch (IOException ex) {
       Ivy.log().warn("Failed to strip base64 from messages JSON", ex);
       return messagesJson;
     }
+    return stripped.toString();
   }
 
-  private void appendTokenMetadata(AgentConversationEntry entry, ResponseMetadata metadata) {
+  private void appendTokenMetadata(AgentConversationEntry entry, List<ResponseMetadata> metadata) {
     try {
       List<ResponseMetadata> list = StringUtils.isBlank(entry.getTokenUsageJson())
           ? new ArrayList<>()
           : JsonUtils.getObjectMapper().readValue(entry.getTokenUsageJson(),
               new TypeReference<List<ResponseMetadata>>() {});
-      list.add(metadata);
+      list.addAll(metadata);
       entry.setTokenUsageJson(JsonUtils.getObjectMapper().writeValueAsString(list));
+      entry.setTotalTokens(list.stream()
+          .map(ResponseMetadata::totalTokens)
+          .filter(Objects::nonNull)
+          .mapToLong(Integer::longValue)
+          .sum());
+      entry.setModelName(list.stream()
+          .map(ResponseMetadata::modelName)
+          .filter(Objects::nonNull)
+          .findFirst()
+          .orElse(null));
     } catch (JsonProcessingException ex) {
       Ivy.log().warn("Failed to persist token usage metadata", ex);
     }
@@ -137,13 +322,8 @@ public class ChatHistoryRepository implements HistoryRecorder, ToolExecutionReco
   
   @Override
   public void recordGuardrail(String guardrailName, String type, String result, String message, String failureMessage, Long durationMs) {
-    var entry = findOrCreateEntry();
-    String now = LocalDateTime.now().toString();
-    var guardrails = new ArrayList<>(entry.getGuardrailExecutions());
-    guardrails.add(new GuardrailExecution(guardrailName, type, result, message, failureMessage, durationMs, now));
-    entry.setGuardrailExecutions(guardrails);
-    entry.setLastUpdated(now);
-    storage.save(entry);
-    currentEntry = entry;
+    var guardrail = new GuardrailExecution(guardrailName, type, result, message, failureMessage, durationMs,
+        LocalDateTime.now().toString());
+    apply(new Batch(null, List.of(), List.of(), List.of(guardrail)));
   }
 }
@@ -0,0 +1,56 @@
+package com.axonivy.utils.smart.workflow.governance.history.retention;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.export.HistoryExporter;
+
+/**
+ * Writes history entries to a gzipped NDJSON file, in the {@link HistoryExporter.Format#NDJSON} format.
+ */
+public class HistoryArchive implements Closeable {
+
+  private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+  private final Path file;
+  private Writer out;
+
+  public HistoryArchive(Path directory) {
+    this.file = directory.resolve("agent-history-" + LocalDateTime.now().format(FILE_TIME) + ".ndjson.gz");
+  }
+
+  /**
+   * Appends the entries and flushes them to the file, so that they can be deleted from the repository.
+   */
+  public void write(List<AgentConversationEntry> entries) throws IOException {
+    if (out == null) {
+      Files.createDirectories(file.getParent());
+      out = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file), true), StandardCharsets.UTF_8);
+    }
+    for (var entry : entries) {
+      HistoryExporter.writeNdjsonLine(out, entry);
+    }
+    out.flush();
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (out != null) {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.axonivy.utils.smart.workflow.governance.history.retention;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import com.axonivy.utils.smart.workflow.governance.history.listener.ChatHistoryListener;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.internal.BufferedHistoryRecorder;
+import com.axonivy.utils.smart.workflow.governance.history.retention.RetentionPolicy.Var;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Runs the {@link HistoryRetentionJob} once per {@link Var#INTERVAL_HOURS}, called by the
+ * {@link com.axonivy.utils.smart.workflow.governance.history.maintenance.HistoryMaintenanceBean} in the system
+ * context of the engine.
+ * <p>
+ * A lease stored as business data makes sure that only one cluster node runs the job at a time, and that the
+ * interval counts for the whole cluster. The running node renews the lease after each batch; a lease that was not
+ * renewed for {@link #LEASE_MS} is taken over, e.g. after the running node stopped.
+ */
+public final class HistoryRetention {
+
+  private static final long HOUR_MS = 60L * 60 * 1000;
+  static final long LEASE_MS = 15L * 60 * 1000;
+
+  private HistoryRetention() {}
+
+  public static void runIfDue(long nowMillis) {
+    if (!IvyVar.bool(Var.ENABLED)) {
+      return;
+    }
+    long interval = Math.max(1, IvyVar.integer(Var.INTERVAL_HOURS, 24)) * HOUR_MS;
+    var lease = RetentionLease.acquire(nowMillis, interval);
+    if (lease == null) {
+      return;
+    }
+    try {
+      var job = new HistoryRetentionJob(ChatHistoryListener.storage(), RetentionPolicy.fromVariables(),
+          BufferedHistoryRecorder::isBusy,
+          progress -> {
+            lease.renew(System.currentTimeMillis());
+            Ivy.log().info("History retention in progress: " + progress);
+          });
+      Ivy.log().info("History retention finished: " + job.run(nowMillis));
+    } catch (RuntimeException ex) {
+      Ivy.log().warn("History retention failed", ex);
+    } finally {
+      lease.release(System.currentTimeMillis());
+    }
+  }
+
+  static class RetentionLease {
+
+    static final String ID = "smart-workflow-history-retention";
+
+    public String id;
+    /** the host of the node that runs or ran the job, to tell in the business data which node it was */
+    public String owner;
+    public long startedMillis;
+    public long renewedMillis;
+    public long finishedMillis;
+
+    RetentionLease(@JsonProperty("id") String id, @JsonProperty("owner") String owner,
+        @JsonProperty("startedMillis") long startedMillis, @JsonProperty("renewedMillis") long renewedMillis,
+        @JsonProperty("finishedMillis") long finishedMillis) {
+      this.id = id;
+      this.owner = owner;
+      this.startedMillis = startedMillis;
+      this.renewedMillis = renewedMillis;
+      this.finishedMillis = finishedMillis;
+    }
+
+    /**
+     * @return the lease taken for this run, or null if another node runs the job or it ran within the interval.
+     */
+    static RetentionLease acquire(long nowMillis, long intervalMillis) {
+      var locked = Ivy.repo().find(ID, RetentionLease.class);
+      if (locked == null) {
+        locked = new RetentionLease(ID, null, 0, 0, 0);
+        Ivy.repo().save(locked); // two nodes that create it at once may both run the very first job
+      }
+      Ivy.repo().lock(locked);
+      try {
+        var lease = Ivy.repo().find(ID, RetentionLease.class); // re-read under the lock
+        boolean running = lease.finishedMillis < lease.startedMillis && nowMillis - lease.renewedMillis < LEASE_MS;
+        if (running || nowMillis - lease.startedMillis < intervalMillis) {
+          return null;
+        }
+        lease.owner = hostName();
+        lease.startedMillis = nowMillis;
+        lease.renewedMillis = nowMillis;
+        Ivy.repo().save(lease);
+        return lease;
+      } finally {
+        Ivy.repo().unlock(locked);
+      }
+    }
+
+    void renew(long nowMillis) {
+      renewedMillis = nowMillis;
+      Ivy.repo().overwrite(this, "renewedMillis");
+    }
+
+    void release(long nowMillis) {
+      finishedMillis = nowMillis;
+      Ivy.repo().overwrite(this, "finishedMillis");
+    }
+
+    private static String hostName() {
+      try {
+        return InetAddress.getLocalHost().getHostName();
+      } catch (UnknownHostException ex) {
+        return "unknown";
+      }
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.axonivy.utils.smart.workflow.governance.history.retention;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.governance.history.retention.RetentionPolicy.Mode;
+import com.axonivy.utils.smart.workflow.governance.history.storage.HistoryStorage;
+
+/**
+ * Removes the history entries selected by a {@link RetentionPolicy}, newest first and one batch at a time. Token
+ * usage rollups are kept, so that usage analytics still cover removed entries.
+ * <p>
+ * Between two batches the job pauses, and pauses again while live history is written or waiting to be written,
+ * so that it does not slow down running agents.
+ */
+public class HistoryRetentionJob {
+
+  public record Progress(int scanned, int compacted, int archived) {
+
+    static final Progress NONE = new Progress(0, 0, 0);
+
+    Progress plus(int scanned, int compacted, int archived) {
+      return new Progress(this.scanned + scanned, this.compacted + compacted, this.archived + archived);
+    }
+  }
+
+  private static final long DAY_MS = 24L * 60 * 60 * 1000;
+  private static final int MAX_BUSY_PAUSES = 10;
+
+  private final HistoryStorage storage;
+  private final RetentionPolicy policy;
+  private final BooleanSupplier busy;
+  private final Consumer<Progress> onBatch;
+
+  /**
+   * @param busy true while live history is written or waiting to be written.
+   * @param onBatch receives the progress after each batch.
+   */
+  public HistoryRetentionJob(HistoryStorage storage, RetentionPolicy policy, BooleanSupplier busy,
+      Consumer<Progress> onBatch) {
+    this.storage = storage;
+    this.policy = policy;
+    this.busy = busy;
+    this.onBatch = onBatch;
+  }
+
+  public Progress run(long nowMillis) {
+    var filter = candidates(nowMillis);
+    if (filter == null) {
+      return Progress.NONE;
+    }
+    var progress = Progress.NONE;
+    var perProcess = new HashMap<String, Integer>();
+    try (var archive = policy.mode() == Mode.ARCHIVE ? new HistoryArchive(policy.archiveDirectory()) : null) {
+      String cursor = null;
+      do {
+        var page = storage.query(filter, cursor, policy.batchSize());
+        var expired = new ArrayList<AgentConversationEntry>();
+        for (var entry : page.entries()) {
+          int rank = perProcess.merge(StringUtils.defaultString(entry.getProcessName()).toLowerCase(Locale.ROOT), 1,
+              Integer::sum);
+          boolean beyondLimit = policy.maxEntriesPerProcess() > 0 && rank > policy.maxEntriesPerProcess();
+          boolean removable = archive != null || !entry.isCompacted();
+          if (removable && (beyondLimit || policy.isExpired(entry, nowMillis))) {
+            expired.add(entry);
+          }
+        }
+        progress = archive == null
+            ? progress.plus(page.entries().size(), compact(expired), 0)
+            : progress.plus(page.entries().size(), 0, archive(archive, expired));
+        onBatch.accept(progress);
+        cursor = page.nextCursor();
+      } while (cursor != null && pause());
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to archive the agent conversation history", ex);
+    }
+    return progress;
+  }
+
+  /**
+   * @return the entries that may be removed, or null if none may be.
+   */
+  private HistoryFilter candidates(long nowMillis) {
+    if (policy.maxEntriesPerProcess() > 0) {
+      return HistoryFilter.empty();
+    }
+    int days = policy.minMaxAgeDays();
+    if (days == 0) {
+      return null;
+    }
+    var lastDay = LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis - days * DAY_MS), ZoneId.systemDefault());
+    return new HistoryFilter(null, null, null, null, lastDay);
+  }
+
+  private int compact(List<AgentConversationEntry> entries) {
+    int compacted = 0;
+    for (var entry : entries) {
+      if (entry.getModelName() == null) {
+        entry.summarizeTokenUsage();
+      }
+      entry.setMessagesJson(null);
+      entry.setToolExecutionsJson(null);
+      entry.setGuardrailExecutionsJson(null);
+      entry.indexContent(); // the search fields must not keep what was removed
+      entry.setCompacted(true);
+      if (storage.update(entry)) { // not compacted if it was just written again
+        compacted++;
+      }
+    }
+    return compacted;
+  }
+
+  private int archive(HistoryArchive archive, List<AgentConversationEntry> entries) throws IOException {
+    if (entries.isEmpty()) {
+      return 0;
+    }
+    archive.write(entries);
+    entries.forEach(storage::delete);
+    return entries.size();
+  }
+
+  /**
+   * @return false if the job was interrupted.
+   */
+  private boolean pause() {
+    try {
+      Thread.sleep(policy.pauseMs());
+      for (int pauses = 0; pauses < MAX_BUSY_PAUSES && busy.getAsBoolean(); pauses++) {
+        Thread.sleep(Math.max(policy.pauseMs(), 100));
+      }
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.axonivy.utils.smart.workflow.governance.history.retention;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Decides which history entries the {@link HistoryRetentionJob} removes: entries not updated for the maximum age
+ * of their process, and the oldest entries of a process beyond its maximum number of entries.
+ *
+ * @param maxAgeDays days after their last update that entries are kept, or 0 to keep them regardless of age.
+ * @param processMaxAgeDays overrides of the maximum age per process name.
+ * @param maxEntriesPerProcess entries kept per process, or 0 to keep any number.
+ * @param archiveDirectory directory of the archive files, or null to compact the entries instead.
+ * @param batchSize entries read and removed at once.
+ * @param pauseMs pause between two batches, so that running agents are not slowed down.
+ */
+public record RetentionPolicy(
+    int maxAgeDays,
+    Map<String, Integer> processMaxAgeDays,
+    int maxEntriesPerProcess,
+    Mode mode,
+    Path archiveDirectory,
+    int batchSize,
+    long pauseMs) {
+
+  public interface Var {
+    String ENABLED = "AI.Observability.Ivy.Retention.Enabled";
+    String MAX_AGE_DAYS = "AI.Observability.Ivy.Retention.MaxAgeDays";
+    String PROCESS_MAX_AGE_DAYS = "AI.Observability.Ivy.Retention.ProcessMaxAgeDays";
+    String MAX_ENTRIES_PER_PROCESS = "AI.Observability.Ivy.Retention.MaxEntriesPerProcess";
+    String MODE = "AI.Observability.Ivy.Retention.Mode";
+    String ARCHIVE_DIRECTORY = "AI.Observability.Ivy.Retention.ArchiveDirectory";
+    String BATCH_SIZE = "AI.Observability.Ivy.Retention.BatchSize";
+    String PAUSE_MS = "AI.Observability.Ivy.Retention.PauseMs";
+    String INTERVAL_HOURS = "AI.Observability.Ivy.Retention.IntervalHours";
+  }
+
+  public enum Mode {
+    /** Removes the messages, tool and guardrail executions, but keeps the metadata and token usage. */
+    COMPACT,
+    /** Writes the entries to gzipped NDJSON files and deletes them. */
+    ARCHIVE
+  }
+
+  private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+  public RetentionPolicy {
+    processMaxAgeDays = Map.copyOf(processMaxAgeDays);
+    batchSize = Math.max(1, batchSize);
+    pauseMs = Math.max(0, pauseMs);
+    if (mode == Mode.ARCHIVE && archiveDirectory == null) {
+      throw new IllegalArgumentException("Archiving history needs an archive directory");
+    }
+  }
+
+  public static RetentionPolicy fromVariables() {
+    var mode = EnumUtils.getEnumIgnoreCase(Mode.class, StringUtils.strip(Ivy.var().get(Var.MODE)), Mode.COMPACT);
+    var directory = StringUtils.trimToNull(Ivy.var().get(Var.ARCHIVE_DIRECTORY));
+    if (mode == Mode.ARCHIVE && directory == null) {
+      Ivy.log().warn("No " + Var.ARCHIVE_DIRECTORY + " configured, old history is compacted instead of archived");
+      mode = Mode.COMPACT;
+    }
+    return new RetentionPolicy(
+        IvyVar.integer(Var.MAX_AGE_DAYS, 0),
+        parseProcessMaxAgeDays(Ivy.var().get(Var.PROCESS_MAX_AGE_DAYS)),
+        IvyVar.integer(Var.MAX_ENTRIES_PER_PROCESS, 0),
+        mode,
+        directory == null ? null : Path.of(directory),
+        IvyVar.integer(Var.BATCH_SIZE, 100),
+        IvyVar.integer(Var.PAUSE_MS, 500));
+  }
+
+  /**
+   * @param value comma separated {@code process name=days}, e.g. {@code Invoice approval=30, HR onboarding=365}.
+   */
+  public static Map<String, Integer> parseProcessMaxAgeDays(String value) {
+    var ages = new LinkedHashMap<String, Integer>();
+    if (StringUtils.isBlank(value)) {
+      return ages;
+    }
+    Arrays.stream(value.split(","))
+        .map(pair -> pair.split("=", 2))
+        .filter(pair -> pair.length == 2 && StringUtils.isNotBlank(pair[0]) && NumberUtils.isDigits(pair[1].strip()))
+        .forEach(pair -> ages.put(pair[0].strip().toLowerCase(Locale.ROOT), Integer.parseInt(pair[1].strip())));
+    return ages;
+  }
+
+  /**
+   * @return the days entries of the process are kept, or 0 to keep them regardless of age.
+   */
+  public int maxAgeDays(String processName) {
+    return processMaxAgeDays.getOrDefault(StringUtils.defaultString(processName).toLowerCase(Locale.ROOT), maxAgeDays);
+  }
+
+  /**
+   * @return the smallest maximum age of any process, or 0 if entries are kept regardless of age.
+   */
+  public int minMaxAgeDays() {
+    return IntStream.concat(IntStream.of(maxAgeDays), processMaxAgeDays.values().stream().mapToInt(Integer::intValue))
+        .filter(days -> days > 0)
+        .min().orElse(0);
+  }
+
+  public boolean isExpired(AgentConversationEntry entry, long nowMillis) {
+    int days = maxAgeDays(entry.getProcessName());
+    return days > 0 && entry.getLastUpdatedMillis() < nowMillis - days * DAY_MS;
+  }
+}
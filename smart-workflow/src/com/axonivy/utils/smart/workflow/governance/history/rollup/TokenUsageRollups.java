@@ -0,0 +1,63 @@
+package com.axonivy.utils.smart.workflow.governance.history.rollup;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.TokenUsageRollup;
+import com.axonivy.utils.smart.workflow.governance.history.recorder.HistoryRecorder.ResponseMetadata;
+
+public final class TokenUsageRollups {
+
+  private TokenUsageRollups() {}
+
+  /**
+   * @return one increment per model of the responses.
+   */
+  public static List<TokenUsageRollup> increments(LocalDate day, String processName, String agentName,
+      String provider, List<ResponseMetadata> responses) {
+    var byModel = new LinkedHashMap<String, TokenUsageRollup>();
+    for (var response : responses) {
+      var model = Objects.toString(response.modelName(), "unknown");
+      byModel.computeIfAbsent(model, _ -> TokenUsageRollup.of(day, processName, agentName, provider, model))
+          .count(response.inputTokens(), response.outputTokens(), response.totalTokens(),
+              response.cachedInputTokens(), response.durationMs());
+    }
+    return List.copyOf(byModel.values());
+  }
+
+  /**
+   * @return the counters of all rollups summed up.
+   */
+  public static TokenUsageRollup total(List<TokenUsageRollup> rollups) {
+    var total = new TokenUsageRollup();
+    rollups.forEach(total::add);
+    return total;
+  }
+
+  /**
+   * @return the counters summed up per group, the group with the most tokens first.
+   */
+  public static Map<String, TokenUsageRollup> groupBy(List<TokenUsageRollup> rollups,
+      Function<TokenUsageRollup, String> group) {
+    return rollups.stream()
+        .collect(Collectors.groupingBy(rollup -> Objects.toString(group.apply(rollup), "")))
+        .entrySet().stream()
+        .map(entry -> Map.entry(entry.getKey(), total(entry.getValue())))
+        .sorted(Comparator.comparingLong((Map.Entry<String, TokenUsageRollup> entry) -> entry.getValue().getTotalTokens())
+            .reversed())
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, _) -> first, LinkedHashMap::new));
+  }
+
+  /**
+   * @return the average response time in milliseconds, or 0 without responses.
+   */
+  public static long averageDurationMs(TokenUsageRollup rollup) {
+    return rollup.getCalls() == 0 ? 0 : rollup.getDurationMsSum() / rollup.getCalls();
+  }
+}
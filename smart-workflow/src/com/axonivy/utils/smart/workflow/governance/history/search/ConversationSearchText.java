@@ -0,0 +1,134 @@
+package com.axonivy.utils.smart.workflow.governance.history.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.GuardrailExecution;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.ToolExecution;
+import com.axonivy.utils.smart.workflow.guardrails.pii.PiiDetector;
+import com.axonivy.utils.smart.workflow.utils.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Derives the text by which the content of a conversation is searched. The text is PII-masked, lowercased and
+ * split into words separated by single spaces, so that the business data repository and
+ * {@link com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter#matches} find the same words.
+ * <p>
+ * Masked values are indexed by their placeholder, e.g. {@code email 1f2e3d4c5b6a}. A search for the value itself
+ * is masked alike, so conversations about a person are found without storing the person's data.
+ */
+public class ConversationSearchText {
+
+  /** The longest search text stored for an entry; later content of very long conversations is not indexed. */
+  static final int MAX_LENGTH = 100_000;
+
+  private static final String SEPARATORS = "[^\\p{L}\\p{N}]+";
+  private static final Set<String> TEXT_FIELDS = Set.of("text", "name", "toolName", "arguments");
+  private static final String SYSTEM_MESSAGE = "SYSTEM";
+
+  private ConversationSearchText() {}
+
+  /**
+   * @return the masked words of the text, separated by single spaces.
+   */
+  public static String normalize(String text) {
+    if (StringUtils.isBlank(text)) {
+      return "";
+    }
+    return String.join(" ", words(PiiDetector.detectAndMask(text).maskedText()));
+  }
+
+  /**
+   * @return the lowercased words of the text, without masking.
+   */
+  public static List<String> words(String text) {
+    if (StringUtils.isBlank(text)) {
+      return List.of();
+    }
+    return Arrays.stream(text.toLowerCase(Locale.ROOT).split(SEPARATORS))
+        .filter(word -> !word.isEmpty())
+        .toList();
+  }
+
+  /**
+   * @return the indexed text followed by the normalized text, cut at {@value #MAX_LENGTH} characters.
+   */
+  public static String append(String indexed, String text) {
+    var normalized = normalize(text);
+    if (normalized.isEmpty()) {
+      return indexed;
+    }
+    var joined = StringUtils.isEmpty(indexed) ? normalized : indexed + " " + normalized;
+    if (joined.length() <= MAX_LENGTH) {
+      return joined;
+    }
+    var cut = joined.substring(0, MAX_LENGTH);
+    return cut.substring(0, Math.max(cut.lastIndexOf(' '), 0)).strip();
+  }
+
+  /**
+   * @return the text, tool requests and tool results of the serialized messages. System messages are left out,
+   * as they repeat the instructions of the agent in every conversation.
+   */
+  public static String ofMessages(String messagesJson) {
+    if (StringUtils.isBlank(messagesJson)) {
+      return "";
+    }
+    try {
+      var text = new StringBuilder();
+      for (var message : JsonUtils.getObjectMapper().readTree(messagesJson)) {
+        if (!SYSTEM_MESSAGE.equals(message.path("type").asText())) {
+          collectText(message, text);
+        }
+      }
+      return text.toString();
+    } catch (JsonProcessingException ex) {
+      Ivy.log().warn("Failed to read the messages of a conversation for the search index", ex);
+      return "";
+    }
+  }
+
+  public static String ofTool(ToolExecution tool) {
+    return join(tool.toolName(), tool.arguments());
+  }
+
+  public static String ofGuardrail(GuardrailExecution guardrail) {
+    return join(guardrail.guardrailName(), guardrail.result(), guardrail.message(), guardrail.failureMessage());
+  }
+
+  /**
+   * @return the facet value of the guardrail execution, e.g. {@code PiiMaskingGuardrail: SUCCESS}.
+   */
+  public static String outcome(GuardrailExecution guardrail) {
+    return guardrail.guardrailName() + ": " + guardrail.result();
+  }
+
+  private static void collectText(JsonNode node, StringBuilder text) {
+    node.fields().forEachRemaining(field -> {
+      var value = field.getValue();
+      if (value.isTextual() && TEXT_FIELDS.contains(field.getKey())) {
+        text.append(value.asText()).append('\n');
+      } else if (value.isContainerNode()) {
+        collectText(value, text);
+      }
+    });
+    if (node.isArray()) {
+      node.forEach(element -> collectText(element, text));
+    }
+  }
+
+  private static String join(String... values) {
+    return Stream.of(values)
+        .filter(StringUtils::isNotBlank)
+        .collect(Collectors.joining("\n"));
+  }
+}
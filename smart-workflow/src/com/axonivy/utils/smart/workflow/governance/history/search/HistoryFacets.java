@@ -0,0 +1,63 @@
+package com.axonivy.utils.smart.workflow.governance.history.search;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+
+/**
+ * Counts the loaded conversations matching a {@link HistoryFilter} per tool, guardrail outcome and model, to
+ * narrow an investigation down. The counts are taken from the stored fields of the entries listed already, so
+ * that counting reads nothing more from the storage; they cover the loaded conversations only, not all that match
+ * the filter, and are shown as such.
+ *
+ * @param tools the number of loaded conversations per tool called, most frequent first.
+ * @param guardrailOutcomes the number of loaded conversations per guardrail outcome, most frequent first.
+ * @param models the number of loaded conversations per model, most frequent first.
+ * @param counted the number of conversations counted.
+ */
+public record HistoryFacets(
+    Map<String, Long> tools,
+    Map<String, Long> guardrailOutcomes,
+    Map<String, Long> models,
+    int counted) {
+
+  public static HistoryFacets empty() {
+    return new HistoryFacets(Map.of(), Map.of(), Map.of(), 0);
+  }
+
+  /**
+   * @param entries the loaded entries matching the filter, e.g. the pages loaded so far.
+   */
+  public static HistoryFacets of(List<AgentConversationEntry> entries) {
+    var tools = new HashMap<String, Long>();
+    var outcomes = new HashMap<String, Long>();
+    var models = new HashMap<String, Long>();
+    for (var entry : entries) {
+      countEach(tools, entry.getToolNames());
+      countEach(outcomes, entry.getGuardrailOutcomes());
+      if (StringUtils.isNotBlank(entry.getModelName())) {
+        models.merge(entry.getModelName(), 1L, Long::sum);
+      }
+    }
+    return new HistoryFacets(byCount(tools), byCount(outcomes), byCount(models), entries.size());
+  }
+
+  private static void countEach(Map<String, Long> counts, Collection<String> values) {
+    values.stream()
+        .distinct()
+        .forEach(value -> counts.merge(value, 1L, Long::sum));
+  }
+
+  private static Map<String, Long> byCount(Map<String, Long> counts) {
+    return counts.entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.<String, Long>comparingByKey()))
+        .collect(LinkedHashMap::new, (sorted, count) -> sorted.put(count.getKey(), count.getValue()), Map::putAll);
+  }
+}
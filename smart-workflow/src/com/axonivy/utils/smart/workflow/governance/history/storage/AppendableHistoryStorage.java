@@ -0,0 +1,18 @@
+package com.axonivy.utils.smart.workflow.governance.history.storage;
+
+import java.util.List;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEvent;
+
+/**
+ * A {@link HistoryStorage} that records events of a conversation without reading and rewriting its entry.
+ */
+public interface AppendableHistoryStorage extends HistoryStorage {
+
+  /**
+   * @param entry the keyed entry of the agent, without content; its metadata and last update are stored.
+   * @param events to add to the conversation, in the order they happened.
+   */
+  void append(AgentConversationEntry entry, List<AgentConversationEvent> events);
+}
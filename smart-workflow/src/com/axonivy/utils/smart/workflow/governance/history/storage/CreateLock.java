@@ -0,0 +1,48 @@
+package com.axonivy.utils.smart.workflow.governance.history.storage;
+
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * A repository lock of a document that may not be stored yet. The lock is a document of its own
+ * ({@code <id>:lock}) without any data, so that the writers that create the same document on different cluster
+ * nodes exclude each other as well.
+ */
+class CreateLock {
+
+  public String id;
+
+  CreateLock(@JsonProperty("id") String id) {
+    this.id = id;
+  }
+
+  /**
+   * Runs the action while holding the lock of the document. The action must re-read the document, as it may
+   * have been stored while waiting for the lock.
+   */
+  static <T> T holding(String documentId, Supplier<T> action) {
+    var lockId = id(documentId);
+    var lock = Ivy.repo().find(lockId, CreateLock.class);
+    if (lock == null) {
+      lock = new CreateLock(lockId);
+      Ivy.repo().save(lock); // carries no data: concurrent saves of it do not overwrite anything
+    }
+    Ivy.repo().lock(lock);
+    try {
+      return action.get();
+    } finally {
+      Ivy.repo().unlock(lock);
+    }
+  }
+
+  static void delete(String documentId) {
+    Ivy.repo().deleteById(id(documentId));
+  }
+
+  private static String id(String documentId) {
+    return documentId + ":lock";
+  }
+}
@@ -0,0 +1,507 @@
+package com.axonivy.utils.smart.workflow.governance.history.storage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.GuardrailExecution;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry.ToolExecution;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEvent;
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEvent.Kind;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+import com.axonivy.utils.smart.workflow.utils.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Stores the history as immutable {@link AgentConversationEvent}s, so that recording an event writes that event
+ * and the small {@link AgentConversationEntry} of the agent, however long the conversation is. The content of
+ * an entry is assembled from its events when it is read.
+ * <p>
+ * Entries written by the {@link IvyRepoHistoryStorage} are still read as they are. They are migrated to events
+ * once they are written by this storage, or by {@link #migrate(AgentConversationEntry)}.
+ * <p>
+ * The events of the entries read together are loaded with a single search, or page by page by their sequence if
+ * there are more. Events are ordered by a sequence that the entry counts up while its repository lock is held,
+ * so that events appended by different cluster nodes keep their order whatever the clocks of the nodes say.
+ * <p>
+ * Saving an entry rewrites its content as events of a new generation. The entry switches to them once they are
+ * written, and the events of the earlier generation are deleted afterwards, so that readers never see a partly
+ * rewritten entry.
+ */
+public class EventLogHistoryStorage extends IvyRepoHistoryStorage implements AppendableHistoryStorage {
+
+  private static final int PAGE_SIZE = 1_000;
+  private static final String SEQUENCE = "sequence";
+  private static final Comparator<AgentConversationEvent> IN_SEQUENCE = Comparator
+      .comparingLong(AgentConversationEvent::getSequence)
+      .thenComparing(AgentConversationEvent::getRecordedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+      .thenComparing(AgentConversationEvent::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  @Override
+  public List<AgentConversationEntry> findAll() {
+    return assembleAll(super.findAll());
+  }
+
+  @Override
+  public List<AgentConversationEntry> findByCaseUuid(String caseUuid) {
+    return assembleAll(super.findByCaseUuid(caseUuid));
+  }
+
+  @Override
+  public List<AgentConversationEntry> findByKey(String caseUuid, String taskUuid, String agentId) {
+    return assembleAll(super.findByKey(caseUuid, taskUuid, agentId));
+  }
+
+  @Override
+  public HistoryPage query(HistoryFilter filter, String cursor, int pageSize) {
+    var page = super.query(filter, cursor, pageSize);
+    return new HistoryPage(assembleAll(page.entries()), page.nextCursor());
+  }
+
+  /**
+   * Appends the events while holding the lock of the entry. An entry not written as events yet is migrated
+   * first; the stored entry then carries the event log flag, so this happens once per entry.
+   */
+  @Override
+  public void append(AgentConversationEntry entry, List<AgentConversationEvent> events) {
+    var stored = Ivy.repo().find(entry.getId(), AgentConversationEntry.class);
+    if (stored == null || !stored.isEventLog()) {
+      migrateExisting(entry);
+    }
+    locked(entry.getId(), current -> append(entry, current, events));
+  }
+
+  private void append(AgentConversationEntry entry, AgentConversationEntry stored, List<AgentConversationEvent> events) {
+    summarize(entry, stored, events);
+    entry.setVersion(stored == null ? 1 : stored.getVersion() + 1);
+    entry.setEventGeneration(stored == null ? 0 : stored.getEventGeneration());
+    writeEvents(entry, nextSequence(stored), events);
+    entry.setEventLog(true);
+    Ivy.repo().save(entry);
+  }
+
+  /**
+   * Replaces the content of the entry with the content of the given one, while holding the lock of the entry.
+   */
+  @Override
+  public void save(AgentConversationEntry entry) {
+    keyed(entry);
+    locked(entry.getId(), stored -> rewrite(entry, stored));
+  }
+
+  @Override
+  protected void store(AgentConversationEntry entry) {
+    keyed(entry);
+    rewrite(entry, Ivy.repo().find(entry.getId(), AgentConversationEntry.class));
+  }
+
+  @Override
+  public void delete(AgentConversationEntry entry) {
+    if (entry.getId() != null) {
+      events(List.of(entry.getId())).getOrDefault(entry.getId(), List.of()).forEach(Ivy.repo()::delete);
+    }
+    super.delete(entry);
+  }
+
+  private static void keyed(AgentConversationEntry entry) {
+    if (entry.getId() == null) {
+      entry.setId(AgentConversationEntry.keyOf(entry.getCaseUuid(), entry.getTaskUuid(), entry.getAgentId()));
+    }
+  }
+
+  /**
+   * Writes the content of the entry as events of a new generation, switches the entry to them and then deletes
+   * the events of the earlier generations. Must hold the lock of the entry.
+   */
+  private static void rewrite(AgentConversationEntry entry, AgentConversationEntry stored) {
+    long generation = stored == null ? 0 : stored.getEventGeneration() + 1;
+    entry.setEventGeneration(generation);
+    writeEvents(entry, nextSequence(stored), toEvents(entry));
+    entry.indexContent();
+    Ivy.repo().save(header(entry));
+    if (stored != null) {
+      events(List.of(entry.getId())).getOrDefault(entry.getId(), List.of()).stream()
+          .filter(event -> event.getGeneration() != generation)
+          .forEach(Ivy.repo()::delete);
+    }
+  }
+
+  /**
+   * Runs the write with the entry as stored, re-read while holding its repository lock, or with null while
+   * holding the {@link CreateLock} of an entry that is not stored yet.
+   */
+  private static void locked(String id, Consumer<AgentConversationEntry> write) {
+    while (true) {
+      var stored = Ivy.repo().find(id, AgentConversationEntry.class);
+      if (stored == null) {
+        boolean created = CreateLock.holding(id, () -> {
+          if (Ivy.repo().find(id, AgentConversationEntry.class) != null) { // stored meanwhile: take its lock
+            return false;
+          }
+          write.accept(null);
+          return true;
+        });
+        if (created) {
+          return;
+        }
+        continue;
+      }
+      Ivy.repo().lock(stored);
+      try {
+        write.accept(Ivy.repo().find(id, AgentConversationEntry.class)); // re-read under the lock
+        return;
+      } finally {
+        Ivy.repo().unlock(stored);
+      }
+    }
+  }
+
+  /**
+   * Moves the content of an entry written by the {@link IvyRepoHistoryStorage} to events.
+   */
+  public void migrate(AgentConversationEntry entry) {
+    if (entry.isEventLog()) {
+      return;
+    }
+    if (entry.getId() == null) {
+      super.delete(entry); // stored before entries were keyed; saved again under its key
+    }
+    if (entry.getModelName() == null) {
+      entry.summarizeTokenUsage();
+    }
+    if (entry.getMessageCount() == 0) {
+      entry.countMessages();
+    }
+    save(entry);
+  }
+
+  @Override
+  protected void saveIndexed(AgentConversationEntry entry) {
+    if (!entry.isEventLog()) {
+      super.saveIndexed(entry);
+      return;
+    }
+    locked(entry.getId(), stored -> {
+      if (stored != null) {
+        assemble(stored).indexContent();
+        Ivy.repo().save(header(stored));
+      }
+    });
+  }
+
+  /**
+   * Carries the query and search fields of the stored entry over to the new one, with the tokens and content
+   * of the new events.
+   */
+  private void summarize(AgentConversationEntry entry, AgentConversationEntry stored,
+      List<AgentConversationEvent> events) {
+    entry.setSearchIndexVersion(AgentConversationEntry.SEARCH_INDEX_VERSION);
+    if (stored != null) {
+      if (stored.getSearchIndexVersion() != AgentConversationEntry.SEARCH_INDEX_VERSION) {
+        assemble(stored).indexContent(); // the events written so far; the new ones are added below
+      }
+      entry.setContentSearchText(stored.getContentSearchText());
+      entry.setToolNames(stored.getToolNames());
+      entry.setGuardrailOutcomes(stored.getGuardrailOutcomes());
+      entry.setTotalTokens(stored.getTotalTokens());
+      entry.setModelName(stored.getModelName());
+      if (entry.getMessageCount() == 0) {
+        entry.setMessageCount(stored.getMessageCount());
+      }
+      if (entry.getCaseSearchText() == null) {
+        entry.setCaseId(stored.getCaseId());
+        entry.setCaseName(stored.getCaseName());
+        entry.setCaseSearchText(stored.getCaseSearchText());
+      }
+    }
+    var mapper = JsonUtils.getObjectMapper();
+    for (var event : events) {
+      try {
+        switch (event.getKind()) {
+          case MESSAGES -> entry.indexMessages(event.getJson());
+          case TOOL -> entry.indexTool(mapper.readValue(event.getJson(), ToolExecution.class));
+          case GUARDRAIL -> entry.indexGuardrail(mapper.readValue(event.getJson(), GuardrailExecution.class));
+          case RESPONSE -> {
+            var response = mapper.readTree(event.getJson());
+            entry.setTotalTokens(entry.getTotalTokens() + response.path("totalTokens").asLong(0));
+            if (entry.getModelName() == null && response.hasNonNull("modelName")) {
+              entry.setModelName(response.get("modelName").asText());
+            }
+          }
+        }
+      } catch (JsonProcessingException ex) {
+        Ivy.log().warn("Failed to read the " + event.getKind() + " history event of an agent", ex);
+      }
+    }
+    if (rewritesMessages(stored, events)) {
+      reindex(entry, stored, events);
+    }
+  }
+
+  /**
+   * @return true if the events replace messages that are indexed already, e.g. when a new recorder logs the
+   * conversation from its start; appending them to the search text would index those messages twice.
+   */
+  private static boolean rewritesMessages(AgentConversationEntry stored, List<AgentConversationEvent> events) {
+    return stored != null && events.stream()
+        .anyMatch(event -> event.getKind() == Kind.MESSAGES && event.getFrom() < stored.getMessageCount());
+  }
+
+  /**
+   * Replaces the search fields of the entry with those of the merged conversation: the stored events followed
+   * by the new ones.
+   */
+  private static void reindex(AgentConversationEntry entry, AgentConversationEntry stored,
+      List<AgentConversationEvent> events) {
+    var all = new ArrayList<>(events(stored));
+    all.addAll(events);
+    var merged = new AgentConversationEntry();
+    merged.setEventLog(true);
+    assemble(merged, all);
+    merged.indexContent();
+    entry.setContentSearchText(merged.getContentSearchText());
+    entry.setToolNames(merged.getToolNames());
+    entry.setGuardrailOutcomes(merged.getGuardrailOutcomes());
+  }
+
+  private void migrateExisting(AgentConversationEntry entry) {
+    var existing = super.findByKey(entry.getCaseUuid(), entry.getTaskUuid(), entry.getAgentId());
+    var latest = existing.stream()
+        .max(Comparator.comparing(AgentConversationEntry::getLastUpdated, Comparator.nullsLast(Comparator.naturalOrder())));
+    existing.stream()
+        .filter(stale -> stale != latest.orElseThrow())
+        .forEach(super::delete);
+    latest.ifPresent(this::migrate);
+  }
+
+  private AgentConversationEntry assemble(AgentConversationEntry entry) {
+    return assembleAll(List.of(entry)).get(0);
+  }
+
+  private List<AgentConversationEntry> assembleAll(List<AgentConversationEntry> entries) {
+    var events = events(entries.stream()
+        .filter(AgentConversationEntry::isEventLog)
+        .map(AgentConversationEntry::getId)
+        .toList());
+    entries.forEach(entry -> assemble(entry, ofGeneration(entry, events.getOrDefault(entry.getId(), List.of()))));
+    return entries;
+  }
+
+  private static List<AgentConversationEvent> ofGeneration(AgentConversationEntry entry,
+      List<AgentConversationEvent> events) {
+    return events.stream()
+        .filter(event -> event.getGeneration() == entry.getEventGeneration())
+        .toList();
+  }
+
+  private static void assemble(AgentConversationEntry entry, List<AgentConversationEvent> events) {
+    if (!entry.isEventLog()) {
+      return;
+    }
+    var mapper = JsonUtils.getObjectMapper();
+    var messages = mapper.createArrayNode();
+    var responses = mapper.createArrayNode();
+    var tools = mapper.createArrayNode();
+    var guardrails = mapper.createArrayNode();
+    for (var event : events) {
+      try {
+        var json = mapper.readTree(event.getJson());
+        switch (event.getKind()) {
+          case MESSAGES -> {
+            while (messages.size() > event.getFrom()) {
+              messages.remove(messages.size() - 1);
+            }
+            messages.addAll((ArrayNode) json);
+          }
+          case RESPONSE -> responses.add(json);
+          case TOOL -> tools.add(json);
+          case GUARDRAIL -> guardrails.add(json);
+        }
+      } catch (JsonProcessingException | ClassCastException ex) {
+        Ivy.log().warn("Skipping unreadable history event " + event.getId(), ex);
+      }
+    }
+    entry.setMessagesJson(messages.isEmpty() ? null : messages.toString());
+    entry.setTokenUsageJson(responses.isEmpty() ? null : responses.toString());
+    entry.setToolExecutionsJson(tools.toString());
+    entry.setGuardrailExecutionsJson(guardrails.toString());
+  }
+
+  /**
+   * @return the events of the current generation of the entry, in sequence.
+   */
+  private static List<AgentConversationEvent> events(AgentConversationEntry entry) {
+    return ofGeneration(entry, events(List.of(entry.getId())).getOrDefault(entry.getId(), List.of()));
+  }
+
+  /**
+   * @return the events of all generations of the entries by entry id, in sequence. They are read with a single
+   * search; if the entries have more than {@value #PAGE_SIZE} events together, the events of each entry are read
+   * page by page.
+   */
+  private static Map<String, List<AgentConversationEvent>> events(Collection<String> entryIds) {
+    var ids = new LinkedHashSet<>(entryIds);
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    var found = search(ids);
+    if (found.size() >= PAGE_SIZE) {
+      found = ids.stream().flatMap(id -> pages(id).stream()).toList();
+    }
+    return found.stream()
+        .filter(event -> ids.contains(event.getEntryId()))
+        .sorted(IN_SEQUENCE)
+        .collect(Collectors.groupingBy(AgentConversationEvent::getEntryId, Collectors.toList()));
+  }
+
+  private static List<AgentConversationEvent> search(Collection<String> entryIds) {
+    var remaining = entryIds.iterator();
+    var query = Ivy.repo().search(AgentConversationEvent.class)
+        .textField("entryId").isEqualToIgnoringCase(remaining.next());
+    while (remaining.hasNext()) {
+      query = query.or().textField("entryId").isEqualToIgnoringCase(remaining.next());
+    }
+    return query.limit(PAGE_SIZE).execute().getAll();
+  }
+
+  /**
+   * @return the events of the entry, read page by page in sequence. A page ends within the events of its last
+   * sequence; those are read completely before the next page starts after them.
+   */
+  private static List<AgentConversationEvent> pages(String entryId) {
+    var events = new ArrayList<AgentConversationEvent>();
+    long from = Long.MIN_VALUE;
+    while (true) {
+      var page = Ivy.repo().search(AgentConversationEvent.class)
+          .textField("entryId").isEqualToIgnoringCase(entryId)
+          .and().numberField(SEQUENCE).isGreaterOrEqualThan(from)
+          .orderBy().field(SEQUENCE).ascending()
+          .limit(PAGE_SIZE)
+          .execute().getAll();
+      if (page.size() < PAGE_SIZE) {
+        events.addAll(page);
+        return events;
+      }
+      long last = page.getLast().getSequence();
+      page.stream().filter(event -> event.getSequence() < last).forEach(events::add);
+      events.addAll(withSequence(entryId, last));
+      from = last + 1;
+    }
+  }
+
+  /**
+   * @return all events of the entry with the given sequence. Events appended under the lock of the entry have
+   * a sequence of their own; events of earlier versions may share one.
+   */
+  private static List<AgentConversationEvent> withSequence(String entryId, long sequence) {
+    var events = new ArrayList<AgentConversationEvent>();
+    List<AgentConversationEvent> page;
+    do {
+      page = Ivy.repo().search(AgentConversationEvent.class)
+          .textField("entryId").isEqualToIgnoringCase(entryId)
+          .and().numberField(SEQUENCE).isEqualTo(sequence)
+          .limit(events.size(), PAGE_SIZE)
+          .execute().getAll();
+      events.addAll(page);
+    } while (page.size() == PAGE_SIZE);
+    return events;
+  }
+
+  /**
+   * Writes the events numbered from the given sequence on, and counts the sequence of the entry up.
+   */
+  private static void writeEvents(AgentConversationEntry entry, long sequence, List<AgentConversationEvent> events) {
+    var now = LocalDateTime.now().toString();
+    for (var event : events) {
+      event.setId(entry.getId() + ":" + UUID.randomUUID());
+      event.setEntryId(entry.getId());
+      event.setCaseUuid(entry.getCaseUuid());
+      event.setSequence(sequence++);
+      event.setGeneration(entry.getEventGeneration());
+      event.setRecordedAt(now);
+      Ivy.repo().save(event);
+    }
+    entry.setNextEventSequence(sequence);
+  }
+
+  /**
+   * @return the sequence of the next event of the stored entry, also after a rewrite, so that the events of all
+   * generations have a sequence of their own. Events written by earlier versions are numbered by their time;
+   * the events appended to them continue after the last one.
+   */
+  private static long nextSequence(AgentConversationEntry stored) {
+    if (stored == null || !stored.isEventLog()) {
+      return 0;
+    }
+    if (stored.getNextEventSequence() > 0) {
+      return stored.getNextEventSequence();
+    }
+    return events(List.of(stored.getId())).getOrDefault(stored.getId(), List.of()).stream()
+        .mapToLong(AgentConversationEvent::getSequence)
+        .max()
+        .orElse(-1) + 1;
+  }
+
+  private static List<AgentConversationEvent> toEvents(AgentConversationEntry entry) {
+    var events = new ArrayList<AgentConversationEvent>();
+    if (StringUtils.isNotBlank(entry.getMessagesJson())) {
+      events.add(AgentConversationEvent.messages(0, entry.getMessagesJson()));
+    }
+    addEach(events, Kind.RESPONSE, entry.getTokenUsageJson());
+    addEach(events, Kind.TOOL, entry.getToolExecutionsJson());
+    addEach(events, Kind.GUARDRAIL, entry.getGuardrailExecutionsJson());
+    return events;
+  }
+
+  private static void addEach(List<AgentConversationEvent> events, Kind kind, String arrayJson) {
+    if (StringUtils.isBlank(arrayJson)) {
+      return;
+    }
+    try {
+      JsonUtils.getObjectMapper().readTree(arrayJson)
+          .forEach(element -> events.add(AgentConversationEvent.of(kind, element.toString())));
+    } catch (JsonProcessingException ex) {
+      Ivy.log().warn("Failed to migrate " + kind + " history of an agent conversation", ex);
+    }
+  }
+
+  private static AgentConversationEntry header(AgentConversationEntry entry) {
+    var header = new AgentConversationEntry();
+    header.setId(entry.getId());
+    header.setVersion(entry.getVersion());
+    header.setCaseUuid(entry.getCaseUuid());
+    header.setTaskUuid(entry.getTaskUuid());
+    header.setAgentId(entry.getAgentId());
+    header.setAgentName(entry.getAgentName());
+    header.setProcessName(entry.getProcessName());
+    header.setLastUpdated(entry.getLastUpdated());
+    header.setCaseId(entry.getCaseId());
+    header.setCaseName(entry.getCaseName());
+    header.setCaseSearchText(entry.getCaseSearchText());
+    header.setModelName(entry.getModelName());
+    header.setTotalTokens(entry.getTotalTokens());
+    header.setMessageCount(entry.getMessageCount());
+    header.setContentSearchText(entry.getContentSearchText());
+    header.setToolNames(entry.getToolNames());
+    header.setGuardrailOutcomes(entry.getGuardrailOutcomes());
+    header.setSearchIndexVersion(entry.getSearchIndexVersion());
+    header.setCompacted(entry.isCompacted());
+    header.setEventLog(true);
+    header.setNextEventSequence(entry.getNextEventSequence());
+    header.setEventGeneration(entry.getEventGeneration());
+    return header;
+  }
+}
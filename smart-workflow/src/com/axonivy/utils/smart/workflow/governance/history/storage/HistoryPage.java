@@ -0,0 +1,78 @@
+package com.axonivy.utils.smart.workflow.governance.history.storage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+
+/**
+ * A page of history entries, newest first; entries updated in the same millisecond are ordered by their id,
+ * descending.
+ *
+ * @param nextCursor to pass to {@link HistoryStorage#query} for the next page; null on the last page.
+ */
+public record HistoryPage(List<AgentConversationEntry> entries, String nextCursor) {
+
+  /** The order of the entries of a page. */
+  static final Comparator<AgentConversationEntry> NEWEST_FIRST = Comparator
+      .comparingLong(AgentConversationEntry::getLastUpdatedMillis)
+      .thenComparing(Cursor::idOf)
+      .reversed();
+
+  /**
+   * @param fetched up to one entry more than the page size, to tell whether there is a next page.
+   */
+  static HistoryPage of(List<AgentConversationEntry> fetched, int pageSize) {
+    if (fetched.size() <= pageSize) {
+      return new HistoryPage(fetched, null);
+    }
+    var entries = fetched.subList(0, pageSize);
+    return new HistoryPage(entries, Cursor.after(entries.getLast()).toString());
+  }
+
+  public boolean hasMore() {
+    return nextCursor != null;
+  }
+
+  /**
+   * The position after the last entry of a page: its last update and id, so that entries updated in the same
+   * millisecond are neither repeated nor left out on the next page.
+   */
+  record Cursor(long lastUpdatedMillis, String id) {
+
+    static Cursor after(AgentConversationEntry entry) {
+      return new Cursor(entry.getLastUpdatedMillis(), idOf(entry));
+    }
+
+    /**
+     * @return the cursor, or null for the first page.
+     */
+    static Cursor parse(String cursor) {
+      if (cursor == null) {
+        return null;
+      }
+      return new Cursor(Long.parseLong(StringUtils.substringBefore(cursor, ":")),
+          StringUtils.substringAfter(cursor, ":"));
+    }
+
+    /**
+     * @return true if the entry comes after the cursor, i.e. belongs to a later page.
+     */
+    boolean isBefore(AgentConversationEntry entry) {
+      return entry.getLastUpdatedMillis() < lastUpdatedMillis
+          || entry.getLastUpdatedMillis() == lastUpdatedMillis && idOf(entry).compareTo(id) < 0;
+    }
+
+    private static String idOf(AgentConversationEntry entry) {
+      return Objects.toString(entry.getId(), "");
+    }
+
+    @Override
+    public String toString() {
+      return lastUpdatedMillis + ":" + id;
+    }
+  }
+}
@@ -3,13 +3,73 @@ package com.axonivy.utils.smart.workflow.governance.history.storage;
 import java.util.List;
 
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
 
 public interface HistoryStorage {
   List<AgentConversationEntry> findAll();
 
   List<AgentConversationEntry> findByCaseUuid(String caseUuid);
 
+  /**
+   * @return the entries of an agent within a task; more than one only if earlier versions stored duplicates.
+   */
+  default List<AgentConversationEntry> findByKey(String caseUuid, String taskUuid, String agentId) {
+    return findByCaseUuid(caseUuid).stream()
+        .filter(entry -> taskUuid.equalsIgnoreCase(entry.getTaskUuid())
+            && agentId.equalsIgnoreCase(entry.getAgentId()))
+        .toList();
+  }
+
+  /**
+   * @param cursor of the previous page, or null for the first page.
+   * @return the newest entries matching the filter that come after the cursor. The cursor is the last update and
+   * id of the last entry of the previous page.
+   */
+  default HistoryPage query(HistoryFilter filter, String cursor, int pageSize) {
+    return page(findAll(), filter, cursor, pageSize);
+  }
+
+  /**
+   * @return the entries of the page, possibly without their messages, tool and guardrail executions, for listings
+   * that show only the fields of the entry. Such entries must not be saved.
+   */
+  default HistoryPage queryHeaders(HistoryFilter filter, String cursor, int pageSize) {
+    return query(filter, cursor, pageSize);
+  }
+
+  /**
+   * @return the entries of the case like {@link #queryHeaders}, so that a case with many tasks and agents is
+   * listed page by page.
+   */
+  default HistoryPage queryCaseHeaders(String caseUuid, HistoryFilter filter, String cursor, int pageSize) {
+    return page(findByCaseUuid(caseUuid), filter, cursor, pageSize);
+  }
+
+  private static HistoryPage page(List<AgentConversationEntry> entries, HistoryFilter filter, String cursor,
+      int pageSize) {
+    var after = HistoryPage.Cursor.parse(cursor);
+    var matching = entries.stream()
+        .filter(filter::matches)
+        .filter(entry -> after == null || after.isBefore(entry))
+        .sorted(HistoryPage.NEWEST_FIRST)
+        .limit(pageSize + 1L)
+        .toList();
+    return HistoryPage.of(matching, pageSize);
+  }
+
   void save(AgentConversationEntry entry);
 
+  /**
+   * Saves the entry, unless it was changed by someone else since it was read. Storages that cannot check this
+   * atomically, like this default, save the entry anyway: the last writer wins.
+   *
+   * @return false if the entry was not saved because of a concurrent modification.
+   */
+  default boolean update(AgentConversationEntry entry) {
+    entry.setVersion(entry.getVersion() + 1);
+    save(entry);
+    return true;
+  }
+
   void delete(AgentConversationEntry entry);
 }
@@ -1,13 +1,24 @@
 package com.axonivy.utils.smart.workflow.governance.history.storage;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.governance.history.entity.AgentConversationEntry;
+import com.axonivy.utils.smart.workflow.governance.history.filter.HistoryFilter;
+
 import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.security.exec.Sudo;
 
 public class IvyRepoHistoryStorage implements HistoryStorage {
 
   private static final int MAX_QUERY_RESULTS = 100;
+  private static final String LAST_UPDATED = "lastUpdatedMillis";
+  private static final String CONTENT_SEARCH_TEXT = "contentSearchText";
+  private static final String SEARCH_INDEX_VERSION = "searchIndexVersion";
 
   @Override
   public List<AgentConversationEntry> findAll() {
@@ -21,13 +32,256 @@ public class IvyRepoHistoryStorage implements HistoryStorage {
         .execute().getAll();
   }
 
+  @Override
+  public List<AgentConversationEntry> findByKey(String caseUuid, String taskUuid, String agentId) {
+    var keyed = Ivy.repo().find(AgentConversationEntry.keyOf(caseUuid, taskUuid, agentId), AgentConversationEntry.class);
+    if (keyed != null) {
+      return List.of(keyed);
+    }
+    return Ivy.repo().search(AgentConversationEntry.class) // entries stored before they were keyed
+        .textField("caseUuid").isEqualToIgnoringCase(caseUuid)
+        .and().textField("taskUuid").isEqualToIgnoringCase(taskUuid)
+        .and().textField("agentId").isEqualToIgnoringCase(agentId)
+        .limit(MAX_QUERY_RESULTS)
+        .execute().getAll();
+  }
+
+  /**
+   * Filters, sorts and pages in the business data repository, by the fields that the entry stores for this
+   * purpose. Entries recorded before these fields existed are found after {@link #reindex()}.
+   * <p>
+   * The repository sorts by the last update only. Entries updated in the same millisecond as the cursor or as
+   * the last entry of the page are therefore all read together, {@value #MAX_QUERY_RESULTS} at a time, and
+   * ordered by their id.
+   */
+  @Override
+  public HistoryPage query(HistoryFilter filter, String cursor, int pageSize) {
+    return query(null, filter, cursor, pageSize);
+  }
+
+  /**
+   * The repository reads whole documents, so the content of the entries is read and then dropped here; entries
+   * that keep their content elsewhere, like those of the {@link EventLogHistoryStorage}, are read without it.
+   */
+  @Override
+  public HistoryPage queryHeaders(HistoryFilter filter, String cursor, int pageSize) {
+    return withoutContent(query(null, filter, cursor, pageSize));
+  }
+
+  @Override
+  public HistoryPage queryCaseHeaders(String caseUuid, HistoryFilter filter, String cursor, int pageSize) {
+    return withoutContent(query(caseUuid, filter, cursor, pageSize));
+  }
+
+  private static HistoryPage withoutContent(HistoryPage page) {
+    page.entries().forEach(AgentConversationEntry::stripContent);
+    return page;
+  }
+
+  /**
+   * @param caseUuid the case of the entries, or null for entries of all cases.
+   */
+  private HistoryPage query(String caseUuid, HistoryFilter filter, String cursor, int pageSize) {
+    var after = HistoryPage.Cursor.parse(cursor);
+    long before = filter.toMillis();
+    var fetched = new ArrayList<AgentConversationEntry>();
+    if (after != null) {
+      if (after.lastUpdatedMillis() < before) {
+        sameMillis(caseUuid, filter, after.lastUpdatedMillis()).stream()
+            .filter(after::isBefore)
+            .forEach(fetched::add);
+      }
+      before = Math.min(before, after.lastUpdatedMillis());
+    }
+    if (fetched.size() <= pageSize) {
+      int limit = pageSize + 1 - fetched.size();
+      var older = search(caseUuid, filter, filter.fromMillis(), before, limit);
+      if (older.size() == limit) { // the entries of the last millisecond may be cut anywhere
+        long last = older.getLast().getLastUpdatedMillis();
+        older.stream().filter(entry -> entry.getLastUpdatedMillis() > last).forEach(fetched::add);
+        fetched.addAll(sameMillis(caseUuid, filter, last));
+      } else {
+        fetched.addAll(older);
+      }
+    }
+    return HistoryPage.of(fetched, pageSize);
+  }
+
+  private List<AgentConversationEntry> sameMillis(String caseUuid, HistoryFilter filter, long millis) {
+    if (millis < filter.fromMillis()) {
+      return List.of();
+    }
+    var entries = new ArrayList<AgentConversationEntry>();
+    List<AgentConversationEntry> page;
+    do {
+      page = search(caseUuid, filter, millis, millis + 1, entries.size(), MAX_QUERY_RESULTS);
+      entries.addAll(page);
+    } while (page.size() == MAX_QUERY_RESULTS);
+    entries.sort(HistoryPage.NEWEST_FIRST);
+    return entries;
+  }
+
+  private List<AgentConversationEntry> search(String caseUuid, HistoryFilter filter, long from, long before,
+      int limit) {
+    return search(caseUuid, filter, from, before, 0, limit);
+  }
+
+  private List<AgentConversationEntry> search(String caseUuid, HistoryFilter filter, long from, long before,
+      int offset, int limit) {
+    var query = Ivy.repo().search(AgentConversationEntry.class)
+        .numberField(LAST_UPDATED).isLessThan(before)
+        .and().numberField(LAST_UPDATED).isGreaterOrEqualThan(from);
+    if (caseUuid != null) {
+      query = query.and().textField("caseUuid").isEqualToIgnoringCase(caseUuid);
+    }
+    var words = filter.caseSearchWords();
+    if (!words.isEmpty()) {
+      var patterns = words.stream().map(word -> "*" + word + "*").collect(Collectors.joining(" "));
+      query = query.and().textField("caseSearchText").containsAllWordPatterns(patterns);
+    }
+    if (StringUtils.isNotBlank(filter.taskUuid())) {
+      query = query.and().textField("taskUuid").isEqualToIgnoringCase(filter.taskUuid());
+    }
+    if (StringUtils.isNotBlank(filter.modelName())) {
+      query = query.and().textField("modelName").containsPhrase(filter.modelName());
+    }
+    var contentWords = filter.contentSearchWords();
+    if (!contentWords.isEmpty()) {
+      query = query.and().textField(CONTENT_SEARCH_TEXT).containsAllWords(String.join(" ", contentWords));
+    }
+    for (var phrase : filter.contentSearchPhrases()) {
+      query = query.and().textField(CONTENT_SEARCH_TEXT).containsPhrase(phrase);
+    }
+    if (StringUtils.isNotBlank(filter.toolName())) {
+      query = query.and().textField("toolNames").isEqualToIgnoringCase(filter.toolName());
+    }
+    if (StringUtils.isNotBlank(filter.guardrailOutcome())) {
+      query = query.and().textField("guardrailOutcomes").isEqualToIgnoringCase(filter.guardrailOutcome());
+    }
+    return query.orderBy().field(LAST_UPDATED).descending()
+        .limit(offset, limit)
+        .execute().getAll();
+  }
+
+  /**
+   * Stores the query and search fields of entries recorded before they existed.
+   *
+   * @return the number of entries updated.
+   */
+  public int reindex() {
+    return reindexQueryFields() + reindexContent();
+  }
+
+  private int reindexQueryFields() {
+    int updated = 0;
+    List<AgentConversationEntry> batch;
+    do {
+      batch = Ivy.repo().search(AgentConversationEntry.class)
+          .numberField(LAST_UPDATED).isNull()
+          .limit(MAX_QUERY_RESULTS)
+          .execute().getAll();
+      for (var entry : batch) {
+        entry.setLastUpdated(StringUtils.defaultIfBlank(entry.getLastUpdated(), LocalDateTime.now().toString()));
+        entry.summarizeTokenUsage();
+        entry.countMessages();
+        entry.indexContent();
+        describeCase(entry);
+        Ivy.repo().save(entry);
+      }
+      updated += batch.size();
+    } while (batch.size() == MAX_QUERY_RESULTS);
+    return updated;
+  }
+
+  private int reindexContent() {
+    int updated = 0;
+    List<AgentConversationEntry> batch;
+    do {
+      batch = Ivy.repo().search(AgentConversationEntry.class)
+          .numberField(SEARCH_INDEX_VERSION).isNull()
+          .limit(MAX_QUERY_RESULTS)
+          .execute().getAll();
+      batch.forEach(this::saveIndexed);
+      updated += batch.size();
+    } while (batch.size() == MAX_QUERY_RESULTS);
+    return updated;
+  }
+
+  /**
+   * Derives the search fields of a stored entry from its content and saves them.
+   */
+  protected void saveIndexed(AgentConversationEntry entry) {
+    entry.indexContent();
+    Ivy.repo().save(entry);
+  }
+
+  private static void describeCase(AgentConversationEntry entry) {
+    try {
+      var ivyCase = Sudo.get(() -> Ivy.wf().findCase(entry.getCaseUuid()));
+      if (ivyCase != null) {
+        entry.describeCase(String.valueOf(ivyCase.getId()), ivyCase.getName(), ivyCase.getDescription());
+      }
+    } catch (Exception ex) {
+      Ivy.log().debug("No case found for history entry of case " + entry.getCaseUuid(), ex);
+    }
+  }
+
   @Override
   public void save(AgentConversationEntry entry) {
+    store(entry);
+  }
+
+  /**
+   * Writes the entry. {@link #update(AgentConversationEntry)} calls this while it holds the lock of the entry.
+   */
+  protected void store(AgentConversationEntry entry) {
     Ivy.repo().save(entry);
   }
 
+  /**
+   * Checks the version and saves the entry while holding the repository lock of the stored entry, so that no
+   * other writer of this or another cluster node saves it in between. An entry that is not stored yet is created
+   * while holding its {@link CreateLock}; if another writer created it meanwhile, the update is rejected, so that
+   * the caller applies its change again to the stored entry.
+   */
+  @Override
+  public boolean update(AgentConversationEntry entry) {
+    long expected = entry.getVersion();
+    if (entry.getId() == null) { // not keyed: no other writer can create the same entry
+      entry.setVersion(expected + 1);
+      store(entry);
+      return true;
+    }
+    var stored = Ivy.repo().find(entry.getId(), AgentConversationEntry.class);
+    if (stored == null) {
+      return CreateLock.holding(entry.getId(), () -> {
+        if (Ivy.repo().find(entry.getId(), AgentConversationEntry.class) != null) { // re-read under the lock
+          return false;
+        }
+        entry.setVersion(expected + 1);
+        store(entry);
+        return true;
+      });
+    }
+    Ivy.repo().lock(stored);
+    try {
+      var current = Ivy.repo().find(entry.getId(), AgentConversationEntry.class); // re-read under the lock
+      if (current != null && current.getVersion() != expected) {
+        return false;
+      }
+      entry.setVersion(expected + 1);
+      store(entry);
+      return true;
+    } finally {
+      Ivy.repo().unlock(stored);
+    }
+  }
+
   @Override
   public void delete(AgentConversationEntry entry) {
     Ivy.repo().delete(entry);
+    if (entry.getId() != null) {
+      CreateLock.delete(entry.getId());
+    }
   }
 }
@@ -0,0 +1,65 @@
+package com.axonivy.utils.smart.workflow.governance.history.storage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.TokenUsageRollup;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Stores rollups as business data. A stored rollup is updated while holding its repository lock, so that
+ * updates of different rollups run in parallel and updates of the same rollup by other requests or cluster
+ * nodes are not lost. A new rollup is created while holding its {@link CreateLock}, so that a rollup created by
+ * another cluster node in the same moment gets the increment added instead of being overwritten.
+ */
+public class IvyRepoRollupStorage implements RollupStorage {
+
+  private static final int MAX_QUERY_RESULTS = 10_000;
+
+  @Override
+  public void add(List<TokenUsageRollup> increments) {
+    for (var increment : increments) {
+      var stored = Ivy.repo().find(increment.getId(), TokenUsageRollup.class);
+      if (stored == null) {
+        stored = create(increment);
+      }
+      if (stored != null) {
+        addLocked(stored, increment);
+      }
+    }
+  }
+
+  /**
+   * @return the rollup stored meanwhile, to add the increment to; null if the increment was stored as new rollup.
+   */
+  private static TokenUsageRollup create(TokenUsageRollup increment) {
+    return CreateLock.holding(increment.getId(), () -> {
+      var stored = Ivy.repo().find(increment.getId(), TokenUsageRollup.class); // re-read under the lock
+      if (stored == null) {
+        Ivy.repo().save(increment);
+      }
+      return stored;
+    });
+  }
+
+  private static void addLocked(TokenUsageRollup locked, TokenUsageRollup increment) {
+    Ivy.repo().lock(locked);
+    try {
+      var stored = Ivy.repo().find(increment.getId(), TokenUsageRollup.class); // re-read under the lock
+      stored.add(increment);
+      Ivy.repo().save(stored);
+    } finally {
+      Ivy.repo().unlock(locked);
+    }
+  }
+
+  @Override
+  public List<TokenUsageRollup> find(LocalDate from, LocalDate to) {
+    return Ivy.repo().search(TokenUsageRollup.class)
+        .numberField("epochDay").isGreaterOrEqualThan(from.toEpochDay())
+        .and().numberField("epochDay").isLessOrEqualThan(to.toEpochDay())
+        .limit(MAX_QUERY_RESULTS)
+        .execute().getAll();
+  }
+}
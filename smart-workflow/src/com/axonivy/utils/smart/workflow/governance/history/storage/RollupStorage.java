@@ -0,0 +1,19 @@
+package com.axonivy.utils.smart.workflow.governance.history.storage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.axonivy.utils.smart.workflow.governance.history.entity.TokenUsageRollup;
+
+public interface RollupStorage {
+
+  /**
+   * Adds the counters of the increments to the stored rollups with the same id, or stores them as new rollups.
+   */
+  void add(List<TokenUsageRollup> increments);
+
+  /**
+   * @return the rollups of the days from and to, inclusive.
+   */
+  List<TokenUsageRollup> find(LocalDate from, LocalDate to);
+}
@@ -15,8 +15,7 @@ import com.axonivy.utils.smart.workflow.guardrails.adapter.InputGuardrailAdapter
 import com.axonivy.utils.smart.workflow.guardrails.adapter.OutputGuardrailAdapter;
 import com.axonivy.utils.smart.workflow.guardrails.entity.SmartWorkflowGuardrail;
 import com.axonivy.utils.smart.workflow.guardrails.provider.GuardrailProvider;
-import com.axonivy.utils.smart.workflow.spi.internal.SpiLoader;
-import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiRegistry;
 
 import ch.ivyteam.ivy.environment.Ivy;
 
@@ -25,8 +24,7 @@ public class GuardrailCollector {
   public static final String DEFAULT_OUTPUT_GUARDRAILS = "AI.Guardrails.DefaultOutput";
 
   public static Set<GuardrailProvider> allProviders() {
-    var pmv = SpiProject.getSmartWorkflowPmv();
-    return new SpiLoader(pmv).load(GuardrailProvider.class);
+    return SpiRegistry.load(GuardrailProvider.class);
   }
 
   public static List<String> allInputGuardrailNames() {
@@ -3,6 +3,7 @@ package com.axonivy.utils.smart.workflow.guardrails.input;
 import com.axonivy.utils.smart.workflow.guardrails.entity.GuardrailResult;
 import com.axonivy.utils.smart.workflow.guardrails.entity.SmartWorkflowInputGuardrail;
 import com.axonivy.utils.smart.workflow.model.ChatModelFactory;
+import com.axonivy.utils.smart.workflow.model.ChatModelPool;
 import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider.ModelOptions;
 import com.axonivy.utils.smart.workflow.observability.AiListeners;
 import com.axonivy.utils.smart.workflow.observability.AiListeners.AiProvider;
@@ -189,7 +190,7 @@ public class AiPromptInjectionInputGuardrail implements SmartWorkflowInputGuardr
 
   private GuardrailResult runClassifier(String message, String providerName, String modelName) {
     var provider = ChatModelFactory.getProviderOrDefault(providerName);
-    var model = provider.setup(ModelOptions.options().modelName(modelName));
+    var model = ChatModelPool.get(provider, ModelOptions.options().modelName(modelName));
     var resolvedModelName = model.defaultRequestParameters().modelName();
     var systemPrompt = resolveSystemPrompt();
     var builder = AiServices.builder(InjectionClassifier.class)
@@ -1,7 +1,9 @@
 package com.axonivy.utils.smart.workflow.guardrails.pii;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import com.axonivy.utils.smart.workflow.guardrails.entity.GuardrailResult;
 import com.axonivy.utils.smart.workflow.guardrails.entity.SmartWorkflowInputGuardrail;
@@ -15,10 +17,24 @@ import com.axonivy.utils.smart.workflow.guardrails.pii.PiiDetector.MaskingResult
  * <p>Phase detection is explicit: the input phase stores a placeholder→original
  * mapping keyed by {@code invocationId}; the output phase looks up that mapping
  * and removes it after restoring, preventing stale PII retention across calls.
+ *
+ * <p>Instances are shared by concurrent agent calls. Mappings of invocations that never
+ * reach the output phase (e.g. a failing LLM call) are evicted once more than
+ * {@value #MAX_PENDING_INVOCATIONS} invocations are pending.
  */
 public class PiiMaskingGuardrail implements SmartWorkflowInputGuardrail, SmartWorkflowOutputGuardrail {
 
-  private final Map<String, Map<String, String>> inputMappings = new HashMap<>();
+  private static final int MAX_PENDING_INVOCATIONS = 1_000;
+
+  private final Map<String, Map<String, String>> inputMappings = Collections.synchronizedMap(
+      new LinkedHashMap<>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Entry<String, Map<String, String>> eldest) {
+          return size() > MAX_PENDING_INVOCATIONS;
+        }
+      });
 
   @Override
   public GuardrailResult evaluate(String message) {
@@ -47,7 +63,7 @@ public class PiiMaskingGuardrail implements SmartWorkflowInputGuardrail, SmartWo
 
   private GuardrailResult evaluateOutput(String message, String invocationId) {
     Map<String, String> placeholderToOriginal = inputMappings.remove(invocationId);
-    if (placeholderToOriginal.isEmpty()) {
+    if (placeholderToOriginal == null || placeholderToOriginal.isEmpty()) {
       return GuardrailResult.allow();
     }
     String restored = PiiDetector.restore(message, placeholderToOriginal);
@@ -3,6 +3,9 @@ package com.axonivy.utils.smart.workflow.memory;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.axonivy.utils.smart.workflow.memory.compaction.MemoryCompactor;
+import com.axonivy.utils.smart.workflow.memory.store.AppendableChatMemoryStore;
+
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.store.memory.chat.ChatMemoryStore;
@@ -11,10 +14,19 @@ public class IvyMemory implements ChatMemory {
 
   private final String id;
   private final ChatMemoryStore store;
+  private final MemoryCompactor compactor;
 
   public IvyMemory(String id, ChatMemoryStore store) {
+    this(id, store, null);
+  }
+
+  /**
+   * @param compactor limits the messages sent to the model; the store keeps the whole conversation.
+   */
+  public IvyMemory(String id, ChatMemoryStore store, MemoryCompactor compactor) {
     this.id = id;
     this.store = store;
+    this.compactor = compactor;
   }
 
   @Override
@@ -24,6 +36,10 @@ public class IvyMemory implements ChatMemory {
 
   @Override
   public void add(ChatMessage message) {
+    if (store instanceof AppendableChatMemoryStore appendable) {
+      appendable.appendMessages(id, List.of(message));
+      return;
+    }
     var msgs = new ArrayList<ChatMessage>(store.getMessages(id));
     msgs.add(message);
     store.updateMessages(id, msgs);
@@ -31,7 +47,22 @@ public class IvyMemory implements ChatMemory {
 
   @Override
   public List<ChatMessage> messages() {
-    return store.getMessages(id);
+    var messages = store.getMessages(id);
+    if (compactor == null) {
+      return messages;
+    }
+    return compactor.window(messages);
+  }
+
+  /**
+   * @return the conversation to persist beyond this agent call, with older turns replaced by their summary.
+   */
+  public List<ChatMessage> persistable() {
+    var messages = store.getMessages(id);
+    if (compactor == null) {
+      return messages;
+    }
+    return compactor.compacted(messages);
   }
 
   @Override
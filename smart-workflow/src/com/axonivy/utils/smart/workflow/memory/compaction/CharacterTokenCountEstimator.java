@@ -0,0 +1,64 @@
+package com.axonivy.utils.smart.workflow.memory.compaction;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+
+/**
+ * Provider independent token estimate of about four characters per token.
+ * <p>
+ * It is used for providers without a local tokenizer; the estimate only has to be good enough to keep a
+ * conversation within its {@link MemoryPolicy#maxTokens()}.
+ */
+public class CharacterTokenCountEstimator implements TokenCountEstimator {
+
+  private static final int CHARS_PER_TOKEN = 4;
+  private static final int TOKENS_PER_MESSAGE = 4;
+  private static final int TOKENS_PER_MEDIA = 1000;
+
+  @Override
+  public int estimateTokenCountInText(String text) {
+    if (text == null || text.isEmpty()) {
+      return 0;
+    }
+    return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+  }
+
+  @Override
+  public int estimateTokenCountInMessage(ChatMessage message) {
+    int tokens = TOKENS_PER_MESSAGE;
+    switch (message) {
+      case SystemMessage system -> tokens += estimateTokenCountInText(system.text());
+      case UserMessage user -> {
+        for (var content : user.contents()) {
+          tokens += content instanceof TextContent text
+              ? estimateTokenCountInText(text.text())
+              : TOKENS_PER_MEDIA;
+        }
+      }
+      case AiMessage ai -> {
+        tokens += estimateTokenCountInText(ai.text());
+        for (var request : ai.toolExecutionRequests()) {
+          tokens += estimateTokenCountInText(request.name()) + estimateTokenCountInText(request.arguments());
+        }
+      }
+      case ToolExecutionResultMessage result -> tokens += estimateTokenCountInText(result.toolName())
+          + estimateTokenCountInText(result.text());
+      default -> tokens += estimateTokenCountInText(message.toString());
+    }
+    return tokens;
+  }
+
+  @Override
+  public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+    int tokens = 0;
+    for (var message : messages) {
+      tokens += estimateTokenCountInMessage(message);
+    }
+    return tokens;
+  }
+}
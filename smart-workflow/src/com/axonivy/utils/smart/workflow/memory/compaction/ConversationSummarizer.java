@@ -0,0 +1,81 @@
+package com.axonivy.utils.smart.workflow.memory.compaction;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+
+/**
+ * Compacts older turns of a conversation into a short summary, written by a chat model.
+ */
+public class ConversationSummarizer {
+
+  static final String INSTRUCTION = """
+      You compact the history of a conversation between a user, an assistant and its tools.
+      Write a concise summary of the conversation below, extending the previous summary if there is one.
+      Keep facts, decisions, identifiers and tool results that later turns may rely on. Omit greetings and repetitions.
+      Reply with the summary only.""";
+
+  private final Supplier<ChatModel> model;
+
+  public ConversationSummarizer(ChatModel model) {
+    this(() -> model);
+  }
+
+  /**
+   * @param model resolved on the first summary, so that conversations that never outgrow their budget do not
+   * set up a model.
+   */
+  public ConversationSummarizer(Supplier<ChatModel> model) {
+    this.model = model;
+  }
+
+  public String summarize(String previousSummary, List<ChatMessage> messages) {
+    var transcript = new StringBuilder();
+    if (StringUtils.isNotBlank(previousSummary)) {
+      transcript.append("Previous summary:\n").append(previousSummary).append("\n\n");
+    }
+    transcript.append("Conversation:\n").append(transcript(messages));
+    var response = model.get().chat(List.of(SystemMessage.from(INSTRUCTION), UserMessage.from(transcript.toString())));
+    return response.aiMessage().text();
+  }
+
+  static String transcript(List<ChatMessage> messages) {
+    return messages.stream()
+        .map(ConversationSummarizer::line)
+        .filter(StringUtils::isNotBlank)
+        .collect(Collectors.joining("\n"));
+  }
+
+  private static String line(ChatMessage message) {
+    return switch (message) {
+      case UserMessage user -> "User: " + user.contents().stream()
+          .map(content -> content instanceof TextContent text ? text.text() : "[" + content.type() + "]")
+          .collect(Collectors.joining(" "));
+      case AiMessage ai -> {
+        var line = new StringBuilder();
+        if (StringUtils.isNotBlank(ai.text())) {
+          line.append("Assistant: ").append(ai.text());
+        }
+        for (var request : ai.toolExecutionRequests()) {
+          if (!line.isEmpty()) {
+            line.append("\n");
+          }
+          line.append("Assistant calls tool ").append(request.name()).append(": ").append(request.arguments());
+        }
+        yield line.toString();
+      }
+      case ToolExecutionResultMessage result -> "Tool " + result.toolName() + " returned: " + result.text();
+      default -> "";
+    };
+  }
+}
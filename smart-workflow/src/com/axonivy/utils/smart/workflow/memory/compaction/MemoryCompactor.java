@@ -0,0 +1,279 @@
+package com.axonivy.utils.smart.workflow.memory.compaction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.chat.ChatModel;
+
+/**
+ * Sends a token budgeted window of a conversation to the model, instead of the whole conversation.
+ * <p>
+ * System messages are always kept. The other messages are grouped into units that must not be split: a user
+ * message, or an assistant message together with the results of the tools it called. The newest units are
+ * kept as long as they fit into {@link MemoryPolicy#maxTokens()}; the newest unit and units with unresolved
+ * tool calls are kept in any case. If the window does not start with a user message, the user message that
+ * opened the turn is kept as well, since providers expect the user to speak first; it counts against the budget.
+ * <p>
+ * With a {@link ConversationSummarizer}, the dropped units are compacted into a summary in the background.
+ * The summary is sent as a system message from the next call on; until it is ready, the dropped units are
+ * left out.
+ */
+public class MemoryCompactor {
+
+  static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+  private static final int SUMMARY_TIMEOUT_SECONDS = 60;
+
+  private record Summary(String text, int covered) {
+    static final Summary NONE = new Summary(null, 0);
+
+    Optional<ChatMessage> message() {
+      return Optional.ofNullable(text).map(summary -> SystemMessage.from(SUMMARY_PREFIX + summary));
+    }
+  }
+
+  private record Unit(int from, int to, boolean unresolved) {}
+
+  private final int maxTokens;
+  private final TokenCountEstimator estimator;
+  private final ConversationSummarizer summarizer;
+  private final Executor executor;
+  private final AtomicReference<Summary> summary = new AtomicReference<>(Summary.NONE);
+  private final AtomicReference<CompletableFuture<Void>> pending = new AtomicReference<>(
+      CompletableFuture.completedFuture(null));
+
+  MemoryCompactor(int maxTokens, TokenCountEstimator estimator, ConversationSummarizer summarizer, Executor executor) {
+    this.maxTokens = maxTokens;
+    this.estimator = estimator;
+    this.summarizer = summarizer;
+    this.executor = executor;
+  }
+
+  /**
+   * @return a compactor for the policy, or empty if the policy sends the whole conversation. The summary model
+   * is only set up once a summary is written.
+   */
+  public static Optional<MemoryCompactor> of(MemoryPolicy policy, TokenCountEstimator estimator,
+      Supplier<ChatModel> summaryModel) {
+    if (policy.isUnlimited()) {
+      return Optional.empty();
+    }
+    var summarizer = policy.summarize() ? new ConversationSummarizer(summaryModel) : null;
+    var context = IvyContextSnapshot.capture();
+    Executor executor = task -> Thread.ofVirtual()
+        .name("smart-workflow-memory")
+        .start(context.wrap(task));
+    return Optional.of(new MemoryCompactor(policy.maxTokens(), estimator, summarizer, executor));
+  }
+
+  /**
+   * @return the messages to send to the model.
+   */
+  public List<ChatMessage> window(List<ChatMessage> messages) {
+    var system = new ArrayList<ChatMessage>();
+    var conversation = new ArrayList<ChatMessage>();
+    var current = split(messages, system, conversation);
+    int start = Math.min(current.covered(), conversation.size());
+    var units = units(conversation, start);
+    if (units.isEmpty()) {
+      return join(system, current, List.of());
+    }
+
+    var summaryMessage = current.message();
+    int budget = maxTokens - estimator.estimateTokenCountInMessages(system)
+        - summaryMessage.map(estimator::estimateTokenCountInMessage).orElse(0);
+    int first = units.size() - 1;
+    int used = tokens(conversation, units.get(first));
+    while (first > 0) {
+      var extended = units.get(first - 1);
+      int tokens = tokens(conversation, extended);
+      if (used + tokens + anchorTokens(conversation, extended.from()) > budget) {
+        break;
+      }
+      first--;
+      used += tokens;
+    }
+    if (first == 0) {
+      return start == 0 && current.text() == null
+          ? messages
+          : join(system, current, conversation.subList(start, conversation.size()));
+    }
+
+    var keep = new boolean[conversation.size()];
+    int compactTo = units.get(first).from();
+    for (var unit : units.subList(0, first)) {
+      if (unit.unresolved()) {
+        compactTo = Math.min(compactTo, unit.from());
+        mark(keep, unit.from(), unit.to());
+      }
+    }
+    mark(keep, units.get(first).from(), conversation.size());
+    var anchor = anchor(conversation, units.get(first).from());
+    if (anchor.isPresent()) {
+      keep[anchor.get()] = true;
+      compactTo = Math.min(compactTo, anchor.get()); // a persisted conversation still starts with the user
+    }
+
+    var window = new ArrayList<ChatMessage>();
+    for (int index = 0; index < conversation.size(); index++) {
+      if (keep[index]) {
+        window.add(conversation.get(index));
+      }
+    }
+    if (summarizer != null && compactTo > current.covered()) {
+      summarizeAsync(current, conversation.subList(current.covered(), compactTo), compactTo);
+    }
+    return join(system, current, window);
+  }
+
+  /**
+   * @return the conversation to persist, with the summarized messages replaced by their summary. Waits for a
+   * running summary to complete.
+   */
+  public List<ChatMessage> compacted(List<ChatMessage> messages) {
+    awaitSummary();
+    var system = new ArrayList<ChatMessage>();
+    var conversation = new ArrayList<ChatMessage>();
+    var current = split(messages, system, conversation);
+    if (current.text() == null) {
+      return messages;
+    }
+    int start = Math.min(current.covered(), conversation.size());
+    return join(system, current, conversation.subList(start, conversation.size()));
+  }
+
+  /**
+   * Splits the messages into system messages and the conversation. A summary that was persisted with the
+   * conversation by {@link #compacted(List)} is taken up as the current summary.
+   */
+  private Summary split(List<ChatMessage> messages, List<ChatMessage> system, List<ChatMessage> conversation) {
+    String restored = null;
+    for (var message : messages) {
+      if (message instanceof SystemMessage systemMessage) {
+        if (systemMessage.text().startsWith(SUMMARY_PREFIX)) {
+          restored = systemMessage.text().substring(SUMMARY_PREFIX.length());
+        } else {
+          system.add(message);
+        }
+      } else {
+        conversation.add(message);
+      }
+    }
+    if (restored != null) {
+      summary.compareAndSet(Summary.NONE, new Summary(restored, 0));
+    }
+    return summary.get();
+  }
+
+  private static List<ChatMessage> join(List<ChatMessage> system, Summary summary, List<ChatMessage> conversation) {
+    var joined = new ArrayList<ChatMessage>(system);
+    summary.message().ifPresent(joined::add);
+    joined.addAll(conversation);
+    return joined;
+  }
+
+  private static List<Unit> units(List<ChatMessage> conversation, int start) {
+    var units = new ArrayList<Unit>();
+    int index = start;
+    while (index < conversation.size()) {
+      int from = index;
+      var message = conversation.get(index++);
+      boolean unresolved = false;
+      if (message instanceof AiMessage ai && ai.hasToolExecutionRequests()) {
+        var open = ai.toolExecutionRequests().stream()
+            .map(ToolExecutionRequest::id)
+            .collect(Collectors.toCollection(HashSet::new));
+        while (index < conversation.size() && conversation.get(index) instanceof ToolExecutionResultMessage result) {
+          open.remove(result.id());
+          index++;
+        }
+        unresolved = !open.isEmpty();
+      }
+      units.add(new Unit(from, index, unresolved));
+    }
+    return units;
+  }
+
+  private static Optional<Integer> anchor(List<ChatMessage> conversation, int from) {
+    for (int index = from; index >= 0; index--) {
+      if (conversation.get(index) instanceof UserMessage) {
+        return Optional.of(index);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @return the tokens of the user message that is kept in front of a window starting at {@code from}.
+   */
+  private int anchorTokens(List<ChatMessage> conversation, int from) {
+    if (conversation.get(from) instanceof UserMessage) {
+      return 0;
+    }
+    return anchor(conversation, from)
+        .map(index -> estimator.estimateTokenCountInMessage(conversation.get(index)))
+        .orElse(0);
+  }
+
+  private static void mark(boolean[] keep, int from, int to) {
+    for (int index = from; index < to; index++) {
+      keep[index] = true;
+    }
+  }
+
+  private int tokens(List<ChatMessage> conversation, Unit unit) {
+    return estimator.estimateTokenCountInMessages(conversation.subList(unit.from(), unit.to()));
+  }
+
+  private void summarizeAsync(Summary previous, List<ChatMessage> dropped, int covered) {
+    var running = pending.get();
+    var next = new CompletableFuture<Void>();
+    if (!running.isDone() || !pending.compareAndSet(running, next)) {
+      return; // a summary is already being written; it is extended on a later call
+    }
+    var messages = List.copyOf(dropped);
+    executor.execute(() -> {
+      try {
+        var text = summarizer.summarize(previous.text(), messages);
+        if (StringUtils.isNotBlank(text)) {
+          summary.compareAndSet(previous, new Summary(text, covered));
+        }
+      } catch (RuntimeException ex) {
+        Ivy.log().warn("Failed to summarize the earlier conversation; its messages are left out instead", ex);
+      } finally {
+        next.complete(null);
+      }
+    });
+  }
+
+  private void awaitSummary() {
+    try {
+      pending.get().get(SUMMARY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException ex) {
+      // keep the messages that are not summarized yet
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.axonivy.utils.smart.workflow.memory.compaction;
+
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+/**
+ * How much of a conversation is sent to the model on each call.
+ *
+ * @param maxTokens estimated tokens of the messages sent per call; {@code 0} sends the whole conversation.
+ * @param summarize whether messages that no longer fit are compacted into a summary instead of being dropped.
+ */
+public record MemoryPolicy(int maxTokens, boolean summarize) {
+
+  public interface MemoryConf {
+    String PREFIX = "AI.Memory.";
+    String MAX_TOKENS = PREFIX + "MaxTokens";
+    String SUMMARIZE = PREFIX + "Summarize";
+  }
+
+  public static MemoryPolicy fromIvyVar() {
+    return new MemoryPolicy(IvyVar.integer(MemoryConf.MAX_TOKENS, 0), IvyVar.bool(MemoryConf.SUMMARIZE));
+  }
+
+  public boolean isUnlimited() {
+    return maxTokens <= 0;
+  }
+}
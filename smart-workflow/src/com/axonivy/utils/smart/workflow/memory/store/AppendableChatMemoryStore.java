@@ -0,0 +1,29 @@
+package com.axonivy.utils.smart.workflow.memory.store;
+
+import java.util.List;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+/**
+ * A {@link ChatMemoryStore} that persists new messages incrementally, instead of rewriting the whole
+ * conversation on every added message.
+ */
+public interface AppendableChatMemoryStore extends ChatMemoryStore {
+
+  /**
+   * Adds the messages to the end of the conversation.
+   */
+  void appendMessages(Object memoryId, List<ChatMessage> messages);
+
+  /**
+   * @return the last {@code count} messages of the conversation, in order.
+   */
+  List<ChatMessage> getTail(Object memoryId, int count);
+
+  /**
+   * Drops all messages after the first {@code size} messages.
+   */
+  void truncate(Object memoryId, int size);
+
+}
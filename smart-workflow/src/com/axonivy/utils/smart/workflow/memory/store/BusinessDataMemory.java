@@ -1,42 +1,231 @@
 package com.axonivy.utils.smart.workflow.memory.store;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import com.axonivy.utils.smart.workflow.memory.store.codec.BusinessDataAttachments;
+import com.axonivy.utils.smart.workflow.memory.store.codec.ChatMessageCodec;
+import com.axonivy.utils.smart.workflow.memory.store.codec.CompactMessageCodec;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.data.message.ChatMessage;
-import dev.langchain4j.data.message.ChatMessageDeserializer;
-import dev.langchain4j.data.message.ChatMessageSerializer;
-import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 
-public class BusinessDataMemory implements ChatMemoryStore {
+/**
+ * Persists chat memories as business data.
+ * <p>
+ * A memory document holds a snapshot of the conversation and its total size. Appended messages are stored
+ * as separate documents ({@code <id>:<index>}), so that adding a message writes only that message and the
+ * size. Every write holds the lock of the memory ({@code <id>:lock}), so that concurrent appends never claim
+ * the same index and a replace or truncate never drops the messages of a concurrent append. The appended
+ * messages are read with a single search. Replacing the messages folds the appended messages back into the
+ * snapshot.
+ * <p>
+ * Every write stores a new revision ({@code <id>:revision}), so that copies of a memory held elsewhere, e.g. by
+ * the {@link TieredChatMemoryStore} of another cluster node, can be checked for staleness with a small read.
+ * <p>
+ * Messages are stored through a {@link ChatMessageCodec}, by default the {@link CompactMessageCodec}, which
+ * still reads the plain JSON messages of earlier versions. Such messages are written in the current format
+ * once the memory is replaced.
+ */
+public class BusinessDataMemory implements AppendableChatMemoryStore {
+
+  private final ChatMessageCodec codec;
+
+  public BusinessDataMemory() {
+    this(new CompactMessageCodec(new BusinessDataAttachments()));
+  }
+
+  public BusinessDataMemory(ChatMessageCodec codec) {
+    this.codec = codec;
+  }
 
   @Override
   public void deleteMessages(Object id) {
-    verifyId(id);
-    Ivy.repo().deleteById((String) id);
+    locked(id, () -> {
+      findMemory(id).ifPresent(memory -> deleteAppended(memory, memory.snapshotSize()));
+      Ivy.repo().deleteById((String) id);
+      Ivy.repo().deleteById(ChatMemoryRevision.id((String) id));
+      codec.delete((String) id);
+      return null;
+    });
+    Ivy.repo().deleteById(ChatMemoryLock.id((String) id));
   }
 
   @Override
   public List<ChatMessage> getMessages(Object id) {
     return findMemory(id)
-        .map(ChatMemory::readMessages)
+        .map(memory -> read(memory, 0))
+        .orElse(List.of());
+  }
+
+  @Override
+  public List<ChatMessage> getTail(Object id, int count) {
+    return findMemory(id)
+        .map(memory -> read(memory, Math.max(0, memory.size() - count)))
         .orElse(List.of());
   }
 
   @Override
   public void updateMessages(Object id, List<ChatMessage> messages) {
-    var existing = findMemory(id);
-    if (existing.isPresent()) {
-      ChatMemory memory = existing.get();
-      memory.setMessages(messages);
-      Ivy.repo().overwrite(memory, "messages");
-      return;
+    replace(id, messages);
+  }
+
+  @Override
+  public void appendMessages(Object id, List<ChatMessage> messages) {
+    append(id, messages);
+  }
+
+  @Override
+  public void truncate(Object id, int size) {
+    locked(id, () -> {
+      var existing = findMemory(id);
+      if (existing.isEmpty() || size >= existing.get().size()) {
+        return null;
+      }
+      var memory = existing.get();
+      if (size >= memory.snapshotSize()) {
+        deleteAppended(memory, size);
+        memory.size = size;
+        Ivy.repo().overwrite(memory, "size");
+      } else {
+        deleteAppended(memory, memory.snapshotSize());
+        memory.messages = new ArrayList<>(memory.messages.subList(0, size));
+        memory.size = size;
+        Ivy.repo().overwrite(memory, "messages");
+        Ivy.repo().overwrite(memory, "size");
+      }
+      return touch(memory.id);
+    });
+  }
+
+  /**
+   * @return the revision of the memory, which changes with every write; empty if there is no such memory.
+   */
+  public Optional<String> revision(Object id) {
+    verifyId(id);
+    return Optional.ofNullable(Ivy.repo().find(ChatMemoryRevision.id((String) id), ChatMemoryRevision.class))
+        .map(revision -> revision.revision);
+  }
+
+  /**
+   * @return the revision written.
+   */
+  String replace(Object id, List<ChatMessage> messages) {
+    return locked(id, () -> {
+      var existing = findMemory(id);
+      if (existing.isPresent()) {
+        ChatMemory memory = existing.get();
+        deleteAppended(memory, memory.snapshotSize());
+        memory.setMessages(messages, codec);
+        Ivy.repo().overwrite(memory, "messages");
+        Ivy.repo().overwrite(memory, "size");
+      } else {
+        Ivy.repo().save(ChatMemory.of((String) id, messages, codec));
+      }
+      return touch((String) id);
+    });
+  }
+
+  /**
+   * @return the revision written, or the current one if there was nothing to append.
+   */
+  String append(Object id, List<ChatMessage> messages) {
+    if (messages.isEmpty()) {
+      return revision(id).orElse(null);
+    }
+    return locked(id, () -> {
+      var existing = findMemory(id); // read under the lock: another node may have appended meanwhile
+      if (existing.isEmpty()) {
+        Ivy.repo().save(ChatMemory.of((String) id, messages, codec));
+        return touch((String) id);
+      }
+      var memory = existing.get();
+      int index = memory.size();
+      for (var message : messages) {
+        Ivy.repo().save(ChatMemoryEntry.of(memory.id, index++, message, codec));
+      }
+      memory.size = index;
+      Ivy.repo().overwrite(memory, "size");
+      return touch(memory.id);
+    });
+  }
+
+  /**
+   * Runs the write while holding the lock document of the memory. The lock document exists before the memory
+   * does, so that also the first writes of a memory exclude each other.
+   */
+  private static <T> T locked(Object id, Supplier<T> write) {
+    verifyId(id);
+    var lockId = ChatMemoryLock.id((String) id);
+    var lock = Ivy.repo().find(lockId, ChatMemoryLock.class);
+    if (lock == null) {
+      lock = new ChatMemoryLock(lockId);
+      Ivy.repo().save(lock); // carries no data: concurrent saves of it do not overwrite anything
+    }
+    Ivy.repo().lock(lock);
+    try {
+      return write.get();
+    } finally {
+      Ivy.repo().unlock(lock);
+    }
+  }
+
+  private static String touch(String id) {
+    var revision = UUID.randomUUID().toString();
+    Ivy.repo().save(new ChatMemoryRevision(ChatMemoryRevision.id(id), revision));
+    return revision;
+  }
+
+  /**
+   * @return the messages of the memory from the given index on.
+   */
+  private List<ChatMessage> read(ChatMemory memory, int from) {
+    var snapshot = memory.readMessages(codec);
+    var messages = new ArrayList<>(snapshot.subList(Math.min(from, snapshot.size()), snapshot.size()));
+    int first = Math.max(from, memory.snapshotSize());
+    if (first >= memory.size()) {
+      return messages;
+    }
+    var appended = findAppended(memory, first);
+    for (int index = first; index < memory.size(); index++) {
+      var entry = appended.get(index);
+      messages.add((entry != null ? entry : findEntry(memory.id, index)).readMessage(codec));
+    }
+    return messages;
+  }
+
+  /**
+   * @return the appended messages of the memory from the given index on, by their index, read with a single
+   * search. Messages that are not yet found by the search are left out; they are read by their id instead.
+   */
+  private static Map<Integer, ChatMemoryEntry> findAppended(ChatMemory memory, int from) {
+    return Ivy.repo().search(ChatMemoryEntry.class)
+        .textField("memoryId").isEqualToIgnoringCase(memory.id)
+        .and().numberField("index").isGreaterOrEqualThan(from)
+        .limit(memory.size() - from)
+        .execute().getAll().stream()
+        .filter(entry -> memory.id.equals(entry.memoryId) && entry.index != null)
+        .collect(Collectors.toMap(entry -> entry.index, entry -> entry, (first, _) -> first));
+  }
+
+  private static ChatMemoryEntry findEntry(String memoryId, int index) {
+    var entry = Ivy.repo().find(ChatMemoryEntry.id(memoryId, index), ChatMemoryEntry.class);
+    if (entry == null) {
+      throw new IllegalStateException("Missing message " + index + " of ChatMemory " + memoryId);
+    }
+    return entry;
+  }
+
+  private static void deleteAppended(ChatMemory memory, int from) {
+    for (int index = from; index < memory.size(); index++) {
+      Ivy.repo().deleteById(ChatMemoryEntry.id(memory.id, index));
     }
-    var memory = ChatMemory.of((String) id, messages);
-    Ivy.repo().save(memory);
   }
 
   private Optional<ChatMemory> findMemory(Object id) {
@@ -54,30 +243,104 @@ public class BusinessDataMemory implements ChatMemoryStore {
 
     public String id;
     public List<String> messages;
+    public Integer size;
 
-    ChatMemory(@JsonProperty("id") String id, @JsonProperty("messages") List<String> messages) {
+    ChatMemory(@JsonProperty("id") String id, @JsonProperty("messages") List<String> messages,
+        @JsonProperty("size") Integer size) {
       this.id = id;
       this.messages = messages;
+      this.size = size;
     }
 
-    static ChatMemory of(String id, List<ChatMessage> messages) {
-      return new ChatMemory(id, write(messages));
+    static ChatMemory of(String id, List<ChatMessage> messages, ChatMessageCodec codec) {
+      return new ChatMemory(id, write(id, messages, codec), messages.size());
     }
 
-    private static List<String> write(List<ChatMessage> messages) {
+    private static List<String> write(String id, List<ChatMessage> messages, ChatMessageCodec codec) {
       return messages.stream()
-          .map(ChatMessageSerializer::messageToJson)
+          .map(message -> codec.encode(id, message))
           .toList();
     }
 
-    void setMessages(List<ChatMessage> messages) {
-      this.messages = write(messages);
+    void setMessages(List<ChatMessage> messages, ChatMessageCodec codec) {
+      this.messages = write(id, messages, codec);
+      this.size = messages.size();
+    }
+
+    int snapshotSize() {
+      return messages == null ? 0 : messages.size();
+    }
+
+    /**
+     * Memories written before messages were appended have no size: they consist of their snapshot only.
+     */
+    int size() {
+      return size == null ? snapshotSize() : Math.max(size, snapshotSize());
     }
 
-    List<ChatMessage> readMessages() {
+    List<ChatMessage> readMessages(ChatMessageCodec codec) {
+      if (messages == null) {
+        return List.of();
+      }
       return messages.stream()
-          .map(ChatMessageDeserializer::messageFromJson)
+          .map(message -> codec.decode(id, message))
           .toList();
     }
   }
+
+  static class ChatMemoryEntry {
+
+    public String id;
+    public String memoryId;
+    public Integer index;
+    public String message;
+
+    ChatMemoryEntry(@JsonProperty("id") String id, @JsonProperty("memoryId") String memoryId,
+        @JsonProperty("index") Integer index, @JsonProperty("message") String message) {
+      this.id = id;
+      this.memoryId = memoryId;
+      this.index = index;
+      this.message = message;
+    }
+
+    static String id(String memoryId, int index) {
+      return memoryId + ":" + index;
+    }
+
+    static ChatMemoryEntry of(String memoryId, int index, ChatMessage message, ChatMessageCodec codec) {
+      return new ChatMemoryEntry(id(memoryId, index), memoryId, index, codec.encode(memoryId, message));
+    }
+
+    ChatMessage readMessage(ChatMessageCodec codec) {
+      return codec.decode(memoryId, message);
+    }
+  }
+
+  static class ChatMemoryRevision {
+
+    public String id;
+    public String revision;
+
+    ChatMemoryRevision(@JsonProperty("id") String id, @JsonProperty("revision") String revision) {
+      this.id = id;
+      this.revision = revision;
+    }
+
+    static String id(String memoryId) {
+      return memoryId + ":revision";
+    }
+  }
+
+  static class ChatMemoryLock {
+
+    public String id;
+
+    ChatMemoryLock(@JsonProperty("id") String id) {
+      this.id = id;
+    }
+
+    static String id(String memoryId) {
+      return memoryId + ":lock";
+    }
+  }
 }
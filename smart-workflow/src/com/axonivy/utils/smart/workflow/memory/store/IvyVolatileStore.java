@@ -1,29 +1,67 @@
 package com.axonivy.utils.smart.workflow.memory.store;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import dev.langchain4j.data.message.ChatMessage;
-import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 
-public class IvyVolatileStore implements ChatMemoryStore {
-  
+public class IvyVolatileStore implements AppendableChatMemoryStore {
+
   private final Map<String, List<ChatMessage>> store = new ConcurrentHashMap<>();
 
   @Override
   public List<ChatMessage> getMessages(Object memoryId) {
-    return store.computeIfAbsent((String)memoryId, _ -> new java.util.ArrayList<>());
+    var messages = store.get((String) memoryId);
+    if (messages == null) {
+      return List.of();
+    }
+    synchronized (messages) {
+      return List.copyOf(messages);
+    }
   }
 
   @Override
   public void updateMessages(Object memoryId, List<ChatMessage> messages) {
-    store.put((String)memoryId, messages);
+    store.put((String) memoryId, new ArrayList<>(messages));
+  }
+
+  @Override
+  public void appendMessages(Object memoryId, List<ChatMessage> messages) {
+    var existing = store.computeIfAbsent((String) memoryId, _ -> new ArrayList<>());
+    synchronized (existing) {
+      existing.addAll(messages);
+    }
+  }
+
+  @Override
+  public List<ChatMessage> getTail(Object memoryId, int count) {
+    var messages = store.get((String) memoryId);
+    if (messages == null) {
+      return List.of();
+    }
+    synchronized (messages) {
+      return List.copyOf(messages.subList(Math.max(0, messages.size() - count), messages.size()));
+    }
+  }
+
+  @Override
+  public void truncate(Object memoryId, int size) {
+    var messages = store.get((String) memoryId);
+    if (messages == null) {
+      return;
+    }
+    synchronized (messages) {
+      if (size < messages.size()) {
+        messages.subList(size, messages.size()).clear();
+      }
+    }
   }
 
   @Override
   public void deleteMessages(Object memoryId) {
-    store.remove((String)memoryId);
+    store.remove((String) memoryId);
   }
-  
+
 }
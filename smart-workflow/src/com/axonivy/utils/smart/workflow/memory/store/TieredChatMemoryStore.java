@@ -0,0 +1,274 @@
+package com.axonivy.utils.smart.workflow.memory.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectCache;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+import dev.langchain4j.data.message.ChatMessage;
+
+/**
+ * Keeps recently active chat memories in process, in front of the {@link BusinessDataMemory}.
+ * <p>
+ * Reads are served from the hot tier once the revision of the business data memory confirms that no other
+ * request or cluster node has written it since; otherwise the memory is read through. The revision is checked
+ * at most once per interval set by {@value TieredMemoryConf#REVISION_CHECK_MILLIS}, so a write of another cluster
+ * node may be seen that much later. Writes only change the hot tier and are written behind on {@link #flush(Object)},
+ * appended messages as a single batch. A memory with unwritten changes that drops out of the hot tier is written
+ * before it is dropped.
+ */
+public class TieredChatMemoryStore implements AppendableChatMemoryStore {
+
+  public interface TieredMemoryConf {
+    String HOT_ENTRIES = "AI.Memory.HotEntries";
+    String REVISION_CHECK_MILLIS = "AI.Memory.RevisionCheckMillis";
+  }
+
+  private static final int DEFAULT_HOT_ENTRIES = 100;
+  private static final int DEFAULT_REVISION_CHECK_MILLIS = 1_000;
+  private static final ProjectCache<TieredChatMemoryStore> STORES = new ProjectCache<>();
+
+  /**
+   * The hot copy of a memory. It is created once per memory and changed in place under its own lock, so that
+   * concurrent reads, refreshes and writes of the same memory never replace each other's changes.
+   */
+  private static final class Hot {
+
+    private final List<ChatMessage> messages = new ArrayList<>();
+    private boolean loaded;
+    private String revision;
+    private long checked;
+    private int written;
+    private boolean replaced;
+    private boolean evicted;
+
+    private boolean isDirty() {
+      return replaced || written < messages.size();
+    }
+  }
+
+  private final BusinessDataMemory cold;
+  private final int maxEntries;
+  private final long revisionCheckNanos;
+  private final Map<String, Hot> hot = new LinkedHashMap<>(16, 0.75f, true);
+
+  TieredChatMemoryStore(BusinessDataMemory cold, int maxEntries) {
+    this(cold, maxEntries, 0);
+  }
+
+  TieredChatMemoryStore(BusinessDataMemory cold, int maxEntries, long revisionCheckMillis) {
+    this.cold = cold;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.revisionCheckNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, revisionCheckMillis));
+  }
+
+  /**
+   * @return the store shared by all requests of this application.
+   */
+  public static TieredChatMemoryStore current() {
+    return STORES.get(SpiProject.getSmartWorkflowPmv(), _ -> new TieredChatMemoryStore(new BusinessDataMemory(),
+        IvyVar.integer(TieredMemoryConf.HOT_ENTRIES, DEFAULT_HOT_ENTRIES),
+        IvyVar.integer(TieredMemoryConf.REVISION_CHECK_MILLIS, DEFAULT_REVISION_CHECK_MILLIS)));
+  }
+
+  @Override
+  public List<ChatMessage> getMessages(Object memoryId) {
+    var id = key(memoryId);
+    while (true) {
+      var entry = entry(id);
+      synchronized (entry) {
+        if (!entry.evicted) {
+          refresh(id, entry);
+          return List.copyOf(entry.messages);
+        }
+      }
+    }
+  }
+
+  @Override
+  public List<ChatMessage> getTail(Object memoryId, int count) {
+    var id = key(memoryId);
+    while (true) {
+      var entry = entry(id);
+      synchronized (entry) {
+        if (!entry.evicted) {
+          refresh(id, entry);
+          int size = entry.messages.size();
+          return List.copyOf(entry.messages.subList(Math.max(0, size - count), size));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+    var id = key(memoryId);
+    while (true) {
+      var entry = entry(id);
+      synchronized (entry) {
+        if (!entry.evicted) {
+          entry.messages.clear();
+          entry.messages.addAll(messages);
+          entry.loaded = true;
+          entry.replaced = true;
+          entry.written = 0;
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void appendMessages(Object memoryId, List<ChatMessage> messages) {
+    var id = key(memoryId);
+    while (true) {
+      var entry = entry(id);
+      synchronized (entry) {
+        if (!entry.evicted) {
+          refresh(id, entry);
+          entry.messages.addAll(messages);
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void truncate(Object memoryId, int size) {
+    var id = key(memoryId);
+    while (true) {
+      var entry = entry(id);
+      synchronized (entry) {
+        if (!entry.evicted) {
+          refresh(id, entry);
+          if (size < entry.messages.size()) {
+            entry.messages.subList(size, entry.messages.size()).clear();
+            if (size < entry.written) {
+              entry.replaced = true;
+            }
+          }
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void deleteMessages(Object memoryId) {
+    var id = key(memoryId);
+    Hot entry;
+    synchronized (hot) {
+      entry = hot.remove(id);
+    }
+    if (entry != null) {
+      synchronized (entry) {
+        entry.evicted = true;
+      }
+    }
+    cold.deleteMessages(id);
+  }
+
+  /**
+   * Writes the changes of the memory to the business data repository.
+   * <p>
+   * Appended messages are written on top of the stored memory, even if another writer changed it meanwhile;
+   * the memory is then read through on its next use. Replaced messages overwrite the stored memory.
+   */
+  public void flush(Object memoryId) {
+    var id = key(memoryId);
+    Hot entry;
+    synchronized (hot) {
+      entry = hot.get(id);
+    }
+    if (entry != null) {
+      synchronized (entry) {
+        write(id, entry);
+      }
+    }
+  }
+
+  /**
+   * @return the hot entry of the memory, added empty if there is none yet; it is loaded on first use.
+   */
+  private Hot entry(String id) {
+    var evicted = new ArrayList<Map.Entry<String, Hot>>();
+    Hot entry;
+    synchronized (hot) {
+      entry = hot.get(id);
+      if (entry == null) {
+        entry = new Hot();
+        hot.put(id, entry);
+        var eldest = hot.entrySet().iterator();
+        while (hot.size() > maxEntries && eldest.hasNext()) {
+          var next = eldest.next();
+          evicted.add(Map.entry(next.getKey(), next.getValue()));
+          eldest.remove();
+        }
+      }
+    }
+    evicted.forEach(dropped -> evict(dropped.getKey(), dropped.getValue()));
+    return entry;
+  }
+
+  private void evict(String id, Hot entry) {
+    synchronized (entry) {
+      write(id, entry);
+      entry.evicted = true;
+    }
+  }
+
+  /**
+   * Reads the memory through if it is not loaded yet or another writer changed it. Must hold the entry lock.
+   */
+  private void refresh(String id, Hot entry) {
+    if (entry.loaded && entry.isDirty()) {
+      return; // own changes are newer; conflicts are resolved on flush
+    }
+    long now = System.nanoTime();
+    if (entry.loaded && entry.revision != null && now - entry.checked < revisionCheckNanos) {
+      return;
+    }
+    var revision = cold.revision(id).orElse(null);
+    entry.checked = now;
+    if (entry.loaded && Objects.equals(entry.revision, revision)) {
+      return;
+    }
+    entry.messages.clear();
+    entry.messages.addAll(cold.getMessages(id));
+    entry.loaded = true;
+    entry.revision = revision;
+    entry.written = entry.messages.size();
+  }
+
+  /**
+   * Writes the unwritten changes of the entry. Must hold the entry lock.
+   */
+  private void write(String id, Hot entry) {
+    if (!entry.isDirty()) {
+      return;
+    }
+    if (entry.replaced) {
+      entry.revision = cold.replace(id, entry.messages);
+    } else {
+      var stale = !Objects.equals(entry.revision, cold.revision(id).orElse(null));
+      var revision = cold.append(id, List.copyOf(entry.messages.subList(entry.written, entry.messages.size())));
+      entry.revision = stale ? null : revision;
+    }
+    entry.checked = System.nanoTime();
+    entry.written = entry.messages.size();
+    entry.replaced = false;
+  }
+
+  private static String key(Object memoryId) {
+    if (!(memoryId instanceof String id)) {
+      throw new IllegalArgumentException("Only String ids are supported");
+    }
+    return id;
+  }
+}
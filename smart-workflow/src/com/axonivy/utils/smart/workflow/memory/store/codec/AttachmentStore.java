@@ -0,0 +1,23 @@
+package com.axonivy.utils.smart.workflow.memory.store.codec;
+
+import java.util.Optional;
+
+/**
+ * Content addressed storage for large binary message contents, such as images and PDFs. Attachments belong to
+ * the memory whose messages refer to them and are deleted with it.
+ */
+public interface AttachmentStore {
+
+  /**
+   * Stores the data of the memory under its hash. Storing the same data again has no effect.
+   */
+  void put(String memoryId, String hash, String data);
+
+  Optional<String> get(String memoryId, String hash);
+
+  /**
+   * Deletes all attachments of the memory.
+   */
+  void delete(String memoryId);
+
+}
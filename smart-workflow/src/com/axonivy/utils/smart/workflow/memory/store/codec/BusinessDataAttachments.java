@@ -0,0 +1,82 @@
+package com.axonivy.utils.smart.workflow.memory.store.codec;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ch.ivyteam.ivy.environment.Ivy;
+
+/**
+ * Keeps attachments as business data documents, identified by their memory and hash
+ * ({@code <memoryId>:attachment:<hash>}).
+ * <p>
+ * Attachments written by earlier versions are identified by their hash only and shared between memories. They
+ * are still read, but not deleted with a memory, as other memories may refer to them.
+ */
+public class BusinessDataAttachments implements AttachmentStore {
+
+  private static final int KNOWN_HASHES = 1000;
+  private static final int MAX_ATTACHMENTS = 1000;
+
+  /** attachments written recently by this store, which need not be written again */
+  private final Set<String> written = Collections.synchronizedSet(Collections.newSetFromMap(
+      new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+          return size() > KNOWN_HASHES;
+        }
+      }));
+
+  @Override
+  public void put(String memoryId, String hash, String data) {
+    var id = ChatMemoryAttachment.id(memoryId, hash);
+    if (written.contains(id)) {
+      return;
+    }
+    Ivy.repo().save(new ChatMemoryAttachment(id, memoryId, data));
+    written.add(id);
+  }
+
+  @Override
+  public Optional<String> get(String memoryId, String hash) {
+    return Optional.ofNullable(Ivy.repo().find(ChatMemoryAttachment.id(memoryId, hash), ChatMemoryAttachment.class))
+        .or(() -> Optional.ofNullable(Ivy.repo().find(hash, ChatMemoryAttachment.class))) // shared by earlier versions
+        .map(attachment -> attachment.data);
+  }
+
+  @Override
+  public void delete(String memoryId) {
+    var prefix = ChatMemoryAttachment.id(memoryId, "");
+    written.removeIf(id -> id.startsWith(prefix));
+    Ivy.repo().search(ChatMemoryAttachment.class)
+        .textField("memoryId").isEqualToIgnoringCase(memoryId)
+        .limit(MAX_ATTACHMENTS)
+        .execute().getAll().stream()
+        .filter(attachment -> memoryId.equals(attachment.memoryId))
+        .forEach(attachment -> Ivy.repo().deleteById(attachment.id));
+  }
+
+  static class ChatMemoryAttachment {
+
+    public String id;
+    public String memoryId;
+    public String data;
+
+    ChatMemoryAttachment(@JsonProperty("id") String id, @JsonProperty("memoryId") String memoryId,
+        @JsonProperty("data") String data) {
+      this.id = id;
+      this.memoryId = memoryId;
+      this.data = data;
+    }
+
+    static String id(String memoryId, String hash) {
+      return memoryId + ":attachment:" + hash;
+    }
+  }
+}
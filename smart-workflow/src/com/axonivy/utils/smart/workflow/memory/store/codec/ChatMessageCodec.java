@@ -0,0 +1,19 @@
+package com.axonivy.utils.smart.workflow.memory.store.codec;
+
+import dev.langchain4j.data.message.ChatMessage;
+
+/**
+ * Text representation of a chat message as it is stored in the business data repository.
+ */
+public interface ChatMessageCodec {
+
+  String encode(String memoryId, ChatMessage message);
+
+  ChatMessage decode(String memoryId, String encoded);
+
+  /**
+   * Deletes what the codec stored beside the messages of the memory, e.g. their attachments.
+   */
+  default void delete(String memoryId) {}
+
+}
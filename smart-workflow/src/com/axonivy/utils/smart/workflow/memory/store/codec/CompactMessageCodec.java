@@ -0,0 +1,145 @@
+package com.axonivy.utils.smart.workflow.memory.store.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+
+/**
+ * Stores messages as deflate compressed JSON, with large binary contents moved to an {@link AttachmentStore}.
+ * <p>
+ * An encoded message starts with a header of the schema version and the payload kind: {@code sw1z:} for
+ * base64 of the compressed JSON, {@code sw1j:} for plain JSON, which is used when compression does not pay
+ * off for short messages. Base64 data of images, PDFs and other media ({@code base64Data}) is replaced by the
+ * hash of the data, so that a document attached to many turns of a memory is stored once; the attachments are
+ * deleted with the memory. Messages written as plain JSON by earlier versions are read as they are.
+ */
+public class CompactMessageCodec implements ChatMessageCodec {
+
+  static final int VERSION = 1;
+  static final String COMPRESSED = "sw" + VERSION + "z:";
+  static final String PLAIN = "sw" + VERSION + "j:";
+  static final String HASH_PREFIX = "sha256:";
+
+  private static final String BASE64_DATA = "base64Data";
+  private static final int MIN_ATTACHMENT_LENGTH = 1024;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final AttachmentStore attachments;
+
+  public CompactMessageCodec(AttachmentStore attachments) {
+    this.attachments = attachments;
+  }
+
+  @Override
+  public String encode(String memoryId, ChatMessage message) {
+    try {
+      var tree = MAPPER.readTree(ChatMessageSerializer.messageToJson(message));
+      externalize(memoryId, tree);
+      var json = MAPPER.writeValueAsBytes(tree);
+      var compressed = Base64.getEncoder().encodeToString(deflate(json));
+      if (compressed.length() < json.length) {
+        return COMPRESSED + compressed;
+      }
+      return PLAIN + new String(json, StandardCharsets.UTF_8);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to encode " + message.type() + " message", ex);
+    }
+  }
+
+  @Override
+  public ChatMessage decode(String memoryId, String encoded) {
+    if (encoded.startsWith(COMPRESSED)) {
+      var json = inflate(Base64.getDecoder().decode(encoded.substring(COMPRESSED.length())));
+      return fromJson(memoryId, json);
+    }
+    if (encoded.startsWith(PLAIN)) {
+      return fromJson(memoryId, encoded.substring(PLAIN.length()).getBytes(StandardCharsets.UTF_8));
+    }
+    if (encoded.startsWith("sw")) {
+      throw new IllegalStateException("Unsupported chat message encoding '"
+          + StringUtils.substringBefore(encoded, ":") + "'. It was written by a newer version.");
+    }
+    return ChatMessageDeserializer.messageFromJson(encoded); // written before the codec was introduced
+  }
+
+  @Override
+  public void delete(String memoryId) {
+    attachments.delete(memoryId);
+  }
+
+  private ChatMessage fromJson(String memoryId, byte[] json) {
+    try {
+      var tree = MAPPER.readTree(json);
+      internalize(memoryId, tree);
+      return ChatMessageDeserializer.messageFromJson(MAPPER.writeValueAsString(tree));
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to decode chat message", ex);
+    }
+  }
+
+  private void externalize(String memoryId, JsonNode node) {
+    if (node instanceof ObjectNode object) {
+      var data = object.path(BASE64_DATA).asText("");
+      if (data.length() >= MIN_ATTACHMENT_LENGTH) {
+        var hash = HASH_PREFIX + sha256(data);
+        attachments.put(memoryId, hash, data);
+        object.put(BASE64_DATA, hash);
+      }
+    }
+    node.forEach(child -> externalize(memoryId, child));
+  }
+
+  private void internalize(String memoryId, JsonNode node) {
+    if (node instanceof ObjectNode object) {
+      var hash = object.path(BASE64_DATA).asText("");
+      if (hash.startsWith(HASH_PREFIX)) {
+        object.put(BASE64_DATA, attachments.get(memoryId, hash)
+            .orElseThrow(() -> new IllegalStateException("Missing chat message attachment " + hash)));
+      }
+    }
+    node.forEach(child -> internalize(memoryId, child));
+  }
+
+  private static byte[] deflate(byte[] data) throws IOException {
+    var out = new ByteArrayOutputStream(data.length / 2);
+    try (var deflater = new DeflaterOutputStream(out)) {
+      deflater.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] inflate(byte[] data) {
+    try (var inflater = new InflaterInputStream(new ByteArrayInputStream(data))) {
+      return inflater.readAllBytes();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to inflate chat message", ex);
+    }
+  }
+
+  private static String sha256(String value) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+}
@@ -8,8 +8,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
 import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider.ModelOptions;
-import com.axonivy.utils.smart.workflow.spi.internal.SpiLoader;
-import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiRegistry;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import dev.langchain4j.model.chat.ChatModel;
@@ -23,7 +22,7 @@ public class ChatModelFactory {
   }
 
   public static ChatModel createModel(ModelOptions modelOptions, String providerName) {
-    return getProviderOrDefault(providerName).setup(modelOptions);
+    return ChatModelPool.get(getProviderOrDefault(providerName), modelOptions);
   }
 
   public static ChatModelProvider getProviderOrDefault(String providerName) {
@@ -41,7 +40,6 @@ public class ChatModelFactory {
   }
 
   public static Set<ChatModelProvider> providers() {
-    var pmv = SpiProject.getSmartWorkflowPmv(); // TODO: caching?
-    return new SpiLoader(pmv).load(ChatModelProvider.class);
+    return SpiRegistry.load(ChatModelProvider.class);
   }
 }
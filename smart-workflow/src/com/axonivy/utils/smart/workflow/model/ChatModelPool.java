@@ -0,0 +1,107 @@
+package com.axonivy.utils.smart.workflow.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider.ModelOptions;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectCache;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectScope;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+
+import ch.ivyteam.ivy.application.project.Project;
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.vars.Variable;
+import dev.langchain4j.model.chat.ChatModel;
+
+/**
+ * Shares the {@link ChatModel} instances built by a {@link ChatModelProvider}, so that agent calls and
+ * guardrails do not set up a new model and HTTP client on every call.
+ * <p>
+ * Models are pooled per provider, model name, structured output and tools flag. A pooled model is
+ * rebuilt once one of its provider's {@link ChatModelProvider#modelVars()} changes. A (re-)deployment of the
+ * Smart Workflow PMV or a project depending on it, e.g. a provider, discards the whole pool within a
+ * {@link ProjectScope#CHECK_INTERVAL}, so that no model of an old deployment is served or keeps its class loader
+ * alive. Models are built outside of the pool's map, so that a slow setup does not block other lookups; if
+ * concurrent calls build the same model, the first one published is shared. Models with {@link ModelOptions#listeners()}
+ * are never pooled, as these listeners are bound when the model is built; per call listeners belong to the
+ * AI service instead.
+ */
+public class ChatModelPool {
+
+  private static final ProjectCache<Pool> POOL = new ProjectCache<>();
+
+  record Key(String provider, String modelName, boolean structuredOutput, boolean hasTools) {}
+
+  private record Pooled(List<String> variables, ChatModel model) {}
+
+  private ChatModelPool() {}
+
+  public static ChatModel get(ChatModelProvider provider, ModelOptions options) {
+    if (options.listeners() != null && !options.listeners().isEmpty()) {
+      return provider.setup(options);
+    }
+    var key = new Key(provider.name(), StringUtils.defaultString(options.modelName()),
+        options.structuredOutput(), options.hasTools());
+    var variables = variables(provider);
+    var models = pool().models;
+    var pooled = models.get(key);
+    if (pooled != null && pooled.variables().equals(variables)) {
+      return pooled.model();
+    }
+    var built = new Pooled(variables, provider.setup(options));
+    var published = pooled == null ? models.putIfAbsent(key, built) : replace(models, key, pooled, built);
+    return published == null ? built.model() : published.model();
+  }
+
+  /**
+   * @return the model published by a concurrent call for the same variables instead, or null if the built one
+   * was published.
+   */
+  private static Pooled replace(Map<Key, Pooled> models, Key key, Pooled stale, Pooled built) {
+    if (models.replace(key, stale, built)) {
+      return null;
+    }
+    var current = models.get(key);
+    return current != null && current.variables().equals(built.variables()) ? current : null;
+  }
+
+  public static void invalidate() {
+    POOL.invalidate();
+  }
+
+  private static Pool pool() {
+    var pmv = SpiProject.getSmartWorkflowPmv();
+    var pool = POOL.get(pmv, Pool::new);
+    if (!pool.scope.isCurrent(pmv::allDependentProjects)) {
+      POOL.invalidate(pmv);
+      pool = POOL.get(pmv, Pool::new);
+    }
+    return pool;
+  }
+
+  /**
+   * Reads the variables of the application once, rather than looking each one up.
+   */
+  private static List<String> variables(ChatModelProvider provider) {
+    var values = Ivy.var().all().stream()
+        .collect(Collectors.toMap(Variable::name, Variable::value, (first, _) -> first));
+    return provider.modelVars().stream()
+        .map(name -> name + "=" + values.get(name))
+        .toList();
+  }
+
+  private static final class Pool {
+
+    private final ProjectScope scope;
+    private final Map<Key, Pooled> models = new ConcurrentHashMap<>();
+
+    private Pool(Project pmv) {
+      this.scope = ProjectScope.of(pmv.allDependentProjects());
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.axonivy.utils.smart.workflow.model.cache;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Token usage of a response served by the {@link ResponseCache}: no tokens were consumed.
+ */
+public class CachedTokenUsage extends TokenUsage {
+
+  public CachedTokenUsage() {
+    super(0, 0, 0);
+  }
+
+  public static boolean isCacheHit(ChatResponse response) {
+    return response != null && response.tokenUsage() instanceof CachedTokenUsage;
+  }
+}
@@ -0,0 +1,65 @@
+package com.axonivy.utils.smart.workflow.model.cache;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+/**
+ * Serves identical deterministic requests from the {@link ResponseCache}, before they reach the provider.
+ * Listeners of the wrapped model are only notified for requests that are actually sent.
+ */
+public class CachingChatModel implements ChatModel {
+
+  private final ChatModel delegate;
+  private final String provider;
+  private final Function<ChatRequestParameters, Optional<Integer>> seed;
+  private final ResponseCache cache;
+
+  CachingChatModel(ChatModel delegate, String provider, ResponseCache cache) {
+    this(delegate, provider, _ -> Optional.empty(), cache);
+  }
+
+  CachingChatModel(ChatModel delegate, String provider, Function<ChatRequestParameters, Optional<Integer>> seed,
+      ResponseCache cache) {
+    this.delegate = delegate;
+    this.provider = provider;
+    this.seed = seed;
+    this.cache = cache;
+  }
+
+  @Override
+  public ChatResponse doChat(ChatRequest request) {
+    var requestSeed = seed.apply(request.parameters());
+    if (!ResponseCache.isDeterministic(request, requestSeed)) {
+      return delegate.chat(request);
+    }
+    var key = ResponseCache.key(provider, request, requestSeed);
+    return cache.get(key).orElseGet(() -> {
+      var response = delegate.chat(request);
+      cache.put(key, provider, response);
+      return response;
+    });
+  }
+
+  @Override
+  public ChatRequestParameters defaultRequestParameters() {
+    return delegate.defaultRequestParameters();
+  }
+
+  @Override
+  public Set<Capability> supportedCapabilities() {
+    return delegate.supportedCapabilities();
+  }
+
+  @Override
+  public ModelProvider provider() {
+    return delegate.provider();
+  }
+}
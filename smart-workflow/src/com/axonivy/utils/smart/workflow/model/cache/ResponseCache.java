@@ -0,0 +1,191 @@
+package com.axonivy.utils.smart.workflow.model.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.axonivy.utils.smart.workflow.model.cache.internal.PersistentResponseCache;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+/**
+ * Exact-match cache for deterministic chat requests.
+ * <p>
+ * Requests are keyed by provider, model, sampling parameters, response format, tool definitions and the
+ * complete message history. An LRU tier in memory answers first; the optional persistent tier in the
+ * business repository survives restarts and is shared within a cluster. Served responses carry a
+ * {@link CachedTokenUsage}, so that history and tracing report them as cache hits without token costs.
+ */
+public class ResponseCache {
+
+  public interface CacheConf {
+    String PREFIX = "AI.Cache.";
+    String ENABLED = PREFIX + "Enabled";
+    String TTL_SECONDS = PREFIX + "TtlSeconds";
+    String MAX_ENTRIES = PREFIX + "MaxEntries";
+    String PERSISTENT = PREFIX + "Persistent";
+  }
+
+  private static final int DEFAULT_TTL_SECONDS = 3600;
+  private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private static volatile ResponseCache instance;
+
+  record Settings(long ttlMillis, int maxEntries, boolean persistent) {
+    static Settings fromIvyVar() {
+      return new Settings(
+          IvyVar.integer(CacheConf.TTL_SECONDS, DEFAULT_TTL_SECONDS) * 1000L,
+          Math.max(1, IvyVar.integer(CacheConf.MAX_ENTRIES, DEFAULT_MAX_ENTRIES)),
+          IvyVar.bool(CacheConf.PERSISTENT));
+    }
+  }
+
+  private record Entry(ChatResponse response, long expiresAt) {}
+
+  private final Settings settings;
+  private final Map<String, Entry> memory;
+
+  ResponseCache(Settings settings) {
+    this.settings = settings;
+    this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > settings.maxEntries();
+      }
+    };
+  }
+
+  /**
+   * @return the model, answering from the cache if it is enabled by {@link CacheConf#ENABLED}.
+   */
+  public static ChatModel wrap(ChatModelProvider provider, ChatModel model) {
+    if (!IvyVar.bool(CacheConf.ENABLED)) {
+      return model;
+    }
+    return new CachingChatModel(model, provider.name(), provider::seed, current());
+  }
+
+  private static ResponseCache current() {
+    var settings = Settings.fromIvyVar();
+    var cache = instance;
+    if (cache == null || !cache.settings.equals(settings)) {
+      synchronized (ResponseCache.class) {
+        cache = instance;
+        if (cache == null || !cache.settings.equals(settings)) {
+          cache = new ResponseCache(settings);
+          instance = cache;
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Only requests with an explicit temperature of zero or a fixed seed are answered twice the same way.
+   * Without a temperature, the provider samples with its own default.
+   */
+  static boolean isDeterministic(ChatRequest request, Optional<Integer> seed) {
+    var temperature = request.parameters().temperature();
+    return (temperature != null && temperature == 0.0) || seed.isPresent();
+  }
+
+  static String key(String provider, ChatRequest request) {
+    return key(provider, request, Optional.empty());
+  }
+
+  static String key(String provider, ChatRequest request, Optional<Integer> seed) {
+    var params = request.parameters();
+    var tools = Optional.ofNullable(params.toolSpecifications()).orElse(List.of()).stream()
+        .sorted(Comparator.comparing(ToolSpecification::name))
+        .map(Objects::toString)
+        .toList();
+    var canonical = String.join("\n",
+        provider,
+        params.modelName(),
+        Objects.toString(params.temperature()),
+        Objects.toString(seed.orElse(null)),
+        Objects.toString(params.topP()),
+        Objects.toString(params.maxOutputTokens()),
+        Objects.toString(params.responseFormat()),
+        Objects.toString(params.toolChoice()),
+        String.join("\n", tools),
+        ChatMessageSerializer.messagesToJson(request.messages()));
+    return sha256(canonical);
+  }
+
+  Optional<ChatResponse> get(String key) {
+    long now = System.currentTimeMillis();
+    synchronized (memory) {
+      var entry = memory.get(key);
+      if (entry != null) {
+        if (entry.expiresAt() > now) {
+          return Optional.of(entry.response());
+        }
+        memory.remove(key);
+      }
+    }
+    if (!settings.persistent()) {
+      return Optional.empty();
+    }
+    var stored = PersistentResponseCache.find(key, now - settings.ttlMillis());
+    stored.ifPresent(entry -> remember(key, entry.response(), entry.createdAt() + settings.ttlMillis()));
+    return stored.map(PersistentResponseCache.Stored::response);
+  }
+
+  void put(String key, String provider, ChatResponse response) {
+    if (response == null || response.aiMessage() == null) {
+      return;
+    }
+    var cached = ChatResponse.builder()
+        .aiMessage(response.aiMessage())
+        .id(response.id())
+        .modelName(response.modelName())
+        .finishReason(response.finishReason())
+        .tokenUsage(new CachedTokenUsage())
+        .build();
+    long now = System.currentTimeMillis();
+    remember(key, cached, now + settings.ttlMillis());
+    if (settings.persistent()) {
+      try {
+        PersistentResponseCache.store(key, provider, cached, now);
+      } catch (Exception ex) {
+        Ivy.log().warn("Failed to persist cached response of " + provider, ex);
+      }
+    }
+  }
+
+  private void remember(String key, ChatResponse response, long expiresAt) {
+    synchronized (memory) {
+      memory.put(key, new Entry(response, expiresAt));
+    }
+  }
+
+  private static String sha256(String value) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+      var hex = new StringBuilder();
+      for (byte b : hash) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+}
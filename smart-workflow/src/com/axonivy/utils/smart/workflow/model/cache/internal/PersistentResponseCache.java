@@ -0,0 +1,79 @@
+package com.axonivy.utils.smart.workflow.model.cache.internal;
+
+import java.util.Optional;
+
+import com.axonivy.utils.smart.workflow.model.cache.CachedTokenUsage;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ch.ivyteam.ivy.environment.Ivy;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+
+/**
+ * Business data tier of the response cache; entries are stored under their request key.
+ */
+public class PersistentResponseCache {
+
+  private PersistentResponseCache() {}
+
+  public record Stored(ChatResponse response, long createdAt) {}
+
+  public static Optional<Stored> find(String key, long notBefore) {
+    var entry = Ivy.repo().find(key, CachedResponse.class);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (entry.createdAt < notBefore) {
+      Ivy.repo().deleteById(key);
+      return Optional.empty();
+    }
+    return Optional.of(new Stored(entry.read(), entry.createdAt));
+  }
+
+  public static void store(String key, String provider, ChatResponse response, long createdAt) {
+    Ivy.repo().save(CachedResponse.of(key, provider, response, createdAt));
+  }
+
+  static class CachedResponse {
+
+    public String id;
+    public String provider;
+    public String modelName;
+    public String responseId;
+    public String finishReason;
+    public String aiMessage;
+    public long createdAt;
+
+    CachedResponse(@JsonProperty("id") String id, @JsonProperty("provider") String provider,
+        @JsonProperty("modelName") String modelName, @JsonProperty("responseId") String responseId,
+        @JsonProperty("finishReason") String finishReason, @JsonProperty("aiMessage") String aiMessage,
+        @JsonProperty("createdAt") long createdAt) {
+      this.id = id;
+      this.provider = provider;
+      this.modelName = modelName;
+      this.responseId = responseId;
+      this.finishReason = finishReason;
+      this.aiMessage = aiMessage;
+      this.createdAt = createdAt;
+    }
+
+    static CachedResponse of(String key, String provider, ChatResponse response, long createdAt) {
+      var finishReason = response.finishReason() == null ? null : response.finishReason().name();
+      return new CachedResponse(key, provider, response.modelName(), response.id(), finishReason,
+          ChatMessageSerializer.messageToJson(response.aiMessage()), createdAt);
+    }
+
+    ChatResponse read() {
+      return ChatResponse.builder()
+          .aiMessage((AiMessage) ChatMessageDeserializer.messageFromJson(aiMessage))
+          .id(responseId)
+          .modelName(modelName)
+          .finishReason(finishReason == null ? null : FinishReason.valueOf(finishReason))
+          .tokenUsage(new CachedTokenUsage())
+          .build();
+    }
+  }
+}
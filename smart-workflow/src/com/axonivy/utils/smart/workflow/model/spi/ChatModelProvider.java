@@ -3,9 +3,13 @@ package com.axonivy.utils.smart.workflow.model.spi;
 import java.util.List;
 import java.util.Optional;
 
+import dev.langchain4j.model.TokenCountEstimator;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.TokenUsage;
 
 public interface ChatModelProvider {
 
@@ -14,6 +18,14 @@ public interface ChatModelProvider {
   List<String> models();
   List<String> secretsVars();
 
+  /**
+   * Variables the chat models of this provider are built from, e.g. endpoint, API key and default model.
+   * A pooled model is rebuilt once the value of one of them changes.
+   */
+  default List<String> modelVars() {
+    return secretsVars();
+  }
+
   public static record ModelOptions(
       String modelName,
       boolean structuredOutput,
@@ -64,6 +76,37 @@ public interface ChatModelProvider {
     }
   }
 
+  /**
+   * Streaming variant of {@link #setup(ModelOptions)}, which emits the response token by token.
+   * Providers that can not stream keep the default and are called through the blocking {@link ChatModel}.
+   */
+  default Optional<StreamingChatModel> setupStreaming(ModelOptions options) {
+    return Optional.empty();
+  }
+
+  /**
+   * Input tokens of a response that the provider read from its prompt cache, if it reports them.
+   */
+  default Optional<Integer> cachedInputTokens(TokenUsage usage) {
+    return Optional.empty();
+  }
+
+  /**
+   * Sampling seed of a request, if the provider supports one. A request with a fixed seed is answered
+   * reproducibly and may be served from the {@code ResponseCache}.
+   */
+  default Optional<Integer> seed(ChatRequestParameters parameters) {
+    return Optional.empty();
+  }
+
+  /**
+   * Local tokenizer of the model, used to keep the conversation within {@code AI.Memory.MaxTokens}.
+   * Providers without one keep the default and are estimated by the length of the messages.
+   */
+  default Optional<TokenCountEstimator> tokenCountEstimator(String modelName) {
+    return Optional.empty();
+  }
+
   default boolean supportsEmbedding() {
     return false;
   }
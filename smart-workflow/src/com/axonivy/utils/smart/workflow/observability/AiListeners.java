@@ -19,7 +19,7 @@ public class AiListeners {
   private static List<AiListenerProvider> providers(ListenerCtxt ctxt) {
     return List.of(
       new CustomFieldTrackingListener(), 
-      new ChatHistoryListener(ctxt.agentName()),
+      new ChatHistoryListener(ctxt.agentName(), ctxt.provider().name()),
       new OpenInferenceTracing(ctxt.provider().name(), ctxt.provider().model())
     );
   }
@@ -5,12 +5,15 @@ import java.util.List;
 import java.util.Map;
 
 import com.arize.semconv.trace.SemanticConventions;
+import com.axonivy.utils.smart.workflow.model.cache.CachedTokenUsage;
 
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.model.chat.response.ChatResponse;
 
 class ResponseRecorder {
 
+  static final String CACHE_HIT = "llm.response.cache_hit";
+
   private final Map<String, Object> attributes = new LinkedHashMap<>();
 
   public Map<String, Object> handleResponse(ChatResponse response, boolean hideOutput) {
@@ -25,6 +28,9 @@ class ResponseRecorder {
     }
 
     tokenUsage(response);
+    if (CachedTokenUsage.isCacheHit(response)) {
+      attributes.put(CACHE_HIT, true);
+    }
     return attributes;
   }
 
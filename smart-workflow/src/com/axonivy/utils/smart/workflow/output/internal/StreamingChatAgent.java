@@ -0,0 +1,14 @@
+package com.axonivy.utils.smart.workflow.output.internal;
+
+import java.util.List;
+
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.UserMessage;
+
+/**
+ * Plain text agent, that emits its response token by token.
+ */
+public interface StreamingChatAgent {
+  TokenStream chat(@UserMessage List<Content> query);
+}
@@ -0,0 +1,91 @@
+package com.axonivy.utils.smart.workflow.program.internal;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abort state of a single agent execution, bound to the threads working on it.
+ * <p>
+ * Loops check {@link #throwIfAborted()} before every step; blocking steps register a hook via
+ * {@link #onAbort(Runnable)} so that they release the waiting thread as soon as the execution is aborted.
+ */
+public class AbortSignal {
+
+  private static final AbortSignal NONE = new AbortSignal();
+  private static final ThreadLocal<AbortSignal> CURRENT = new ThreadLocal<>();
+
+  private final Set<Runnable> hooks = ConcurrentHashMap.newKeySet();
+  private volatile boolean aborted;
+
+  /**
+   * @return the signal of the agent execution running on this thread; or a signal that never aborts.
+   */
+  public static AbortSignal current() {
+    return Objects.requireNonNullElse(CURRENT.get(), NONE);
+  }
+
+  public boolean isAbortable() {
+    return this != NONE;
+  }
+
+  public boolean isAborted() {
+    return aborted;
+  }
+
+  public void run(Runnable work) {
+    var previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      work.run();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  public void abort() {
+    aborted = true;
+    for (var hook : hooks) {
+      try {
+        hook.run();
+      } catch (RuntimeException ex) {
+        // best effort: remaining hooks must still release their waiting threads
+      }
+    }
+  }
+
+  public void throwIfAborted() {
+    if (aborted) {
+      throw new AbortedException();
+    }
+  }
+
+  /**
+   * @return a registration to remove the hook again, once the guarded step completed.
+   */
+  public Registration onAbort(Runnable hook) {
+    hooks.add(hook);
+    if (aborted) {
+      hook.run();
+    }
+    return () -> hooks.remove(hook);
+  }
+
+  public interface Registration extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  public static class AbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AbortedException() {
+      super("Agent execution was aborted");
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.axonivy.utils.smart.workflow.program.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.axonivy.utils.smart.workflow.model.ChatModelFactory;
+import com.axonivy.utils.smart.workflow.model.ChatModelFactory.AiConf;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectCache;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectScope;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+import com.axonivy.utils.smart.workflow.tools.provider.IvySubProcessToolsProvider;
+import com.axonivy.utils.smart.workflow.tools.provider.SmartWorkflowToolsProvider;
+
+import ch.ivyteam.ivy.application.project.Project;
+import ch.ivyteam.ivy.environment.Ivy;
+import ch.ivyteam.ivy.process.program.exec.ProgramContext;
+import dev.langchain4j.service.tool.AiServiceTool;
+import dev.langchain4j.service.tool.ToolProviderResult;
+
+/**
+ * The immutable part of an agent call: the provider and tools derived from the element configuration.
+ * It is compiled once per configuration and deployment, so that an execution only binds its per-call
+ * state (memory, query, system message, guardrails and listeners).
+ * <p>
+ * Guardrails are not part of the blueprint: their instances may hold state of a call or read
+ * variables, so they are collected for every call.
+ */
+public record AgentBlueprint(
+    ChatModelProvider provider,
+    List<String> toolFilter,
+    ToolProviderResult tools) {
+
+  private static final ProjectCache<Blueprints> CACHE = new ProjectCache<>();
+
+  /**
+   * Everything a blueprint is compiled from: the element configuration, plus the variable that
+   * acts as default for an empty configuration.
+   */
+  record Key(
+      List<String> provider,
+      List<String> tools,
+      String defaultProvider) {
+
+    static Key of(ProgramContext context) {
+      var config = context.config();
+      return new Key(
+          config.getList(Conf.PROVIDER),
+          config.getList(Conf.TOOLS),
+          Ivy.var().get(AiConf.DEFAULT_PROVIDER));
+    }
+  }
+
+  /**
+   * The blueprints of a project. They are discarded once any project their provider and tools may come
+   * from is (re-)deployed, so that old class loaders are not served or pinned. These projects are compared
+   * at most once per {@link ProjectScope#CHECK_INTERVAL}, not on every call.
+   */
+  private static final class Blueprints {
+
+    private final ProjectScope scope;
+    private final Map<Key, AgentBlueprint> compiled = new ConcurrentHashMap<>();
+
+    private Blueprints(Project pmv) {
+      this.scope = ProjectScope.of(inScope(pmv));
+    }
+
+    /**
+     * @return the project with the projects it requires, which contribute sub process tools, and the
+     * projects that depend on Smart Workflow, which contribute providers and tools.
+     */
+    private static Stream<Project> inScope(Project pmv) {
+      return Stream.of(Stream.of(pmv), pmv.allRequiredProjects(),
+          SpiProject.getSmartWorkflowPmv().allDependentProjects())
+          .flatMap(projects -> projects);
+    }
+  }
+
+  public static AgentBlueprint of(ProgramContext context) {
+    var key = Key.of(context);
+    var pmv = Project.current();
+    var blueprints = CACHE.get(pmv, Blueprints::new);
+    if (!blueprints.scope.isCurrent(() -> Blueprints.inScope(pmv))) {
+      CACHE.invalidate(pmv);
+      blueprints = CACHE.get(pmv, Blueprints::new);
+    }
+    return blueprints.compiled.computeIfAbsent(key, AgentBlueprint::compile);
+  }
+
+  public boolean hasTools() {
+    return toolFilter != null && !toolFilter.isEmpty();
+  }
+
+  private static AgentBlueprint compile(Key key) {
+    var provider = ChatModelFactory.getProviderOrDefault(configuredProvider(key.provider()));
+    return new AgentBlueprint(provider, key.tools(), tools(key.tools()));
+  }
+
+  private static ToolProviderResult tools(List<String> toolFilter) {
+    var ivyTools = new ToolProviderResult(new IvySubProcessToolsProvider().filtering(toolFilter).tools());
+    List<AiServiceTool> all = new ArrayList<>(ivyTools.aiServiceTools());
+    all.addAll(SmartWorkflowToolsProvider.provideTools(toolFilter).aiServiceTools());
+    return new ToolProviderResult(all);
+  }
+
+  private static String configuredProvider(List<String> providerConfig) {
+    if (providerConfig == null || providerConfig.isEmpty()) {
+      return null;
+    }
+    if (providerConfig.size() > 1) {
+      Ivy.log().warn("Only one provider is allowed. Will use " + providerConfig.get(0) + ", and ignore other from: " + providerConfig);
+    }
+    return providerConfig.get(0);
+  }
+}
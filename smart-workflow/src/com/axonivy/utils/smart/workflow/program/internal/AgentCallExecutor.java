@@ -2,9 +2,11 @@ package com.axonivy.utils.smart.workflow.program.internal;
 
 import static com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider.ModelOptions.options;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.apache.commons.lang3.StringUtils;
@@ -12,18 +14,23 @@ import org.apache.commons.lang3.StringUtils;
 import com.axonivy.utils.smart.workflow.guardrails.GuardrailCollector;
 import com.axonivy.utils.smart.workflow.guardrails.GuardrailErrors;
 import com.axonivy.utils.smart.workflow.memory.IvyMemory;
+import com.axonivy.utils.smart.workflow.memory.compaction.CharacterTokenCountEstimator;
+import com.axonivy.utils.smart.workflow.memory.compaction.MemoryCompactor;
+import com.axonivy.utils.smart.workflow.memory.compaction.MemoryPolicy;
 import com.axonivy.utils.smart.workflow.memory.id.IdStore;
 import com.axonivy.utils.smart.workflow.memory.id.ProcessDataField;
 import com.axonivy.utils.smart.workflow.memory.store.IvyVolatileStore;
-import com.axonivy.utils.smart.workflow.model.ChatModelFactory;
+import com.axonivy.utils.smart.workflow.model.ChatModelPool;
+import com.axonivy.utils.smart.workflow.model.cache.ResponseCache;
+import com.axonivy.utils.smart.workflow.model.spi.ChatModelProvider.ModelOptions;
 import com.axonivy.utils.smart.workflow.observability.AiListeners;
 import com.axonivy.utils.smart.workflow.observability.AiListeners.AiProvider;
 import com.axonivy.utils.smart.workflow.observability.AiListeners.ListenerCtxt;
 import com.axonivy.utils.smart.workflow.output.DynamicAgent;
+import com.axonivy.utils.smart.workflow.output.internal.StreamingChatAgent;
 import com.axonivy.utils.smart.workflow.output.internal.StructuredOutputAgent;
 import com.axonivy.utils.smart.workflow.tools.human.internal.HumanInTheLoop;
-import com.axonivy.utils.smart.workflow.tools.provider.IvySubProcessToolsProvider;
-import com.axonivy.utils.smart.workflow.tools.provider.SmartWorkflowToolsProvider;
+import com.axonivy.utils.smart.workflow.tools.internal.ParallelToolExecutor;
 
 import ch.ivyteam.ivy.environment.Ivy;
 import ch.ivyteam.ivy.process.program.exec.ProgramContext;
@@ -31,11 +38,10 @@ import dev.langchain4j.data.message.Content;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.guardrail.InputGuardrailException;
 import dev.langchain4j.guardrail.OutputGuardrailException;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.service.AiServices;
 import dev.langchain4j.service.memory.ChatMemoryService;
-import dev.langchain4j.service.tool.AiServiceTool;
-import dev.langchain4j.service.tool.ToolProvider;
-import dev.langchain4j.service.tool.ToolProviderResult;
 import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 
 public class AgentCallExecutor {
@@ -69,19 +75,27 @@ public class AgentCallExecutor {
       agentType = StructuredOutputAgent.agent(structured.get());
     }
 
-    var agentBuilder = AiServices.builder(agentType);
-    var memory = configureMemory(agentBuilder);
+    var blueprint = AgentBlueprint.of(context);
+    var modelOptions = modelOptions(blueprint, structured.isPresent());
+    var streaming = streamingModel(blueprint, modelOptions, structured.isPresent());
+    AiServices<?> agentBuilder = streaming.isPresent()
+        ? AiServices.builder(StreamingChatAgent.class)
+        : AiServices.builder(agentType);
+    var memory = configureMemory(agentBuilder, blueprint, modelOptions);
     var human = configureHumanInTheLoop(memory, agentBuilder);
-    var toolFilter = context.config().getList(Conf.TOOLS);
-    configureModel(agentBuilder, structured.isPresent(), toolFilter);
-    configureToolProvider(agentBuilder, toolFilter);
+    configureModel(agentBuilder, blueprint, modelOptions, streaming.map(StreamingModel::model));
+    configureToolProvider(agentBuilder, blueprint);
     configureGuardrails(agentBuilder);
     configureSystemMessage(human, agentBuilder);
     var agent = agentBuilder.build();
 
     try {
       List<Content> contents = human.userMessage(query.get().contents());
-      Object result = agent.chat(contents);
+      Object result = switch (agent) {
+        case StreamingChatAgent streamingAgent -> stream(streamingAgent, contents, streaming.get().partials());
+        case DynamicAgent<?> dynamicAgent -> dynamicAgent.chat(contents);
+        default -> throw new IllegalStateException("Unsupported agent " + agent);
+      };
       var mapTo = context.config().get(Conf.MAP_TO);
       if (mapTo != null) {
         String mapIt = mapTo + "=result";
@@ -96,6 +110,45 @@ public class AgentCallExecutor {
     }
   }
 
+  private record StreamingModel(StreamingChatModel model, Consumer<String> partials) {}
+
+  @SuppressWarnings("unchecked")
+  private Optional<StreamingModel> streamingModel(AgentBlueprint blueprint, ModelOptions modelOptions, boolean structured) {
+    var partials = execute(Conf.STREAM_TO, Consumer.class);
+    if (partials.isEmpty()) {
+      return Optional.empty();
+    }
+    if (structured) {
+      Ivy.log().info("Streaming is not supported for structured results. Will wait for the complete response.");
+      return Optional.empty();
+    }
+    var provider = blueprint.provider();
+    var model = provider.setupStreaming(modelOptions);
+    if (model.isEmpty()) {
+      Ivy.log().info("Provider " + provider.name() + " does not support streaming. Will wait for the complete response.");
+      return Optional.empty();
+    }
+    return Optional.of(new StreamingModel(model.get(), (Consumer<String>) partials.get()));
+  }
+
+  private static String stream(StreamingChatAgent agent, List<Content> contents, Consumer<String> partials) {
+    var response = new CompletableFuture<ChatResponse>();
+    agent.chat(contents)
+        .onPartialResponse(partials)
+        .onCompleteResponse(response::complete)
+        .onError(response::completeExceptionally)
+        .start();
+    try {
+      return response.join().aiMessage().text();
+    } catch (CompletionException ex) {
+      AbortSignal.current().throwIfAborted();
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new RuntimeException("Streaming agent call failed", ex.getCause());
+    }
+  }
+
   private <T> Optional<T> execute(String configKey, Class<T> returnType) {
     var value = Optional.ofNullable(context.config().get(configKey))
         .filter(Predicate.not(String::isBlank));
@@ -110,7 +163,7 @@ public class AgentCallExecutor {
     }
   }
 
-  private void configureSystemMessage(HumanInTheLoop human, AiServices<? extends DynamicAgent<?>> agentBuilder) {
+  private void configureSystemMessage(HumanInTheLoop human, AiServices<?> agentBuilder) {
     if (human.isRestoredConversion()) {
       return; // keep system message from initial conversion
     }
@@ -120,59 +173,57 @@ public class AgentCallExecutor {
     }
   }
 
-  private MemoryContext configureMemory(AiServices<? extends DynamicAgent<?>> agentBuilder) {
+  private MemoryContext configureMemory(AiServices<?> agentBuilder, AgentBlueprint blueprint, ModelOptions modelOptions) {
+    var provider = blueprint.provider();
+    var compactor = MemoryCompactor.of(MemoryPolicy.fromIvyVar(),
+        provider.tokenCountEstimator(modelOptions.modelName()).orElseGet(CharacterTokenCountEstimator::new),
+        () -> ChatModelPool.get(provider, options().modelName(modelOptions.modelName())));
     var store = new IvyVolatileStore();
-    var memory = new IvyMemory(ChatMemoryService.DEFAULT, store);
+    var memory = new IvyMemory(ChatMemoryService.DEFAULT, store, compactor.orElse(null));
     agentBuilder.chatMemory(memory);
-    return new MemoryContext(new ProcessDataField(context.script()), store);
+    return new MemoryContext(new ProcessDataField(context.script()), store, memory);
   }
 
-  private record MemoryContext(IdStore memoryId, ChatMemoryStore store) {}
+  private record MemoryContext(IdStore memoryId, ChatMemoryStore store, IvyMemory memory) {}
 
-  private HumanInTheLoop configureHumanInTheLoop(MemoryContext memory, AiServices<? extends DynamicAgent<?>> agentBuilder) {
-    HumanInTheLoop humanInTheLoop = new HumanInTheLoop(memory.memoryId, memory.store);
+  private HumanInTheLoop configureHumanInTheLoop(MemoryContext memory, AiServices<?> agentBuilder) {
+    HumanInTheLoop humanInTheLoop = new HumanInTheLoop(memory.memoryId, memory.store, memory.memory::persistable);
     agentBuilder.registerListeners(humanInTheLoop.provide());
     return humanInTheLoop;
   }
 
-  private void configureModel(AiServices<? extends DynamicAgent<?>> agentBuilder, boolean structured, List<String> toolFilter) {
-    var provider = ChatModelFactory.getProviderOrDefault(configuredProvider());
+  private ModelOptions modelOptions(AgentBlueprint blueprint, boolean structured) {
     var model = execute(Conf.MODEL, String.class).orElse(StringUtils.EMPTY);
-    var agentName = context.element().name();
-    var modelOptions = options()
+    return options()
         .modelName(model)
         .structuredOutput(structured)
-        .hasTools(toolFilter != null && !toolFilter.isEmpty());
-    var chatModel = provider.setup(modelOptions);
-    agentBuilder.chatModel(chatModel);
-    var modelName = chatModel.defaultRequestParameters().modelName();
-    AiListeners.create(new ListenerCtxt(new AiProvider(provider.name(), modelName), agentName))
-        .forEach(agentBuilder::registerListener);
+        .hasTools(blueprint.hasTools());
   }
 
-  private String configuredProvider() {
-    String providerName = null;
-    List<String> providerConfig = context.config().getList(Conf.PROVIDER);
-    if (!providerConfig.isEmpty()) {
-      providerName = providerConfig.get(0);
-      if (providerConfig.size() > 1) {
-        Ivy.log().warn("Only one provider is allowed. Will use " + providerConfig.get(0) + ", and ignore other from: " + providerConfig);
-      }
+  private void configureModel(AiServices<?> agentBuilder, AgentBlueprint blueprint, ModelOptions modelOptions,
+      Optional<StreamingChatModel> streaming) {
+    var provider = blueprint.provider();
+    var agentName = context.element().name();
+    String modelName;
+    if (streaming.isPresent()) {
+      agentBuilder.streamingChatModel(streaming.get());
+      modelName = streaming.get().defaultRequestParameters().modelName();
+    } else {
+      var chatModel = ResponseCache.wrap(provider, ChatModelPool.get(provider, modelOptions));
+      agentBuilder.chatModel(chatModel);
+      modelName = chatModel.defaultRequestParameters().modelName();
     }
-    return providerName;
+    AiListeners.create(new ListenerCtxt(new AiProvider(provider.name(), modelName), agentName))
+        .forEach(agentBuilder::registerListener);
   }
 
-  private void configureToolProvider(AiServices<? extends DynamicAgent<?>> agentBuilder, List<String> toolFilter) {
-    ToolProvider ivyTools = new IvySubProcessToolsProvider().filtering(toolFilter);
-    agentBuilder.toolProvider(request -> {
-      List<AiServiceTool> all = new ArrayList<>(ivyTools.provideTools(request).aiServiceTools());
-      all.addAll(SmartWorkflowToolsProvider.provideTools(toolFilter).aiServiceTools());
-      return new ToolProviderResult(all);
-    });
+  private void configureToolProvider(AiServices<?> agentBuilder, AgentBlueprint blueprint) {
+    agentBuilder.toolProvider(_ -> blueprint.tools());
     agentBuilder.toolExecutionErrorHandler(new IvyToolErrorHandler());
+    ParallelToolExecutor.ofCurrentContext().ifPresent(agentBuilder::executeToolsConcurrently);
   }
 
-  private void configureGuardrails(AiServices<? extends DynamicAgent<?>> agentBuilder) {
+  private void configureGuardrails(AiServices<?> agentBuilder) {
     var providers = GuardrailCollector.allProviders();
     var inputGuardrailFilters = context.config().getList(Conf.INPUT_GUARD_RAILS);
     agentBuilder.inputGuardrails(GuardrailCollector.inputGuardrailAdapters(providers, inputGuardrailFilters));
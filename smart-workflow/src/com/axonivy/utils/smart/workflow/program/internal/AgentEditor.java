@@ -1,6 +1,7 @@
 package com.axonivy.utils.smart.workflow.program.internal;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -73,6 +74,11 @@ public class AgentEditor {
           .label("Map result to:")
           .requireType(Object.class)
           .create())
+        .add(ui.scriptField(Conf.STREAM_TO)
+          .label("Stream partial result to:")
+          .help("Optional java.util.function.Consumer<String> that receives the response text while it is generated. Ignored for structured results")
+          .requireType(Consumer.class)
+          .create())
         .create();
   }
 
@@ -0,0 +1,22 @@
+package com.axonivy.utils.smart.workflow.program.internal;
+
+import ch.ivyteam.ivy.process.program.activity.AbortableExecution;
+import ch.ivyteam.ivy.process.program.exec.ProgramContext;
+
+/**
+ * A single run of an agent element, which stops its provider calls and tool loop once the process is aborted.
+ */
+public class AgentExecution implements AbortableExecution {
+
+  private final AbortSignal signal = new AbortSignal();
+
+  @Override
+  public void execute(ProgramContext context) {
+    signal.run(() -> new AgentCallExecutor(context).execute());
+  }
+
+  @Override
+  public void abort() {
+    signal.abort();
+  }
+}
@@ -8,6 +8,7 @@ public interface Conf {
   String PROVIDER = "provider";
   String OUTPUT = "resultType";
   String MAP_TO = "resultMapping";
+  String STREAM_TO = "streamTo";
   String INPUT_GUARD_RAILS = "inputGuardrails";
   String OUTPUT_GUARD_RAILS = "outputGuardrails";
 }
@@ -12,6 +12,9 @@ public class IvyToolErrorHandler implements ToolExecutionErrorHandler {
     if (throwable instanceof BpmError error) {
       throw enrichToolContext(error, context);
     }
+    if (throwable instanceof AbortSignal.AbortedException aborted) {
+      throw aborted; // stop the tool loop; never report an abort back to the model
+    }
     String errorMessage = isNullOrBlank(throwable.getMessage()) ? throwable.getClass().getName() : throwable.getMessage();
     return ToolErrorHandlerResult.text(errorMessage);
   }
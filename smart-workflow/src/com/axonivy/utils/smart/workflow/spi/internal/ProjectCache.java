@@ -0,0 +1,97 @@
+package com.axonivy.utils.smart.workflow.spi.internal;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import ch.ivyteam.ivy.application.project.Project;
+
+/**
+ * Holds one value per deployed project, bound to the class loader of that project.
+ * <p>
+ * A redeployment of a PMV creates a new class loader, so a cached value is never served
+ * for a newer deployment than it was loaded for. Stale entries do not pin old deployments:
+ * class loaders are referenced weakly and values softly, and cleared entries are dropped on
+ * the next load.
+ * <p>
+ * Reads are lock-free on an immutable snapshot; only loads are serialized.
+ */
+public class ProjectCache<V> {
+
+  private volatile Map<LoaderKey, SoftReference<V>> snapshot = Map.of();
+
+  public V get(Project pmv, Function<Project, V> loader) {
+    var key = new LoaderKey(ProjectClassLoader.of(pmv));
+    var cached = value(snapshot.get(key));
+    if (cached != null) {
+      return cached;
+    }
+    return load(pmv, key, loader);
+  }
+
+  private synchronized V load(Project pmv, LoaderKey key, Function<Project, V> loader) {
+    var cached = value(snapshot.get(key));
+    if (cached != null) {
+      return cached;
+    }
+    V loaded = loader.apply(pmv);
+    var next = new HashMap<LoaderKey, SoftReference<V>>();
+    snapshot.forEach((existing, ref) -> {
+      if (existing.get() != null && ref.get() != null) {
+        next.put(existing, ref);
+      }
+    });
+    next.put(key, new SoftReference<>(loaded));
+    snapshot = Map.copyOf(next);
+    return loaded;
+  }
+
+  public synchronized void invalidate() {
+    snapshot = Map.of();
+  }
+
+  /**
+   * Drops the value of the project only, keeping those of other projects.
+   */
+  public synchronized void invalidate(Project pmv) {
+    var key = new LoaderKey(ProjectClassLoader.of(pmv));
+    if (snapshot.containsKey(key)) {
+      var next = new HashMap<>(snapshot);
+      next.remove(key);
+      snapshot = Map.copyOf(next);
+    }
+  }
+
+  private static <V> V value(SoftReference<V> ref) {
+    return ref == null ? null : ref.get();
+  }
+
+  private static final class LoaderKey extends WeakReference<ClassLoader> {
+
+    private final int hash;
+
+    private LoaderKey(ClassLoader loader) {
+      super(loader);
+      this.hash = System.identityHashCode(loader);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof LoaderKey other) {
+        var loader = get();
+        return loader != null && loader == other.get();
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.axonivy.utils.smart.workflow.spi.internal;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import ch.ivyteam.ivy.application.project.Project;
+
+/**
+ * Remembers the class loaders of a group of projects, to detect that any of them was (re-)deployed or
+ * that a project joined or left the group. Class loaders are referenced weakly.
+ * <p>
+ * Walking the projects of the group is too costly for every call, so {@link #isCurrent} compares them at most
+ * once per {@link #CHECK_INTERVAL}: a deployment is noticed by the first call after that interval.
+ */
+public final class ProjectScope {
+
+  public static final Duration CHECK_INTERVAL = Duration.ofSeconds(10);
+
+  private final List<WeakReference<ClassLoader>> loaders;
+  private volatile long checkedNanos = System.nanoTime();
+
+  private ProjectScope(List<WeakReference<ClassLoader>> loaders) {
+    this.loaders = loaders;
+  }
+
+  public static ProjectScope of(Stream<Project> projects) {
+    return new ProjectScope(loaders(projects).stream()
+        .map(WeakReference<ClassLoader>::new)
+        .toList());
+  }
+
+  /**
+   * @param projects the projects of the group, walked only if the last check is older than the
+   * {@link #CHECK_INTERVAL}.
+   * @return false if the group changed since the scope was taken.
+   */
+  public boolean isCurrent(Supplier<Stream<Project>> projects) {
+    long now = System.nanoTime();
+    if (now - checkedNanos < CHECK_INTERVAL.toNanos()) {
+      return true;
+    }
+    if (!matches(projects.get())) {
+      return false;
+    }
+    checkedNanos = now;
+    return true;
+  }
+
+  public boolean matches(Stream<Project> projects) {
+    var current = loaders(projects);
+    return current.size() == loaders.size()
+        && loaders.stream().allMatch(ref -> current.contains(ref.get()));
+  }
+
+  /**
+   * @return the distinct class loaders of the projects; a project may be reached on several paths.
+   */
+  private static Set<ClassLoader> loaders(Stream<Project> projects) {
+    Set<ClassLoader> loaders = Collections.newSetFromMap(new IdentityHashMap<>());
+    projects.map(ProjectClassLoader::of).forEach(loaders::add);
+    return loaders;
+  }
+}
@@ -0,0 +1,53 @@
+package com.axonivy.utils.smart.workflow.spi.internal;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ch.ivyteam.ivy.application.project.Project;
+
+/**
+ * Process wide registry of the service implementations found by the {@link SpiLoader}.
+ * <p>
+ * Implementations are discovered once per deployment of the Smart Workflow PMV and the projects that
+ * depend on it. A (re-)deployment of any of these projects brings new class loaders, which discards the
+ * registry on the next lookup. Lookups are lock-free; the returned sets are shared and unmodifiable.
+ */
+public class SpiRegistry {
+
+  private static final ProjectCache<Registry> CACHE = new ProjectCache<>();
+
+  private SpiRegistry() {}
+
+  public static <T> Set<T> load(Class<T> type) {
+    return load(SpiProject.getSmartWorkflowPmv(), type);
+  }
+
+  public static <T> Set<T> load(Project pmv, Class<T> type) {
+    var registry = CACHE.get(pmv, Registry::new);
+    if (!registry.scope.matches(pmv.allDependentProjects())) {
+      CACHE.invalidate();
+      registry = CACHE.get(pmv, Registry::new);
+    }
+    return registry.load(pmv, type);
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  private static final class Registry {
+
+    private final ProjectScope scope;
+    private final Map<Class<?>, Set<?>> services = new ConcurrentHashMap<>();
+
+    private Registry(Project pmv) {
+      this.scope = ProjectScope.of(pmv.allDependentProjects());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Set<T> load(Project pmv, Class<T> type) {
+      return (Set<T>) services.computeIfAbsent(type, _ -> Set.copyOf(new SpiLoader(pmv).load(type)));
+    }
+  }
+}
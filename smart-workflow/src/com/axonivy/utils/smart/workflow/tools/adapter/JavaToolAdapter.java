@@ -4,7 +4,9 @@ import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.axonivy.utils.smart.workflow.program.internal.AbortSignal;
 import com.axonivy.utils.smart.workflow.tools.internal.JsonProcessParameters;
+import com.axonivy.utils.smart.workflow.tools.internal.JsonProcessParameters.Binding;
 import com.axonivy.utils.smart.workflow.tools.internal.JsonToolParamBuilder;
 import com.axonivy.utils.smart.workflow.tools.provider.SmartWorkflowTool;
 
@@ -16,14 +18,14 @@ public class JavaToolAdapter {
 
   private final SmartWorkflowTool tool;
   private final JsonToolParamBuilder paramBuilder;
-  private final JsonProcessParameters paramProcessor;
+  private final Binding paramBinding;
 
   public JavaToolAdapter(SmartWorkflowTool tool) {
     this.tool = tool;
 
     var classLoader = tool.getClass().getClassLoader();
     this.paramBuilder = new JsonToolParamBuilder(classLoader);
-    this.paramProcessor = new JsonProcessParameters(classLoader);
+    this.paramBinding = new JsonProcessParameters(classLoader).compile(tool.parameters());
 
   }
 
@@ -37,8 +39,9 @@ public class JavaToolAdapter {
 
   public ToolExecutor toToolExecutor() {
     return (request, _) -> {
+      AbortSignal.current().throwIfAborted();
       try {
-        Map<String, Object> args = paramProcessor.readParams(tool.parameters(), request.arguments());
+        Map<String, Object> args = paramBinding.bind(request.arguments());
         Object result = tool.execute(args);
         return (result instanceof String s) ? s : Json.toJson(result);
       } catch (Exception e) {
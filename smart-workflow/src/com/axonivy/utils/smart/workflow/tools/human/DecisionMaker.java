@@ -1,10 +1,9 @@
 package com.axonivy.utils.smart.workflow.tools.human;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import com.axonivy.utils.smart.workflow.memory.store.BusinessDataMemory;
+import com.axonivy.utils.smart.workflow.memory.store.TieredChatMemoryStore;
 
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.data.message.AiMessage;
@@ -20,7 +19,8 @@ public class DecisionMaker {
   }
 
   public void resolve(String decision) { 
-    var messages = new ArrayList<>(new BusinessDataMemory().getMessages(memoryId));
+    var memory = TieredChatMemoryStore.current();
+    var messages = memory.getMessages(memoryId);
     if (messages.isEmpty()) {
       throw new IllegalStateException("Found no pending ChatMemory for id: " + memoryId);
     }
@@ -34,8 +34,8 @@ public class DecisionMaker {
     }
 
     var result = ToolExecutionResultMessage.from(request.get(), decision);
-    messages.add(result);
-    new BusinessDataMemory().updateMessages(memoryId, messages);
+    memory.appendMessages(memoryId, List.of(result));
+    memory.flush(memoryId);
   }
 
   private static Optional<ToolExecutionRequest> pending(List<ToolExecutionRequest> toolExecutionRequests, List<ChatMessage> messages) {
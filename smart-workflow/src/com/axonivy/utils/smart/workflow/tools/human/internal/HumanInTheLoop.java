@@ -2,9 +2,10 @@ package com.axonivy.utils.smart.workflow.tools.human.internal;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import com.axonivy.utils.smart.workflow.memory.id.IdStore;
-import com.axonivy.utils.smart.workflow.memory.store.BusinessDataMemory;
+import com.axonivy.utils.smart.workflow.memory.store.TieredChatMemoryStore;
 import com.axonivy.utils.smart.workflow.observability.AiListenerProvider;
 
 import ch.ivyteam.ivy.bpm.error.BpmError;
@@ -25,10 +26,19 @@ public class HumanInTheLoop implements AiListenerProvider{
 
   public final IdStore memoryId;
   public final ChatMemoryStore store;
+  private final Supplier<List<ChatMessage>> conversation;
 
   public HumanInTheLoop(IdStore memoryId, ChatMemoryStore store) {
+    this(memoryId, store, () -> store.getMessages(ChatMemoryService.DEFAULT));
+  }
+
+  /**
+   * @param conversation the messages to keep while waiting for the human decision.
+   */
+  public HumanInTheLoop(IdStore memoryId, ChatMemoryStore store, Supplier<List<ChatMessage>> conversation) {
     this.memoryId = memoryId;
     this.store = store;
+    this.conversation = conversation;
   }
 
   @Override
@@ -54,7 +64,7 @@ public class HumanInTheLoop implements AiListenerProvider{
   private class InitListener implements AiServiceStartedListener {
     @Override
     public void onEvent(AiServiceStartedEvent event) {
-      memoryId.id().map(new BusinessDataMemory()::getMessages).ifPresent(msgs -> store.updateMessages(
+      memoryId.id().map(TieredChatMemoryStore.current()::getMessages).ifPresent(msgs -> store.updateMessages(
           ChatMemoryService.DEFAULT, msgs)); // inject from human-in-the-loop
     }
   } 
@@ -65,8 +75,10 @@ public class HumanInTheLoop implements AiListenerProvider{
       if (event.error() instanceof BpmError error) {
         if (error.getAttribute("ai.invocationId") instanceof UUID invocationId) {
           memoryId.id(invocationId.toString()); // share with outer consumers!
-          List<ChatMessage> messages = store.getMessages(ChatMemoryService.DEFAULT);
-          new BusinessDataMemory().updateMessages(invocationId.toString(), messages);
+          List<ChatMessage> messages = conversation.get();
+          var hibernated = TieredChatMemoryStore.current();
+          hibernated.updateMessages(invocationId.toString(), messages);
+          hibernated.flush(invocationId.toString());
         }
       }
     }
@@ -76,7 +88,7 @@ public class HumanInTheLoop implements AiListenerProvider{
     @Override
     public void onEvent(AiServiceCompletedEvent event) {
       memoryId.id().ifPresent(id -> {
-        new BusinessDataMemory().deleteMessages(id);
+        TieredChatMemoryStore.current().deleteMessages(id);
         memoryId.id("");
       });
     }
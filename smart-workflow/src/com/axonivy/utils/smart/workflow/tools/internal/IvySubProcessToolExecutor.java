@@ -1,13 +1,12 @@
 package com.axonivy.utils.smart.workflow.tools.internal;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import com.axonivy.utils.smart.workflow.tools.provider.SmartWorkflowTool.ToolParameter;
+import com.axonivy.utils.smart.workflow.program.internal.AbortSignal;
+import com.axonivy.utils.smart.workflow.tools.internal.IvyToolCatalog.IvyTool;
 
 import ch.ivyteam.ivy.bpm.error.BpmError;
-import ch.ivyteam.ivy.process.call.StartParameter;
 import ch.ivyteam.ivy.process.call.SubProcessCallResult;
 import ch.ivyteam.ivy.process.call.SubProcessCallStartEvent;
 import ch.ivyteam.ivy.process.call.SubProcessCallStartParamCaller;
@@ -18,25 +17,19 @@ import dev.langchain4j.internal.Json;
 public class IvySubProcessToolExecutor {
 
   public static ToolExecutionResultMessage execute(ToolExecutionRequest execTool) {
+    AbortSignal.current().throwIfAborted();
     String name = execTool.name();
 
-    Optional<SubProcessCallStartEvent> startable = IvyToolsProcesses
-        .toolStarts().stream()
-        .filter(start -> start.description().name().equals(name))
-        .findFirst();
+    Optional<IvyTool> tool = IvyToolCatalog.current().find(name);
 
-    if (startable.isEmpty()) {
+    if (tool.isEmpty()) {
       // TODO: how does Agentic error handling look like?
       return ToolExecutionResultMessage.from(execTool, "failed to execute tool; unknown ivy-process function");
     }
 
-    List<ToolParameter> toolParams = startable.get().description().in().stream()
-        .map((StartParameter p) -> new ToolParameter(p.name(), p.description(), p.typeName()))
-        .toList();
-    var parameters = new JsonProcessParameters()
-        .readParams(toolParams, execTool.arguments());
+    var parameters = tool.get().binding().bind(execTool.arguments());
 
-    SubProcessCallResult res = call(startable.get(), parameters);
+    SubProcessCallResult res = call(tool.get().start(), parameters);
     return ToolExecutionResultMessage.from(execTool, Json.toJson(res.asMap()));
   }
 
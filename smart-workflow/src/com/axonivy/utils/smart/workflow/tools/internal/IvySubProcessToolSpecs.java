@@ -13,8 +13,8 @@ import dev.langchain4j.agent.tool.ToolSpecification.Builder;
 public class IvySubProcessToolSpecs {
 
   public static List<ToolSpecification> find() {
-    return IvyToolsProcesses.toolStarts().stream()
-        .map(IvySubProcessToolSpecs::toTool)
+    return IvyToolCatalog.current().all().stream()
+        .map(IvyToolCatalog.IvyTool::specification)
         .toList();
   }
 
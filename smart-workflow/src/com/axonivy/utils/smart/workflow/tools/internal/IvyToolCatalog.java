@@ -0,0 +1,89 @@
+package com.axonivy.utils.smart.workflow.tools.internal;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectCache;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectClassLoader;
+import com.axonivy.utils.smart.workflow.spi.internal.ProjectScope;
+import com.axonivy.utils.smart.workflow.tools.internal.JsonProcessParameters.Binding;
+import com.axonivy.utils.smart.workflow.tools.provider.SmartWorkflowTool.ToolParameter;
+
+import ch.ivyteam.ivy.application.project.Project;
+import ch.ivyteam.ivy.process.call.SubProcessCallStartEvent;
+import dev.langchain4j.agent.tool.ToolSpecification;
+
+/**
+ * Index of the callable sub processes tagged as {@code tool}, which are visible to a project.
+ * <p>
+ * The process search, the tool specifications, parameters and argument bindings are computed once per
+ * deployment of the project and its required projects; tools are then resolved by name in constant time.
+ * A deployment of a required project is noticed within a {@link ProjectScope#CHECK_INTERVAL}, and discards the
+ * catalog of the calling project only.
+ */
+public class IvyToolCatalog {
+
+  private static final ProjectCache<IvyToolCatalog> CACHE = new ProjectCache<>();
+
+  public record IvyTool(SubProcessCallStartEvent start, ToolSpecification specification,
+      List<ToolParameter> parameters, Binding binding) {
+
+    static IvyTool of(SubProcessCallStartEvent start, JsonProcessParameters types) {
+      var params = start.description().in().stream()
+          .map(p -> new ToolParameter(p.name(), p.description(), p.typeName()))
+          .toList();
+      return new IvyTool(start, IvySubProcessToolSpecs.toTool(start), params, types.compile(params));
+    }
+
+    public String name() {
+      return specification.name();
+    }
+  }
+
+  private final ProjectScope scope;
+  private final List<IvyTool> tools;
+  private final Map<String, IvyTool> byName = new HashMap<>();
+
+  private IvyToolCatalog(Project pmv) {
+    this.scope = ProjectScope.of(inScope(pmv));
+    var types = new JsonProcessParameters(ProjectClassLoader.of(pmv));
+    this.tools = IvyToolsProcesses.toolStarts().stream()
+        .map(start -> IvyTool.of(start, types))
+        .sorted(Comparator.comparing(IvyTool::name))
+        .toList();
+    tools.forEach(tool -> byName.putIfAbsent(tool.name(), tool));
+  }
+
+  public static IvyToolCatalog current() {
+    var pmv = Project.current();
+    var catalog = CACHE.get(pmv, IvyToolCatalog::new);
+    if (!catalog.scope.isCurrent(() -> inScope(pmv))) {
+      CACHE.invalidate(pmv);
+      catalog = CACHE.get(pmv, IvyToolCatalog::new);
+    }
+    return catalog;
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  /**
+   * @return all tools, ordered by name.
+   */
+  public List<IvyTool> all() {
+    return tools;
+  }
+
+  public Optional<IvyTool> find(String name) {
+    return Optional.ofNullable(byName.get(name));
+  }
+
+  private static Stream<Project> inScope(Project pmv) {
+    return Stream.concat(Stream.of(pmv), pmv.allRequiredProjects());
+  }
+}
@@ -1,8 +1,12 @@
 package com.axonivy.utils.smart.workflow.tools.internal;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -10,8 +14,10 @@ import com.axonivy.utils.smart.workflow.spi.internal.ProjectClassLoader;
 import com.axonivy.utils.smart.workflow.tools.internal.QualifiedTypeLoader.QType;
 import com.axonivy.utils.smart.workflow.tools.provider.SmartWorkflowTool.ToolParameter;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import ch.ivyteam.api.API;
 
@@ -21,6 +27,7 @@ public class JsonProcessParameters {
   private static final ObjectMapper MAPPER = new ObjectMapper();
 
   private final ClassLoader classLoader;
+  private final Map<String, Optional<ObjectReader>> readers = new ConcurrentHashMap<>();
 
   public JsonProcessParameters() {
     this(ProjectClassLoader.current());
@@ -32,34 +39,126 @@ public class JsonProcessParameters {
   }
 
   public Map<String, Object> readParams(List<ToolParameter> parameters, String rawJsonArgs) {
-    try {
-      if (parameters.isEmpty()) {
-        return Map.of();
-      }
-      return toParams(parameters, MAPPER.readTree(rawJsonArgs));
-    } catch (JsonProcessingException ex) {
-      LOGGER.error("Failed to create parameters from " + rawJsonArgs, ex);
-      return Map.of();
-    }
+    return compile(parameters).bind(rawJsonArgs);
   }
 
   public Map<String, Object> toParams(List<ToolParameter> parameters, JsonNode rawArgs) {
-    var map = new LinkedHashMap<String, Object>();
-    parameters.forEach(p -> map.put(p.name(), toValue(p, rawArgs)));
-    return map;
+    return compile(parameters).bind(rawArgs);
+  }
+
+  /**
+   * Resolves the parameter types of a tool signature once; the returned binding reads arguments
+   * without further class loading or reflection.
+   */
+  public Binding compile(List<ToolParameter> parameters) {
+    var names = new String[parameters.size()];
+    var typeReaders = new ObjectReader[parameters.size()];
+    for (int i = 0; i < names.length; i++) {
+      var parameter = parameters.get(i);
+      names[i] = parameter.name();
+      typeReaders[i] = reader(parameter).orElse(null);
+    }
+    return new Binding(names, typeReaders);
+  }
+
+  private Optional<ObjectReader> reader(ToolParameter parameter) {
+    return readers.computeIfAbsent(String.valueOf(parameter.type()), _ -> {
+      try {
+        var typed = new QualifiedTypeLoader(classLoader).load(new QType(parameter.type()));
+        return Optional.of(MAPPER.readerFor(MAPPER.constructType(typed)));
+      } catch (Exception ex) {
+        LOGGER.error("Failed to load type of variable " + parameter, ex);
+        return Optional.empty();
+      }
+    });
   }
 
-  private Object toValue(ToolParameter parameter, JsonNode rawArgs) {
-    try {
-      var typed = new QualifiedTypeLoader(classLoader).load(new QType(parameter.type()));
-      var jArg = rawArgs.get(parameter.name());
-      if (jArg == null) {
+  /**
+   * Precompiled tool signature, which binds the JSON arguments of a tool call in a single streaming parse.
+   * Unknown arguments are skipped; missing ones, or arguments of an unresolvable type, are bound to {@code null}.
+   */
+  public static final class Binding {
+
+    private final String[] names;
+    private final ObjectReader[] readers;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    private Binding(String[] names, ObjectReader[] readers) {
+      this.names = names;
+      this.readers = readers;
+      for (int i = 0; i < names.length; i++) {
+        index.putIfAbsent(names[i], i);
+      }
+    }
+
+    public Map<String, Object> bind(String rawJsonArgs) {
+      if (names.length == 0) {
+        return Map.of();
+      }
+      try {
+        return toMap(stream(rawJsonArgs));
+      } catch (IOException | RuntimeException ex) {
+        return bindTree(rawJsonArgs);
+      }
+    }
+
+    public Map<String, Object> bind(JsonNode rawArgs) {
+      var values = new Object[names.length];
+      for (int i = 0; i < names.length; i++) {
+        values[i] = value(i, rawArgs.get(names[i]));
+      }
+      return toMap(values);
+    }
+
+    private Object[] stream(String rawJsonArgs) throws IOException {
+      var values = new Object[names.length];
+      try (var parser = MAPPER.createParser(rawJsonArgs)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new IllegalArgumentException("Tool arguments are not a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          Integer i = index.get(parser.currentName());
+          parser.nextToken();
+          if (i == null || readers[i] == null) {
+            parser.skipChildren();
+          } else {
+            values[i] = readers[i].readValue(parser);
+          }
+        }
+      }
+      return values;
+    }
+
+    /**
+     * Tree based fallback, which isolates the failure of a single argument from the others.
+     */
+    private Map<String, Object> bindTree(String rawJsonArgs) {
+      try {
+        return bind(MAPPER.readTree(rawJsonArgs));
+      } catch (JsonProcessingException ex) {
+        LOGGER.error("Failed to create parameters from " + rawJsonArgs, ex);
+        return Map.of();
+      }
+    }
+
+    private Object value(int i, JsonNode jArg) {
+      if (jArg == null || readers[i] == null) {
+        return null;
+      }
+      try {
+        return readers[i].readValue(jArg);
+      } catch (Exception ex) {
+        LOGGER.error("Failed to load value of variable " + names[i], ex);
         return null;
       }
-      return MAPPER.reader().forType(typed).readValue(jArg);
-    } catch (Exception ex) {
-      LOGGER.error("Failed to load value of variable " + parameter, ex);
-      return null;
+    }
+
+    private Map<String, Object> toMap(Object[] values) {
+      var map = new LinkedHashMap<String, Object>();
+      for (int i = 0; i < names.length; i++) {
+        map.put(names[i], values[i]);
+      }
+      return map;
     }
   }
 
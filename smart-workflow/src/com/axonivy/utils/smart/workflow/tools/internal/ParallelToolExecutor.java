@@ -0,0 +1,78 @@
+package com.axonivy.utils.smart.workflow.tools.internal;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.axonivy.utils.smart.workflow.program.internal.AbortSignal;
+import com.axonivy.utils.smart.workflow.utils.IvyContextSnapshot;
+import com.axonivy.utils.smart.workflow.utils.IvyVar;
+
+/**
+ * Runs the tool calls of a single model response side by side on virtual threads.
+ * <p>
+ * A tool call waits for a free slot on the submitting thread, before its virtual thread is started: at most
+ * {@link ParallelToolConf#MAX_CONCURRENCY} tools run at once, and they start in the order the model requested
+ * them. Each thread starts with its own snapshot of the Ivy thread context (request, session, case) of the
+ * submitting agent call, so that callable sub-processes behave as if they were called in sequence.
+ * The order of the tool results is kept by LangChain4j, which collects them in request order.
+ */
+public class ParallelToolExecutor implements Executor {
+
+  private static final int DEFAULT_MAX_CONCURRENCY = 4;
+  private static final long POLL_MILLIS = 250;
+
+  public interface ParallelToolConf {
+    String PREFIX = "AI.Tool.Parallel.";
+    String ENABLED = PREFIX + "Enabled";
+    String MAX_CONCURRENCY = PREFIX + "MaxConcurrency";
+  }
+
+  private final Semaphore permits;
+
+  ParallelToolExecutor(int maxConcurrency) {
+    this.permits = new Semaphore(Math.max(1, maxConcurrency), true);
+  }
+
+  /**
+   * @return an executor for the tool calls of an agent call, if parallel tool execution is enabled.
+   */
+  public static Optional<Executor> ofCurrentContext() {
+    if (!IvyVar.bool(ParallelToolConf.ENABLED)) {
+      return Optional.empty();
+    }
+    return Optional.of(new ParallelToolExecutor(IvyVar.integer(ParallelToolConf.MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY)));
+  }
+
+  @Override
+  public void execute(Runnable tool) {
+    var signal = AbortSignal.current();
+    acquire(signal);
+    try {
+      Thread.ofVirtual()
+          .name("smart-workflow-tool")
+          .start(IvyContextSnapshot.capture().wrap(() -> {
+            try {
+              signal.run(tool);
+            } finally {
+              permits.release();
+            }
+          }));
+    } catch (RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private void acquire(AbortSignal signal) {
+    try {
+      while (!permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        signal.throwIfAborted();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a tool execution slot", ex);
+    }
+  }
+}
@@ -1,12 +1,12 @@
 package com.axonivy.utils.smart.workflow.tools.provider;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.axonivy.utils.smart.workflow.tools.internal.IvySubProcessToolExecutor;
-import com.axonivy.utils.smart.workflow.tools.internal.IvySubProcessToolSpecs;
-import com.axonivy.utils.smart.workflow.tools.internal.IvyToolsProcesses;
+import com.axonivy.utils.smart.workflow.tools.internal.IvyToolCatalog;
+import com.axonivy.utils.smart.workflow.tools.internal.IvyToolCatalog.IvyTool;
 
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.service.tool.ToolExecutor;
@@ -25,13 +25,17 @@ public class IvySubProcessToolsProvider implements ToolProvider {
 
   @Override
   public ToolProviderResult provideTools(ToolProviderRequest provide) {
+    return new ToolProviderResult(tools());
+  }
+
+  public Map<ToolSpecification, ToolExecutor> tools() {
     ToolExecutor executor = (request, _) -> IvySubProcessToolExecutor.execute(request).text(); // TODO; user centric memory interpretation!
-    Map<ToolSpecification, ToolExecutor> tools = new HashMap<>();
-    IvyToolsProcesses.toolStarts().stream()
-        .map(IvySubProcessToolSpecs::toTool)
+    Map<ToolSpecification, ToolExecutor> tools = new LinkedHashMap<>();
+    IvyToolCatalog.current().all().stream() // ordered by name: stable prompt prefix for provider side caching
+        .map(IvyTool::specification)
         .filter(spec -> toolFilter == null || toolFilter.contains(spec.name()))
         .forEach(spec -> tools.put(spec, executor));
-    return new ToolProviderResult(tools);
+    return tools;
   }
 
 }
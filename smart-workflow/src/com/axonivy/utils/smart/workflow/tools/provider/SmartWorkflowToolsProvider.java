@@ -1,12 +1,12 @@
 package com.axonivy.utils.smart.workflow.tools.provider;
 
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
-import com.axonivy.utils.smart.workflow.spi.internal.SpiLoader;
-import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiRegistry;
 import com.axonivy.utils.smart.workflow.tools.adapter.JavaToolAdapter;
 
 import dev.langchain4j.agent.tool.ToolSpecification;
@@ -20,15 +20,15 @@ public interface SmartWorkflowToolsProvider {
   List<SmartWorkflowTool> getTools();
 
   static ToolProviderResult provideTools(List<String> toolFilter) {
-    Map<ToolSpecification, ToolExecutor> tools = new HashMap<>();
-    var pmv = SpiProject.getSmartWorkflowPmv();
-    new SpiLoader(pmv).load(SmartWorkflowToolsProvider.class)
+    Map<ToolSpecification, ToolExecutor> tools = new LinkedHashMap<>();
+    SpiRegistry.load(SmartWorkflowToolsProvider.class)
         .stream()
         .flatMap(provider -> {
           var toolList = provider.getTools();
           return toolList == null ? Stream.empty() : toolList.stream();
         })
         .filter(tool -> toolFilter == null || toolFilter.contains(tool.name()))
+        .sorted(Comparator.comparing(SmartWorkflowTool::name))
         .map(JavaToolAdapter::new)
         .forEach(adapter -> tools.put(adapter.toToolSpecification(), adapter.toToolExecutor()));
     return new ToolProviderResult(tools);
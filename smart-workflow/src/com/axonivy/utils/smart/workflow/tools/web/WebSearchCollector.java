@@ -6,16 +6,14 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
-import com.axonivy.utils.smart.workflow.spi.internal.SpiLoader;
-import com.axonivy.utils.smart.workflow.spi.internal.SpiProject;
+import com.axonivy.utils.smart.workflow.spi.internal.SpiRegistry;
 
 import ch.ivyteam.ivy.environment.Ivy;
 
 public class WebSearchCollector {
 
   public static List<SmartWebSearchEngine> allEngines() {
-    var pmv = SpiProject.getSmartWorkflowPmv();
-    return new SpiLoader(pmv).load(SmartWebSearchEngineProvider.class)
+    return SpiRegistry.load(SmartWebSearchEngineProvider.class)
         .stream()
         .flatMap(provider -> getEngines(provider).stream())
         .collect(Collectors.toList());
@@ -0,0 +1,45 @@
+package com.axonivy.utils.smart.workflow.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ch.ivyteam.util.threadcontext.IvyThreadContext;
+import ch.ivyteam.util.threadcontext.IvyThreadLocal;
+
+/**
+ * The Ivy thread context (request, session, case) of the capturing thread, to be restored on a helper thread.
+ */
+public class IvyContextSnapshot {
+
+  private final Map<IvyThreadLocal<?>, Object> values;
+
+  private IvyContextSnapshot(Map<IvyThreadLocal<?>, Object> values) {
+    this.values = values;
+  }
+
+  public static IvyContextSnapshot capture() {
+    var captured = new LinkedHashMap<IvyThreadLocal<?>, Object>();
+    for (var threadLocal : IvyThreadContext.getIvyThreadLocals()) {
+      var value = threadLocal.get();
+      if (value != null) {
+        captured.put(threadLocal, value);
+      }
+    }
+    return new IvyContextSnapshot(captured);
+  }
+
+  /**
+   * @return the task, running within the captured context. Meant for fresh threads, which are discarded afterwards.
+   */
+  public Runnable wrap(Runnable task) {
+    return () -> {
+      values.forEach(IvyContextSnapshot::restore);
+      task.run();
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void restore(IvyThreadLocal<T> threadLocal, Object value) {
+    threadLocal.set((T) value);
+  }
+}